@@ -32,6 +32,7 @@ import org.openremote.model.attribute.Attribute;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.attribute.AttributeState;
+import org.openremote.model.protocol.InboundValueProcessor;
 import org.openremote.model.protocol.ProtocolAssetService;
 import org.openremote.model.protocol.ProtocolUtil;
 import org.openremote.model.util.Pair;
@@ -50,6 +51,11 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
     private static final System.Logger LOG = System.getLogger(AbstractProtocol.class.getName() + "." + PROTOCOL.name());
     protected final Map<AttributeRef, Attribute<?>> linkedAttributes = new ConcurrentHashMap<>();
     protected final Set<AttributeRef> dynamicAttributes = Collections.synchronizedSet(new HashSet<>());
+    protected final Map<AttributeRef, InboundValueProcessor> inboundValueProcessors = new ConcurrentHashMap<>();
+    // Last update sent for linked attributes whose agent link has inbound update filters
+    protected final Map<AttributeRef, AttributeEvent> lastLinkedAttributeUpdates = new ConcurrentHashMap<>();
+    // Linked attributes that have been written since their last update so the next update bypasses the filters
+    protected final Set<AttributeRef> writtenLinkedAttributes = ConcurrentHashMap.newKeySet();
     protected DefaultCamelContext messageBrokerContext;
     protected ProducerTemplate producerTemplate;
     protected TimerService timerService;
@@ -85,6 +91,9 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
     @Override
     final public void stop(Container container) {
         linkedAttributes.clear();
+        inboundValueProcessors.clear();
+        lastLinkedAttributeUpdates.clear();
+        writtenLinkedAttributes.clear();
         try {
             messageBrokerContext.stopRoute("Actuator-" + getProtocolName(), 1, TimeUnit.MILLISECONDS);
             messageBrokerContext.removeRoute("Actuator-" + getProtocolName());
@@ -107,6 +116,8 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
         // Need to add to map before actual linking as protocols may want to update the value as part of
         // linking process and without entry in the map any update would be blocked
         linkedAttributes.put(attributeRef, attribute);
+        // Compile the inbound value processing once per link rather than for every value
+        inboundValueProcessors.put(attributeRef, InboundValueProcessor.compile(assetId, attribute, agent.getAgentLink(attribute)));
 
         // Check for dynamic placeholders
 
@@ -118,6 +129,7 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
             doLinkAttribute(assetId, attribute, agent.getAgentLink(attribute));
         } catch (Exception e) {
             linkedAttributes.remove(attributeRef);
+            inboundValueProcessors.remove(attributeRef);
             throw new RuntimeException(e);
         }
     }
@@ -128,6 +140,9 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
 
         if (linkedAttributes.remove(attributeRef) != null) {
             dynamicAttributes.remove(attributeRef);
+            inboundValueProcessors.remove(attributeRef);
+            lastLinkedAttributeUpdates.remove(attributeRef);
+            writtenLinkedAttributes.remove(attributeRef);
             doUnlinkAttribute(assetId, attribute, agent.getAgentLink(attribute));
         }
     }
@@ -159,10 +174,21 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
                 return;
             }
 
+            boolean updateOnWrite = agent.isUpdateOnWrite().orElse(false) || agentLink.getUpdateOnWrite().orElse(false);
+
+            if (!updateOnWrite && agentLink.hasUpdateFilter()) {
+                // The device state is expected to change so don't filter the next update against the old baseline
+                writtenLinkedAttributes.add(event.getRef());
+            }
+
             doLinkedAttributeWrite(agent.getAgentLink(event), event, ignoreAndConverted.value);
 
-            if (agent.isUpdateOnWrite().orElse(false) || agentLink.getUpdateOnWrite().orElse(false)) {
-                updateLinkedAttribute(event.getRef(), ignoreAndConverted.value);
+            if (updateOnWrite) {
+                // The written value is always applied and becomes the baseline of the inbound update filters
+                AttributeEvent attributeEvent = createLinkedAttributeEvent(event.getRef(), ignoreAndConverted.value, timerService.getCurrentTimeMillis(), false);
+                if (attributeEvent != null) {
+                    assetService.sendAttributeEvent(attributeEvent);
+                }
             }
         }
     }
@@ -192,23 +218,76 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
 
     @Override
     final public void updateLinkedAttribute(final AttributeRef attributeRef, final Object value, long timestamp) {
+        AttributeEvent attributeEvent = createLinkedAttributeEvent(attributeRef, value, timestamp);
+
+        if (attributeEvent != null) {
+            LOG.log(System.Logger.Level.TRACE, () -> "Sending linked attribute update: " + attributeEvent);
+            assetService.sendAttributeEvent(attributeEvent);
+        }
+    }
+
+    /**
+     * Create a {@link LinkedAttributeUpdateBatch} for collecting all linked attribute updates of a poll or receive cycle
+     * so they can be sent as a single submission; use in a try-with-resources block so the batch is always flushed.
+     */
+    protected LinkedAttributeUpdateBatch createLinkedAttributeUpdateBatch() {
+        return new LinkedAttributeUpdateBatch();
+    }
+
+    /**
+     * Applies standard inbound value processing and the inbound update filters of the {@link AgentLink} to a linked
+     * attribute update; returning the {@link AttributeEvent} to send or null if the update should be ignored.
+     */
+    protected AttributeEvent createLinkedAttributeEvent(final AttributeRef attributeRef, final Object value, long timestamp) {
+        return createLinkedAttributeEvent(attributeRef, value, timestamp, true);
+    }
+
+    /**
+     * As {@link #createLinkedAttributeEvent(AttributeRef, Object, long)} but optionally skipping the inbound update
+     * filters; an update that isn't filtered still becomes the baseline for subsequent filtered updates.
+     */
+    protected AttributeEvent createLinkedAttributeEvent(final AttributeRef attributeRef, final Object value, long timestamp, boolean applyUpdateFilter) {
         Attribute<?> attribute = linkedAttributes.get(attributeRef);
 
         if (attribute == null) {
             LOG.log(System.Logger.Level.WARNING, () -> "Update linked attribute called for un-linked attribute: " + attributeRef);
-            return;
+            return null;
         }
 
-        Pair<Boolean, Object> ignoreAndConverted = ProtocolUtil.doInboundValueProcessing(attributeRef.getId(), attribute, agent.getAgentLink(attribute), value);
+        AgentLink<?> agentLink = agent.getAgentLink(attribute);
+        Object processedValue = inboundValueProcessors
+            .computeIfAbsent(attributeRef, ref -> InboundValueProcessor.compile(ref.getId(), attribute, agentLink))
+            .process(value);
 
-        if (ignoreAndConverted.key) {
-            LOG.log(System.Logger.Level.DEBUG, "Value conversion returned ignore so attribute will not be updated: " + attributeRef);
-            return;
+        if (processedValue == InboundValueProcessor.IGNORE) {
+            LOG.log(System.Logger.Level.DEBUG, () -> "Value conversion returned ignore so attribute will not be updated: " + attributeRef);
+            return null;
+        }
+
+        AttributeEvent attributeEvent = new AttributeEvent(attributeRef, processedValue, timestamp);
+
+        if (!agentLink.hasUpdateFilter()) {
+            return attributeEvent;
         }
 
-        AttributeEvent attributeEvent = new AttributeEvent(attributeRef, ignoreAndConverted.value, timestamp);
-        LOG.log(System.Logger.Level.TRACE, () -> "Sending linked attribute update: " + attributeEvent);
-        assetService.sendAttributeEvent(attributeEvent);
+        // Compare with the last sent update (or the linked attribute state if nothing has been sent yet) atomically
+        AttributeEvent lastEvent = lastLinkedAttributeUpdates.compute(attributeRef, (ref, last) -> {
+            if (writtenLinkedAttributes.remove(ref) || !applyUpdateFilter) {
+                return attributeEvent;
+            }
+            Object lastValue = last != null ? last.getValue().orElse(null) : attribute.getValue().orElse(null);
+            long lastTimestamp = last != null ? last.getTimestamp() : attribute.getTimestamp().orElse(0L);
+            boolean filtered = (last != null || attribute.getTimestamp().isPresent())
+                && ProtocolUtil.isInboundValueFiltered(agentLink, lastValue, lastTimestamp, processedValue, timestamp);
+            return filtered ? last : attributeEvent;
+        });
+
+        if (lastEvent != attributeEvent) {
+            LOG.log(System.Logger.Level.TRACE, () -> "Inbound update filter returned ignore so attribute will not be updated: " + attributeRef);
+            return null;
+        }
+
+        return attributeEvent;
     }
 
     @Override
@@ -255,4 +334,43 @@ public abstract class AbstractProtocol<T extends Agent<T, ?, U>, U extends Agent
      * processedValue but may also choose to use the original value for some purpose if required.
      */
     abstract protected void doLinkedAttributeWrite(U agentLink, AttributeEvent event, Object processedValue);
+
+    /**
+     * Collects linked attribute updates (applying the same processing and filtering as {@link #updateLinkedAttribute})
+     * and sends them as a single submission when {@link #flush}ed or closed; this reduces processing overhead for
+     * protocols that receive many values in one poll or receive cycle.
+     */
+    protected class LinkedAttributeUpdateBatch implements AutoCloseable {
+
+        protected final List<AttributeEvent> events = new ArrayList<>();
+
+        public void updateLinkedAttribute(AttributeRef attributeRef, Object value) {
+            updateLinkedAttribute(attributeRef, value, timerService.getCurrentTimeMillis());
+        }
+
+        public synchronized void updateLinkedAttribute(AttributeRef attributeRef, Object value, long timestamp) {
+            AttributeEvent attributeEvent = createLinkedAttributeEvent(attributeRef, value, timestamp);
+            if (attributeEvent != null) {
+                events.add(attributeEvent);
+            }
+        }
+
+        public synchronized int size() {
+            return events.size();
+        }
+
+        public synchronized void flush() {
+            if (events.isEmpty()) {
+                return;
+            }
+            LOG.log(System.Logger.Level.TRACE, () -> "Sending linked attribute updates: count=" + events.size());
+            assetService.sendAttributeEvents(new ArrayList<>(events));
+            events.clear();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
 }
@@ -22,7 +22,9 @@ package org.openremote.agent.protocol.http;
 import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.InvocationCallback;
 import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedHashMap;
 import jakarta.ws.rs.core.MultivaluedMap;
@@ -57,10 +59,17 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -69,7 +78,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.openremote.container.web.WebTargetBuilder.addHeaders;
-import static org.openremote.container.web.WebTargetBuilder.createClient;
+import static org.openremote.container.web.WebTargetBuilder.createAsyncClient;
 import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
 
 /**
@@ -227,12 +236,79 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
             return invocation.invoke();
         }
 
+        /**
+         * Submit the request without blocking the calling thread; the additional headers (e.g. for conditional
+         * requests) are added to the configured headers.
+         */
+        public CompletableFuture<Response> invokeAsync(String value, MultivaluedMap<String, ?> additionalHeaders) {
+            Invocation.Builder requestBuilder = getRequestBuilder();
+
+            if (additionalHeaders != null) {
+                requestBuilder = addHeaders(requestBuilder, additionalHeaders);
+            }
+
+            return submit(buildInvocation(requestBuilder, value));
+        }
+
+        /**
+         * @return true if every invocation of this request is the same so it can be shared by several attributes
+         */
+        public boolean isShareable() {
+            return !containsDynamicValue && !containsDynamicTime && !pagingEnabled;
+        }
+
         @Override
         public String toString() {
             return client.getUri() + (path != null ? "/" + path : "");
         }
     }
 
+    /**
+     * A polling request that is shared by all linked attributes with the same request (method, URL, headers and body);
+     * the request is executed at the shortest polling interval of these attributes and the response is passed to each
+     * of them. The entity tag and last modified date of the last response are sent with the next request so that
+     * unchanged (304) responses can be skipped; they are cleared whenever an attribute joins the group so the new
+     * member gets a full response.
+     */
+    protected static class PollingGroup {
+        protected final String key;
+        protected final HttpClientRequest clientRequest;
+        protected final Map<AttributeRef, HTTPAgentLink> attributes = new ConcurrentHashMap<>();
+        protected final Map<AttributeRef, Integer> pollingMillis = new HashMap<>();
+        protected final AtomicBoolean inFlight = new AtomicBoolean();
+        // Incremented whenever an attribute joins the group; validators of a response to a request sent before the
+        // last change are not stored
+        protected final AtomicLong membership = new AtomicLong();
+        protected ScheduledFuture<?> pollingTask;
+        protected int currentPollingMillis;
+        protected volatile String entityTag;
+        protected volatile String lastModified;
+
+        public PollingGroup(String key, HttpClientRequest clientRequest) {
+            this.key = key;
+            this.clientRequest = clientRequest;
+        }
+
+        protected MultivaluedMap<String, Object> getConditionalHeaders() {
+            if (entityTag == null && lastModified == null) {
+                return null;
+            }
+            MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+            if (entityTag != null) {
+                headers.add(HttpHeaders.IF_NONE_MATCH, entityTag);
+            }
+            if (lastModified != null) {
+                headers.add(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            return headers;
+        }
+
+        @Override
+        public String toString() {
+            return clientRequest.toString();
+        }
+    }
+
     protected static class PagingResponse extends BuiltResponse {
 
         private PagingResponse(int status, Headers<Object> metadata, Object entity, Annotation[] entityAnnotations) {
@@ -278,10 +354,13 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
     public static final String DEFAULT_CONTENT_TYPE = MediaType.TEXT_PLAIN;
     protected static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, HTTPProtocol.class);
     public static int MIN_POLLING_MILLIS = 5000;
+    public static int CONNECTION_POOL_SIZE = 200;
+    public static int MAX_CONNECTIONS_PER_HOST = 10;
     protected static final AtomicReference<ResteasyClient> client = new AtomicReference<>();
 
     protected final Map<AttributeRef, HttpClientRequest> requestMap = new HashMap<>();
-    protected final Map<AttributeRef, ScheduledFuture<?>> pollingMap = new HashMap<>();
+    protected final Map<String, PollingGroup> pollingGroups = new HashMap<>();
+    protected final Map<AttributeRef, PollingGroup> attributePollingGroups = new HashMap<>();
     protected final Map<AttributeRef, Set<AttributeRef>> pollingLinkedAttributeMap = new HashMap<>();
     protected ResteasyWebTarget webTarget;
 
@@ -293,8 +372,15 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
 
     @Override
     protected void doStop(Container container) {
-        pollingMap.forEach((attributeRef, scheduledFuture) -> scheduledFuture.cancel(true));
-        pollingMap.clear();
+        synchronized (pollingGroups) {
+            pollingGroups.values().forEach(group -> {
+                if (group.pollingTask != null) {
+                    group.pollingTask.cancel(true);
+                }
+            });
+            pollingGroups.clear();
+            attributePollingGroups.clear();
+        }
         requestMap.clear();
     }
 
@@ -326,7 +412,7 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
 
         WebTargetBuilder webTargetBuilder;
         if (readTimeout != null) {
-            webTargetBuilder = new WebTargetBuilder(WebTargetBuilder.createClient(executorService, WebTargetBuilder.CONNECTION_POOL_SIZE, readTimeout.longValue(), null), uri);
+            webTargetBuilder = new WebTargetBuilder(WebTargetBuilder.createAsyncClient(executorService, CONNECTION_POOL_SIZE, MAX_CONNECTIONS_PER_HOST, readTimeout.longValue()), uri);
         } else {
             webTargetBuilder = new WebTargetBuilder(client.get(), uri);
         }
@@ -412,13 +498,8 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
 
         requestMap.put(attributeRef, clientRequest);
 
-        Optional.ofNullable(pollingMillis).ifPresent(seconds ->
-            pollingMap.put(attributeRef, schedulePollingRequest(
-                attributeRef,
-                attribute,
-                agentLink,
-                clientRequest,
-                seconds)));
+        Optional.ofNullable(pollingMillis).ifPresent(millis ->
+            addPollingRequest(attributeRef, agentLink, clientRequest, millis));
     }
 
     @Override
@@ -464,7 +545,7 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
     protected static void initClient() {
         synchronized (client) {
             if (client.get() == null) {
-                client.set(createClient(org.openremote.container.Container.SCHEDULED_EXECUTOR));
+                client.set(createAsyncClient(org.openremote.container.Container.EXECUTOR, CONNECTION_POOL_SIZE, MAX_CONNECTIONS_PER_HOST, WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS));
             }
         }
     }
@@ -481,83 +562,202 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
             timerService::getNow);
     }
 
-    protected ScheduledFuture<?> schedulePollingRequest(AttributeRef attributeRef,
-                                                        Attribute<?> attribute,
-                                                        HTTPAgentLink agentLink,
-                                                        HttpClientRequest clientRequest,
-                                                        int pollingMillis) {
+    /**
+     * Add the attribute to the {@link PollingGroup} for its request; attributes whose request is not
+     * {@link HttpClientRequest#isShareable} or that have a dynamic write value always get their own group.
+     */
+    protected void addPollingRequest(AttributeRef attributeRef, HTTPAgentLink agentLink, HttpClientRequest clientRequest, int pollingMillis) {
+        String key = clientRequest.isShareable() && !dynamicAttributes.contains(attributeRef)
+            ? getPollingKey(clientRequest, agentLink)
+            : attributeRef.toString();
+
+        synchronized (pollingGroups) {
+            PollingGroup group = pollingGroups.computeIfAbsent(key, k -> new PollingGroup(k, clientRequest));
+            group.attributes.put(attributeRef, agentLink);
+            group.pollingMillis.put(attributeRef, pollingMillis);
+            attributePollingGroups.put(attributeRef, group);
+
+            // The new member has no value yet so the next request must not be conditional
+            group.membership.incrementAndGet();
+            group.entityTag = null;
+            group.lastModified = null;
+            updatePollingTask(group);
+        }
+    }
+
+    protected void removePollingRequest(AttributeRef attributeRef) {
+        synchronized (pollingGroups) {
+            PollingGroup group = attributePollingGroups.remove(attributeRef);
+
+            if (group == null) {
+                return;
+            }
+
+            group.attributes.remove(attributeRef);
+            group.pollingMillis.remove(attributeRef);
+
+            if (group.attributes.isEmpty()) {
+                pollingGroups.remove(group.key);
+                if (group.pollingTask != null) {
+                    group.pollingTask.cancel(false);
+                }
+            } else {
+                updatePollingTask(group);
+            }
+        }
+    }
+
+    protected static String getPollingKey(HttpClientRequest clientRequest, HTTPAgentLink agentLink) {
+        return clientRequest.method
+            + " " + clientRequest.requestTarget.getUri()
+            + " " + clientRequest.contentType
+            + " " + (clientRequest.headers != null ? new TreeMap<>(clientRequest.headers) : "")
+            + " " + agentLink.getWriteValue().orElse("");
+    }
 
-        LOG.fine("Scheduling polling request '" + clientRequest + "' to execute every " + pollingMillis + " ms for attribute: " + attribute);
+    // (Re)schedule the group if its shortest polling interval has changed
+    protected void updatePollingTask(PollingGroup group) {
+        int pollingMillis = group.pollingMillis.values().stream().mapToInt(Integer::intValue).min().orElse(MIN_POLLING_MILLIS);
+
+        if (group.pollingTask != null && group.currentPollingMillis == pollingMillis) {
+            return;
+        }
+
+        if (group.pollingTask != null) {
+            group.pollingTask.cancel(false);
+        }
+
+        group.currentPollingMillis = pollingMillis;
+        group.pollingTask = schedulePollingRequest(group, pollingMillis);
+    }
+
+    /**
+     * Schedule the polling of the group; the request is submitted asynchronously so the scheduled executor thread is
+     * never blocked waiting for the response and a poll is skipped whilst the previous request is still in progress.
+     */
+    protected ScheduledFuture<?> schedulePollingRequest(PollingGroup group, int pollingMillis) {
+
+        LOG.fine("Scheduling polling request '" + group + "' to execute every " + pollingMillis + " ms for attributes: " + group.attributes.keySet());
 
         return scheduledExecutorService.scheduleWithFixedDelay(() -> {
 
+            if (!group.inFlight.compareAndSet(false, true)) {
+                LOG.finest(() -> prefixLogMessage("Previous polling request still in progress so skipping: " + group));
+                return;
+            }
+
             try {
+                // All attributes in a shared group have the same write value so any of them can be used
+                Map.Entry<AttributeRef, HTTPAgentLink> attributeAndLink = group.attributes.entrySet().stream().findFirst().orElse(null);
+
+                if (attributeAndLink == null) {
+                    group.inFlight.set(false);
+                    return;
+                }
+
                 Pair<Boolean, Object> ignoreAndConverted = ProtocolUtil.doOutboundValueProcessing(
-                    attributeRef,
-                    agentLink,
-                    agentLink.getWriteValue().orElse(null),
-                    dynamicAttributes.contains(attributeRef),
+                    attributeAndLink.getKey(),
+                    attributeAndLink.getValue(),
+                    attributeAndLink.getValue().getWriteValue().orElse(null),
+                    dynamicAttributes.contains(attributeAndLink.getKey()),
                     timerService.getNow());
 
                 if (ignoreAndConverted.key) {
-                    LOG.log(Level.FINER, "Value conversion returned ignore so attribute will not write to protocol: " + attributeRef);
+                    LOG.log(Level.FINER, "Value conversion returned ignore so attribute will not write to protocol: " + attributeAndLink.getKey());
+                    group.inFlight.set(false);
                     return;
                 }
 
                 String valueStr = ignoreAndConverted.value == null ? null : ValueUtil.convert(ignoreAndConverted.value, String.class);
+                long membership = group.membership.get();
+
+                executePollingRequest(group.clientRequest, valueStr, group.getConditionalHeaders())
+                    .whenCompleteAsync((response, ex) -> {
+                        try {
+                            if (ex != null) {
+                                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                                LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst doing polling request [" + cause.getMessage() + "]: " + group));
+                            } else {
+                                onPollingResponse(group, response, membership);
+                            }
+                        } catch (Exception e) {
+                            LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst processing polling response [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + group));
+                        } finally {
+                            if (response != null) {
+                                response.close();
+                            }
+                            group.inFlight.set(false);
+                        }
+                    }, executorService);
+            } catch (Exception e) {
+                group.inFlight.set(false);
+                LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst doing polling request [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + group));
+            }
+        }, 0, pollingMillis, TimeUnit.MILLISECONDS);
+    }
 
-                executePollingRequest(clientRequest, valueStr, response -> {
+    protected CompletableFuture<Response> executePollingRequest(HttpClientRequest clientRequest, String body, MultivaluedMap<String, ?> conditionalHeaders) {
+        CompletableFuture<Response> responseFuture = clientRequest.invokeAsync(body, clientRequest.pagingEnabled ? null : conditionalHeaders);
+
+        if (!clientRequest.pagingEnabled) {
+            return responseFuture;
+        }
+
+        return responseFuture.thenCompose(originalResponse -> {
+            List<String> entities = new ArrayList<>();
+            entities.add(originalResponse.readEntity(String.class));
+            URI nextUri = getNextPageUri(originalResponse);
+
+            return executePagingRequests(clientRequest, nextUri, entities)
+                .handle((v, ex) -> {
                     try {
-                        onPollingResponse(
-                            clientRequest,
-                            response,
-                            attributeRef,
-                            agentLink);
-                    } catch (Exception e) {
-                        LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst processing polling response [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + clientRequest.requestTarget.getUriBuilder().build().toString()));
+                        if (ex != null) {
+                            throw ex instanceof CompletionException completionException ? completionException : new CompletionException(ex);
+                        }
+                        return PagingResponse.fromResponse(originalResponse).entity(entities).build();
+                    } finally {
+                        originalResponse.close();
                     }
                 });
-            } catch (Exception e) {
-                LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst processing polling response [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + clientRequest.requestTarget.getUriBuilder().build().toString()));
-            }
-        }, 0, pollingMillis, TimeUnit.MILLISECONDS);
+        });
     }
 
-    protected void executePollingRequest(HttpClientRequest clientRequest, String body, Consumer<Response> responseConsumer) {
-        Response originalResponse = null, lastResponse = null;
-        List<String> entities = new ArrayList<>();
+    protected CompletableFuture<Void> executePagingRequests(HttpClientRequest clientRequest, URI nextUri, List<String> entities) {
+        if (nextUri == null) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-        try {
-            originalResponse = clientRequest.invoke(body);
-            if (clientRequest.pagingEnabled) {
-                lastResponse = originalResponse;
-                entities.add(lastResponse.readEntity(String.class));
-                while ((lastResponse = executePagingRequest(clientRequest, lastResponse)) != null) {
-                    entities.add(lastResponse.readEntity(String.class));
-                    lastResponse.close();
+        return submit(clientRequest.client.register(new PaginationFilter(nextUri)).request().build(clientRequest.method))
+            .thenCompose(response -> {
+                URI uri;
+                try {
+                    entities.add(response.readEntity(String.class));
+                    uri = getNextPageUri(response);
+                } finally {
+                    response.close();
                 }
-                originalResponse = PagingResponse.fromResponse(originalResponse).entity(entities).build();
-            }
+                return executePagingRequests(clientRequest, uri, entities);
+            });
+    }
 
-            responseConsumer.accept(originalResponse);
-        } catch (Exception e) {
-            LOG.log(Level.WARNING, prefixLogMessage("Exception thrown whilst doing polling request [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + clientRequest.requestTarget.getUriBuilder().build().toString()));
-        } finally {
-            if (originalResponse != null) {
-                originalResponse.close();
-            }
-            if (lastResponse != null) {
-                lastResponse.close();
-            }
-        }
+    protected static URI getNextPageUri(Response response) {
+        return response.hasLink("next") ? response.getLink("next").getUri() : null;
     }
 
-    protected Response executePagingRequest(HttpClientRequest clientRequest, Response response) {
-        if (response.hasLink("next")) {
-            URI nextUrl = response.getLink("next").getUri();
-            return clientRequest.client.register(new PaginationFilter(nextUrl)).request().build(clientRequest.method).invoke();
-        }
-        return null;
+    protected static CompletableFuture<Response> submit(Invocation invocation) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        invocation.submit(new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
     }
 
     protected void executeAttributeWriteRequest(HttpClientRequest clientRequest,
@@ -578,44 +778,71 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
         }
     }
 
-    protected void onPollingResponse(HttpClientRequest request,
-                                     Response response,
-                                     AttributeRef attributeRef,
-                                     HTTPAgentLink agentLink) {
+    protected void onPollingResponse(PollingGroup group, Response response, long membership) {
 
         int responseCode = response != null ? response.getStatus() : 500;
-        Object value = null;
 
-        if (response != null && response.hasEntity() && response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
-            try {
+        if (responseCode == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            LOG.finest(() -> prefixLogMessage("Polling response not modified so skipping: " + group));
+            return;
+        }
+
+        if (response == null || !response.hasEntity() || response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            LOG.fine(prefixLogMessage("Request returned an un-successful response code (" + responseCode + "):" + group.clientRequest.requestTarget.getUriBuilder().build().toString()));
+            return;
+        }
+
+        Object pagedValue = null;
+        byte[] bytes = null;
+
+        try {
+            if (response instanceof PagingResponse) {
+                pagedValue = response.readEntity(String.class);
+            } else {
+                bytes = response.readEntity(byte[].class);
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Error occurred whilst trying to read response body", e);
+            return;
+        }
+
+        if (group.membership.get() == membership) {
+            group.entityTag = response.getHeaderString(HttpHeaders.ETAG);
+            group.lastModified = response.getHeaderString(HttpHeaders.LAST_MODIFIED);
+        }
+
+        Charset charset = Optional.ofNullable(response.getMediaType())
+            .map(mediaType -> mediaType.getParameters().get(MediaType.CHARSET_PARAMETER))
+            .map(Charset::forName)
+            .orElse(StandardCharsets.UTF_8);
+
+        for (Map.Entry<AttributeRef, HTTPAgentLink> attributeAndLink : group.attributes.entrySet()) {
+            Object value = pagedValue;
+
+            if (bytes != null) {
+                HTTPAgentLink agentLink = attributeAndLink.getValue();
                 boolean binaryMode = agent.getMessageConvertBinary().orElse(agentLink.isMessageConvertBinary());
                 boolean hexMode = agent.getMessageConvertHex().orElse(agentLink.isMessageConvertHex());
 
                 if (hexMode || binaryMode) {
-                    byte[] bytes = response.readEntity(byte[].class);
                     value = hexMode ? ValueUtil.bytesToHexString(bytes) : ValueUtil.bytesToBinaryString(bytes);
                 } else {
-                    value = response.readEntity(String.class);
+                    value = new String(bytes, charset);
                 }
-            } catch (Exception e) {
-                LOG.log(Level.WARNING, "Error occurred whilst trying to read response body", e);
-                response.close();
             }
-        } else {
-            LOG.fine(prefixLogMessage("Request returned an un-successful response code (" + responseCode + "):" + request.requestTarget.getUriBuilder().build().toString()));
-            return;
+
+            onPollingResponse(attributeAndLink.getKey(), value);
         }
+    }
 
-        if (attributeRef != null) {
-            updateLinkedAttribute(attributeRef, value);
+    protected void onPollingResponse(AttributeRef attributeRef, Object value) {
+        updateLinkedAttribute(attributeRef, value);
 
-            // Look for any attributes that also want to use this polling response
-            synchronized (pollingLinkedAttributeMap) {
-                Set<AttributeRef> linkedRefs = pollingLinkedAttributeMap.get(attributeRef);
-                if (linkedRefs != null) {
-                    Object finalValue = value;
-                    linkedRefs.forEach(ref -> updateLinkedAttribute(ref, finalValue));
-                }
+        // Look for any attributes that also want to use this polling response
+        synchronized (pollingLinkedAttributeMap) {
+            Set<AttributeRef> linkedRefs = pollingLinkedAttributeMap.get(attributeRef);
+            if (linkedRefs != null) {
+                linkedRefs.forEach(ref -> updateLinkedAttribute(ref, value));
             }
         }
     }
@@ -629,10 +856,7 @@ public class HTTPProtocol extends AbstractProtocol<HTTPAgent, HTTPAgentLink> {
     }
 
     protected void cancelPolling(AttributeRef attributeRef) {
-        ScheduledFuture<?> pollTask = pollingMap.remove(attributeRef);
-        if (pollTask != null) {
-            pollTask.cancel(false);
-        }
+        removePollingRequest(attributeRef);
     }
 
 }
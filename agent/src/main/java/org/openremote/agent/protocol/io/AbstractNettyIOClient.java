@@ -177,7 +177,13 @@ public abstract class AbstractNettyIOClient<T, U extends SocketAddress> implemen
 
     protected abstract Class<? extends Channel> getChannelClass();
 
-    protected abstract EventLoopGroup getWorkerGroup();
+    /**
+     * Get the {@link EventLoopGroup} for this client; by default the {@link NettyEventLoopService#getSharedGroup} is
+     * used, clients that require a dedicated group can override this and the group will be shut down on disconnect.
+     */
+    protected EventLoopGroup getWorkerGroup() {
+        return NettyEventLoopService.getSharedGroup();
+    }
 
     /**
      * Start the actual connection and return a future indicating completion state. Implementors can also
@@ -288,7 +294,9 @@ public abstract class AbstractNettyIOClient<T, U extends SocketAddress> implemen
         doDisconnect();
         try {
             if (workerGroup != null) {
-                workerGroup.shutdownGracefully();
+                if (!NettyEventLoopService.isSharedGroup(workerGroup)) {
+                    workerGroup.shutdownGracefully();
+                }
                 workerGroup = null;
             }
         } catch (Exception ignored) {}
@@ -397,7 +405,8 @@ public abstract class AbstractNettyIOClient<T, U extends SocketAddress> implemen
             }
 
             if (reconnect) {
-                doReconnect();
+                // Don't block the event loop as it is shared with other clients
+                executorService.execute(this::doReconnect);
             }
         });
 
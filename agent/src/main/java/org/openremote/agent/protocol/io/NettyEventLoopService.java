@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.io;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.openremote.container.concurrent.ContainerThreadFactory;
+import org.openremote.model.Container;
+import org.openremote.model.ContainerService;
+import org.openremote.model.syslog.SyslogCategory;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+import static org.openremote.container.util.MapAccess.getInteger;
+import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
+
+/**
+ * Provides a container wide NIO {@link EventLoopGroup} that is shared by all {@link AbstractNettyIOClient}s so the
+ * number of selector threads doesn't grow with the number of clients; each client still has its own channel, pipeline
+ * and reconnect logic. The group size is set by {@link #OR_IO_EVENT_LOOP_THREADS}.
+ * <p>
+ * The group is created on first use (so clients can also be used outside of a container) and is shut down when this
+ * service is stopped; it is stopped last so that other services can disconnect their clients first. Nothing must
+ * block on the event loop threads as that would stall every client assigned to the same event loop.
+ */
+public class NettyEventLoopService implements ContainerService {
+
+    public static final int PRIORITY = ContainerService.HIGH_PRIORITY + 200;
+    public static final String OR_IO_EVENT_LOOP_THREADS = "OR_IO_EVENT_LOOP_THREADS";
+    public static final int OR_IO_EVENT_LOOP_THREADS_DEFAULT = Runtime.getRuntime().availableProcessors();
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, NettyEventLoopService.class);
+    protected static int threads = OR_IO_EVENT_LOOP_THREADS_DEFAULT;
+    protected static EventLoopGroup sharedGroup;
+
+    /**
+     * Get the shared event loop group; clients must not shut this group down.
+     */
+    public static synchronized EventLoopGroup getSharedGroup() {
+        if (sharedGroup == null || sharedGroup.isShuttingDown()) {
+            LOG.fine("Creating shared IO event loop group: threads=" + threads);
+            sharedGroup = new NioEventLoopGroup(threads, new ContainerThreadFactory("IOEventLoop"));
+        }
+        return sharedGroup;
+    }
+
+    public static synchronized boolean isSharedGroup(EventLoopGroup group) {
+        return group != null && group == sharedGroup;
+    }
+
+    protected static synchronized void shutdownSharedGroup() {
+        if (sharedGroup != null) {
+            LOG.fine("Shutting down shared IO event loop group");
+            sharedGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).awaitUninterruptibly(5, TimeUnit.SECONDS);
+            sharedGroup = null;
+        }
+    }
+
+    /**
+     * @return The specified metric of an event loop of the shared group or 0 if the group doesn't exist
+     */
+    protected static synchronized int getEventLoopMetric(int index, ToIntFunction<SingleThreadEventLoop> metric) {
+        if (sharedGroup == null) {
+            return 0;
+        }
+        Iterator<EventExecutor> executors = sharedGroup.iterator();
+        for (int i = 0; executors.hasNext(); i++) {
+            EventExecutor executor = executors.next();
+            if (i == index && executor instanceof SingleThreadEventLoop eventLoop) {
+                return metric.applyAsInt(eventLoop);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void init(Container container) throws Exception {
+        synchronized (NettyEventLoopService.class) {
+            threads = Math.max(1, getInteger(container.getConfig(), OR_IO_EVENT_LOOP_THREADS, OR_IO_EVENT_LOOP_THREADS_DEFAULT));
+        }
+
+        if (container.getMeterRegistry() != null) {
+            // Pending tasks growing on an event loop indicates it is saturated
+            for (int i = 0; i < threads; i++) {
+                int index = i;
+                Gauge.builder("or.io.eventloop.pending.tasks", () -> getEventLoopMetric(index, SingleThreadEventLoop::pendingTasks))
+                    .tags(Tags.of("loop", Integer.toString(index)))
+                    .register(container.getMeterRegistry());
+                Gauge.builder("or.io.eventloop.channels", () -> getEventLoopMetric(index, SingleThreadEventLoop::registeredChannels))
+                    .tags(Tags.of("loop", Integer.toString(index)))
+                    .register(container.getMeterRegistry());
+            }
+        }
+    }
+
+    @Override
+    public void start(Container container) throws Exception {
+    }
+
+    @Override
+    public void stop(Container container) throws Exception {
+        shutdownSharedGroup();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "threads=" + threads +
+            '}';
+    }
+}
@@ -13,10 +13,14 @@ import org.openremote.model.syslog.SyslogCategory;
 import org.openremote.model.util.ValueUtil;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,8 +34,23 @@ public abstract class AbstractModbusProtocol<S extends AbstractModbusProtocol<S,
     // Modifié la constante de polling
     public static final int DEFAULT_MODBUS_POLLING_INTERVAL = 1000;
 
-    // Renommé la map pour plus de clarté
-    protected final Map<AttributeRef, ScheduledFuture<?>> attributePollingTasks = new HashMap<>();
+    // Points liés regroupés par unité, type de lecture et intervalle; une seule tâche de polling par groupe
+    protected final Map<ModbusPollPlanner.PollGroup, PollGroupState> pollGroups = new HashMap<>();
+    protected final Map<AttributeRef, ModbusPollPlanner.PollGroup> attributePollGroups = new HashMap<>();
+    protected final ModbusPollPlanner pollPlanner = new ModbusPollPlanner();
+    // Nombre total de requêtes de lecture envoyées, utile pour vérifier la fusion des lectures
+    protected final AtomicLong readRequestCount = new AtomicLong();
+
+    /**
+     * État d'un groupe de polling: le plan de lecture est recalculé paresseusement par la tâche de polling après un
+     * ajout ou un retrait de point pour éviter de replanifier à chaque liaison d'attribut.
+     */
+    protected static class PollGroupState {
+        protected final Map<AttributeRef, ModbusPollPlanner.Point> points = new LinkedHashMap<>();
+        protected final AtomicInteger inFlight = new AtomicInteger();
+        protected volatile List<ModbusPollPlanner.ReadBatch> plan;
+        protected ScheduledFuture<?> pollingTask;
+    }
 
     // Renommé le client pour plus de clarté
     protected PlcConnection plc4xConnection = null;
@@ -62,6 +81,16 @@ public abstract class AbstractModbusProtocol<S extends AbstractModbusProtocol<S,
 
     @Override
     protected void doStop(Container container) throws Exception {
+        synchronized (pollGroups) {
+            pollGroups.values().forEach(state -> {
+                if (state.pollingTask != null) {
+                    state.pollingTask.cancel(false);
+                }
+            });
+            pollGroups.clear();
+            attributePollGroups.clear();
+        }
+
         // Fermeture de la connexion PLC4X
         if (plc4xConnection != null) {
             plc4xConnection.close();
@@ -71,20 +100,47 @@ public abstract class AbstractModbusProtocol<S extends AbstractModbusProtocol<S,
     @Override
     protected void doLinkAttribute(String assetId, Attribute<?> attribute, ModbusAgentLink agentLink) throws RuntimeException {
         AttributeRef ref = new AttributeRef(assetId, attribute.getName());
-        int unitId = agentLink.getUnitId();
-        int readAddress = agentLink.getReadAddress();
 
-        // Utilisation d'une méthode différente pour planifier les requêtes
-        ScheduledFuture<?> pollingTask = createPollingTask(ref, attribute, ((int) agentLink.getRefresh()), unitId, agentLink.getReadType(), readAddress);
-        attributePollingTasks.put(ref, pollingTask);
+        if (agentLink.getReadType() == null) {
+            return;
+        }
+
+        ModbusPollPlanner.PollGroup group = ModbusPollPlanner.getPollGroup(agentLink);
+        ModbusPollPlanner.Point point = ModbusPollPlanner.createPoint(ref, agentLink, attribute.getTypeClass());
+
+        synchronized (pollGroups) {
+            attributePollGroups.put(ref, group);
+            PollGroupState state = pollGroups.computeIfAbsent(group, g -> new PollGroupState());
+            state.points.put(ref, point);
+            state.plan = null;
+
+            if (state.pollingTask == null) {
+                state.pollingTask = createPollingTask(group, state);
+            }
+        }
     }
 
     @Override
     protected void doUnlinkAttribute(String assetId, Attribute<?> attribute, ModbusAgentLink agentLink) {
         AttributeRef attributeRef = new AttributeRef(assetId, attribute.getName());
-        ScheduledFuture<?> pollTask = attributePollingTasks.remove(attributeRef);
-        if (pollTask != null) {
-            pollTask.cancel(false);
+
+        synchronized (pollGroups) {
+            ModbusPollPlanner.PollGroup group = attributePollGroups.remove(attributeRef);
+            PollGroupState state = group != null ? pollGroups.get(group) : null;
+
+            if (state == null) {
+                return;
+            }
+
+            state.points.remove(attributeRef);
+            state.plan = null;
+
+            if (state.points.isEmpty()) {
+                pollGroups.remove(group);
+                if (state.pollingTask != null) {
+                    state.pollingTask.cancel(false);
+                }
+            }
         }
     }
 
@@ -159,72 +215,94 @@ public abstract class AbstractModbusProtocol<S extends AbstractModbusProtocol<S,
         return "modbus-tcp://" + agent.getHost().orElse("inconnu") + ":" + agent.getPort().orElse(0);
     }
 
-    // Méthode renommée et modifiée pour créer une tâche de polling
-    protected ScheduledFuture<?> createPollingTask(AttributeRef ref,
-                                                   Attribute<?> attribute,
-                                                   int pollingMillis,
-                                                   int unitId,
-                                                   ModbusAgentLink.ReadType readType,
-                                                   int readAddress) {
+    /**
+     * Planifie une tâche de polling pour un groupe; à chaque cycle les lectures fusionnées du groupe sont envoyées de
+     * manière asynchrone et les réponses sont traitées à leur arrivée, aucun thread de l'exécuteur n'attend donc les
+     * entrées/sorties. Un cycle est ignoré tant que des lectures du cycle précédent sont en cours.
+     */
+    protected ScheduledFuture<?> createPollingTask(ModbusPollPlanner.PollGroup group, PollGroupState state) {
 
-        LOG.warning("Planification de la requête de polling à exécuter toutes les " + pollingMillis + " ms pour l'attribut: " + attribute);
+        LOG.fine("Planification du polling toutes les " + group.pollingMillis() + " ms pour le groupe: " + group);
 
         return scheduledExecutorService.scheduleWithFixedDelay(() -> {
             try {
-                // Création d'une requête de lecture PLC4X
-                PlcReadRequest.Builder builder = plc4xConnection.readRequestBuilder();
-
-                // Nom de tag différent pour chaque type de lecture
-                String tagName;
-
-                switch (readType) {
-                    case COIL:
-                        tagName = "coilData";
-                        builder.addTagAddress(tagName, "coil:" + readAddress + "[1]");
-                        break;
-                    case DISCRETE:
-                        tagName = "discreteData";
-                        builder.addTagAddress(tagName, "discrete-input:" + readAddress + "[1]");
-                        break;
-                    case HOLDING:
-                        tagName = "holdingData";
-                        builder.addTagAddress(tagName, "holding-register:" + readAddress + "[1]");
-                        break;
-                    case INPUT:
-                        tagName = "inputData";
-                        builder.addTagAddress(tagName, "input-register:" + readAddress + "[1]");
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Type de lecture non supporté: " + readType);
+                if (state.inFlight.get() > 0) {
+                    LOG.finest(() -> prefixLogMessage("Lectures du cycle précédent en cours, cycle ignoré pour le groupe: " + group));
+                    return;
                 }
 
-                PlcReadRequest readRequest = builder.build();
-                PlcReadResponse response = readRequest.execute().get();
-
-                // Extraction de la valeur de la réponse en fonction du type de lecture
-                Object value = null;
-                switch (readType) {
-                    case COIL:
-                        value = response.getBoolean("coilData", 0);
-                        break;
-                    case DISCRETE:
-                        value = response.getBoolean("discreteData", 0);
-                        break;
-                    case HOLDING:
-                        value = response.getInteger("holdingData", 0);
-                        break;
-                    case INPUT:
-                        value = response.getInteger("inputData", 0);
-                        break;
+                List<ModbusPollPlanner.ReadBatch> plan = state.plan;
+                if (plan == null) {
+                    synchronized (pollGroups) {
+                        plan = pollPlanner.plan(group, state.points.values());
+                        state.plan = plan;
+                    }
+                    LOG.fine(prefixLogMessage("Plan de polling du groupe " + group + ": " + state.points.size() + " point(s) en " + plan.size() + " lecture(s)"));
                 }
 
-                Optional<?> coercedResponse = ValueUtil.getValueCoerced(value, attribute.getTypeClass());
-                LOG.fine("Valeur reçue: " + value);
-                updateLinkedAttribute(ref, coercedResponse);
+                for (ModbusPollPlanner.ReadBatch batch : plan) {
+                    executeRead(batch, state);
+                }
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, prefixLogMessage("Exception lors du polling du groupe " + group + ": " + e.getMessage()), e);
+            }
+        }, 0, group.pollingMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    protected void executeRead(ModbusPollPlanner.ReadBatch batch, PollGroupState state) {
+        PlcReadRequest readRequest = plc4xConnection.readRequestBuilder()
+            .addTagAddress("data", batch.getTagAddress())
+            .build();
+
+        state.inFlight.incrementAndGet();
+        readRequestCount.incrementAndGet();
+
+        readRequest.execute().whenComplete((response, error) -> {
+            state.inFlight.decrementAndGet();
+
+            if (error != null) {
+                LOG.log(Level.WARNING, prefixLogMessage("Exception lors de la lecture " + batch.getTagAddress() + ": " + error.getMessage()), error);
+                return;
+            }
+
+            try {
+                onReadResponse(batch, response);
             } catch (Exception e) {
                 LOG.log(Level.WARNING, prefixLogMessage("Exception lors du traitement de la réponse de polling: " + e.getMessage()), e);
             }
-        }, 0, pollingMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    // Redistribue les valeurs d'une lecture fusionnée à chaque attribut
+    protected void onReadResponse(ModbusPollPlanner.ReadBatch batch, PlcReadResponse response) {
+        boolean bits = batch.group().readType() == ModbusAgentLink.ReadType.COIL
+            || batch.group().readType() == ModbusAgentLink.ReadType.DISCRETE;
+        int[] registers = null;
+
+        if (!bits) {
+            registers = new int[batch.count()];
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = response.getInteger("data", i);
+            }
+        }
+
+        // Toutes les valeurs d'une lecture sont envoyées en une seule soumission
+        try (LinkedAttributeUpdateBatch updates = createLinkedAttributeUpdateBatch()) {
+            for (ModbusPollPlanner.Point point : batch.points()) {
+                int offset = batch.getOffset(point);
+                Object value = bits
+                    ? response.getBoolean("data", offset)
+                    : ModbusPollPlanner.decodeRegisters(registers, offset, point.valueType());
+
+                Optional<?> coercedResponse = ValueUtil.getValueCoerced(value, point.typeClass());
+                LOG.finest(() -> "Valeur reçue pour " + point.ref() + ": " + value);
+                updates.updateLinkedAttribute(point.ref(), coercedResponse.orElse(null));
+            }
+        }
+    }
+
+    public long getReadRequestCount() {
+        return readRequestCount.get();
     }
 
     protected abstract PlcConnection createIoClient(T agent) throws RuntimeException;
@@ -0,0 +1,167 @@
+package org.openremote.agent.protocol.modbus;
+
+import org.openremote.model.attribute.AttributeRef;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.openremote.agent.protocol.modbus.ModbusAgentLink.ReadType;
+import static org.openremote.agent.protocol.modbus.ModbusAgentLink.ReadValueType;
+
+/**
+ * Planifie le polling des attributs liés à un agent Modbus: les points sont regroupés par identifiant d'unité, type de
+ * lecture et intervalle de polling ({@link PollGroup}) puis les adresses contiguës ou proches d'un groupe sont fusionnées
+ * en lectures multiples ({@link ReadBatch}) dans la limite du protocole (125 registres ou 2000 bits par requête). Les
+ * valeurs de chaque lecture sont ensuite redistribuées aux points avec {@link #decodeRegisters} ou
+ * {@link ReadBatch#getOffset}.
+ */
+public class ModbusPollPlanner {
+
+    public static final int MAX_REGISTERS_PER_READ = 125;
+    public static final int MAX_BITS_PER_READ = 2000;
+    // Nombre maximum d'adresses inutilisées lues entre deux points pour éviter une requête supplémentaire
+    public static final int DEFAULT_MAX_GAP = 8;
+
+    public record PollGroup(int unitId, ReadType readType, long pollingMillis) {
+    }
+
+    public record Point(AttributeRef ref, int address, int count, ReadValueType valueType, Class<?> typeClass) {
+    }
+
+    public record ReadBatch(PollGroup group, int address, int count, List<Point> points) {
+
+        /**
+         * @return L'adresse de tag PLC4X couvrant toute la plage de la lecture
+         */
+        public String getTagAddress() {
+            String prefix = switch (group.readType()) {
+                case COIL -> "coil:";
+                case DISCRETE -> "discrete-input:";
+                case HOLDING -> "holding-register:";
+                case INPUT -> "input-register:";
+            };
+            return prefix + address + "[" + count + "]";
+        }
+
+        /**
+         * @return L'index de la première valeur du point dans la réponse de cette lecture
+         */
+        public int getOffset(Point point) {
+            return point.address() - address;
+        }
+    }
+
+    protected final int maxGap;
+
+    public ModbusPollPlanner() {
+        this(DEFAULT_MAX_GAP);
+    }
+
+    public ModbusPollPlanner(int maxGap) {
+        this.maxGap = Math.max(0, maxGap);
+    }
+
+    public static PollGroup getPollGroup(ModbusAgentLink agentLink) {
+        long pollingMillis = agentLink.getRefresh() > 0 ? agentLink.getRefresh() : AbstractModbusProtocol.DEFAULT_MODBUS_POLLING_INTERVAL;
+        return new PollGroup(agentLink.getUnitId(), agentLink.getReadType(), pollingMillis);
+    }
+
+    public static Point createPoint(AttributeRef ref, ModbusAgentLink agentLink, Class<?> typeClass) {
+        return new Point(
+            ref,
+            agentLink.getReadAddress(),
+            getValueCount(agentLink.getReadType(), agentLink.getReadValueType()),
+            agentLink.getReadValueType(),
+            typeClass);
+    }
+
+    /**
+     * @return Le nombre de bits ou de registres à lire pour une valeur du type spécifié
+     */
+    public static int getValueCount(ReadType readType, ReadValueType valueType) {
+        if (readType == ReadType.COIL || readType == ReadType.DISCRETE || valueType == null) {
+            return 1;
+        }
+        return switch (valueType) {
+            case INT64, INT64_SWAP, UINT64, UINT64_SWAP -> 4;
+            case FLOAT32, FLOAT32_SWAP, INT32, INT32_SWAP, UINT32, UINT32_SWAP -> 2;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Fusionne les points d'un même groupe en lectures triées par adresse; deux points sont lus ensemble lorsque l'écart
+     * entre eux ne dépasse pas {@link #maxGap} et que la lecture résultante reste dans la limite du protocole.
+     */
+    public List<ReadBatch> plan(PollGroup group, Collection<Point> points) {
+        int maxCount = group.readType() == ReadType.COIL || group.readType() == ReadType.DISCRETE
+            ? MAX_BITS_PER_READ
+            : MAX_REGISTERS_PER_READ;
+        List<Point> sorted = points.stream()
+            .sorted(Comparator.comparingInt(Point::address).thenComparingInt(Point::count))
+            .toList();
+        List<ReadBatch> batches = new ArrayList<>();
+        List<Point> batchPoints = new ArrayList<>();
+        int start = 0;
+        int end = 0;
+
+        for (Point point : sorted) {
+            int pointEnd = point.address() + point.count();
+            if (!batchPoints.isEmpty()
+                && (point.address() - end > maxGap || Math.max(end, pointEnd) - start > maxCount)) {
+                batches.add(new ReadBatch(group, start, end - start, batchPoints));
+                batchPoints = new ArrayList<>();
+            }
+            if (batchPoints.isEmpty()) {
+                start = point.address();
+                end = pointEnd;
+            }
+            batchPoints.add(point);
+            end = Math.max(end, pointEnd);
+        }
+
+        if (!batchPoints.isEmpty()) {
+            batches.add(new ReadBatch(group, start, end - start, batchPoints));
+        }
+        return batches;
+    }
+
+    /**
+     * Décode la valeur d'un point à partir des registres bruts (16 bits non signés) d'une lecture; les types sur
+     * plusieurs registres sont lus poids fort en premier sauf pour les variantes <code>_SWAP</code>.
+     */
+    public static Object decodeRegisters(int[] registers, int offset, ReadValueType valueType) {
+        int register = registers[offset] & 0xFFFF;
+
+        if (valueType == null) {
+            return register;
+        }
+
+        return switch (valueType) {
+            case INT8 -> (int) (byte) register;
+            case UINT8 -> register & 0xFF;
+            case INT16 -> (int) (short) register;
+            case UINT16 -> register;
+            case BIT -> register != 0;
+            case INT32 -> (int) combine(registers, offset, 2, false);
+            case INT32_SWAP -> (int) combine(registers, offset, 2, true);
+            case UINT32 -> combine(registers, offset, 2, false) & 0xFFFFFFFFL;
+            case UINT32_SWAP -> combine(registers, offset, 2, true) & 0xFFFFFFFFL;
+            case FLOAT32 -> Float.intBitsToFloat((int) combine(registers, offset, 2, false));
+            case FLOAT32_SWAP -> Float.intBitsToFloat((int) combine(registers, offset, 2, true));
+            case INT64, UINT64 -> combine(registers, offset, 4, false);
+            case INT64_SWAP, UINT64_SWAP -> combine(registers, offset, 4, true);
+        };
+    }
+
+    protected static long combine(int[] registers, int offset, int count, boolean swap) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            int register = registers[offset + (swap ? count - 1 - i : i)] & 0xFFFF;
+            value = (value << 16) | register;
+        }
+        return value;
+    }
+}
@@ -23,6 +23,7 @@ import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.MqttClientSslConfig;
 import com.hivemq.client.mqtt.MqttClientSslConfigBuilder;
 import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
 import com.hivemq.client.mqtt.exceptions.ConnectionClosedException;
 import com.hivemq.client.mqtt.exceptions.ConnectionFailedException;
@@ -34,8 +35,9 @@ import com.hivemq.client.mqtt.mqtt3.exceptions.Mqtt3DisconnectException;
 import com.hivemq.client.mqtt.mqtt3.lifecycle.Mqtt3ClientDisconnectedContext;
 import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3ConnectBuilder;
 import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
 import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscribe;
-import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAck;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscription;
 import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAckReturnCode;
 import org.openremote.agent.protocol.io.IOClient;
 import org.openremote.container.Container;
@@ -49,9 +51,7 @@ import org.openremote.model.util.ValueUtil;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
 import java.net.URI;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -82,6 +82,12 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
     protected ConnectionStatus currentStatus;
     protected MqttQos publishQos = MqttQos.AT_LEAST_ONCE;
     protected MqttQos subscribeQos = MqttQos.AT_LEAST_ONCE;
+    // Subscriptions are collected for a short time so that many topic filters can be sent in a single SUBSCRIBE packet
+    protected static final int SUBSCRIBE_BATCH_DELAY_MILLIS = 50;
+    protected static final int SUBSCRIBE_BATCH_MAX_TOPICS = 500;
+    protected final MQTTTopicTrie topicTrie = new MQTTTopicTrie();
+    protected final Set<String> pendingSubscriptions = new LinkedHashSet<>();
+    protected ScheduledFuture<?> subscribeFuture;
 
     protected AbstractMQTT_IOClient(String host, int port, boolean secure, boolean cleanSession, UsernamePassword usernamePassword, URI websocketURI, MQTTLastWill lastWill, KeyManagerFactory keyManagerFactory, TrustManagerFactory trustManagerFactory) {
         this(UniqueIdentifierGenerator.generateId(), host, port, secure, cleanSession, usernamePassword, websocketURI, lastWill, keyManagerFactory, trustManagerFactory);
@@ -165,6 +171,8 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
 
         try {
             client = builder.buildAsync();
+            // All publishes are routed through the topic trie rather than a callback per subscription
+            client.publishes(MqttGlobalPublishFilter.SUBSCRIBED, this::onPublish);
         } catch (Exception e) {
             LOG.log(Level.WARNING, "Invalid MQTT client config for client '" + getClientUri() + "'", e);
             client = null;
@@ -224,21 +232,19 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
             return false;
         }
 
-        Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> consumers = topicConsumerMap.computeIfAbsent(topic, t ->
-                new Pair<>(qos != null ? qos : MqttQos.AT_LEAST_ONCE, new HashSet<>()));
+        Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> consumers = topicConsumerMap.computeIfAbsent(topic, t -> {
+            topicTrie.add(t);
+            return new Pair<>(qos != null ? qos : MqttQos.AT_LEAST_ONCE, new HashSet<>());
+        });
 
-        if (consumers.getValue().isEmpty()) {
-            // Create the subscription on the client
-            if (doClientSubscription(topic)) {
-                consumers.getValue().add(messageConsumer);
-                return true;
-            } else {
-                return false;
-            }
-        } else {
-            consumers.getValue().add(messageConsumer);
-            return true;
+        boolean subscribe = consumers.getValue().isEmpty();
+        consumers.getValue().add(messageConsumer);
+
+        if (subscribe) {
+            // Create the subscription on the client; the consumer is removed again if the subscription fails
+            return doClientSubscription(topic);
         }
+        return true;
     }
 
     public void setTopicSubscribeFailureConsumer(Consumer<String> topicSubscribeFailureConsumer) {
@@ -251,6 +257,11 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
         }
     }
 
+    /**
+     * Queues the topic to be subscribed with the next batch; this doesn't wait for the broker to acknowledge the
+     * subscription, if the subscription fails then the topic consumers are removed and {@link #onSubscribeFailed} is
+     * called.
+     */
     protected boolean doClientSubscription(String topic) {
         synchronized (connected) {
             if (!connected.get()) {
@@ -259,47 +270,125 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
             }
         }
 
-        Consumer<MQTTMessage<S>> messageConsumer = message -> {
+        synchronized (pendingSubscriptions) {
+            pendingSubscriptions.add(topic);
+            if (subscribeFuture == null) {
+                subscribeFuture = executorService.schedule(this::flushSubscriptions, SUBSCRIBE_BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return true;
+    }
+
+    protected void flushSubscriptions() {
+        List<String> topics;
+
+        synchronized (pendingSubscriptions) {
+            subscribeFuture = null;
+            topics = new ArrayList<>(pendingSubscriptions);
+            pendingSubscriptions.clear();
+        }
+
+        if (!connected.get()) {
+            // Connection logic will re-instate the subscriptions
+            return;
+        }
+
+        for (int i = 0; i < topics.size(); i += SUBSCRIBE_BATCH_MAX_TOPICS) {
+            doClientSubscriptions(topics.subList(i, Math.min(topics.size(), i + SUBSCRIBE_BATCH_MAX_TOPICS)));
+        }
+    }
+
+    /**
+     * Sends a single SUBSCRIBE packet for the specified topics.
+     */
+    protected void doClientSubscriptions(List<String> topics) {
+        List<String> subscribeTopics = new ArrayList<>(topics.size());
+        List<Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>>> subscribeConsumers = new ArrayList<>(topics.size());
+        List<Mqtt3Subscription> subscriptions = new ArrayList<>(topics.size());
+
+        for (String topic : topics) {
             Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> topicConsumers = topicConsumerMap.get(topic);
-            if (topicConsumers != null) {
-                topicConsumers.getValue().forEach(consumer -> {
-                    try {
-                        consumer.accept(message);
-                    } catch (Exception e) {
-                        LOG.log(Level.WARNING, "Message consumer threw an exception", e);
+            if (topicConsumers == null) {
+                // Removed whilst pending
+                continue;
+            }
+            try {
+                subscriptions.add(Mqtt3Subscription.builder()
+                    .topicFilter(topic)
+                    .qos(topicConsumers.getKey())
+                    .build());
+                subscribeTopics.add(topic);
+                subscribeConsumers.add(topicConsumers);
+            } catch (Exception e) {
+                onClientSubscriptionFailed(topic, topicConsumers, e.getMessage());
+            }
+        }
+
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        client.subscribe(Mqtt3Subscribe.builder().addSubscriptions(subscriptions).build())
+            .whenComplete((subAck, throwable) -> {
+                if (throwable != null) {
+                    for (int i = 0; i < subscribeTopics.size(); i++) {
+                        onClientSubscriptionFailed(subscribeTopics.get(i), subscribeConsumers.get(i), throwable.getMessage());
                     }
-                });
+                    return;
+                }
+
+                List<Mqtt3SubAckReturnCode> returnCodes = subAck.getReturnCodes();
+                for (int i = 0; i < subscribeTopics.size(); i++) {
+                    if (i >= returnCodes.size() || returnCodes.get(i) == Mqtt3SubAckReturnCode.FAILURE) {
+                        onClientSubscriptionFailed(subscribeTopics.get(i), subscribeConsumers.get(i), "Server returned failure code for subscription");
+                    } else {
+                        LOG.fine("Subscribed to topic '" + subscribeTopics.get(i) + "' on client '" + getClientUri() + "'");
+                    }
+                }
+            });
+    }
+
+    protected void onClientSubscriptionFailed(String topic, Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> consumers, String reason) {
+        LOG.warning("Failed to subscribe to topic '" + topic + "' on client '" + getClientUri() + "': " + reason);
+
+        // Only remove the consumers the subscription was made for in case the topic has since been re-added
+        topicConsumerMap.computeIfPresent(topic, (t, topicConsumers) -> {
+            if (topicConsumers == consumers) {
+                topicTrie.remove(t);
+                return null;
             }
-        };
+            return topicConsumers;
+        });
+        executorService.execute(() -> onSubscribeFailed(topic));
+    }
 
-        Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> topicConsumers = topicConsumerMap.get(topic);
+    protected void onPublish(Mqtt3Publish publish) {
         try {
-            Mqtt3Subscribe subscribeMessage = Mqtt3Subscribe.builder()
-                    .topicFilter(topic)
-                    .qos(topicConsumers.getKey())
-                    .build();
-
-            Mqtt3SubAck subAck = client.subscribe(subscribeMessage, publish -> {
-                try {
-                    String topicStr = publish.getTopic().toString();
-                    S payload = messageFromBytes(publish.getPayloadAsBytes());
-                    MQTTMessage<S> message = new MQTTMessage<>(topicStr, payload);
-                    messageConsumer.accept(message);
-                } catch (Exception e) {
-                    LOG.log(Level.WARNING, "Failed to process published message on client '" + getClientUri() + "'", e);
+            String topicStr = publish.getTopic().toString();
+            List<String> topics = topicTrie.match(topicStr);
+
+            if (topics.isEmpty()) {
+                return;
+            }
+
+            S payload = messageFromBytes(publish.getPayloadAsBytes());
+            MQTTMessage<S> message = new MQTTMessage<>(topicStr, payload);
+
+            for (String topic : topics) {
+                Pair<MqttQos, Set<Consumer<MQTTMessage<S>>>> topicConsumers = topicConsumerMap.get(topic);
+                if (topicConsumers != null) {
+                    topicConsumers.getValue().forEach(consumer -> {
+                        try {
+                            consumer.accept(message);
+                        } catch (Exception e) {
+                            LOG.log(Level.WARNING, "Message consumer threw an exception", e);
+                        }
+                    });
                 }
-            }).get();
-            if (subAck.getReturnCodes().contains(Mqtt3SubAckReturnCode.FAILURE)) {
-                throw new Exception("Server returned failure code for subscription");
             }
-            LOG.fine("Subscribed to topic '" + topic + "' on client '" + getClientUri() + "'");
-            return true;
         } catch (Exception e) {
-            LOG.log(Level.WARNING, "Failed to subscribe to topic '" + topic + "' on client '" + getClientUri() + "': " + e.getMessage());
-            executorService.execute(() -> onSubscribeFailed(topic));
+            LOG.log(Level.WARNING, "Failed to process published message on client '" + getClientUri() + "'", e);
         }
-        topicConsumerMap.remove(topic);
-        return false;
     }
 
     @Override
@@ -310,6 +399,7 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
     public void removeMessageConsumer(String topic, Consumer<MQTTMessage<S>> messageConsumer) {
         topicConsumerMap.computeIfPresent(topic, (t, consumers) -> {
             if (consumers.getValue().remove(messageConsumer) && consumers.getValue().isEmpty()) {
+                topicTrie.remove(t);
                 removeSubscription(topic);
                 return null;
             }
@@ -321,10 +411,17 @@ public abstract class AbstractMQTT_IOClient<S> implements IOClient<MQTTMessage<S
     public void removeAllMessageConsumers() {
         Set<String> topics = new HashSet<>(topicConsumerMap.keySet());
         topicConsumerMap.clear();
+        topicTrie.clear();
         topics.forEach(this::removeSubscription);
     }
 
     protected void removeSubscription(String topic) {
+        synchronized (pendingSubscriptions) {
+            if (pendingSubscriptions.remove(topic)) {
+                // Not yet subscribed
+                return;
+            }
+        }
         if (client != null) {
             client.unsubscribeWith()
                 .topicFilter(topic)
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.mqtt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A trie of MQTT topic filters (one node per topic level) used to find the filters that match a published topic; the
+ * cost of a match depends on the number of topic levels rather than the number of filters. Matching follows the MQTT
+ * specification: {@value #SINGLE_LEVEL_WILDCARD} matches exactly one level, {@value #MULTI_LEVEL_WILDCARD} matches the
+ * parent level and any number of child levels and topics starting with {@code $} are not matched by filters that start
+ * with a wildcard.
+ */
+public class MQTTTopicTrie {
+
+    public static final String SINGLE_LEVEL_WILDCARD = "+";
+    public static final String MULTI_LEVEL_WILDCARD = "#";
+    public static final String LEVEL_SEPARATOR = "/";
+
+    protected static class Node {
+        protected final Map<String, Node> children = new HashMap<>();
+        protected String filter;
+
+        protected boolean isEmpty() {
+            return filter == null && children.isEmpty();
+        }
+    }
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final Node root = new Node();
+    protected int size;
+
+    /**
+     * @return true if the filter was not already present
+     */
+    public boolean add(String filter) {
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            for (String level : split(filter)) {
+                node = node.children.computeIfAbsent(level, l -> new Node());
+            }
+            if (node.filter != null) {
+                return false;
+            }
+            node.filter = filter;
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the filter was present
+     */
+    public boolean remove(String filter) {
+        lock.writeLock().lock();
+        try {
+            String[] levels = split(filter);
+            Node[] path = new Node[levels.length + 1];
+            path[0] = root;
+            for (int i = 0; i < levels.length; i++) {
+                path[i + 1] = path[i].children.get(levels[i]);
+                if (path[i + 1] == null) {
+                    return false;
+                }
+            }
+            Node node = path[levels.length];
+            if (node.filter == null) {
+                return false;
+            }
+            node.filter = null;
+            size--;
+
+            // Prune nodes that no longer lead to a filter
+            for (int i = levels.length; i > 0 && path[i].isEmpty(); i--) {
+                path[i - 1].children.remove(levels[i - 1]);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The filters that match the specified topic
+     */
+    public List<String> match(String topic) {
+        List<String> matches = new ArrayList<>(2);
+        String[] levels = split(topic);
+        lock.readLock().lock();
+        try {
+            match(root, levels, 0, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.filter = null;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected static void match(Node node, String[] levels, int index, List<String> matches) {
+        if (index == levels.length) {
+            if (node.filter != null) {
+                matches.add(node.filter);
+            }
+            // A multi level wildcard also matches the parent level
+            Node multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevel != null && multiLevel.filter != null) {
+                matches.add(multiLevel.filter);
+            }
+            return;
+        }
+
+        String level = levels[index];
+        boolean wildcardsAllowed = index > 0 || !level.startsWith("$");
+
+        if (wildcardsAllowed) {
+            Node multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevel != null && multiLevel.filter != null) {
+                matches.add(multiLevel.filter);
+            }
+            Node singleLevel = node.children.get(SINGLE_LEVEL_WILDCARD);
+            if (singleLevel != null) {
+                match(singleLevel, levels, index + 1, matches);
+            }
+        }
+
+        if (!SINGLE_LEVEL_WILDCARD.equals(level) && !MULTI_LEVEL_WILDCARD.equals(level)) {
+            Node child = node.children.get(level);
+            if (child != null) {
+                match(child, levels, index + 1, matches);
+            }
+        }
+    }
+
+    protected static String[] split(String topic) {
+        // Empty levels are significant in MQTT so trailing empty strings must be kept
+        return topic.split(LEVEL_SEPARATOR, -1);
+    }
+}
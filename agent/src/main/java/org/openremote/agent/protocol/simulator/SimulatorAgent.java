@@ -21,12 +21,22 @@ package org.openremote.agent.protocol.simulator;
 
 import org.openremote.model.asset.agent.Agent;
 import org.openremote.model.asset.agent.AgentDescriptor;
+import org.openremote.model.value.AttributeDescriptor;
+import org.openremote.model.value.ValueDescriptor;
 
 import jakarta.persistence.Entity;
+import java.util.Optional;
 
 @Entity
 public class SimulatorAgent extends Agent<SimulatorAgent, SimulatorProtocol, SimulatorAgentLink> {
 
+    public static final ValueDescriptor<SimulatorLoadProfile> VALUE_LOAD_PROFILE = new ValueDescriptor<>("simulatorLoadProfile", SimulatorLoadProfile.class);
+
+    /**
+     * Enables the synthetic load mode for benchmarking the attribute event pipeline, see {@link SimulatorLoadProfile}.
+     */
+    public static final AttributeDescriptor<SimulatorLoadProfile> LOAD_PROFILE = new AttributeDescriptor<>("loadProfile", VALUE_LOAD_PROFILE).withOptional(true);
+
     public static final AgentDescriptor<SimulatorAgent, SimulatorProtocol, SimulatorAgentLink> DESCRIPTOR = new AgentDescriptor<>(
         SimulatorAgent.class, SimulatorProtocol.class, SimulatorAgentLink.class
     );
@@ -45,4 +55,13 @@ public class SimulatorAgent extends Agent<SimulatorAgent, SimulatorProtocol, Sim
     public SimulatorProtocol getProtocolInstance() {
         return new SimulatorProtocol(this);
     }
+
+    public Optional<SimulatorLoadProfile> getLoadProfile() {
+        return getAttributes().getValue(LOAD_PROFILE);
+    }
+
+    public SimulatorAgent setLoadProfile(SimulatorLoadProfile loadProfile) {
+        getAttributes().getOrCreate(LOAD_PROFILE).setValue(loadProfile);
+        return this;
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the timing and values of a {@link SimulatorLoadProfile}; {@link #poll} is called periodically and returns
+ * the number of events that are due. Events are due in bursts of the configured size with a mean time between bursts
+ * that gives the configured event rate, the jitter randomly varies the time between bursts. If polling falls more than
+ * a second of events behind then the backlog is dropped (and counted) rather than emitted in one go.
+ * <p>
+ * Not thread safe; a generator must only be used by one thread at a time.
+ */
+public class SimulatorLoadGenerator {
+
+    public static final double DEFAULT_MIN_VALUE = 0d;
+    public static final double DEFAULT_MAX_VALUE = 100d;
+    public static final int DEFAULT_PERIOD_SECONDS = 60;
+    // Random walk step as a fraction of the value range
+    protected static final double RANDOM_WALK_STEP = 0.01d;
+    protected final double eventRate;
+    protected final int burstSize;
+    protected final double jitter;
+    protected final double burstIntervalNanos;
+    protected final int maxEventsPerPoll;
+    protected final SimulatorLoadProfile.ValueDistribution distribution;
+    protected final double minValue;
+    protected final double maxValue;
+    protected final double periodMillis;
+    protected final Random random;
+    protected final Map<Object, Double> lastValues = new HashMap<>();
+    protected double nextBurstNanos;
+    protected long droppedCount;
+
+    public SimulatorLoadGenerator(SimulatorLoadProfile profile, long startNanos) {
+        this.eventRate = profile.getEventRate().filter(rate -> rate > 0).orElseThrow(() -> new IllegalArgumentException("Event rate must be greater than zero: " + profile));
+        this.burstSize = Math.max(1, profile.getBurstSize().orElse(1));
+        this.jitter = Math.max(0d, Math.min(1d, profile.getJitter().orElse(0d)));
+        this.burstIntervalNanos = 1_000_000_000d * burstSize / eventRate;
+        this.maxEventsPerPoll = Math.max(burstSize, (int) Math.ceil(eventRate));
+        this.distribution = profile.getDistribution().orElse(SimulatorLoadProfile.ValueDistribution.UNIFORM);
+        double min = profile.getMinValue().orElse(DEFAULT_MIN_VALUE);
+        double max = profile.getMaxValue().orElse(DEFAULT_MAX_VALUE);
+        this.minValue = Math.min(min, max);
+        this.maxValue = Math.max(min, max);
+        this.periodMillis = Math.max(1, profile.getPeriodSeconds().orElse(DEFAULT_PERIOD_SECONDS)) * 1000d;
+        this.random = profile.getSeed().map(Random::new).orElseGet(Random::new);
+        this.nextBurstNanos = startNanos;
+    }
+
+    /**
+     * @return The number of events that are due at the specified time
+     */
+    public int poll(long nowNanos) {
+        int due = 0;
+
+        while (nextBurstNanos <= nowNanos && due < maxEventsPerPoll) {
+            due += burstSize;
+            double factor = jitter > 0 ? 1d + jitter * (2d * random.nextDouble() - 1d) : 1d;
+            nextBurstNanos += burstIntervalNanos * factor;
+        }
+
+        if (nextBurstNanos <= nowNanos) {
+            // Can't keep up so drop the backlog
+            droppedCount += (long) ((nowNanos - nextBurstNanos) / burstIntervalNanos + 1) * burstSize;
+            nextBurstNanos = nowNanos + burstIntervalNanos;
+        }
+
+        return due;
+    }
+
+    /**
+     * @return The next value for the specified key (e.g. attribute) at the specified time
+     */
+    public double nextValue(Object key, long timestamp) {
+        double range = maxValue - minValue;
+
+        return switch (distribution) {
+            case UNIFORM -> minValue + random.nextDouble() * range;
+            case GAUSSIAN -> clamp(minValue + range / 2d + random.nextGaussian() * range / 6d);
+            case RANDOM_WALK -> {
+                double last = lastValues.computeIfAbsent(key, k -> minValue + random.nextDouble() * range);
+                double value = clamp(last + random.nextGaussian() * range * RANDOM_WALK_STEP);
+                lastValues.put(key, value);
+                yield value;
+            }
+            case SINE -> {
+                // Each key has a different phase so the values aren't all the same
+                double phase = (key.hashCode() & 0xFFFF) / 65536d;
+                yield minValue + range * (0.5d + 0.5d * Math.sin(2d * Math.PI * (timestamp / periodMillis + phase)));
+            }
+        };
+    }
+
+    public double getEventRate() {
+        return eventRate;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    protected double clamp(double value) {
+        return Math.max(minValue, Math.min(maxValue, value));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.simulator;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Configures the synthetic load mode of a {@link SimulatorAgent}; when set every numeric linked attribute without
+ * replay data is updated by the {@link SimulatorLoadGenerator} so that the agent produces the configured aggregate
+ * event rate.
+ */
+public class SimulatorLoadProfile implements Serializable {
+
+    public enum ValueDistribution {
+        UNIFORM,
+        GAUSSIAN,
+        RANDOM_WALK,
+        SINE
+    }
+
+    @JsonPropertyDescription("Aggregate number of attribute events per second generated for all load attributes of the agent")
+    protected Double eventRate;
+    @JsonPropertyDescription("Distribution of the generated values")
+    protected ValueDistribution distribution;
+    @JsonPropertyDescription("Minimum generated value")
+    protected Double minValue;
+    @JsonPropertyDescription("Maximum generated value")
+    protected Double maxValue;
+    @JsonPropertyDescription("Period of the SINE distribution in seconds")
+    protected Integer periodSeconds;
+    @JsonPropertyDescription("Random variation of the time between bursts as a fraction (0-1) of the mean time between bursts")
+    protected Double jitter;
+    @JsonPropertyDescription("Number of events generated together in each burst; the time between bursts grows so the" +
+        " aggregate event rate is unchanged")
+    protected Integer burstSize;
+    @JsonPropertyDescription("Seed for the random number generator so that a load run can be reproduced")
+    protected Long seed;
+
+    public SimulatorLoadProfile() {
+    }
+
+    public SimulatorLoadProfile(double eventRate) {
+        this.eventRate = eventRate;
+    }
+
+    public Optional<Double> getEventRate() {
+        return Optional.ofNullable(eventRate);
+    }
+
+    public SimulatorLoadProfile setEventRate(Double eventRate) {
+        this.eventRate = eventRate;
+        return this;
+    }
+
+    public Optional<ValueDistribution> getDistribution() {
+        return Optional.ofNullable(distribution);
+    }
+
+    public SimulatorLoadProfile setDistribution(ValueDistribution distribution) {
+        this.distribution = distribution;
+        return this;
+    }
+
+    public Optional<Double> getMinValue() {
+        return Optional.ofNullable(minValue);
+    }
+
+    public SimulatorLoadProfile setMinValue(Double minValue) {
+        this.minValue = minValue;
+        return this;
+    }
+
+    public Optional<Double> getMaxValue() {
+        return Optional.ofNullable(maxValue);
+    }
+
+    public SimulatorLoadProfile setMaxValue(Double maxValue) {
+        this.maxValue = maxValue;
+        return this;
+    }
+
+    public Optional<Integer> getPeriodSeconds() {
+        return Optional.ofNullable(periodSeconds);
+    }
+
+    public SimulatorLoadProfile setPeriodSeconds(Integer periodSeconds) {
+        this.periodSeconds = periodSeconds;
+        return this;
+    }
+
+    public Optional<Double> getJitter() {
+        return Optional.ofNullable(jitter);
+    }
+
+    public SimulatorLoadProfile setJitter(Double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    public Optional<Integer> getBurstSize() {
+        return Optional.ofNullable(burstSize);
+    }
+
+    public SimulatorLoadProfile setBurstSize(Integer burstSize) {
+        this.burstSize = burstSize;
+        return this;
+    }
+
+    public Optional<Long> getSeed() {
+        return Optional.ofNullable(seed);
+    }
+
+    public SimulatorLoadProfile setSeed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "eventRate=" + eventRate +
+            ", distribution=" + distribution +
+            ", minValue=" + minValue +
+            ", maxValue=" + maxValue +
+            ", periodSeconds=" + periodSeconds +
+            ", jitter=" + jitter +
+            ", burstSize=" + burstSize +
+            ", seed=" + seed +
+            '}';
+    }
+}
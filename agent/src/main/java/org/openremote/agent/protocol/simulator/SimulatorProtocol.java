@@ -19,6 +19,11 @@
  */
 package org.openremote.agent.protocol.simulator;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.openremote.agent.protocol.AbstractProtocol;
 import org.openremote.model.Container;
 import org.openremote.model.asset.agent.ConnectionStatus;
@@ -27,6 +32,7 @@ import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.simulator.SimulatorReplayDatapoint;
 import org.openremote.model.syslog.SyslogCategory;
+import org.openremote.model.util.ValueUtil;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoField;
@@ -34,6 +40,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,7 +51,18 @@ public class SimulatorProtocol extends AbstractProtocol<SimulatorAgent, Simulato
     private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, SimulatorProtocol.class);
     public static final String PROTOCOL_DISPLAY_NAME = "Simulator";
 
+    // Interval at which the load generator is polled for due events
+    public static final long LOAD_TICK_MILLIS = 10;
     protected final Map<AttributeRef, ScheduledFuture<?>> replayMap = new ConcurrentHashMap<>();
+    protected final Set<AttributeRef> loadAttributes = ConcurrentHashMap.newKeySet();
+    // Snapshot of the load attributes used by the load task; cleared whenever the load attributes change
+    protected volatile AttributeRef[] loadAttributeSnapshot;
+    protected final AtomicLong loadEventCount = new AtomicLong();
+    protected final List<Meter> loadMeters = new ArrayList<>();
+    protected SimulatorLoadGenerator loadGenerator;
+    protected ScheduledFuture<?> loadTask;
+    protected MeterRegistry meterRegistry;
+    protected long loadCursor;
 
     public SimulatorProtocol(SimulatorAgent agent) {
         super(agent);
@@ -62,6 +80,9 @@ public class SimulatorProtocol extends AbstractProtocol<SimulatorAgent, Simulato
 
     @Override
     protected void doStart(Container container) throws Exception {
+        agent.getLoadProfile()
+            .filter(profile -> profile.getEventRate().orElse(0d) > 0)
+            .ifPresent(profile -> startLoad(container, profile));
         setConnectionStatus(ConnectionStatus.CONNECTED);
     }
 
@@ -74,11 +95,18 @@ public class SimulatorProtocol extends AbstractProtocol<SimulatorAgent, Simulato
 
             }
         });
+        stopLoad();
     }
 
     @Override
     protected void doLinkAttribute(String assetId, Attribute<?> attribute, SimulatorAgentLink agentLink) {
 
+        // Numeric attributes without replay data are driven by the load generator when it is enabled
+        if (loadGenerator != null && agentLink.getReplayData().isEmpty() && ValueUtil.isNumber(attribute.getTypeClass())) {
+            loadAttributes.add(new AttributeRef(assetId, attribute.getName()));
+            loadAttributeSnapshot = null;
+        }
+
         // Look for replay data
         agentLink.getReplayData()
             .ifPresent(simulatorReplayDatapoints -> {
@@ -99,6 +127,10 @@ public class SimulatorProtocol extends AbstractProtocol<SimulatorAgent, Simulato
         AttributeRef attributeRef = new AttributeRef(assetId, attribute.getName());
         ScheduledFuture<?> updateValueFuture = replayMap.remove(attributeRef);
 
+        if (loadAttributes.remove(attributeRef)) {
+            loadAttributeSnapshot = null;
+        }
+
         if (updateValueFuture != null) {
             updateValueFuture.cancel(true);
         }
@@ -134,10 +166,114 @@ public class SimulatorProtocol extends AbstractProtocol<SimulatorAgent, Simulato
         updateLinkedAttribute(attributeRef, value, timestamp);
     }
 
+    /**
+     * Call this to simulate a device reporting several sensor values in one cycle; the values are sent as a single
+     * submission
+     */
+    public void updateSensors(Collection<AttributeEvent> attributeEvents) {
+        try (LinkedAttributeUpdateBatch updates = createLinkedAttributeUpdateBatch()) {
+            attributeEvents.forEach(attributeEvent ->
+                updates.updateLinkedAttribute(attributeEvent.getRef(), attributeEvent.getValue().orElse(null), attributeEvent.getTimestamp()));
+        }
+    }
+
     public Map<AttributeRef, ScheduledFuture<?>> getReplayMap() {
         return replayMap;
     }
 
+    /**
+     * @return true if the attribute is updated by the load generator
+     */
+    public boolean isLoadAttribute(AttributeRef attributeRef) {
+        return loadAttributes.contains(attributeRef);
+    }
+
+    public long getLoadEventCount() {
+        return loadEventCount.get();
+    }
+
+    protected void startLoad(Container container, SimulatorLoadProfile profile) {
+        LOG.info("Starting simulator load generator: " + profile + ", " + this);
+        loadGenerator = new SimulatorLoadGenerator(profile, System.nanoTime());
+        meterRegistry = container.getMeterRegistry();
+
+        if (meterRegistry != null) {
+            Tags tags = Tags.of("agent", agent.getId());
+            loadMeters.add(FunctionCounter.builder("or.simulator.load.events", loadEventCount, AtomicLong::get)
+                .tags(tags)
+                .register(meterRegistry));
+            loadMeters.add(FunctionCounter.builder("or.simulator.load.dropped", this, protocol -> protocol.getLoadDroppedCount())
+                .tags(tags)
+                .register(meterRegistry));
+            loadMeters.add(Gauge.builder("or.simulator.load.attributes", loadAttributes, Set::size)
+                .tags(tags)
+                .register(meterRegistry));
+        }
+
+        loadTask = scheduledExecutorService.scheduleAtFixedRate(this::generateLoad, 0, LOAD_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    protected void stopLoad() {
+        if (loadTask != null) {
+            loadTask.cancel(false);
+            loadTask = null;
+        }
+        if (meterRegistry != null) {
+            loadMeters.forEach(meterRegistry::remove);
+        }
+        loadMeters.clear();
+        loadAttributes.clear();
+        loadAttributeSnapshot = null;
+    }
+
+    /**
+     * Sends the events that are due as a single submission; the events are spread round robin over the load
+     * attributes and are timestamped with the emission time so the pipeline latency can be determined from the
+     * timestamp.
+     */
+    protected void generateLoad() {
+        try {
+            int due;
+            synchronized (loadGenerator) {
+                due = loadGenerator.poll(System.nanoTime());
+            }
+
+            AttributeRef[] attributeRefs = loadAttributeSnapshot;
+            if (attributeRefs == null) {
+                attributeRefs = loadAttributes.toArray(new AttributeRef[0]);
+                loadAttributeSnapshot = attributeRefs;
+            }
+
+            if (due == 0 || attributeRefs.length == 0) {
+                return;
+            }
+
+            long timestamp = timerService.getCurrentTimeMillis();
+
+            try (LinkedAttributeUpdateBatch updates = createLinkedAttributeUpdateBatch()) {
+                synchronized (loadGenerator) {
+                    for (int i = 0; i < due; i++) {
+                        AttributeRef attributeRef = attributeRefs[(int) (loadCursor++ % attributeRefs.length)];
+                        updates.updateLinkedAttribute(attributeRef, loadGenerator.nextValue(attributeRef, timestamp), timestamp);
+                    }
+                }
+            }
+            loadEventCount.addAndGet(due);
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Exception thrown when generating load: " + this, e);
+        }
+    }
+
+    public long getLoadDroppedCount() {
+        SimulatorLoadGenerator generator = loadGenerator;
+        if (generator == null) {
+            return 0;
+        }
+        synchronized (generator) {
+            return generator.getDroppedCount();
+        }
+    }
+
     protected ScheduledFuture<?> scheduleReplay(AttributeRef attributeRef, SimulatorReplayDatapoint[] simulatorReplayDatapoints) {
         LOG.finest("Scheduling linked attribute replay update");
 
@@ -5,6 +5,7 @@ import org.openremote.model.asset.agent.Agent;
 import org.openremote.model.asset.agent.AgentDescriptor;
 import org.openremote.model.value.AttributeDescriptor;
 import org.openremote.model.value.ValueDescriptor;
+import org.openremote.model.value.ValueType;
 
 import jakarta.persistence.Entity;
 import java.util.Optional;
@@ -40,6 +41,18 @@ public class SNMPAgent extends Agent<SNMPAgent, SNMPProtocol, SNMPAgentLink> {
     public static final AttributeDescriptor<String> SNMP_BIND_HOST = Agent.BIND_HOST.withOptional(false);
     public static final AttributeDescriptor<Integer> SNMP_BIND_PORT = Agent.BIND_PORT.withOptional(false);
 
+    /*
+     * Polling of linked OIDs (V1 and V2c only) is enabled when a host is set; OIDs are polled from this host at the
+     * polling interval unless overridden by the agent link.
+     */
+    public static final AttributeDescriptor<String> HOST = Agent.HOST;
+    public static final AttributeDescriptor<Integer> PORT = Agent.PORT;
+    public static final AttributeDescriptor<Integer> POLLING_MILLIS = Agent.POLLING_MILLIS;
+    public static final AttributeDescriptor<String> SNMP_COMMUNITY = new AttributeDescriptor<>("SNMPCommunity", ValueType.TEXT).withOptional(true);
+    public static final AttributeDescriptor<Integer> SNMP_MAX_REPETITIONS = new AttributeDescriptor<>("SNMPMaxRepetitions", ValueType.POSITIVE_INTEGER).withOptional(true);
+    public static final AttributeDescriptor<Integer> SNMP_TIMEOUT_MILLIS = new AttributeDescriptor<>("SNMPTimeoutMillis", ValueType.POSITIVE_INTEGER).withOptional(true);
+    public static final AttributeDescriptor<Integer> SNMP_RETRIES = new AttributeDescriptor<>("SNMPRetries", ValueType.INTEGER).withOptional(true);
+
 
     public static final AgentDescriptor<SNMPAgent, SNMPProtocol, SNMPAgentLink> DESCRIPTOR = new AgentDescriptor<>(
             SNMPAgent.class, SNMPProtocol.class, SNMPAgentLink.class
@@ -68,4 +81,40 @@ public class SNMPAgent extends Agent<SNMPAgent, SNMPProtocol, SNMPAgentLink> {
         getAttributes().getOrCreate(SNMP_VERSION).setValue(version);
         return this;
     }
+
+    public Optional<String> getSNMPCommunity() {
+        return getAttributes().getValue(SNMP_COMMUNITY);
+    }
+
+    public SNMPAgent setSNMPCommunity(String community) {
+        getAttributes().getOrCreate(SNMP_COMMUNITY).setValue(community);
+        return this;
+    }
+
+    public Optional<Integer> getSNMPMaxRepetitions() {
+        return getAttributes().getValue(SNMP_MAX_REPETITIONS);
+    }
+
+    public SNMPAgent setSNMPMaxRepetitions(Integer maxRepetitions) {
+        getAttributes().getOrCreate(SNMP_MAX_REPETITIONS).setValue(maxRepetitions);
+        return this;
+    }
+
+    public Optional<Integer> getSNMPTimeoutMillis() {
+        return getAttributes().getValue(SNMP_TIMEOUT_MILLIS);
+    }
+
+    public SNMPAgent setSNMPTimeoutMillis(Integer timeoutMillis) {
+        getAttributes().getOrCreate(SNMP_TIMEOUT_MILLIS).setValue(timeoutMillis);
+        return this;
+    }
+
+    public Optional<Integer> getSNMPRetries() {
+        return getAttributes().getValue(SNMP_RETRIES);
+    }
+
+    public SNMPAgent setSNMPRetries(Integer retries) {
+        getAttributes().getOrCreate(SNMP_RETRIES).setValue(retries);
+        return this;
+    }
 }
@@ -19,6 +19,7 @@
  */
 package org.openremote.agent.protocol.snmp;
 
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import org.openremote.model.asset.agent.AgentLink;
 
 import jakarta.validation.constraints.NotNull;
@@ -28,6 +29,12 @@ public class SNMPAgentLink extends AgentLink<SNMPAgentLink> {
 
     @NotNull
     protected String oid;
+    @JsonPropertyDescription("Polling interval in milliseconds for this OID; overrides the agent polling interval, OIDs with the" +
+        " same interval are requested together")
+    protected Integer pollingMillis;
+    @JsonPropertyDescription("Treat the OID as the root of a subtree (e.g. a table) and walk it on each poll; the linked attribute" +
+        " receives an object of OID to value for every OID in the subtree")
+    protected Boolean walk;
 
     // For Hydrators
     protected SNMPAgentLink() {
@@ -47,4 +54,22 @@ public class SNMPAgentLink extends AgentLink<SNMPAgentLink> {
         this.oid = oid;
         return this;
     }
+
+    public Optional<Integer> getPollingMillis() {
+        return Optional.ofNullable(pollingMillis);
+    }
+
+    public SNMPAgentLink setPollingMillis(Integer pollingMillis) {
+        this.pollingMillis = pollingMillis;
+        return this;
+    }
+
+    public Optional<Boolean> getWalk() {
+        return Optional.ofNullable(walk);
+    }
+
+    public SNMPAgentLink setWalk(Boolean walk) {
+        this.walk = walk;
+        return this;
+    }
 }
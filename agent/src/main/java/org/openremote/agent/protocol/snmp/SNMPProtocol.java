@@ -9,16 +9,38 @@ import org.openremote.model.attribute.Attribute;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.syslog.SyslogCategory;
+import org.snmp4j.CommunityTarget;
 import org.snmp4j.PDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.*;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
 
 /**
- * This is a SNMP client protocol for receiving SNMP traps.
+ * This is a SNMP client protocol for receiving SNMP traps and optionally polling linked OIDs.
+ * <p>
+ * When the agent has a {@link SNMPAgent#HOST} then linked OIDs are also polled from that host (SNMP V1 and V2c only);
+ * linked OIDs are grouped by polling interval and each group is requested with GET requests of up to
+ * {@link #MAX_OIDS_PER_REQUEST} OIDs. Agent links with {@link SNMPAgentLink#getWalk} set walk the OID subtree using
+ * GETBULK requests (GETNEXT for V1) with the agent's max repetitions. All requests of an agent share one UDP transport;
+ * timed out requests are retried by SNMP4J and polling then backs off exponentially until the host responds again.
  * <p>
  * To use this protocol create a {@link SNMPAgent}.
  */
@@ -26,7 +48,35 @@ public class SNMPProtocol extends AbstractProtocol<SNMPAgent, SNMPAgentLink> {
 
     public static final String PROTOCOL_DISPLAY_NAME = "SNMP Client";
     protected static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, SNMPProtocol.class);
+    public static final int DEFAULT_PORT = 161;
+    public static final int DEFAULT_POLLING_MILLIS = 10000;
+    public static final int MIN_POLLING_MILLIS = 100;
+    public static final int DEFAULT_MAX_REPETITIONS = 25;
+    public static final int DEFAULT_TIMEOUT_MILLIS = 1500;
+    public static final int DEFAULT_RETRIES = 1;
+    public static final int MAX_OIDS_PER_REQUEST = 32;
+    public static final int MAX_WALK_SIZE = 10000;
+    public static final int MAX_BACKOFF_MILLIS = 300000;
     protected final Map<String, AttributeRef> oidMap = new HashMap<>();
+    // Polled OIDs grouped by polling interval; there is a single polling task per group
+    protected final Map<Integer, PollGroupState> pollGroups = new HashMap<>();
+    protected final Map<AttributeRef, Integer> attributePollGroups = new HashMap<>();
+    // Total number of requests sent, useful for checking that OIDs are requested together
+    protected final AtomicLong requestCount = new AtomicLong();
+    protected final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+    protected volatile long backoffUntilMillis;
+    protected Snmp snmp;
+    protected CommunityTarget<Address> target;
+    protected int maxRepetitions = DEFAULT_MAX_REPETITIONS;
+
+    protected static class PollGroupState {
+        protected final Map<AttributeRef, OID> oids = new LinkedHashMap<>();
+        protected final Map<AttributeRef, OID> walks = new LinkedHashMap<>();
+        // OIDs that failed a batched request (SNMPv1 error status) so are requested on their own
+        protected final Set<OID> isolatedOids = ConcurrentHashMap.newKeySet();
+        protected final AtomicInteger inFlight = new AtomicInteger();
+        protected ScheduledFuture<?> pollingTask;
+    }
 
     public SNMPProtocol(SNMPAgent agent) {
         super(agent);
@@ -88,14 +138,57 @@ public class SNMPProtocol extends AbstractProtocol<SNMPAgent, SNMPAgentLink> {
             }
         });
 
+        if (agent.getHost().isPresent()) {
+            if (snmpVersion == SNMPAgent.SNMPVersion.V3) {
+                LOG.warning("Polling is not supported for SNMP V3 so linked OIDs will only be updated by traps: " + this);
+            } else {
+                startPolling(agent.getHost().get(), snmpVersion);
+            }
+        }
+
         setConnectionStatus(ConnectionStatus.CONNECTED);
     }
 
     @Override
     protected void doStop(Container container) throws Exception {
+        synchronized (pollGroups) {
+            pollGroups.values().forEach(state -> {
+                if (state.pollingTask != null) {
+                    state.pollingTask.cancel(false);
+                }
+            });
+            pollGroups.clear();
+            attributePollGroups.clear();
+        }
+
+        if (snmp != null) {
+            try {
+                snmp.close();
+            } catch (IOException e) {
+                LOG.log(Level.INFO, "Failed to close SNMP session: " + this, e);
+            }
+            snmp = null;
+        }
+
         setConnectionStatus(ConnectionStatus.STOPPED);
     }
 
+    protected void startPolling(String host, SNMPAgent.SNMPVersion snmpVersion) throws IOException {
+        CommunityTarget<Address> target = new CommunityTarget<>();
+        target.setCommunity(new OctetString(agent.getSNMPCommunity().orElse("public")));
+        target.setAddress(new UdpAddress(InetAddress.getByName(host), agent.getPort().orElse(DEFAULT_PORT)));
+        target.setVersion(snmpVersion == SNMPAgent.SNMPVersion.V1 ? SnmpConstants.version1 : SnmpConstants.version2c);
+        target.setTimeout(agent.getSNMPTimeoutMillis().orElse(DEFAULT_TIMEOUT_MILLIS));
+        target.setRetries(Math.max(0, agent.getSNMPRetries().orElse(DEFAULT_RETRIES)));
+        maxRepetitions = agent.getSNMPMaxRepetitions().orElse(DEFAULT_MAX_REPETITIONS);
+
+        // One UDP transport is used for every request of this agent
+        snmp = new Snmp(new DefaultUdpTransportMapping());
+        snmp.listen();
+        this.target = target;
+        LOG.fine("Started SNMP polling session: " + target.getAddress());
+    }
+
     @Override
     protected void doLinkAttribute(String assetId, Attribute<?> attribute, SNMPAgentLink agentLink) throws RuntimeException {
         String oid = agentLink.getOID().orElseThrow(() -> {
@@ -110,16 +203,279 @@ public class SNMPProtocol extends AbstractProtocol<SNMPAgent, SNMPAgentLink> {
             throw new IllegalArgumentException(msg);
         }
 
-        oidMap.put(oid, new AttributeRef(assetId, attribute.getName()));
+        AttributeRef attributeRef = new AttributeRef(assetId, attribute.getName());
+        oidMap.put(oid, attributeRef);
+
+        if (target == null || oid.equals("*")) {
+            return;
+        }
+
+        OID pollOid;
+        try {
+            pollOid = new OID(oid);
+        } catch (RuntimeException e) {
+            LOG.info("Invalid OID so it will not be polled: attributeRef=" + attributeRef + ", oid=" + oid);
+            return;
+        }
+
+        int pollingMillis = Math.max(MIN_POLLING_MILLIS, agentLink.getPollingMillis().orElse(agent.getPollingMillis().orElse(DEFAULT_POLLING_MILLIS)));
+
+        synchronized (pollGroups) {
+            attributePollGroups.put(attributeRef, pollingMillis);
+            PollGroupState state = pollGroups.computeIfAbsent(pollingMillis, millis -> new PollGroupState());
+            if (agentLink.getWalk().orElse(false)) {
+                state.walks.put(attributeRef, pollOid);
+            } else {
+                state.oids.put(attributeRef, pollOid);
+            }
+
+            if (state.pollingTask == null) {
+                state.pollingTask = createPollingTask(pollingMillis, state);
+            }
+        }
     }
 
     @Override
     protected void doUnlinkAttribute(String assetId, Attribute<?> attribute, SNMPAgentLink agentLink) {
         agentLink.getOID().ifPresent(oidMap::remove);
+
+        AttributeRef attributeRef = new AttributeRef(assetId, attribute.getName());
+
+        synchronized (pollGroups) {
+            Integer pollingMillis = attributePollGroups.remove(attributeRef);
+            PollGroupState state = pollingMillis != null ? pollGroups.get(pollingMillis) : null;
+
+            if (state == null) {
+                return;
+            }
+
+            state.oids.remove(attributeRef);
+            state.walks.remove(attributeRef);
+
+            if (state.oids.isEmpty() && state.walks.isEmpty()) {
+                pollGroups.remove(pollingMillis);
+                if (state.pollingTask != null) {
+                    state.pollingTask.cancel(false);
+                }
+            }
+        }
     }
 
     @Override
     protected void doLinkedAttributeWrite(SNMPAgentLink agentLink, AttributeEvent event, Object processedValue) {
         // Nothing to do here
     }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Each cycle sends the requests of the group asynchronously and processes the responses as they arrive; a cycle is
+     * skipped whilst requests of the previous cycle are outstanding or whilst backing off after timeouts.
+     */
+    protected ScheduledFuture<?> createPollingTask(int pollingMillis, PollGroupState state) {
+        LOG.fine("Scheduling SNMP polling every " + pollingMillis + "ms: " + this);
+
+        return scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                if (state.inFlight.get() > 0 || System.currentTimeMillis() < backoffUntilMillis) {
+                    return;
+                }
+
+                Map<OID, List<AttributeRef>> oids = new LinkedHashMap<>();
+                Map<AttributeRef, OID> walks;
+
+                synchronized (pollGroups) {
+                    state.oids.forEach((attributeRef, oid) -> oids.computeIfAbsent(oid, o -> new ArrayList<>(1)).add(attributeRef));
+                    walks = new LinkedHashMap<>(state.walks);
+                }
+
+                state.isolatedOids.retainAll(oids.keySet());
+                List<OID> requestOids = oids.keySet().stream().filter(oid -> !state.isolatedOids.contains(oid)).toList();
+                for (int i = 0; i < requestOids.size(); i += MAX_OIDS_PER_REQUEST) {
+                    requestValues(requestOids.subList(i, Math.min(requestOids.size(), i + MAX_OIDS_PER_REQUEST)), oids, state);
+                }
+                state.isolatedOids.forEach(oid -> requestValues(Collections.singletonList(oid), oids, state));
+
+                walks.forEach((attributeRef, oid) -> walkSubtree(attributeRef, oid, oid, new LinkedHashMap<>(), state));
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Exception whilst polling: " + this, e);
+            }
+        }, 0, pollingMillis, TimeUnit.MILLISECONDS);
+    }
+
+    protected void requestValues(List<OID> requestOids, Map<OID, List<AttributeRef>> oids, PollGroupState state) {
+        PDU pdu = new PDU();
+        pdu.setType(PDU.GET);
+        requestOids.forEach(oid -> pdu.add(new VariableBinding(oid)));
+
+        state.inFlight.incrementAndGet();
+        sendRequest(pdu).whenComplete((response, error) -> {
+            try {
+                if (!isValidResponse(response, error)) {
+                    retryWithoutFailedOid(requestOids, response, oids, state);
+                    return;
+                }
+
+                // All values of a response are submitted together
+                try (LinkedAttributeUpdateBatch updates = createLinkedAttributeUpdateBatch()) {
+                    for (VariableBinding variableBinding : response.getVariableBindings()) {
+                        List<AttributeRef> attributeRefs = oids.get(variableBinding.getOid());
+                        if (attributeRefs == null) {
+                            continue;
+                        }
+                        if (variableBinding.isException()) {
+                            LOG.fine("OID doesn't exist on the SNMP agent: oid=" + variableBinding.getOid() + ", " + this);
+                            continue;
+                        }
+                        Object value = getValue(variableBinding.getVariable());
+                        attributeRefs.forEach(attributeRef -> updates.updateLinkedAttribute(attributeRef, value));
+                    }
+                }
+            } finally {
+                state.inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * An SNMPv1 agent fails the whole request when any OID fails (e.g. noSuchName) and identifies it using the error
+     * index; the failed OID is isolated so it is requested on its own from now on and the rest are requested again.
+     */
+    protected void retryWithoutFailedOid(List<OID> requestOids, PDU response, Map<OID, List<AttributeRef>> oids, PollGroupState state) {
+        if (response == null || response.getErrorStatus() == PDU.noError || requestOids.size() < 2) {
+            return;
+        }
+
+        int errorIndex = response.getErrorIndex();
+        if (errorIndex < 1 || errorIndex > requestOids.size()) {
+            return;
+        }
+
+        OID failedOid = requestOids.get(errorIndex - 1);
+        LOG.fine("Isolating failed OID and requesting the remaining OIDs again: oid=" + failedOid + ", " + this);
+        state.isolatedOids.add(failedOid);
+
+        List<OID> remainingOids = new ArrayList<>(requestOids);
+        remainingOids.remove(errorIndex - 1);
+        requestValues(remainingOids, oids, state);
+    }
+
+    /**
+     * Requests the OIDs following {@code from} until the end of the subtree of {@code root} is reached and then
+     * updates the linked attribute with all the values of the subtree.
+     */
+    protected void walkSubtree(AttributeRef attributeRef, OID root, OID from, Map<String, Object> values, PollGroupState state) {
+        PDU pdu = new PDU();
+        if (target.getVersion() == SnmpConstants.version1) {
+            pdu.setType(PDU.GETNEXT);
+        } else {
+            pdu.setType(PDU.GETBULK);
+            pdu.setNonRepeaters(0);
+            pdu.setMaxRepetitions(maxRepetitions);
+        }
+        pdu.add(new VariableBinding(from));
+
+        state.inFlight.incrementAndGet();
+        sendRequest(pdu).whenComplete((response, error) -> {
+            try {
+                if (!isValidResponse(response, error)) {
+                    return;
+                }
+
+                OID next = null;
+                OID last = from;
+                for (VariableBinding variableBinding : response.getVariableBindings()) {
+                    OID oid = variableBinding.getOid();
+                    // Stop at the end of the subtree or MIB view and don't follow OIDs that aren't increasing
+                    if (variableBinding.isException() || !oid.startsWith(root) || oid.compareTo(last) <= 0) {
+                        next = null;
+                        break;
+                    }
+                    values.put(oid.format(), getValue(variableBinding.getVariable()));
+                    next = last = oid;
+                }
+
+                if (next != null && values.size() < MAX_WALK_SIZE) {
+                    walkSubtree(attributeRef, root, next, values, state);
+                } else {
+                    updateLinkedAttribute(attributeRef, values);
+                }
+            } finally {
+                state.inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    protected CompletableFuture<PDU> sendRequest(PDU pdu) {
+        CompletableFuture<PDU> future = new CompletableFuture<>();
+        Snmp snmp = this.snmp;
+
+        if (snmp == null) {
+            future.completeExceptionally(new IllegalStateException("SNMP session is closed"));
+            return future;
+        }
+
+        requestCount.incrementAndGet();
+
+        try {
+            snmp.send(pdu, target, null, new ResponseListener() {
+                @Override
+                public <A extends Address> void onResponse(ResponseEvent<A> event) {
+                    // Asynchronous requests must be cancelled once handled otherwise SNMP4J keeps retrying them
+                    ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+
+                    if (event.getError() != null) {
+                        future.completeExceptionally(event.getError());
+                    } else if (event.getResponse() == null) {
+                        future.completeExceptionally(new TimeoutException("SNMP request timed out"));
+                    } else {
+                        future.complete(event.getResponse());
+                    }
+                }
+            });
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    protected boolean isValidResponse(PDU response, Throwable error) {
+        if (error instanceof TimeoutException) {
+            int timeouts = consecutiveTimeouts.incrementAndGet();
+            long backoffMillis = Math.min(MAX_BACKOFF_MILLIS, (long) target.getTimeout() << Math.min(timeouts, 16));
+            backoffUntilMillis = System.currentTimeMillis() + backoffMillis;
+            LOG.info("SNMP request timed out so backing off for " + backoffMillis + "ms: " + this);
+            if (timeouts == 1) {
+                setConnectionStatus(ConnectionStatus.WAITING);
+            }
+            return false;
+        }
+
+        if (error != null) {
+            LOG.log(Level.INFO, "SNMP request failed: " + this, error);
+            return false;
+        }
+
+        if (consecutiveTimeouts.getAndSet(0) > 0) {
+            backoffUntilMillis = 0;
+            setConnectionStatus(ConnectionStatus.CONNECTED);
+        }
+
+        if (response.getErrorStatus() != PDU.noError) {
+            LOG.info("SNMP request returned an error: status=" + response.getErrorStatusText() + ", index=" + response.getErrorIndex() + ", " + this);
+            return false;
+        }
+
+        return true;
+    }
+
+    protected static Object getValue(Variable variable) {
+        // Integer32, Counter32, Gauge32, TimeTicks and Counter64 values are passed as numbers
+        if (variable instanceof Integer32 || variable instanceof UnsignedInteger32 || variable instanceof Counter64) {
+            return variable.toLong();
+        }
+        return variable.toString();
+    }
 }
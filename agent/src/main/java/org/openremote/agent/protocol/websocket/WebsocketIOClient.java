@@ -21,7 +21,6 @@ package org.openremote.agent.protocol.websocket;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.MessageToMessageEncoder;
 import io.netty.handler.codec.http.*;
@@ -130,11 +129,6 @@ public class WebsocketIOClient<T> extends AbstractNettyIOClient<T, InetSocketAdd
         return uri.toString();
     }
 
-    @Override
-    protected EventLoopGroup getWorkerGroup() {
-        return new NioEventLoopGroup(1);
-    }
-
     @Override
     protected Future<Void> startChannel() {
         handshakeFuture = new CompletableFuture<>();
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.hibernate.type.descriptor.WrapperOptions;
 import org.hibernate.type.descriptor.java.JavaType;
 import org.hibernate.type.format.FormatMapper;
+import org.openremote.model.attribute.Attribute;
+import org.openremote.model.attribute.AttributeMap;
 import org.openremote.model.util.ValueUtil;
 
 /**
@@ -18,6 +20,12 @@ public class JsonFormatMapper implements FormatMapper {
             return (T) charSequence.toString();
         }
         try {
+            if ( javaType.getJavaType() == AttributeMap.class ) {
+                // Attribute values and meta are only deserialised when accessed as most callers read just a few attributes
+                return ValueUtil.JSON.readerFor( AttributeMap.class )
+                    .withAttribute( Attribute.AttributeDeserializer.LAZY_ATTRIBUTE, Boolean.TRUE )
+                    .readValue( charSequence.toString() );
+            }
             return ValueUtil.JSON.readValue( charSequence.toString(), ValueUtil.JSON.constructType( javaType.getJavaType() ) );
         }
         catch (JsonProcessingException e) {
@@ -28,7 +28,9 @@ import org.hibernate.Transaction;
 import org.hibernate.type.Type;
 import org.openremote.model.PersistenceEvent;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -42,11 +44,25 @@ public class PersistenceEventInterceptor implements Interceptor {
     private static final Logger LOG = Logger.getLogger(PersistenceEventInterceptor.class.getName());
     protected Consumer<PersistenceEvent<?>> eventConsumer;
     protected Set<PersistenceEvent<?>> persistenceEvents = new HashSet<>();
+    protected Set<Object> transientEntities = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public void setEventConsumer(Consumer<PersistenceEvent<?>> eventConsumer) {
         this.eventConsumer = eventConsumer;
     }
 
+    /**
+     * Marks an entity with an assigned ID as not yet existing in the database for the current transaction so that
+     * merging it doesn't require a select to find out.
+     */
+    public void addTransientEntity(Object entity) {
+        transientEntities.add(entity);
+    }
+
+    @Override
+    public Boolean isTransient(Object entity) {
+        return transientEntities.contains(entity) ? Boolean.TRUE : null;
+    }
+
     @Override
     public boolean onSave(Object entity,
                           Object id,
@@ -119,6 +135,7 @@ public class PersistenceEventInterceptor implements Interceptor {
                     }
                 } finally {
                     persistenceEvents.clear();
+                    transientEntities.clear();
                 }
             }
         });
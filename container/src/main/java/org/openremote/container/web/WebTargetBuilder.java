@@ -30,8 +30,11 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpAsyncClient4Engine;
 import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
 import org.jboss.resteasy.client.jaxrs.internal.BasicAuthentication;
 import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
@@ -206,6 +209,44 @@ public class WebTargetBuilder {
         return clientBuilder.build();
     }
 
+    /**
+     * Create a client that uses the non-blocking apache async HTTP engine so asynchronous invocations (i.e.
+     * {@link jakarta.ws.rs.client.Invocation#submit}) don't hold a thread whilst waiting for the response; connections
+     * are pooled with at most maxConnectionsPerHost connections to each host.
+     */
+    public static ResteasyClient createAsyncClient(ExecutorService executorService, int connectionPoolSize, int maxConnectionsPerHost, long overrideSocketTimeout) {
+
+        // Use the same request config as the blocking client in order to deal with expires cookies in responses
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setCookieSpec(CookieSpecs.STANDARD)
+            .setConnectionRequestTimeout(Long.valueOf(CONNECTION_CHECKOUT_TIMEOUT_MILLISECONDS).intValue())
+            .setConnectTimeout(Long.valueOf(CONNECTION_TIMEOUT_MILLISECONDS).intValue())
+            .setSocketTimeout(Long.valueOf(overrideSocketTimeout).intValue())
+            .build();
+        CloseableHttpAsyncClient apacheClient = HttpAsyncClients.custom()
+            .setDefaultRequestConfig(requestConfig)
+            .setMaxConnTotal(connectionPoolSize)
+            .setMaxConnPerRoute(maxConnectionsPerHost)
+            .build();
+        apacheClient.start();
+        ApacheHttpAsyncClient4Engine engine = new ApacheHttpAsyncClient4Engine(apacheClient, true);
+
+        ResteasyClientBuilderImpl clientBuilder = new ResteasyClientBuilderImpl()
+            .httpEngine(engine)
+            .connectionPoolSize(connectionPoolSize)
+            .maxPooledPerRoute(maxConnectionsPerHost)
+            .connectionCheckoutTimeout(CONNECTION_CHECKOUT_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)
+            .readTimeout(overrideSocketTimeout, TimeUnit.MILLISECONDS)
+            .connectTimeout(CONNECTION_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)
+            .register(new JacksonConfig());
+
+        if (executorService != null) {
+            clientBuilder.executorService(executorService);
+        }
+
+        return clientBuilder.build();
+    }
+
     public static <K, V, W extends V> MultivaluedMap<K, V> mapToMultivaluedMap(Map<K, List<W>> map) {
         MultivaluedMap<K, V> multivaluedMap = new MultivaluedHashMap<>();
         for (Map.Entry<K, List<W>> e : map.entrySet()) {
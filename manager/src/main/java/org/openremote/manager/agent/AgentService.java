@@ -19,6 +19,8 @@
  */
 package org.openremote.manager.agent;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import jakarta.persistence.EntityManager;
 import org.apache.camel.builder.RouteBuilder;
 import org.openremote.container.message.MessageBrokerService;
@@ -57,6 +59,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -68,6 +71,7 @@ import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC;
 import static org.openremote.container.persistence.PersistenceService.isPersistenceEventForEntityType;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.manager.gateway.GatewayService.isNotForGateway;
 import static org.openremote.model.attribute.Attribute.getAddedOrModifiedAttributes;
 import static org.openremote.model.value.MetaItemType.AGENT_LINK;
@@ -154,13 +158,23 @@ public class AgentService extends RouteBuilder implements ContainerService {
 
         @Override
         public void sendAttributeEvent(AttributeEvent attributeEvent) {
+            checkRealm(attributeEvent);
+            AgentService.this.sendAttributeEvent(attributeEvent);
+        }
+
+        @Override
+        public void sendAttributeEvents(Collection<AttributeEvent> attributeEvents) {
+            attributeEvents.forEach(this::checkRealm);
+            AgentService.this.sendAttributeEvents(attributeEvents);
+        }
+
+        protected void checkRealm(AttributeEvent attributeEvent) {
             if (TextUtil.isNullOrEmpty(attributeEvent.getRealm())) {
                 attributeEvent.setRealm(agent.getRealm());
             } else if (!Objects.equals(attributeEvent.getRealm(), agent.getRealm())) {
                 Protocol.LOG.warning("Protocol attempting to send attribute event to another realm: " + agent);
                 throw new IllegalArgumentException("Protocol attempting to send attribute event to another realm");
             }
-            AgentService.this.sendAttributeEvent(attributeEvent);
         }
 
         @Override
@@ -186,18 +200,27 @@ public class AgentService extends RouteBuilder implements ContainerService {
 
     private static final Logger LOG = Logger.getLogger(AgentService.class.getName());
     public static final int PRIORITY = MessageBrokerService.PRIORITY + 100; // Start quite late to ensure asset model etc. are initialised
+    public static final String OR_AGENT_QUEUE_CAPACITY = "OR_AGENT_QUEUE_CAPACITY";
+    public static final int OR_AGENT_QUEUE_CAPACITY_DEFAULT = 1000;
+    // Key of the agent (re)deploy task so that repeated agent changes collapse into a single redeploy
+    protected static final String DEPLOY_TASK_KEY = "deploy";
     protected AssetProcessingService assetProcessingService;
     protected AssetStorageService assetStorageService;
     protected ClientEventService clientEventService;
     protected GatewayService gatewayService;
     protected ExecutorService executorService;
-    protected Map<String, Agent<?, ?, ?>> agentMap;
+    protected volatile Map<String, Agent<?, ?, ?>> agentMap;
+    protected final Object agentMapLock = new Object();
     protected final Map<String, Future<Void>> agentDiscoveryImportFutureMap = new ConcurrentHashMap<>();
     protected final Map<String, Protocol<?>> protocolInstanceMap = new ConcurrentHashMap<>();
     protected final Map<String, Set<Consumer<PersistenceEvent<Asset<?>>>>> childAssetSubscriptions = new ConcurrentHashMap<>();
     protected boolean initDone;
     protected Container container;
-    protected final Object agentLock = new Object();
+    // Agent lifecycle and configuration changes are serialised per agent so a slow agent doesn't block other agents
+    protected final Map<String, AgentTaskQueue> agentTaskQueues = new ConcurrentHashMap<>();
+    protected final AtomicLong agentTasksCoalesced = new AtomicLong();
+    protected final AtomicLong agentTasksBlocked = new AtomicLong();
+    protected int agentQueueCapacity = OR_AGENT_QUEUE_CAPACITY_DEFAULT;
 
     @Override
     public int getPriority() {
@@ -213,11 +236,21 @@ public class AgentService extends RouteBuilder implements ContainerService {
         clientEventService = container.getService(ClientEventService.class);
         gatewayService = container.getService(GatewayService.class);
         executorService = container.getExecutor();
+        agentQueueCapacity = getInteger(container.getConfig(), OR_AGENT_QUEUE_CAPACITY, OR_AGENT_QUEUE_CAPACITY_DEFAULT);
 
         if (initDone) {
             return;
         }
 
+        if (container.getMeterRegistry() != null) {
+            Gauge.builder("or.agent.queue.pending", agentTaskQueues, queues -> queues.values().stream().mapToInt(AgentTaskQueue::size).sum())
+                .register(container.getMeterRegistry());
+            FunctionCounter.builder("or.agent.queue.coalesced", agentTasksCoalesced, AtomicLong::get)
+                .register(container.getMeterRegistry());
+            FunctionCounter.builder("or.agent.queue.blocked", agentTasksBlocked, AtomicLong::get)
+                .register(container.getMeterRegistry());
+        }
+
         container.getService(ManagerWebService.class).addApiSingleton(
             new AgentResourceImpl(
                 container.getService(TimerService.class),
@@ -243,16 +276,27 @@ public class AgentService extends RouteBuilder implements ContainerService {
         Collection<Agent<?, ?, ?>> agents = getAgents().values();
         LOG.fine("Found agent count = " + agents.size());
 
-        agents.forEach(this::doAgentInit);
+        agents.forEach(agent -> submitDeploy(agent.getId()));
     }
 
     @Override
     public void stop(Container container) throws Exception {
+        agentTaskQueues.values().forEach(AgentTaskQueue::close);
+
         if (agentMap != null) {
             List<Agent<?, ?, ?>> agents = new ArrayList<>(agentMap.values());
-            agents.forEach(agent -> this.undeployAgent(agent.getId()));
+            agents.forEach(agent -> {
+                AgentTaskQueue queue = agentTaskQueues.get(agent.getId());
+                if (queue != null) {
+                    // Wait for any running task of the agent to complete
+                    queue.runExclusive(() -> stopAgent(agent.getId()));
+                } else {
+                    stopAgent(agent.getId());
+                }
+            });
             agentMap.clear();
         }
+        agentTaskQueues.clear();
         protocolInstanceMap.clear();
     }
 
@@ -290,19 +334,47 @@ public class AgentService extends RouteBuilder implements ContainerService {
     }
 
     /**
-     * Deploy the {@link Agent} by creating a protocol instance, starting it and linking all attributes
+     * Deploy the {@link Agent} by creating a protocol instance, starting it and linking all attributes; any existing
+     * protocol instance is stopped first. The agent is added to the agent map immediately and the protocol instance
+     * is (re)created by the agent's task queue.
      */
     protected void deployAgent(Agent<?,?,?> agent) {
-        synchronized (agentLock) {
-            undeployAgent(agent.getId());
-            agent = addAgent(agent);
+        String agentId = agent.getId();
 
-            if (agent == null) {
-                return;
-            }
+        if (addAgent(agent) == null) {
+            removeAgent(agentId);
+        }
 
-            doAgentInit(agent);
+        submitDeploy(agentId);
+    }
+
+    protected AgentTaskQueue getAgentTaskQueue(String agentId) {
+        return agentTaskQueues.computeIfAbsent(agentId, id ->
+            new AgentTaskQueue(id, executorService, agentQueueCapacity, agentTasksCoalesced, agentTasksBlocked));
+    }
+
+    /**
+     * Queue a (re)deploy of the agent's protocol instance; a pending deploy for the same agent is superseded.
+     */
+    protected void submitDeploy(String agentId) {
+        getAgentTaskQueue(agentId).submit(DEPLOY_TASK_KEY, () -> doDeployAgent(agentId));
+    }
+
+    /**
+     * Stops any existing protocol instance of the agent and then starts a new one using the current agent state; must
+     * only be called by the agent's task queue.
+     */
+    protected void doDeployAgent(String agentId) {
+        stopAgent(agentId);
+        Agent<?, ?, ?> agent = getAgent(agentId);
+
+        if (agent == null) {
+            // Agent has been removed
+            agentTaskQueues.remove(agentId);
+            return;
         }
+
+        doAgentInit(agent);
     }
 
     /**
@@ -391,94 +463,103 @@ public class AgentService extends RouteBuilder implements ContainerService {
         assetProcessingService.sendAttributeEvent(event, getClass().getSimpleName());
     }
 
+    protected void sendAttributeEvents(Collection<AttributeEvent> events) {
+        assetProcessingService.sendAttributeEvents(events, getClass().getSimpleName());
+    }
+
     protected void doAgentInit(Agent<?,?,?> agent) {
         boolean isDisabled = agent.isDisabled().orElse(false);
         if (isDisabled) {
             LOG.fine("Agent is disabled so not starting: " + agent);
             sendAttributeEvent(new AttributeEvent(agent.getId(), Agent.STATUS.getName(), ConnectionStatus.DISABLED));
         } else {
-            executorService.execute(() -> this.startAgent(agent));
+            startAgent(agent);
         }
     }
 
     protected void startAgent(Agent<?,?,?> agent) {
+        Protocol<?> protocol = null;
 
-        synchronized (agentLock) {
+        try {
+            protocol = agent.getProtocolInstance();
+            protocol.setAssetService(new AgentProtocolAssetService(agent));
 
-            Protocol<?> protocol = null;
+            LOG.fine("Starting protocol instance: " + protocol);
+            protocol.start(container);
+            protocolInstanceMap.put(agent.getId(), protocol);
+            LOG.fine("Started protocol instance: " + protocol);
 
-            try {
-                protocol = agent.getProtocolInstance();
-                protocol.setAssetService(new AgentProtocolAssetService(agent));
-
-                LOG.fine("Starting protocol instance: " + protocol);
-                protocol.start(container);
-                protocolInstanceMap.put(agent.getId(), protocol);
-                LOG.fine("Started protocol instance: " + protocol);
-
-                LOG.finest("Linking attributes to protocol instance: " + protocol);
-
-                // Get all assets that have attributes with agent link meta for this agent
-                List<Asset<?>> assets = assetStorageService.findAll(
-                    new AssetQuery()
-                        .attributes(
-                            new AttributePredicate().meta(
-                                new NameValuePredicate(AGENT_LINK, new StringPredicate(agent.getId()), false, new NameValuePredicate.Path("id"))
-                            )
+            LOG.finest("Linking attributes to protocol instance: " + protocol);
+
+            // Get all assets that have attributes with agent link meta for this agent
+            List<Asset<?>> assets = assetStorageService.findAll(
+                new AssetQuery()
+                    .attributes(
+                        new AttributePredicate().meta(
+                            new NameValuePredicate(AGENT_LINK, new StringPredicate(agent.getId()), false, new NameValuePredicate.Path("id"))
                         )
-                );
-
-                LOG.finest("Found '" + assets.size() + "' asset(s) with attributes linked to this protocol instance: " + protocol);
-
-                assets.forEach(
-                    asset ->
-                        getGroupedAgentLinkAttributes(
-                            asset.getAttributes().stream(),
-                            assetAttribute -> assetAttribute.getMetaValue(AGENT_LINK)
-                                .map(agentLink -> agentLink.getId().equals(agent.getId()))
-                                .orElse(false)
-                        ).forEach((agnt, attributes) -> linkAttributes(agnt, asset.getId(), attributes))
-                );
-            } catch (Exception e) {
-                if (protocol != null) {
-                    try {
-                        protocol.stop(container);
-                    } catch (Exception ignored) {
-                    }
+                    )
+            );
+
+            LOG.finest("Found '" + assets.size() + "' asset(s) with attributes linked to this protocol instance: " + protocol);
+
+            assets.forEach(
+                asset ->
+                    getGroupedAgentLinkAttributes(
+                        asset.getAttributes().stream(),
+                        assetAttribute -> assetAttribute.getMetaValue(AGENT_LINK)
+                            .map(agentLink -> agentLink.getId().equals(agent.getId()))
+                            .orElse(false)
+                    ).forEach((agnt, attributes) -> linkAttributes(agnt, asset.getId(), attributes))
+            );
+        } catch (Exception e) {
+            if (protocol != null) {
+                try {
+                    protocol.stop(container);
+                } catch (Exception ignored) {
                 }
-                protocolInstanceMap.remove(agent.getId());
-                LOG.log(Level.SEVERE, "Failed to start protocol '" + protocol + "': " + agent + " msg=" + e.getMessage());
-                sendAttributeEvent(new AttributeEvent(agent.getId(), Agent.STATUS.getName(), ConnectionStatus.ERROR));
             }
+            protocolInstanceMap.remove(agent.getId());
+            LOG.log(Level.SEVERE, "Failed to start protocol '" + protocol + "': " + agent + " msg=" + e.getMessage());
+            sendAttributeEvent(new AttributeEvent(agent.getId(), Agent.STATUS.getName(), ConnectionStatus.ERROR));
         }
     }
 
+    /**
+     * Undeploy the {@link Agent}; the agent is removed from the agent map immediately and the protocol instance is
+     * stopped by the agent's task queue.
+     */
     protected void undeployAgent(String agentId) {
-        synchronized (agentLock) {
-            removeAgent(agentId);
-            Protocol<?> protocol = protocolInstanceMap.get(agentId);
+        removeAgent(agentId);
+        submitDeploy(agentId);
+    }
 
-            if (protocol == null) {
-                return;
-            }
+    /**
+     * Unlinks all attributes and stops the protocol instance of the agent (if there is one)
+     */
+    protected void stopAgent(String agentId) {
+        Protocol<?> protocol = protocolInstanceMap.get(agentId);
 
-            Map<String, List<Attribute<?>>> groupedAttributes = protocol.getLinkedAttributes().entrySet().stream().collect(
-                Collectors.groupingBy(entry -> entry.getKey().getId(), mapping(Map.Entry::getValue, toList()))
-            );
+        if (protocol == null) {
+            return;
+        }
 
-            groupedAttributes.forEach((assetId, linkedAttributes) -> unlinkAttributes(agentId, assetId, linkedAttributes));
+        Map<String, List<Attribute<?>>> groupedAttributes = protocol.getLinkedAttributes().entrySet().stream().collect(
+            Collectors.groupingBy(entry -> entry.getKey().getId(), mapping(Map.Entry::getValue, toList()))
+        );
 
-            // Stop the protocol instance
-            try {
-                protocol.stop(container);
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "Protocol instance threw an exception whilst being stopped", e);
-            }
+        groupedAttributes.forEach((assetId, linkedAttributes) -> unlinkAttributes(agentId, assetId, linkedAttributes));
 
-            // Remove child asset subscriptions for this agent
-            childAssetSubscriptions.remove(agentId);
-            protocolInstanceMap.remove(agentId);
+        // Stop the protocol instance
+        try {
+            protocol.stop(container);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Protocol instance threw an exception whilst being stopped", e);
         }
+
+        // Remove child asset subscriptions for this agent
+        childAssetSubscriptions.remove(agentId);
+        protocolInstanceMap.remove(agentId);
     }
 
     protected void linkAttributes(Agent<?,?,?> agent, String assetId, Collection<Attribute<?>> attributes) {
@@ -579,51 +660,56 @@ public class AgentService extends RouteBuilder implements ContainerService {
      * attribute has been updated in the DB).
      * <p>
      * We use this to try and react to agent changes in a generic way by re-initialising the agent to simplify each
-     * agent implementation.
+     * agent implementation. Events are queued on the agent's task queue; a pending event for the same attribute is
+     * superseded by a newer one and any resulting agent re-initialisations collapse into a single redeploy.
      */
-    // TODO: Queue up agent attribute events and do a single agent replacement
     protected void onAgentAttributeEvent(AttributeEvent event) {
+        if (getAgent(event.getId()) == null) {
+            return;
+        }
 
-        synchronized (agentLock) {
-            Agent<?, ?, ?> agent = getAgent(event.getId());
+        getAgentTaskQueue(event.getId()).submit("attribute:" + event.getName(), () -> processAgentAttributeEvent(event));
+    }
 
-            if (agent == null) {
-                return;
-            }
+    protected void processAgentAttributeEvent(AttributeEvent event) {
+        Agent<?, ?, ?> agent = getAgent(event.getId());
 
-            // Check that the event has a newer timestamp than the existing agent attribute - if the attribute doesn't
-            // exist on the agent either then assume the agent has been modified and attribute removed
-            boolean eventOutdated = agent.getAttribute(event.getName()).flatMap(Attribute::getTimestamp)
-                .map(timestamp -> event.getTimestamp() <= timestamp)
-                .orElse(true);
+        if (agent == null) {
+            return;
+        }
 
-            if (eventOutdated) {
-                return;
-            }
+        // Check that the event has a newer timestamp than the existing agent attribute - if the attribute doesn't
+        // exist on the agent either then assume the agent has been modified and attribute removed
+        boolean eventOutdated = agent.getAttribute(event.getName()).flatMap(Attribute::getTimestamp)
+            .map(timestamp -> event.getTimestamp() <= timestamp)
+            .orElse(true);
 
-            // Ignore events that have come from the AssetStorageService (i.e. Asset merges as these are handled separately)
-            if (AssetStorageService.class.getSimpleName().equals(event.getSource())) {
-                return;
-            }
+        if (eventOutdated) {
+            return;
+        }
 
-            // Update in memory agent
-            agent.getAttribute(event.getName()).ifPresent(attr -> attr.setValue(event.getValue().orElse(null), event.getTimestamp()));
+        // Ignore events that have come from the AssetStorageService (i.e. Asset merges as these are handled separately)
+        if (AssetStorageService.class.getSimpleName().equals(event.getSource())) {
+            return;
+        }
 
-            Protocol<?> protocolInstance = getProtocolInstance(agent.getId());
+        // Update in memory agent
+        agent.getAttribute(event.getName()).ifPresent(attr -> attr.setValue(event.getValue().orElse(null), event.getTimestamp()));
 
-            if (protocolInstance == null) {
-                if (Agent.DISABLED.getName().equals(event.getName())) {
-                    // Maybe agent was disabled and now isn't - use standard mechanism
-                    deployAgent(agent);
-                }
-                return;
-            }
+        Protocol<?> protocolInstance = getProtocolInstance(agent.getId());
 
-            LOG.finer("Notifying protocol instance of an event for one of its agent attributes: " + event.getRef());
-            if (protocolInstance.onAgentAttributeChanged(event)) {
-                LOG.info("Protocol has requested recreation following agent attribute event: " + event.getRef());
-                deployAgent(agent);
+        if (protocolInstance == null) {
+            if (Agent.DISABLED.getName().equals(event.getName())) {
+                // Maybe agent was disabled and now isn't - use standard mechanism
+                submitDeploy(agent.getId());
             }
+            return;
+        }
+
+        LOG.finer("Notifying protocol instance of an event for one of its agent attributes: " + event.getRef());
+        if (protocolInstance.onAgentAttributeChanged(event)) {
+            LOG.info("Protocol has requested recreation following agent attribute event: " + event.getRef());
+            submitDeploy(agent.getId());
         }
     }
 
@@ -684,17 +770,22 @@ public class AgentService extends RouteBuilder implements ContainerService {
     }
 
     protected Map<String, Agent<?, ?, ?>> getAgents() {
-        synchronized (agentLock) {
-            if (agentMap == null) {
-                agentMap = assetStorageService.findAll(
-                        new AssetQuery().types(Agent.class)
-                    )
-                    .stream()
-                    .filter(asset -> gatewayService.getLocallyRegisteredGatewayId(asset.getId(), null) == null)
-                    .collect(Collectors.toConcurrentMap(Asset::getId, agent -> (Agent<?, ?, ?>) agent));
+        Map<String, Agent<?, ?, ?>> agents = agentMap;
+
+        if (agents == null) {
+            synchronized (agentMapLock) {
+                if (agentMap == null) {
+                    agentMap = assetStorageService.findAll(
+                            new AssetQuery().types(Agent.class)
+                        )
+                        .stream()
+                        .filter(asset -> gatewayService.getLocallyRegisteredGatewayId(asset.getId(), null) == null)
+                        .collect(Collectors.toConcurrentMap(Asset::getId, agent -> (Agent<?, ?, ?>) agent));
+                }
+                agents = agentMap;
             }
-            return agentMap;
         }
+        return agents;
     }
 
     public Protocol<?> getProtocolInstance(Agent<?, ?, ?> agent) {
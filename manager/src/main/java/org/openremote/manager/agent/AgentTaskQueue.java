@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.agent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded serial task queue for a single {@link org.openremote.model.asset.agent.Agent}; tasks are run one at a time
+ * in submission order on the supplied {@link Executor} so tasks for different agents never block each other.
+ * <p>
+ * A task submitted with a key supersedes any pending task with the same key (the pending task is dropped and the new
+ * task is queued at the end); this is used to collapse repeated agent configuration changes into the latest. When
+ * the queue is full the submitting thread waits for space (back pressure) unless it is the thread running a task of
+ * this queue.
+ */
+public class AgentTaskQueue {
+
+    private static final Logger LOG = Logger.getLogger(AgentTaskQueue.class.getName());
+    protected final String agentId;
+    protected final Executor executor;
+    protected final int capacity;
+    protected final AtomicLong coalescedCounter;
+    protected final AtomicLong blockedCounter;
+    // Held whilst a task is running so tasks can also be run exclusively outside of the queue (see runExclusive)
+    protected final Object taskLock = new Object();
+    protected final Map<Object, Runnable> pending = new LinkedHashMap<>();
+    protected long sequence;
+    protected boolean scheduled;
+    protected boolean closed;
+    protected Thread worker;
+
+    public AgentTaskQueue(String agentId, Executor executor, int capacity, AtomicLong coalescedCounter, AtomicLong blockedCounter) {
+        this.agentId = agentId;
+        this.executor = executor;
+        this.capacity = Math.max(1, capacity);
+        this.coalescedCounter = coalescedCounter;
+        this.blockedCounter = blockedCounter;
+    }
+
+    /**
+     * Submit a task to this queue; if key is not null then any pending task with the same key is superseded.
+     *
+     * @return false if the queue has been closed
+     */
+    public boolean submit(String key, Runnable task) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+
+            if (key != null && pending.remove(key) != null) {
+                coalescedCounter.incrementAndGet();
+            } else if (pending.size() >= capacity && Thread.currentThread() != worker) {
+                blockedCounter.incrementAndGet();
+                LOG.fine("Agent task queue is full so waiting: agentId=" + agentId);
+
+                while (pending.size() >= capacity && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                if (closed) {
+                    return false;
+                }
+            }
+
+            pending.put(key != null ? key : sequence++, task);
+            schedule();
+            return true;
+        }
+    }
+
+    /**
+     * Run the task on the calling thread whilst no other task of this queue is running.
+     */
+    public void runExclusive(Runnable task) {
+        synchronized (taskLock) {
+            task.run();
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Drop all pending tasks and stop accepting new ones; a task that is running will complete.
+     */
+    public synchronized void close() {
+        closed = true;
+        pending.clear();
+        notifyAll();
+    }
+
+    // Must be called whilst holding the monitor of this queue
+    protected void schedule() {
+        if (scheduled || closed || pending.isEmpty()) {
+            return;
+        }
+        scheduled = true;
+        try {
+            executor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            // Pending tasks are kept and the next submission will try again
+            scheduled = false;
+            LOG.warning("Agent task queue could not be scheduled: agentId=" + agentId + ", pending=" + pending.size());
+        }
+    }
+
+    // Runs a single task and then re-schedules so that agents with a lot of pending tasks don't monopolise a thread
+    protected void runNext() {
+        Runnable task;
+
+        synchronized (this) {
+            Iterator<Runnable> iterator = pending.values().iterator();
+            if (closed || !iterator.hasNext()) {
+                scheduled = false;
+                return;
+            }
+            task = iterator.next();
+            iterator.remove();
+            worker = Thread.currentThread();
+            notifyAll();
+        }
+
+        try {
+            synchronized (taskLock) {
+                task.run();
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Agent task threw an exception: agentId=" + agentId, e);
+        } finally {
+            synchronized (this) {
+                worker = null;
+                scheduled = false;
+                schedule();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "agentId='" + agentId + '\'' +
+            ", pending=" + size() +
+            '}';
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.openremote.manager.asset;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
@@ -41,11 +43,16 @@ import org.openremote.manager.security.ManagerIdentityService;
 import org.openremote.model.Constants;
 import org.openremote.model.Container;
 import org.openremote.model.ContainerService;
+import org.openremote.model.PersistenceEvent;
 import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.UserAssetLink;
 import org.openremote.model.attribute.Attribute;
 import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.attribute.MetaItem;
+import org.openremote.model.auth.AuthContext;
 import org.openremote.model.security.ClientRole;
+import org.openremote.model.security.User;
 import org.openremote.model.util.ValueUtil;
 import org.openremote.model.value.MetaItemType;
 
@@ -54,7 +61,13 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
+import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC;
+import static org.openremote.container.persistence.PersistenceService.isPersistenceEventForEntityType;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.model.attribute.AttributeWriteFailure.*;
 
 /**
@@ -86,6 +99,11 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
     public static final String ATTRIBUTE_EVENT_ROUTE_CONFIG_ID = "attributeEvent";
     public static final int PRIORITY = AssetStorageService.PRIORITY + 1000;
     public static final String ATTRIBUTE_EVENT_PROCESSOR = "direct://AttributeEventProcessor";
+    public static final String ATTRIBUTE_EVENTS_PROCESSOR = "direct://AttributeEventsProcessor";
+    public static final String OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE = "OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE";
+    public static final int OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE_DEFAULT = 10000;
+    public static final String OR_ATTRIBUTE_WRITE_AUTH_CACHE_EXPIRY_MILLIS = "OR_ATTRIBUTE_WRITE_AUTH_CACHE_EXPIRY_MILLIS";
+    public static final int OR_ATTRIBUTE_WRITE_AUTH_CACHE_EXPIRY_MILLIS_DEFAULT = 60000;
     private static final System.Logger LOG = System.getLogger(AssetProcessingService.class.getName());
     final protected List<AttributeEventInterceptor> eventInterceptors = new ArrayList<>();
     protected TimerService timerService;
@@ -105,6 +123,18 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
     protected MeterRegistry meterRegistry;
     protected Timer eventTimer;
     protected Map<String, Counter> eventCounters;
+    // (user, restricted, realm, attribute) -> client write authorised
+    protected Cache<WriteAuthKey, Boolean> writeAuthCache;
+    // Incremented before each invalidation so decisions made whilst an invalidation runs aren't kept
+    protected final AtomicLong writeAuthCacheGeneration = new AtomicLong();
+
+    /**
+     * Key of a cached client write authorisation decision; a single bounded cache of these keys is used so the number
+     * of decisions held is limited by {@link #OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE} regardless of how they are spread
+     * across users and assets.
+     */
+    protected record WriteAuthKey(String userId, boolean restricted, String realm, AttributeRef attributeRef) {
+    }
 
     @Override
     public int getPriority() {
@@ -125,6 +155,15 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
         messageBrokerService = container.getService(MessageBrokerService.class);
         clientEventService = container.getService(ClientEventService.class);
         executorService = container.getExecutor();
+
+        int writeAuthCacheSize = getInteger(container.getConfig(), OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE, OR_ATTRIBUTE_WRITE_AUTH_CACHE_SIZE_DEFAULT);
+        if (writeAuthCacheSize > 0) {
+            writeAuthCache = CacheBuilder.newBuilder()
+                .maximumSize(writeAuthCacheSize)
+                .expireAfterWrite(getInteger(container.getConfig(), OR_ATTRIBUTE_WRITE_AUTH_CACHE_EXPIRY_MILLIS, OR_ATTRIBUTE_WRITE_AUTH_CACHE_EXPIRY_MILLIS_DEFAULT), TimeUnit.MILLISECONDS)
+                .build();
+        }
+
         EventSubscriptionAuthorizer assetEventAuthorizer = AssetStorageService.assetInfoAuthorizer(identityService, assetStorageService);
 
         clientEventService.addSubscriptionAuthorizer((requestedRealm, auth, subscription) -> {
@@ -134,7 +173,6 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
             return assetEventAuthorizer.authorise(requestedRealm, auth, subscription);
         });
 
-        // TODO: Introduce caching here similar to ActiveMQ auth caching
         clientEventService.addEventAuthorizer((requestedRealm, authContext, event) -> {
 
             if (!(event instanceof AttributeEvent attributeEvent)) {
@@ -159,44 +197,32 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
                 return false;
             }
 
-            // Have to load the asset and attribute to perform additional checks - should permissions be moved out of the
-            // asset model (possibly if the performance is determined to be not good enough)
-            // TODO: Use a targeted query to retrieve just the info we need
-            Asset<?> asset = assetStorageService.find(attributeEvent.getId());
-            Attribute<?> attribute = asset != null ? asset.getAttribute(attributeEvent.getName()).orElse(null) : null;
-
-            if (asset == null || !asset.hasAttribute(attributeEvent.getName())) {
-                LOG.log(System.Logger.Level.INFO, () -> "Cannot authorize asset event as asset and/or attribute doesn't exist: " + attributeEvent.getRef());
-                return false;
-            } else if (!Objects.equals(requestedRealm, asset.getRealm())) {
-                LOG.log(System.Logger.Level.INFO, () -> "Asset is not in the requested realm: requestedRealm=" + requestedRealm + ", ref=" + attributeEvent.getRef());
-                return false;
+            if (writeAuthCache == null || attributeEvent.getId() == null || attributeEvent.getName() == null) {
+                return isAttributeWriteAuthorised(requestedRealm, authContext, attributeEvent);
             }
 
-            if (authContext != null) {
-                // Check restricted user
-                if (identityService.getIdentityProvider().isRestrictedUser(authContext)) {
-                    // Must be asset linked to user
-                    if (!assetStorageService.isUserAsset(authContext.getUserId(),
-                        attributeEvent.getId())) {
-                        LOG.log(System.Logger.Level.DEBUG, () -> "Restricted user is not linked to asset '" + attributeEvent.getId() + "': username=" + authContext.getUsername() + ", userRealm=" + authContext.getAuthenticatedRealmName());
-                        return false;
-                    }
-
-                    if (attribute == null || !attribute.getMetaValue(MetaItemType.ACCESS_RESTRICTED_WRITE).orElse(false)) {
-                        LOG.log(System.Logger.Level.DEBUG, () -> "Asset attribute doesn't support restricted write on '" + attributeEvent.getRef() + "': username=" + authContext.getUsername() + ", userRealm=" + authContext.getAuthenticatedRealmName());
-                        return false;
-                    }
-                }
-            } else {
-                // Check attribute has public write flag for anonymous write
-                if (attribute == null || !attribute.hasMeta(MetaItemType.ACCESS_PUBLIC_WRITE)) {
-                    LOG.log(System.Logger.Level.DEBUG, () -> "Asset doesn't support public write on '" + attributeEvent.getRef() + "': username=null");
-                    return false;
+            // Asset and user asset link checks are cached as they require loading the asset; the cache is
+            // invalidated when the asset, its user links or the user are modified
+            WriteAuthKey cacheKey = new WriteAuthKey(
+                authContext != null ? authContext.getUserId() : "",
+                identityService.getIdentityProvider().isRestrictedUser(authContext),
+                requestedRealm,
+                attributeEvent.getRef());
+            Boolean authorised = writeAuthCache.getIfPresent(cacheKey);
+
+            if (authorised == null) {
+                long generation = writeAuthCacheGeneration.get();
+                authorised = isAttributeWriteAuthorised(requestedRealm, authContext, attributeEvent);
+                writeAuthCache.put(cacheKey, authorised);
+
+                // The decision may be based on state that an invalidation which started during the check has already
+                // passed over; any invalidation that starts after this check will remove the entry itself
+                if (writeAuthCacheGeneration.get() != generation) {
+                    writeAuthCache.invalidate(cacheKey);
                 }
             }
 
-            return true;
+            return authorised;
         });
 
         // Add exception handling for attribute event processing that logs queue full exceptions and counts them
@@ -251,6 +277,55 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
         }
     }
 
+    protected void invalidateWriteAuthCache(Predicate<WriteAuthKey> predicate) {
+        writeAuthCacheGeneration.incrementAndGet();
+        writeAuthCache.asMap().keySet().removeIf(predicate);
+    }
+
+    /**
+     * Checks that require the asset to be loaded to determine whether a client can write to an attribute.
+     */
+    protected boolean isAttributeWriteAuthorised(String requestedRealm, AuthContext authContext, AttributeEvent attributeEvent) {
+        // Have to load the asset and attribute to perform additional checks - should permissions be moved out of the
+        // asset model (possibly if the performance is determined to be not good enough)
+        // TODO: Use a targeted query to retrieve just the info we need
+        Asset<?> asset = assetStorageService.find(attributeEvent.getId());
+        Attribute<?> attribute = asset != null ? asset.getAttribute(attributeEvent.getName()).orElse(null) : null;
+
+        if (asset == null || !asset.hasAttribute(attributeEvent.getName())) {
+            LOG.log(System.Logger.Level.INFO, () -> "Cannot authorize asset event as asset and/or attribute doesn't exist: " + attributeEvent.getRef());
+            return false;
+        } else if (!Objects.equals(requestedRealm, asset.getRealm())) {
+            LOG.log(System.Logger.Level.INFO, () -> "Asset is not in the requested realm: requestedRealm=" + requestedRealm + ", ref=" + attributeEvent.getRef());
+            return false;
+        }
+
+        if (authContext != null) {
+            // Check restricted user
+            if (identityService.getIdentityProvider().isRestrictedUser(authContext)) {
+                // Must be asset linked to user
+                if (!assetStorageService.isUserAsset(authContext.getUserId(),
+                    attributeEvent.getId())) {
+                    LOG.log(System.Logger.Level.DEBUG, () -> "Restricted user is not linked to asset '" + attributeEvent.getId() + "': username=" + authContext.getUsername() + ", userRealm=" + authContext.getAuthenticatedRealmName());
+                    return false;
+                }
+
+                if (attribute == null || !attribute.getMetaValue(MetaItemType.ACCESS_RESTRICTED_WRITE).orElse(false)) {
+                    LOG.log(System.Logger.Level.DEBUG, () -> "Asset attribute doesn't support restricted write on '" + attributeEvent.getRef() + "': username=" + authContext.getUsername() + ", userRealm=" + authContext.getAuthenticatedRealmName());
+                    return false;
+                }
+            }
+        } else {
+            // Check attribute has public write flag for anonymous write
+            if (attribute == null || !attribute.hasMeta(MetaItemType.ACCESS_PUBLIC_WRITE)) {
+                LOG.log(System.Logger.Level.DEBUG, () -> "Asset doesn't support public write on '" + attributeEvent.getRef() + "': username=null");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void start(Container container) throws Exception {
     }
@@ -262,6 +337,26 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
     @Override
     public void configure() throws Exception {
 
+        // Invalidate cached write authorisation decisions when the asset, its user links or the user are modified
+        from(PERSISTENCE_TOPIC)
+            .routeId("Persistence-AttributeWriteAuthCache")
+            .filter(exchange -> writeAuthCache != null)
+            .filter(exchange -> isPersistenceEventForEntityType(Asset.class).matches(exchange)
+                || isPersistenceEventForEntityType(UserAssetLink.class).matches(exchange)
+                || isPersistenceEventForEntityType(User.class).matches(exchange))
+            .process(exchange -> {
+                Object entity = exchange.getIn().getBody(PersistenceEvent.class).getEntity();
+
+                if (entity instanceof Asset<?> asset) {
+                    invalidateWriteAuthCache(key -> asset.getId().equals(key.attributeRef().getId()));
+                } else if (entity instanceof UserAssetLink userAssetLink) {
+                    String assetId = userAssetLink.getId().getAssetId();
+                    invalidateWriteAuthCache(key -> assetId.equals(key.attributeRef().getId()));
+                } else if (entity instanceof User user) {
+                    invalidateWriteAuthCache(key -> user.getId().equals(key.userId()));
+                }
+            });
+
         // All user authorisation checks MUST have been carried out before events reach this queue
         from(ATTRIBUTE_EVENT_PROCESSOR)
             .routeId("AttributeEvent-Processor")
@@ -269,32 +364,55 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
             .threads().executorService(executorService)
             .process(exchange -> {
                 AttributeEvent event = exchange.getIn().getBody(AttributeEvent.class);
+                exchange.getIn().setBody(doProcessAttributeEvent(event));
+            });
 
-                if (event.getId() == null || event.getId().isEmpty())
-                    throw new AssetProcessingException(ASSET_ID_MISSING);
-                if (event.getName() == null || event.getName().isEmpty())
-                    throw new AssetProcessingException(ATTRIBUTE_NAME_MISSING);
-
-                if (event.getTimestamp() <= 0) {
-                    // Set timestamp if not set
-                    event.setTimestamp(timerService.getCurrentTimeMillis());
-                } else if (event.getTimestamp() > timerService.getCurrentTimeMillis()) {
-                    // Use system time if event time is in the future (clock issue)
-                    event.setTimestamp(timerService.getCurrentTimeMillis());
-                }
+        // Multiple events submitted together (e.g. all values from one protocol poll cycle) are processed in order by
+        // a single task; a failure only affects the event that caused it
+        from(ATTRIBUTE_EVENTS_PROCESSOR)
+            .routeId("AttributeEvents-Processor")
+            .routeConfigurationId(ATTRIBUTE_EVENT_ROUTE_CONFIG_ID)
+            .threads().executorService(executorService)
+            .process(exchange -> {
+                @SuppressWarnings("unchecked")
+                List<AttributeEvent> events = exchange.getIn().getBody(List.class);
 
-                LOG.log(System.Logger.Level.TRACE, () -> ">>> Attribute event processing start: " + event);
-                Counter counter = getEventCounter(event.getSource());
-                if (counter != null) {
-                    counter.increment();
+                for (AttributeEvent event : events) {
+                    try {
+                        doProcessAttributeEvent(event);
+                    } catch (AssetProcessingException e) {
+                        LOG.log(System.Logger.Level.WARNING, () -> "Failed to process attribute event: " + event + ", " + e.getMessage());
+                    } catch (Exception e) {
+                        // Any other failure (e.g. a misbehaving interceptor) must not drop the rest of the batch
+                        LOG.log(System.Logger.Level.WARNING, "Failed to process attribute event: " + event, e);
+                    }
                 }
+            });
+    }
 
-                boolean processed = eventTimer != null ?
-                    eventTimer.record(() -> processAttributeEvent(event)) :
-                    processAttributeEvent(event);
+    protected boolean doProcessAttributeEvent(AttributeEvent event) throws AssetProcessingException {
+        if (event.getId() == null || event.getId().isEmpty())
+            throw new AssetProcessingException(ASSET_ID_MISSING);
+        if (event.getName() == null || event.getName().isEmpty())
+            throw new AssetProcessingException(ATTRIBUTE_NAME_MISSING);
+
+        if (event.getTimestamp() <= 0) {
+            // Set timestamp if not set
+            event.setTimestamp(timerService.getCurrentTimeMillis());
+        } else if (event.getTimestamp() > timerService.getCurrentTimeMillis()) {
+            // Use system time if event time is in the future (clock issue)
+            event.setTimestamp(timerService.getCurrentTimeMillis());
+        }
 
-                exchange.getIn().setBody(processed);
-            });
+        LOG.log(System.Logger.Level.TRACE, () -> ">>> Attribute event processing start: " + event);
+        Counter counter = getEventCounter(event.getSource());
+        if (counter != null) {
+            counter.increment();
+        }
+
+        return eventTimer != null ?
+            eventTimer.record(() -> processAttributeEvent(event)) :
+            processAttributeEvent(event);
     }
 
     protected Counter getEventCounter(String source) {
@@ -334,6 +452,29 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
                 .asyncSend();
     }
 
+    /**
+     * Send multiple internal attribute change events into the {@link #ATTRIBUTE_EVENTS_PROCESSOR} as a single message.
+     */
+    public void sendAttributeEvents(Collection<AttributeEvent> attributeEvents, String source) {
+        if (attributeEvents.isEmpty()) {
+            return;
+        }
+
+        List<AttributeEvent> events = new ArrayList<>(attributeEvents);
+        long now = timerService.getCurrentTimeMillis();
+
+        events.forEach(attributeEvent -> {
+            attributeEvent.setSource(source);
+            if (attributeEvent.getTimestamp() <= 0) {
+                attributeEvent.setTimestamp(now);
+            }
+        });
+        messageBrokerService.getFluentProducerTemplate()
+                .withBody(events)
+                .to(ATTRIBUTE_EVENTS_PROCESSOR)
+                .asyncSend();
+    }
+
     /**
      * The {@link AttributeEvent} is passed to each registered {@link AttributeEventInterceptor} and if no interceptor
      * handles the event then the {@link Attribute} value is updated in the DB with the new event value and timestamp.
@@ -37,7 +37,9 @@ import org.openremote.manager.security.ManagerIdentityService;
 import org.openremote.manager.web.ManagerWebResource;
 import org.openremote.model.Constants;
 import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetMergeResult;
 import org.openremote.model.asset.AssetResource;
+import org.openremote.model.asset.AssetTreeItem;
 import org.openremote.model.asset.UserAssetLink;
 import org.openremote.model.attribute.*;
 import org.openremote.model.http.RequestParams;
@@ -60,6 +62,7 @@ import static org.openremote.model.value.MetaItemType.*;
 public class AssetResourceImpl extends ManagerWebResource implements AssetResource {
 
     private static final Logger LOG = Logger.getLogger(AssetResourceImpl.class.getName());
+    protected static final int TREE_MAX_DEPTH = 10;
     protected final AssetStorageService assetStorageService;
     protected final MessageBrokerService messageBrokerService;
     protected final ClientEventService clientEventService;
@@ -103,6 +106,42 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
         }
     }
 
+    @Override
+    public AssetTreeItem[] getTree(RequestParams requestParams, String realm, String parentId, int depth) {
+        try {
+            if (isRestrictedUser()) {
+                throw new WebApplicationException(FORBIDDEN);
+            }
+
+            if (parentId != null) {
+                Asset<?> parent = assetStorageService.find(new AssetQuery()
+                    .select(new AssetQuery.Select().excludeAttributes())
+                    .ids(parentId));
+
+                if (parent == null)
+                    throw new WebApplicationException(NOT_FOUND);
+
+                realm = parent.getRealm();
+            } else if (TextUtil.isNullOrEmpty(realm)) {
+                realm = getRequestRealmName();
+            }
+
+            if (!isRealmActiveAndAccessible(realm)) {
+                LOG.fine("Forbidden access (realm '" + realm + "' nonexistent, inactive or inaccessible) for user: " + getUsername());
+                throw new WebApplicationException(FORBIDDEN);
+            }
+
+            List<AssetTreeItem> items = assetStorageService.findTree(realm, parentId, Math.min(Math.max(depth, 1), TREE_MAX_DEPTH));
+
+            // Compress response (the request attribute enables the interceptor)
+            request.setAttribute(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+            return items.toArray(new AssetTreeItem[0]);
+        } catch (IllegalStateException ex) {
+            throw new WebApplicationException(ex, BAD_REQUEST);
+        }
+    }
+
     @Override
     public UserAssetLink[] getUserAssetLinks(RequestParams requestParams, String realm, String userId, String assetId) {
         try {
@@ -504,6 +543,59 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
         }
     }
 
+    @Override
+    public AssetMergeResult[] mergeAll(RequestParams requestParams, Asset<?>[] assets) {
+        if (isRestrictedUser()) {
+            throw new WebApplicationException(FORBIDDEN);
+        }
+
+        if (assets == null || assets.length == 0) {
+            LOG.finest("No assets in request");
+            throw new WebApplicationException(BAD_REQUEST);
+        }
+
+        AssetMergeResult[] results = new AssetMergeResult[assets.length];
+        List<Asset<?>> mergeAssets = new ArrayList<>(assets.length);
+        List<Integer> mergeIndexes = new ArrayList<>(assets.length);
+        Map<String, Boolean> accessibleRealms = new HashMap<>();
+
+        for (int i = 0; i < assets.length; i++) {
+            Asset<?> asset = assets[i];
+
+            if (asset == null) {
+                results[i] = new AssetMergeResult(null, "No asset provided");
+                continue;
+            }
+
+            // If there was no realm provided use the auth realm
+            if (asset.getRealm() == null || asset.getRealm().isEmpty()) {
+                asset.setRealm(getAuthenticatedRealm().getName());
+            } else if (!accessibleRealms.computeIfAbsent(asset.getRealm(), realm -> isRealmActiveAndAccessible(realm))) {
+                LOG.fine("Forbidden access for user '" + getUsername() + "', can't merge: " + asset);
+                results[i] = new AssetMergeResult(asset.getId(), "Realm is nonexistent, inactive or inaccessible");
+                continue;
+            }
+
+            Asset<?> newAsset = ValueUtil.clone(asset);
+
+            // Allow client to set identifier
+            if (asset.getId() != null) {
+                newAsset.setId(asset.getId());
+            }
+
+            mergeAssets.add(newAsset);
+            mergeIndexes.add(i);
+        }
+
+        List<AssetMergeResult> mergeResults = assetStorageService.merge(mergeAssets, false);
+
+        for (int i = 0; i < mergeIndexes.size(); i++) {
+            results[mergeIndexes.get(i)] = mergeResults.get(i);
+        }
+
+        return results;
+    }
+
     @Override
     public void delete(RequestParams requestParams, List<String> assetIds) {
 
@@ -512,26 +604,27 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
         }
 
         try {
-            if (assetIds == null || assetIds.isEmpty()) {
+            checkAssetsModifiable(assetIds);
+
+            if (!assetStorageService.delete(assetIds, false)) {
                 throw new WebApplicationException(BAD_REQUEST);
             }
+        } catch (IllegalStateException ex) {
+            throw new WebApplicationException(ex, BAD_REQUEST);
+        }
+    }
 
-            if (isRestrictedUser()) {
-                throw new WebApplicationException(FORBIDDEN);
-            }
+    @Override
+    public void deleteTree(RequestParams requestParams, List<String> assetIds) {
 
-            List<Asset<?>> assets = assetStorageService.findAll(new AssetQuery().ids(assetIds.toArray(new String[0])).select(new AssetQuery.Select().excludeAttributes()));
-            if (assets == null || assets.size() != assetIds.size()) {
-                LOG.fine("Request to delete one or more invalid assets");
-                throw new WebApplicationException(BAD_REQUEST);
-            }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Deleting asset trees: " + assetIds);
+        }
 
-            if (assets.stream().map(Asset::getRealm).distinct().anyMatch(asset -> !isRealmActiveAndAccessible(asset))) {
-                LOG.fine("One or more assets in an nonexistent, inactive or inaccessible realm: username=" + getUsername());
-                throw new WebApplicationException(FORBIDDEN);
-            }
+        try {
+            checkAssetsModifiable(assetIds);
 
-            if (!assetStorageService.delete(assetIds, false)) {
+            if (!assetStorageService.deleteSubtree(assetIds, false)) {
                 throw new WebApplicationException(BAD_REQUEST);
             }
         } catch (IllegalStateException ex) {
@@ -549,7 +642,17 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
             throw new ForbiddenException("User not authorized to execute specified query");
         }
 
-        List<Asset<?>> result = assetStorageService.findAll(query);
+        List<Asset<?>> result;
+
+        try {
+            result = assetStorageService.findAll(query);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        if (query.limit > 0 && result.size() >= query.limit) {
+            response.setHeader(NEXT_CURSOR_HEADER, AssetStorageService.getCursor(query, result.get(result.size() - 1)));
+        }
 
         // Compress response (the request attribute enables the interceptor)
         request.setAttribute(HttpHeaders.CONTENT_ENCODING, "gzip");
@@ -592,31 +695,49 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
 
     @Override
     public void updateParent(RequestParams requestParams, String parentId, List<String> assetIds) {
-        AssetQuery query = new AssetQuery();
-        query.ids = assetIds.toArray(String[]::new);
-
-        List<Asset<?>> assets = this.assetStorageService.findAll(query);
-        LOG.fine("Updating parent for assets: count=" + assets.size() + ", newParentID=" + parentId);
+        LOG.fine("Updating parent for assets: count=" + assetIds.size() + ", newParentID=" + parentId);
 
-        for (Asset<?> asset : assets) {
-            asset.setParentId(parentId);
-            LOG.fine("Updating asset parent: assetID=" + asset.getId() + ", newParentID=" + parentId);
-            assetStorageService.merge(asset);
+        try {
+            checkAssetsModifiable(assetIds);
+            assetStorageService.moveSubtree(assetIds, parentId);
+        } catch (IllegalStateException ex) {
+            throw new WebApplicationException(ex, BAD_REQUEST);
         }
     }
 
     @Override
     public void updateNoneParent(RequestParams requestParams, List<String> assetIds) {
-        AssetQuery query = new AssetQuery();
-        query.ids = assetIds.toArray(String[]::new);
+        LOG.fine("Updating parent for assets: count=" + assetIds.size() + ", newParentID=NONE");
+
+        try {
+            checkAssetsModifiable(assetIds);
+            assetStorageService.moveSubtree(assetIds, null);
+        } catch (IllegalStateException ex) {
+            throw new WebApplicationException(ex, BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Checks the assets exist and are in realms the authenticated (non restricted) user can modify.
+     */
+    protected void checkAssetsModifiable(List<String> assetIds) throws WebApplicationException {
+        if (assetIds == null || assetIds.isEmpty()) {
+            throw new WebApplicationException(BAD_REQUEST);
+        }
+
+        if (isRestrictedUser()) {
+            throw new WebApplicationException(FORBIDDEN);
+        }
 
-        List<Asset<?>> assets = this.assetStorageService.findAll(query);
-        LOG.fine("Updating parent for assets: count=" + assets.size() + ", newParentID=NONE");
+        List<Asset<?>> assets = assetStorageService.findAll(new AssetQuery().ids(assetIds.toArray(new String[0])).select(new AssetQuery.Select().excludeAttributes()));
+        if (assets == null || assets.size() != assetIds.size()) {
+            LOG.fine("Request to modify one or more invalid assets");
+            throw new WebApplicationException(BAD_REQUEST);
+        }
 
-        for (Asset<?> asset : assets) {
-            asset.setParentId(null);
-            LOG.fine("Updating asset parent: assetID=" + asset.getId() + ", newParentID=NONE");
-            assetStorageService.merge(asset);
+        if (assets.stream().map(Asset::getRealm).distinct().anyMatch(realm -> !isRealmActiveAndAccessible(realm))) {
+            LOG.fine("One or more assets in an nonexistent, inactive or inaccessible realm: username=" + getUsername());
+            throw new WebApplicationException(FORBIDDEN);
         }
     }
 }
@@ -19,17 +19,26 @@
  */
 package org.openremote.manager.asset;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import org.apache.camel.FluentProducerTemplate;
 import org.apache.camel.builder.RouteBuilder;
 import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.jdbc.AbstractReturningWork;
 import org.hibernate.jpa.AvailableHints;
+import org.hibernate.type.StandardBasicTypes;
 import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.persistence.PersistenceEventInterceptor;
 import org.openremote.container.persistence.PersistenceService;
 import org.openremote.container.security.AuthContext;
 import org.openremote.container.timer.TimerService;
@@ -59,18 +68,24 @@ import org.openremote.model.query.LogicGroup;
 import org.openremote.model.query.filter.*;
 import org.openremote.model.security.ClientRole;
 import org.openremote.model.security.User;
-import org.openremote.model.util.LockByKey;
 import org.openremote.model.util.Pair;
+import org.openremote.model.util.StripedLock;
 import org.openremote.model.util.TextUtil;
 import org.openremote.model.util.ValueUtil;
+import org.openremote.model.value.AttributeDescriptor;
 import org.postgresql.util.PGobject;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -81,6 +96,9 @@ import java.util.stream.Stream;
 
 import static java.util.logging.Level.*;
 import static java.util.stream.Collectors.groupingBy;
+import static org.openremote.container.util.MapAccess.getBoolean;
+import static org.openremote.container.util.MapAccess.getInteger;
+import static org.openremote.container.persistence.PersistenceService.HEADER_ENTITY_TYPE;
 import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC;
 import static org.openremote.container.persistence.PersistenceService.isPersistenceEventForEntityType;
 import static org.openremote.model.attribute.Attribute.getAddedOrModifiedAttributes;
@@ -126,6 +144,23 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
 
     private static final Logger LOG = Logger.getLogger(AssetStorageService.class.getName());
     public static final int PRIORITY = MED_PRIORITY;
+    protected static final int STREAM_FETCH_SIZE = 500;
+    public static final String OR_ASSET_MERGE_BATCH_SIZE = "OR_ASSET_MERGE_BATCH_SIZE";
+    public static final int OR_ASSET_MERGE_BATCH_SIZE_DEFAULT = 500;
+    public static final String OR_ASSET_LOCK_STRIPES = "OR_ASSET_LOCK_STRIPES";
+    public static final int OR_ASSET_LOCK_STRIPES_DEFAULT = 256;
+    public static final String OR_ASSET_LOCK_FAIR = "OR_ASSET_LOCK_FAIR";
+    public static final boolean OR_ASSET_LOCK_FAIR_DEFAULT = false;
+    public static final String OR_ASSET_TREE_MAX_NODES = "OR_ASSET_TREE_MAX_NODES";
+    public static final int OR_ASSET_TREE_MAX_NODES_DEFAULT = 10000;
+    protected static final int CHILD_COUNT_CACHE_SIZE = 100000;
+    // Root IDs within the subtree of another root ID are ignored so each asset is only returned once
+    protected static final String SUBTREE_SQL = "from ASSET R join ASSET A on A.PATH <@ R.PATH where R.ID = ANY(?1)" +
+        " and not exists (select 1 from ASSET P where P.ID = ANY(?1) and P.ID <> R.ID and R.PATH <@ P.PATH)";
+    /**
+     * Header set on {@link PersistenceEvent}s published for subtree delete and move operations.
+     */
+    public static final String HEADER_SUBTREE_EVENT = AssetStorageService.class.getSimpleName() + ".SUBTREE_EVENT";
 //    protected static final Field assetParentNameField;
 //    protected static final Field assetParentTypeField;
 //
@@ -192,14 +227,9 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
              if (isRestricted) {
                  filter.setRestrictedEvents(true);
 
-                 // Restricted user can only subscribe to assets they are linked to so go fetch these
-                 // TODO: Update asset IDs when user asset links are modified
-                 filter.setUserAssetIds(
-                     assetStorageService.findUserAssetLinks(realm, userId, null)
-                         .stream()
-                         .map(userAssetLink -> userAssetLink.getId().getAssetId())
-                         .toList()
-                 );
+                 // Restricted user can only subscribe to assets they are linked to; this set is kept up to date as
+                 // the user asset links are modified
+                 filter.setUserAssetIds(assetStorageService.getUserAssetIds(realm, userId));
              }
 
              if (filter.getAssetIds() != null) {
@@ -230,12 +260,26 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
     protected ManagerIdentityService identityService;
     protected ClientEventService clientEventService;
     protected GatewayService gatewayService;
+    protected AttributeLinkingService attributeLinkingService;
+    protected MessageBrokerService messageBrokerService;
     protected ExecutorService executorService;
-    protected final LockByKey assetLocks = new LockByKey();
+    protected StripedLock assetLocks;
+    // Sets are only kept whilst referenced (i.e. by subscription filters) and are otherwise loaded again on demand;
+    // this bounds the cache by the active subscriptions rather than by every user ever seen
+    protected final Cache<String, Set<String>> userAssetIds = CacheBuilder.newBuilder().weakValues().build();
+    // Incremented before user asset IDs are updated so sets loaded concurrently are loaded again
+    protected final AtomicLong userAssetIdsVersion = new AtomicLong();
+    protected final Cache<String, Integer> childCounts = CacheBuilder.newBuilder().maximumSize(CHILD_COUNT_CACHE_SIZE).build();
+    // Incremented whenever child counts change so counts loaded concurrently with a change aren't cached
+    protected final AtomicLong childCountVersion = new AtomicLong();
+    protected Timer queryBuildTimer;
+    protected int mergeBatchSize;
+    protected int treeMaxNodes;
 
     /**
      * Will evaluate each {@link CalendarEventPredicate} and apply it depending on the {@link LogicGroup} type
-     * that each appears in. It tests the recurrence rule as simple start/end is checked in the DB query.
+     * that each appears in. It tests recurrence rules that the DB query cannot evaluate (see the
+     * CALENDAR_EVENT_ACTIVE database function); other events have already been filtered by the DB query.
      */
     protected static boolean calendarEventPredicateMatches(Supplier<Long> currentMillisSupplier, AssetQuery query, Asset<?> asset) {
 
@@ -317,7 +361,21 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         identityService = container.getService(ManagerIdentityService.class);
         clientEventService = container.getService(ClientEventService.class);
         gatewayService = container.getService(GatewayService.class);
+        messageBrokerService = container.getService(MessageBrokerService.class);
+        attributeLinkingService = container.hasService(AttributeLinkingService.class) ? container.getService(AttributeLinkingService.class) : null;
         executorService = container.getExecutor();
+        mergeBatchSize = Math.max(1, getInteger(container.getConfig(), OR_ASSET_MERGE_BATCH_SIZE, OR_ASSET_MERGE_BATCH_SIZE_DEFAULT));
+        treeMaxNodes = Math.min(Integer.MAX_VALUE - 1, Math.max(1, getInteger(container.getConfig(), OR_ASSET_TREE_MAX_NODES, OR_ASSET_TREE_MAX_NODES_DEFAULT)));
+        assetLocks = new StripedLock(
+            getInteger(container.getConfig(), OR_ASSET_LOCK_STRIPES, OR_ASSET_LOCK_STRIPES_DEFAULT),
+            getBoolean(container.getConfig(), OR_ASSET_LOCK_FAIR, OR_ASSET_LOCK_FAIR_DEFAULT));
+
+        if (container.getMeterRegistry() != null) {
+            queryBuildTimer = container.getMeterRegistry().timer("or.asset.query.build", Tags.empty());
+            FunctionCounter.builder("or.asset.lock.contended", assetLocks, StripedLock::getContendedCount)
+                .register(container.getMeterRegistry());
+        }
+
         EventSubscriptionAuthorizer assetEventAuthorizer = AssetStorageService.assetInfoAuthorizer(identityService, this);
 
         clientEventService.addSubscriptionAuthorizer((realm, auth, subscription) -> {
@@ -368,7 +426,7 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                 clientEventService)
         );
 
-        container.getService(MessageBrokerService.class).getContext().addRoutes(this);
+        messageBrokerService.getContext().addRoutes(this);
     }
 
     @Override
@@ -388,7 +446,23 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         from(PERSISTENCE_TOPIC)
             .routeId("Persistence-Asset")
             .filter(isPersistenceEventForEntityType(Asset.class))
+            // Clients are sent a single event per subtree root by the subtree operations themselves
+            .filter(header(HEADER_SUBTREE_EVENT).isNull())
             .process(exchange -> publishModificationEvents(exchange.getIn().getBody(PersistenceEvent.class)));
+
+        // Keep the linked asset IDs of users up to date for any subscriptions that reference them
+        from(PERSISTENCE_TOPIC)
+            .routeId("Persistence-UserAssetIds")
+            .filter(exchange -> isPersistenceEventForEntityType(UserAssetLink.class).matches(exchange)
+                || isPersistenceEventForEntityType(User.class).matches(exchange)
+                || isPersistenceEventForEntityType(Asset.class).matches(exchange))
+            .process(exchange -> onUserAssetIdsChanged(exchange.getIn().getBody(PersistenceEvent.class)));
+
+        // Keep the cached child counts of the asset tree up to date
+        from(PERSISTENCE_TOPIC)
+            .routeId("Persistence-AssetChildCounts")
+            .filter(isPersistenceEventForEntityType(Asset.class))
+            .process(exchange -> onAssetTreeChanged(exchange.getIn().getBody(PersistenceEvent.class)));
     }
 
     /**
@@ -528,6 +602,37 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         return persistenceService.doReturningTransaction(em -> findAll(em, query));
     }
 
+    /**
+     * Like {@link #findAll(AssetQuery)} but the results are read incrementally from a server side cursor so large
+     * result sets can be processed with bounded heap; the stream is bound to the transaction so it must be consumed
+     * by the supplied function.
+     */
+    public <R> R findAll(AssetQuery query, Function<Stream<Asset<?>>, R> resultProcessor) {
+        return persistenceService.doReturningTransaction(em -> {
+            try (Stream<Asset<?>> assets = findAllStream(em, query)) {
+                return resultProcessor.apply(assets);
+            }
+        });
+    }
+
+    /**
+     * Like {@link #find(String, Class)} but only the specified attributes are loaded; the attributes are extracted from
+     * the attribute JSON by the database so services that just need a few attribute values don't have to load and
+     * deserialise the complete asset.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Asset<?>> T findWithAttributes(String assetId, Class<T> assetType, AttributeDescriptor<?>... attributes) {
+        if (assetId == null)
+            throw new IllegalArgumentException("Can't query null asset identifier");
+        Asset<?> asset = find(new AssetQuery()
+            .select(new Select().attributes(Arrays.stream(attributes).map(AttributeDescriptor::getName).toArray(String[]::new)))
+            .ids(assetId));
+        if (asset != null && !assetType.isAssignableFrom(asset.getClass())) {
+            asset = null;
+        }
+        return (T)asset;
+    }
+
     public List<String> findNames(String... ids) {
         if (ids == null || ids.length == 0)
             return new ArrayList<>();
@@ -599,6 +704,214 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         long startTime = System.currentTimeMillis();
         String assetId = asset.getId() != null ? asset.getId() : "";
 
+        validateMerge(asset, requestingGatewayAsset);
+
+        return withAssetLock(assetId, () -> persistenceService.doReturningTransaction(em -> {
+
+            T existingAsset = TextUtil.isNullOrEmpty(asset.getId()) ? null : (T)em.find(Asset.class, asset.getId());
+            T updatedAsset = doMerge(
+                em,
+                asset,
+                existingAsset,
+                overrideVersion,
+                userName,
+                identityService.getIdentityProvider()::realmExists,
+                parentId -> find(em, parentId, true));
+
+            if (LOG.isLoggable(FINE)) {
+                LOG.fine("Asset merge took: " + (System.currentTimeMillis() - startTime) + "ms");
+            }
+
+            if (existingAsset == null && isCustomThingAsset(updatedAsset)) {
+                // When an asset is first saved then any custom type is not persisted as JPA will set it to ThingAsset so we need to override
+                // We don't need to do this when updating an existing asset as JPA doesn't overwrite the type - if this changes in future it
+                // should be detected by tests
+                em.createNativeQuery("update ASSET set type = ? where id = ?;")
+                    .setParameter(1, updatedAsset.getType())
+                    .setParameter(2, updatedAsset.getId())
+                    .executeUpdate();
+            }
+
+            return updatedAsset;
+        }));
+    }
+
+    /**
+     * Merge a batch of assets; the stateless validation of each asset is done in parallel and the assets are then
+     * written in chunks of {@link #OR_ASSET_MERGE_BATCH_SIZE} using a single transaction and JDBC batching per chunk.
+     * Assets are ordered so that parents within the batch are merged before their children and the asset locks of a
+     * chunk are acquired in ID order. If a chunk fails to commit then its assets are merged individually so a single
+     * invalid asset cannot fail the whole chunk.
+     * <p>
+     * A {@link PersistenceEvent} is still published for each asset rather than one per chunk; every consumer of the
+     * {@link PersistenceService#PERSISTENCE_TOPIC} (agent linking, gateway sync, rules, client asset and attribute
+     * events etc.) acts on individual assets so a batched event would only move the per asset work downstream.
+     * @return The result for each asset in the same order as the supplied assets.
+     */
+    public List<AssetMergeResult> merge(List<Asset<?>> assets, boolean overrideVersion) {
+        long startTime = System.currentTimeMillis();
+        AssetMergeResult[] results = new AssetMergeResult[assets.size()];
+        Map<String, Boolean> realms = new ConcurrentHashMap<>();
+        Predicate<String> realmExists = realm -> realms.computeIfAbsent(realm, r -> identityService.getIdentityProvider().realmExists(r));
+
+        List<Integer> validIndexes = IntStream.range(0, assets.size()).parallel().filter(i -> {
+            Asset<?> asset = assets.get(i);
+            try {
+                validateMerge(asset, null);
+                if (!realmExists.test(asset.getRealm())) {
+                    throw new IllegalStateException("Asset realm not found or is inactive: asset=" + asset);
+                }
+                return true;
+            } catch (IllegalStateException | ConstraintViolationException e) {
+                results[i] = new AssetMergeResult(asset.getId(), e.getMessage());
+                return false;
+            }
+        }).boxed().toList();
+
+        List<Integer> orderedIndexes = orderParentsFirst(assets, validIndexes);
+
+        for (int from = 0; from < orderedIndexes.size(); from += mergeBatchSize) {
+            List<Integer> chunk = orderedIndexes.subList(from, Math.min(from + mergeBatchSize, orderedIndexes.size()));
+            List<String> lockIds = chunk.stream()
+                .map(i -> assets.get(i).getId())
+                .filter(Objects::nonNull)
+                .toList();
+
+            boolean chunkFailed = false;
+            int[] lockStripes = assetLocks.lockAll(lockIds);
+            try {
+                persistenceService.doTransaction(em -> mergeChunk(em, assets, chunk, overrideVersion, realmExists, results));
+            } catch (RuntimeException e) {
+                LOG.log(Level.INFO, "Asset merge chunk failed so merging individually: count=" + chunk.size() + ", exception=" + e.getMessage());
+                chunkFailed = true;
+            } finally {
+                assetLocks.unlockAll(lockStripes);
+            }
+
+            // The chunk locks must be released first as each individual merge takes the lock of its own asset
+            if (chunkFailed) {
+                for (int i : chunk) {
+                    Asset<?> asset = assets.get(i);
+                    try {
+                        Asset<?> mergedAsset = merge(asset, overrideVersion);
+                        results[i] = new AssetMergeResult(mergedAsset.getId(), null);
+                    } catch (RuntimeException ex) {
+                        results[i] = new AssetMergeResult(asset.getId(), ex.getMessage());
+                    }
+                }
+            }
+        }
+
+        long duration = Math.max(1, System.currentTimeMillis() - startTime);
+        LOG.info("Bulk asset merge completed: count=" + assets.size() + ", failed=" + Arrays.stream(results).filter(r -> r.getFailure() != null).count()
+            + ", duration=" + duration + "ms, rate=" + (assets.size() * 1000L / duration) + " assets/s");
+
+        return Arrays.asList(results);
+    }
+
+    protected void mergeChunk(EntityManager em, List<Asset<?>> assets, List<Integer> chunk, boolean overrideVersion, Predicate<String> realmExists, AssetMergeResult[] results) {
+        Session session = em.unwrap(Session.class);
+        session.setJdbcBatchSize(mergeBatchSize);
+
+        Set<String> chunkIds = chunk.stream().map(i -> assets.get(i).getId()).filter(Objects::nonNull).collect(Collectors.toSet());
+        String[] externalParentIds = chunk.stream()
+            .map(i -> assets.get(i).getParentId())
+            .filter(parentId -> parentId != null && !chunkIds.contains(parentId))
+            .distinct()
+            .toArray(String[]::new);
+
+        // Load everything up front; the native parent query would otherwise flush the session for each asset
+        Map<String, Asset<?>> parents = new HashMap<>();
+        if (externalParentIds.length > 0) {
+            findAll(em, new AssetQuery().ids(externalParentIds)).forEach(parent -> parents.put(parent.getId(), parent));
+        }
+        Map<String, Asset<?>> existingAssets = new HashMap<>();
+        if (!chunkIds.isEmpty()) {
+            session.byMultipleIds(Asset.class).multiLoad(new ArrayList<>(chunkIds)).stream()
+                .filter(Objects::nonNull)
+                .forEach(existingAsset -> existingAssets.put(existingAsset.getId(), existingAsset));
+        }
+
+        // Existing assets are now in the persistence context so merging them doesn't select them again; new assets
+        // with an assigned ID would still be selected by the merge to find out that they don't exist
+        if (((SharedSessionContractImplementor) session).getInterceptor() instanceof PersistenceEventInterceptor interceptor) {
+            chunk.stream()
+                .map(assets::get)
+                .filter(asset -> asset.getId() != null && !existingAssets.containsKey(asset.getId()))
+                .forEach(interceptor::addTransientEntity);
+        }
+
+        Map<Integer, Asset<?>> mergedAssets = new HashMap<>();
+        Map<String, Asset<?>> mergedAssetsById = new HashMap<>();
+        Map<String, List<String>> customTypeIds = new HashMap<>();
+
+        for (int i : chunk) {
+            Asset<?> asset = assets.get(i);
+            Asset<?> existingAsset = asset.getId() != null ? existingAssets.get(asset.getId()) : null;
+            try {
+                Asset<?> mergedAsset = doMerge(
+                    em,
+                    asset,
+                    existingAsset,
+                    overrideVersion,
+                    null,
+                    realmExists,
+                    parentId -> mergedAssetsById.containsKey(parentId) ? mergedAssetsById.get(parentId) : parents.get(parentId));
+                mergedAssets.put(i, mergedAsset);
+                if (mergedAsset.getId() != null) {
+                    mergedAssetsById.put(mergedAsset.getId(), mergedAsset);
+                }
+                if (existingAsset == null && isCustomThingAsset(mergedAsset)) {
+                    customTypeIds.computeIfAbsent(mergedAsset.getType(), type -> new ArrayList<>()).add(mergedAsset.getId());
+                }
+            } catch (IllegalStateException e) {
+                results[i] = new AssetMergeResult(asset.getId(), e.getMessage());
+            }
+        }
+
+        // Flushes the batched writes before correcting the type of custom thing assets (see merge)
+        em.flush();
+        customTypeIds.forEach((type, ids) ->
+            em.createNativeQuery("update ASSET set type = ?1 where id = ANY(?2)")
+                .unwrap(org.hibernate.query.Query.class)
+                .setParameter(1, type)
+                .setParameter(2, ids.toArray(String[]::new))
+                .executeUpdate());
+
+        mergedAssets.forEach((i, mergedAsset) -> results[i] = new AssetMergeResult(mergedAsset.getId(), null));
+    }
+
+    /**
+     * Orders the assets so that any parent in the batch comes before its children.
+     */
+    protected static List<Integer> orderParentsFirst(List<Asset<?>> assets, List<Integer> indexes) {
+        Map<String, Integer> indexById = new HashMap<>();
+        indexes.forEach(i -> {
+            if (assets.get(i).getId() != null) {
+                indexById.put(assets.get(i).getId(), i);
+            }
+        });
+
+        Map<Integer, Integer> depths = new HashMap<>();
+        for (int i : indexes) {
+            int depth = 0;
+            String parentId = assets.get(i).getParentId();
+            Set<String> visited = new HashSet<>();
+            while (parentId != null && indexById.containsKey(parentId) && visited.add(parentId)) {
+                depth++;
+                parentId = assets.get(indexById.get(parentId)).getParentId();
+            }
+            depths.put(i, depth);
+        }
+
+        return indexes.stream().sorted(Comparator.comparingInt(depths::get)).toList();
+    }
+
+    /**
+     * Checks that don't require the DB; these are independent for each asset.
+     */
+    protected void validateMerge(Asset<?> asset, GatewayAsset requestingGatewayAsset) throws IllegalStateException, ConstraintViolationException {
+
         // We skip all standard checks as asset is coming from a gateway and would be validated from there
         if (requestingGatewayAsset != null) {
             if (asset.getId() == null || asset.getParentId() == null || asset.getRealm() == null) {
@@ -637,248 +950,656 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                 LOG.log(Level.WARNING, msg + ", exception=" + ex.getMessage());
                 throw ex;
             }
+
+            // Reject attribute links that would create a cycle
+            if (attributeLinkingService != null) {
+                attributeLinkingService.validateAttributeLinks(asset);
+            }
         }
+    }
 
-        return withAssetLock(assetId, () -> persistenceService.doReturningTransaction(em -> {
+    /**
+     * Checks the asset against the existing asset and its parent and then merges it into the supplied
+     * {@link EntityManager}.
+     */
+    protected <T extends Asset<?>> T doMerge(EntityManager em, T asset, T existingAsset, boolean overrideVersion, String userName, Predicate<String> realmExists, Function<String, Asset<?>> parentResolver) throws IllegalStateException {
 
-            T existingAsset = TextUtil.isNullOrEmpty(asset.getId()) ? null : (T)em.find(Asset.class, asset.getId());
+        if (existingAsset != null) {
+
+            // Verify type has not been changed
+            if (!existingAsset.getType().equals(asset.getType())) {
+                String msg = "Asset type cannot be changed: asset=" + asset;
+                LOG.warning(msg);
+                throw new IllegalStateException(msg);
+            }
+
+            if (!existingAsset.getRealm().equals(asset.getRealm())) {
+                String msg = "Asset realm cannot be changed: asset=" + asset;
+                LOG.warning(msg);
+                throw new IllegalStateException(msg);
+            }
+
+            // Update timestamp on modified attributes this allows fast equality checking
+            asset.getAttributes().stream().forEach(attr ->
+                existingAsset.getAttribute(attr.getName()).ifPresent(existingAttr -> {
+                    // If attribute is modified make sure the timestamp is also updated to allow simple equality
+                    if (!attr.deepEquals(existingAttr) && attr.getTimestamp().orElse(0L) <= existingAttr.getTimestamp().orElse(0L)) {
+                        // In the unlikely situation that we are in the same millisecond as last update
+                        // we will always ensure a delta of >= 1ms
+                        attr.setTimestamp(Math.max(existingAttr.getTimestamp().orElse(0L)+1, timerService.getCurrentTimeMillis()));
+                    }
+            }));
+
+            // If this is real merge and desired, copy the persistent version number over the detached
+            // version, so the detached state always wins and this update will go through and ignore
+            // concurrent updates
+            if (overrideVersion) {
+                asset.setVersion(existingAsset.getVersion());
+            }
+        }
 
-            if (existingAsset != null) {
+        if (!realmExists.test(asset.getRealm())) {
+            String msg = "Asset realm not found or is inactive: asset=" + asset;
+            LOG.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        if (asset.getParentId() != null && asset.getParentId().equals(asset.getId())) {
+            String msg = "Asset parent cannot be the asset: asset=" + asset;
+            LOG.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        // Validate parent only if asset is new or parent has changed
+        if ((existingAsset == null && asset.getParentId() != null)
+            || (existingAsset != null && asset.getParentId() != null && !asset.getParentId().equals(existingAsset.getParentId()))) {
+            validateParent(asset, parentResolver.apply(asset.getParentId()));
+        }
 
-                // Verify type has not been changed
-                if (!existingAsset.getType().equals(asset.getType())) {
-                    String msg = "Asset type cannot be changed: asset=" + asset;
+        // Validate group child asset type attribute
+        if (asset instanceof GroupAsset) {
+            String childAssetType = ((GroupAsset)asset).getChildAssetType()
+                .map(childAssetTypeString -> TextUtil.isNullOrEmpty(childAssetTypeString) ? null : childAssetTypeString)
+                .orElseThrow(() -> {
+                    String msg = "Asset of type GROUP childAssetType attribute must be a valid string: asset=" + asset;
                     LOG.warning(msg);
-                    throw new IllegalStateException(msg);
-                }
+                    return new IllegalStateException(msg);
+                });
 
-                if (!existingAsset.getRealm().equals(asset.getRealm())) {
-                    String msg = "Asset realm cannot be changed: asset=" + asset;
+            String existingChildAssetType = existingAsset != null ? ((GroupAsset)existingAsset)
+                .getChildAssetType()
+                .orElseThrow(() -> {
+                    String msg = "Asset of type GROUP childAssetType attribute must be a valid string: asset=" + asset;
                     LOG.warning(msg);
-                    throw new IllegalStateException(msg);
-                }
+                    return new IllegalStateException(msg);
+                }) : childAssetType;
 
-                // Update timestamp on modified attributes this allows fast equality checking
-                asset.getAttributes().stream().forEach(attr ->
-                    existingAsset.getAttribute(attr.getName()).ifPresent(existingAttr -> {
-                        // If attribute is modified make sure the timestamp is also updated to allow simple equality
-                        if (!attr.deepEquals(existingAttr) && attr.getTimestamp().orElse(0L) <= existingAttr.getTimestamp().orElse(0L)) {
-                            // In the unlikely situation that we are in the same millisecond as last update
-                            // we will always ensure a delta of >= 1ms
-                            attr.setTimestamp(Math.max(existingAttr.getTimestamp().orElse(0L)+1, timerService.getCurrentTimeMillis()));
-                        }
-                }));
+            if (!childAssetType.equals(existingChildAssetType)) {
+                String msg = "Asset of type GROUP so childAssetType attribute cannot be changed: asset=" + asset;
+                LOG.warning(msg);
+                throw new IllegalStateException(msg);
+            }
+        }
 
-                // If this is real merge and desired, copy the persistent version number over the detached
-                // version, so the detached state always wins and this update will go through and ignore
-                // concurrent updates
-                if (overrideVersion) {
-                    asset.setVersion(existingAsset.getVersion());
-                }
+        // Update all empty attribute timestamps with server-time (a caller which doesn't have a
+        // reliable time source such as a browser should clear the timestamp when setting an attribute
+        // value).
+        asset.getAttributes().forEach(attribute -> {
+            if (!attribute.hasExplicitTimestamp()) {
+                attribute.setTimestamp(timerService.getCurrentTimeMillis());
             }
+        });
 
-            if (!identityService.getIdentityProvider().realmExists(asset.getRealm())) {
-                String msg = "Asset realm not found or is inactive: asset=" + asset;
+        // If username present
+        User user = null;
+        if (!TextUtil.isNullOrEmpty(userName)) {
+            user = identityService.getIdentityProvider().getUserByUsername(asset.getRealm(), userName);
+            if (user == null) {
+                String msg = "User not found: " + userName;
                 LOG.warning(msg);
                 throw new IllegalStateException(msg);
             }
+        }
+
+        T updatedAsset = em.merge(asset);
+
+        if (user != null) {
+            createUserAssetLinks(em, Collections.singletonList(new UserAssetLink(user.getRealm(), user.getId(), updatedAsset.getId())));
+        }
+
+        return updatedAsset;
+    }
+
+    /**
+     * Checks the asset can be a child of the specified parent.
+     */
+    protected void validateParent(Asset<?> asset, Asset<?> parent) throws IllegalStateException {
+
+        // The parent must exist
+        if (parent == null) {
+            String msg = "Asset parent not found: asset=" + asset;
+            LOG.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        // The parent can not be a child of the asset
+        if (parent.pathContains(asset.getId())) {
+            String msg = "Asset parent cannot be a descendant of the asset: asset=" + asset;
+            LOG.warning(msg);
+            throw new IllegalStateException(msg);
+        }
 
-            if (asset.getParentId() != null && asset.getParentId().equals(asset.getId())) {
-                String msg = "Asset parent cannot be the asset: asset=" + asset;
+        // The parent should be in the same realm
+        if (!parent.getRealm().equals(asset.getRealm())) {
+            String msg = "Asset parent must be in the same realm: asset=" + asset;
+            LOG.warning(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        // if parent is of type group then this child asset must have the correct type
+        if (parent instanceof GroupAsset) {
+            String childAssetType = parent.getAttributes().getValue(GroupAsset.CHILD_ASSET_TYPE)
+                .orElseThrow(() -> {
+                    String msg = "Asset parent is of type GROUP but the childAssetType attribute is invalid: asset=" + asset;
+                    LOG.warning(msg);
+                    return new IllegalStateException(msg);
+                });
+
+            // Look through type hierarchy for a match - this allows sub types
+            Class<?> clazz = asset.getClass();
+            boolean typeMatch = childAssetType.equals(clazz.getSimpleName());
+
+            while (!typeMatch && clazz != Asset.class) {
+                clazz = clazz.getSuperclass();
+                typeMatch = childAssetType.equals(clazz.getSimpleName());
+            }
+
+            if (!typeMatch) {
+                String msg = "Asset type does not match parent GROUP asset's childAssetType attribute: asset=" + asset;
                 LOG.warning(msg);
                 throw new IllegalStateException(msg);
             }
+        }
+    }
 
-            // Validate parent only if asset is new or parent has changed
-            if ((existingAsset == null && asset.getParentId() != null)
-                || (existingAsset != null && asset.getParentId() != null && !asset.getParentId().equals(existingAsset.getParentId()))) {
+    protected static boolean isCustomThingAsset(Asset<?> asset) {
+        return asset instanceof ThingAsset && !ThingAsset.DESCRIPTOR.getName().equals(asset.getType());
+    }
 
-                Asset<?> parent = find(em, asset.getParentId(), true);
+    /**
+     * @return <code>true</code> if the assets were deleted, false if any of the assets still have children and can't be deleted.
+     */
+    public boolean delete(List<String> assetIds) {
+        return delete(assetIds, false);
+    }
 
-                // The parent must exist
-                if (parent == null) {
-                    String msg = "Asset parent not found: asset=" + asset;
-                    LOG.warning(msg);
+    public boolean delete(List<String> assetIds, boolean skipGatewayCheck) {
+
+        List<String> ids = new ArrayList<>(assetIds);
+
+        if (!skipGatewayCheck && !deleteGateways(ids)) {
+            return false;
+        }
+
+        if (!ids.isEmpty()) {
+            // The requested assets must make up complete subtrees so every ID can be used as a subtree root
+            return deleteSubtrees(ids, true);
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the specified assets and all of their descendants; the subtrees are resolved using the asset path and
+     * removed with a single statement, attribute datapoints, user asset links and alarm links are removed by the
+     * database cascades. Only the specified root assets are locked whilst deleting.
+     * <p>
+     * Clients only receive a {@link AssetEvent.Cause#DELETE} {@link AssetEvent} for each root asset as the deletion of
+     * the descendants and attributes is implied; a {@link PersistenceEvent} is still published for every deleted asset
+     * for internal consumers.
+     *
+     * @return <code>true</code> if the assets were deleted, false if any of the root assets don't exist.
+     */
+    public boolean deleteSubtree(List<String> rootAssetIds, boolean skipGatewayCheck) throws IllegalStateException {
+
+        List<String> ids = new ArrayList<>(rootAssetIds);
+
+        if (!skipGatewayCheck) {
+            // Gateways within the subtrees must be deleted by the gateway service so they are handled in the same way as roots
+            List<String> subtreeGatewayIds = persistenceService.doReturningTransaction(em -> findSubtreeAssetIds(em, ids))
+                .stream()
+                .filter(id -> !ids.contains(id) && gatewayService.isLocallyRegisteredGateway(id))
+                .toList();
+            ids.addAll(subtreeGatewayIds);
+
+            if (!deleteGateways(ids)) {
+                return false;
+            }
+            ids.removeAll(subtreeGatewayIds);
+        }
+
+        return ids.isEmpty() || deleteSubtrees(ids, false);
+    }
+
+    /**
+     * Moves the specified assets (and therefore their subtrees) to the specified parent or to the root of the realm if
+     * the parent is null; the parent of all the assets is changed with a single statement and the paths of the
+     * descendants are updated by the database. Only the specified assets are locked whilst moving.
+     * <p>
+     * Clients only receive a {@link AssetEvent.Cause#UPDATE} {@link AssetEvent} for each moved asset as the path change
+     * of the descendants is implied; a {@link PersistenceEvent} is still published for every moved asset and descendant
+     * for internal consumers.
+     */
+    public void moveSubtree(List<String> assetIds, String parentId) throws IllegalStateException {
+
+        List<String> ids = assetIds.stream().distinct().sorted().toList();
+
+        // Don't allow moving gateway descendant assets or moving assets to a gateway (must be done on the gateway itself)
+        String gatewayId = ids.stream()
+            .map(id -> gatewayService.getLocallyRegisteredGatewayId(id, parentId))
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElse(null);
+
+        if (gatewayId != null) {
+            String msg = "Cannot move a descendant asset of a gateway asset or move assets to a gateway asset, do this on the gateway itself: Gateway ID=" + gatewayId;
+            LOG.info(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        List<Pair<Asset<?>, Asset<?>>> movedAssets;
+        List<Asset<?>> descendants = new ArrayList<>();
+        long startMillis = System.currentTimeMillis();
+        int[] lockStripes = assetLocks.lockAll(ids);
+
+        try {
+            movedAssets = persistenceService.doReturningTransaction(em -> {
+                List<Asset<?>> assets = findAll(em, new AssetQuery().ids(ids.toArray(String[]::new)));
+
+                if (assets.size() != ids.size()) {
+                    String msg = "Cannot move one or more requested assets as they don't exist: assetIds=" + ids;
+                    LOG.info(msg);
                     throw new IllegalStateException(msg);
                 }
 
-                // The parent can not be a child of the asset
-                if (parent.pathContains(asset.getId())) {
-                    String msg = "Asset parent cannot be a descendant of the asset: asset=" + asset;
-                    LOG.warning(msg);
-                    throw new IllegalStateException(msg);
+                Asset<?> parent = parentId != null ? find(em, parentId, true) : null;
+                List<Asset<?>> toMove = assets.stream().filter(asset -> !Objects.equals(asset.getParentId(), parentId)).toList();
+
+                if (parentId != null) {
+                    toMove.forEach(asset -> validateParent(asset, parent));
                 }
 
-                // The parent should be in the same realm
-                if (!parent.getRealm().equals(asset.getRealm())) {
-                    String msg = "Asset parent must be in the same realm: asset=" + asset;
-                    LOG.warning(msg);
-                    throw new IllegalStateException(msg);
+                if (toMove.isEmpty()) {
+                    return Collections.<Pair<Asset<?>, Asset<?>>>emptyList();
                 }
 
-                // if parent is of type group then this child asset must have the correct type
-                if (parent instanceof GroupAsset) {
-                    String childAssetType = parent.getAttributes().getValue(GroupAsset.CHILD_ASSET_TYPE)
-                        .orElseThrow(() -> {
-                            String msg = "Asset parent is of type GROUP but the childAssetType attribute is invalid: asset=" + asset;
-                            LOG.warning(msg);
-                            return new IllegalStateException(msg);
-                        });
-
-                    // Look through type hierarchy for a match - this allows sub types
-                    Class<?> clazz = asset.getClass();
-                    boolean typeMatch = childAssetType.equals(clazz.getSimpleName());
-
-                    while (!typeMatch && clazz != Asset.class) {
-                        clazz = clazz.getSuperclass();
-                        typeMatch = childAssetType.equals(clazz.getSimpleName());
-                    }
+                // The path trigger rewrites the paths of descendants in a separate statement so assets that are within
+                // another moved subtree must be moved on their own (deepest first) before the rest are moved together
+                Set<String> moveIds = toMove.stream().map(Asset::getId).collect(Collectors.toSet());
+                List<Asset<?>> nestedAssets = toMove.stream()
+                    .filter(asset -> asset.getPath() != null && Arrays.stream(asset.getPath()).skip(1).anyMatch(moveIds::contains))
+                    .sorted(Comparator.comparingInt((Asset<?> asset) -> asset.getPath().length).reversed())
+                    .toList();
+
+                nestedAssets.forEach(asset -> updateParentIds(em, Collections.singletonList(asset.getId()), parentId));
+                nestedAssets.forEach(asset -> moveIds.remove(asset.getId()));
+                updateParentIds(em, moveIds, parentId);
+
+                // Reload the assets to get the paths generated by the database
+                em.clear();
+                List<String> movedIds = toMove.stream().map(Asset::getId).toList();
+                Map<String, Asset<?>> updatedAssets = findAll(em, new AssetQuery().ids(movedIds.toArray(String[]::new)))
+                    .stream()
+                    .collect(Collectors.toMap(Asset::getId, asset -> asset));
+                findSubtreeAssets(em, movedIds).stream()
+                    .filter(asset -> !updatedAssets.containsKey(asset.getId()))
+                    .forEach(descendants::add);
+
+                return toMove.stream().map(asset -> new Pair<Asset<?>, Asset<?>>(asset, updatedAssets.get(asset.getId()))).toList();
+            });
+        } finally {
+            assetLocks.unlockAll(lockStripes);
+        }
+
+        LOG.fine(() -> "Moved " + movedAssets.size() + " asset subtree(s) to parent '" + parentId + "' in " + (System.currentTimeMillis() - startMillis) + "ms");
+
+        Map<String, String[]> previousPaths = new HashMap<>();
+
+        movedAssets.forEach(previousAndCurrent -> {
+            Asset<?> previous = previousAndCurrent.key;
+            Asset<?> current = previousAndCurrent.value;
+            String[] updatedProperties = new String[] {"parentId", "path"};
+            previousPaths.put(current.getId(), previous.getPath());
+            clientEventService.publishEvent(new AssetEvent(AssetEvent.Cause.UPDATE, current, updatedProperties));
+            publishSubtreePersistenceEvent(new PersistenceEvent<>(
+                PersistenceEvent.Cause.UPDATE,
+                current,
+                updatedProperties,
+                new Object[] {current.getParentId(), current.getPath()},
+                new Object[] {previous.getParentId(), previous.getPath()}
+            ));
+        });
 
-                    if (!typeMatch) {
-                        String msg = "Asset type does not match parent GROUP asset's childAssetType attribute: asset=" + asset;
-                        LOG.warning(msg);
-                        throw new IllegalStateException(msg);
-                    }
+        // The previous path of a descendant is its path up to the nearest moved ancestor followed by that ancestor's previous path
+        descendants.forEach(descendant -> {
+            String[] path = descendant.getPath();
+            for (int i = 1; i < path.length; i++) {
+                String[] ancestorPreviousPath = previousPaths.get(path[i]);
+                if (ancestorPreviousPath != null) {
+                    String[] previousPath = Stream.concat(
+                        Arrays.stream(path, 0, i),
+                        Arrays.stream(ancestorPreviousPath)
+                    ).toArray(String[]::new);
+                    publishSubtreePersistenceEvent(new PersistenceEvent<>(
+                        PersistenceEvent.Cause.UPDATE,
+                        descendant,
+                        new String[] {"path"},
+                        new Object[] {path},
+                        new Object[] {previousPath}
+                    ));
+                    break;
                 }
             }
+        });
+    }
 
-            // Validate group child asset type attribute
-            if (asset instanceof GroupAsset) {
-                String childAssetType = ((GroupAsset)asset).getChildAssetType()
-                    .map(childAssetTypeString -> TextUtil.isNullOrEmpty(childAssetTypeString) ? null : childAssetTypeString)
-                    .orElseThrow(() -> {
-                        String msg = "Asset of type GROUP childAssetType attribute must be a valid string: asset=" + asset;
-                        LOG.warning(msg);
-                        return new IllegalStateException(msg);
-                    });
+    /**
+     * Handles the deletion of gateway assets in the supplied list (which are then removed from the list), this will
+     * throw an {@link IllegalStateException} if any of the assets are gateway descendants.
+     *
+     * @return false if any of the gateways couldn't be deleted.
+     */
+    protected boolean deleteGateways(List<String> ids) throws IllegalStateException {
 
-                String existingChildAssetType = existingAsset != null ? ((GroupAsset)existingAsset)
-                    .getChildAssetType()
-                    .orElseThrow(() -> {
-                        String msg = "Asset of type GROUP childAssetType attribute must be a valid string: asset=" + asset;
-                        LOG.warning(msg);
-                        return new IllegalStateException(msg);
-                    }) : childAssetType;
+        // Don't allow deletion of gateway descendant assets (they must be deleted on the gateway itself)
+        boolean gatewayDescendant = ids.stream().anyMatch(id -> gatewayService.getLocallyRegisteredGatewayId(id, null) != null);
+        if (gatewayDescendant) {
+            String msg = "Cannot delete one or more requested assets as they are descendants of a gateway asset";
+            LOG.info(msg);
+            throw new IllegalStateException(msg);
+        }
 
-                if (!childAssetType.equals(existingChildAssetType)) {
-                    String msg = "Asset of type GROUP so childAssetType attribute cannot be changed: asset=" + asset;
-                    LOG.warning(msg);
-                    throw new IllegalStateException(msg);
+        List<String> gatewayIds = ids.stream().filter(id -> gatewayService.isLocallyRegisteredGateway(id)).toList();
+
+        if (!gatewayIds.isEmpty()) {
+            // Handle gateway asset deletion in a special way
+            ids.removeAll(gatewayIds);
+            for (String gatewayId : gatewayIds) {
+                try {
+                    boolean deleted = gatewayService.deleteGateway(gatewayId);
+                    if (!deleted) {
+                        return false;
+                    }
+                } catch (Exception e) {
+                    LOG.log(WARNING, "Failed to delete gateway asset: " + gatewayId, e);
+                    return false;
                 }
             }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the subtrees of the specified root assets in a single statement; if exact is true then the subtrees
+     * must only contain the specified assets (i.e. none of the assets can have children that aren't specified).
+     */
+    protected boolean deleteSubtrees(List<String> rootIds, boolean exact) {
+
+        List<String> ids = rootIds.stream().distinct().sorted().toList();
+        List<Asset<?>> deletedAssets;
+        long startMillis = System.currentTimeMillis();
+        int[] lockStripes = assetLocks.lockAll(ids);
+
+        try {
+            deletedAssets = persistenceService.doReturningTransaction(em -> {
+                List<Asset<?>> assets = findSubtreeAssets(em, ids);
+                Set<String> subtreeIds = assets.stream().map(Asset::getId).collect(Collectors.toSet());
 
-            // Update all empty attribute timestamps with server-time (a caller which doesn't have a
-            // reliable time source such as a browser should clear the timestamp when setting an attribute
-            // value).
-            asset.getAttributes().forEach(attribute -> {
-                if (!attribute.hasExplicitTimestamp()) {
-                    attribute.setTimestamp(timerService.getCurrentTimeMillis());
+                if (!subtreeIds.containsAll(ids) || (exact && subtreeIds.size() != ids.size())) {
+                    throw new IllegalArgumentException("Cannot delete one or more requested assets as they either have children or don't exist");
                 }
+
+                // Descendants created concurrently will fail the parent foreign key check and abort the delete
+                em.createNativeQuery("delete from ASSET where ID = ANY(?1)")
+                    .unwrap(org.hibernate.query.Query.class)
+                    .setParameter(1, subtreeIds.toArray(String[]::new))
+                    .executeUpdate();
+
+                return assets;
             });
+        } catch (Exception e) {
+            LOG.log(SEVERE, "Failed to delete one or more requested assets: " + Arrays.toString(rootIds.toArray()), e);
+            return false;
+        } finally {
+            // Release all of the locks
+            assetLocks.unlockAll(lockStripes);
+        }
 
-            // If username present
-            User user = null;
-            if (!TextUtil.isNullOrEmpty(userName)) {
-                user = identityService.getIdentityProvider().getUserByUsername(asset.getRealm(), userName);
-                if (user == null) {
-                    String msg = "User not found: " + userName;
-                    LOG.warning(msg);
-                    throw new IllegalStateException(msg);
-                }
-            }
+        LOG.fine(() -> "Deleted " + deletedAssets.size() + " asset(s) in " + (System.currentTimeMillis() - startMillis) + "ms");
 
-            T updatedAsset = em.merge(asset);
+        // Root IDs within the subtree of another root ID were deleted as descendants
+        deletedAssets.stream()
+            .filter(asset -> ids.contains(asset.getId()) && Arrays.stream(asset.getPath()).skip(1).noneMatch(ids::contains))
+            .forEach(asset -> clientEventService.publishEvent(new AssetEvent(AssetEvent.Cause.DELETE, asset, null)));
+        deletedAssets.forEach(asset ->
+            publishSubtreePersistenceEvent(new PersistenceEvent<>(PersistenceEvent.Cause.DELETE, asset, new String[0], new Object[0])));
+        return true;
+    }
 
-            if (LOG.isLoggable(FINE)) {
-                LOG.fine("Asset merge took: " + (System.currentTimeMillis() - startTime) + "ms");
-            }
+    @SuppressWarnings("unchecked")
+    protected List<Asset<?>> findSubtreeAssets(EntityManager em, List<String> rootIds) {
+        return em.createNativeQuery("select A.* " + SUBTREE_SQL, Asset.class)
+            .unwrap(org.hibernate.query.Query.class)
+            .setParameter(1, rootIds.toArray(String[]::new))
+            .getResultList();
+    }
 
-            if (user != null) {
-                createUserAssetLinks(em, Collections.singletonList(new UserAssetLink(user.getRealm(), user.getId(), updatedAsset.getId())));
-            }
+    @SuppressWarnings("unchecked")
+    protected List<String> findSubtreeAssetIds(EntityManager em, List<String> rootIds) {
+        return em.createNativeQuery("select A.ID " + SUBTREE_SQL, String.class)
+            .unwrap(org.hibernate.query.Query.class)
+            .setParameter(1, rootIds.toArray(String[]::new))
+            .getResultList();
+    }
 
-            if (existingAsset == null && updatedAsset instanceof ThingAsset && !ThingAsset.DESCRIPTOR.getName().equals(updatedAsset.getType())) {
-                // When an asset is first saved then any custom type is not persisted as JPA will set it to ThingAsset so we need to override
-                // We don't need to do this when updating an existing asset as JPA doesn't overwrite the type - if this changes in future it
-                // should be detected by tests
-                em.createNativeQuery("update ASSET set type = ? where id = ?;")
-                    .setParameter(1, updatedAsset.getType())
-                    .setParameter(2, updatedAsset.getId())
-                    .executeUpdate();
-            }
+    protected void updateParentIds(EntityManager em, Collection<String> ids, String parentId) {
+        if (ids.isEmpty()) {
+            return;
+        }
 
-            return updatedAsset;
-        }));
+        // Bump the version so concurrent merges of stale copies are rejected
+        em.createNativeQuery("update ASSET set PARENT_ID = ?1, VERSION = VERSION + 1 where ID = ANY(?2)")
+            .unwrap(org.hibernate.query.Query.class)
+            .setParameter(1, parentId, StandardBasicTypes.STRING)
+            .setParameter(2, ids.toArray(String[]::new))
+            .executeUpdate();
     }
 
     /**
-     * @return <code>true</code> if the assets were deleted, false if any of the assets still have children and can't be deleted.
+     * Publish a {@link PersistenceEvent} for a subtree operation that bypasses the persistence context; these events
+     * are marked with {@link #HEADER_SUBTREE_EVENT} so they aren't converted into client events.
      */
-    public boolean delete(List<String> assetIds) {
-        return delete(assetIds, false);
+    protected void publishSubtreePersistenceEvent(PersistenceEvent<Asset<?>> persistenceEvent) {
+        FluentProducerTemplate producerTemplate = messageBrokerService.getFluentProducerTemplate();
+
+        if (producerTemplate != null) {
+            producerTemplate
+                .withBody(persistenceEvent)
+                .withHeader(HEADER_ENTITY_TYPE, persistenceEvent.getEntity().getClass())
+                .withHeader(HEADER_SUBTREE_EVENT, true)
+                .to(PERSISTENCE_TOPIC)
+                .asyncSend();
+        }
     }
 
-    public boolean delete(List<String> assetIds, boolean skipGatewayCheck) {
+    /**
+     * Get the IDs of the assets linked to the specified user; the returned set is shared and updated as the user's
+     * {@link UserAssetLink}s are modified so it can be referenced by long-lived subscription filters. The set is only
+     * cached whilst referenced so callers must hold on to it for as long as it should be kept up to date.
+     */
+    public Set<String> getUserAssetIds(String realm, String userId) {
+        Set<String> assetIds = userAssetIds.getIfPresent(userId);
+        if (assetIds != null) {
+            return assetIds;
+        }
 
-        List<String> ids = new ArrayList<>(assetIds);
+        // Links are loaded outside the cache so a slow query doesn't block link events; any that arrive before the
+        // set is published change the version and the set is loaded again, any later ones update the published set
+        long version = userAssetIdsVersion.get();
+        assetIds = ConcurrentHashMap.newKeySet();
+        assetIds.addAll(loadUserAssetIds(realm, userId));
+        Set<String> existingAssetIds = userAssetIds.asMap().putIfAbsent(userId, assetIds);
+        if (existingAssetIds != null) {
+            return existingAssetIds;
+        }
 
-        if (!skipGatewayCheck) {
+        while (version != userAssetIdsVersion.get()) {
+            version = userAssetIdsVersion.get();
+            Set<String> linkedAssetIds = loadUserAssetIds(realm, userId);
+            assetIds.addAll(linkedAssetIds);
+            assetIds.retainAll(linkedAssetIds);
+        }
 
-            // Don't allow deletion of gateway descendant assets (they must be deleted on the gateway itself)
-            boolean gatewayDescendant = ids.stream().anyMatch(id -> gatewayService.getLocallyRegisteredGatewayId(id, null) != null);
-            if (gatewayDescendant) {
-                String msg = "Cannot delete one or more requested assets as they are descendants of a gateway asset";
-                LOG.info(msg);
-                throw new IllegalStateException(msg);
+        return assetIds;
+    }
+
+    protected Set<String> loadUserAssetIds(String realm, String userId) {
+        return findUserAssetLinks(realm, userId, null).stream()
+            .map(userAssetLink -> userAssetLink.getId().getAssetId())
+            .collect(Collectors.toSet());
+    }
+
+    protected void onUserAssetIdsChanged(PersistenceEvent<?> persistenceEvent) {
+        Object entity = persistenceEvent.getEntity();
+        userAssetIdsVersion.incrementAndGet();
+
+        if (entity instanceof UserAssetLink userAssetLink) {
+            String assetId = userAssetLink.getId().getAssetId();
+            Set<String> assetIds = userAssetIds.getIfPresent(userAssetLink.getId().getUserId());
+            if (assetIds != null) {
+                switch (persistenceEvent.getCause()) {
+                    case CREATE -> assetIds.add(assetId);
+                    case DELETE -> assetIds.remove(assetId);
+                }
             }
+        } else if (entity instanceof User user && persistenceEvent.getCause() == PersistenceEvent.Cause.DELETE) {
+            userAssetIds.invalidate(user.getId());
+        } else if (entity instanceof Asset<?> asset && persistenceEvent.getCause() == PersistenceEvent.Cause.DELETE) {
+            // Links are removed by the database when the asset is deleted
+            userAssetIds.asMap().values().forEach(assetIds -> assetIds.remove(asset.getId()));
+        }
+    }
 
-            List<String> gatewayIds = ids.stream().filter(id -> gatewayService.isLocallyRegisteredGateway(id)).toList();
+    @SuppressWarnings("unchecked")
+    protected void onAssetTreeChanged(PersistenceEvent<?> persistenceEvent) {
+        Asset<?> asset = ((PersistenceEvent<Asset<?>>) persistenceEvent).getEntity();
 
-            if (!gatewayIds.isEmpty()) {
-                // Handle gateway asset deletion in a special way
-                ids.removeAll(gatewayIds);
-                for (String gatewayId : gatewayIds) {
-                    try {
-                        boolean deleted = gatewayService.deleteGateway(gatewayId);
-                        if (!deleted) {
-                            return false;
-                        }
-                    } catch (Exception e) {
-                        LOG.log(WARNING, "Failed to delete gateway asset: " + gatewayId, e);
-                        return false;
-                    }
+        switch (persistenceEvent.getCause()) {
+            case CREATE -> invalidateChildCounts(asset.getParentId());
+            case DELETE -> invalidateChildCounts(asset.getParentId(), asset.getId());
+            case UPDATE -> {
+                if (persistenceEvent.hasPropertyChanged("parentId")) {
+                    invalidateChildCounts(persistenceEvent.getPreviousState("parentId"), asset.getParentId());
                 }
             }
         }
+    }
 
-        if (!ids.isEmpty()) {
-            try {
-                // Get locks for each asset ID
-                ids.forEach(assetLocks::lock);
+    protected void invalidateChildCounts(String... parentIds) {
+        childCountVersion.incrementAndGet();
+        for (String parentId : parentIds) {
+            if (parentId != null) {
+                childCounts.invalidate(parentId);
+            }
+        }
+    }
 
-                persistenceService.doTransaction(em -> {
-                    List<Asset<?>> assets = em
-                        .createQuery("select a from Asset a where not exists(select child.id from Asset child where child.parentId = a.id and not child.id in :ids) and a.id in :ids", Asset.class)
-                        .setParameter("ids", ids)
-                        .getResultList().stream().map(asset -> (Asset<?>) asset).collect(Collectors.toList());
+    /**
+     * Get a slim tree of the children of the specified parent asset, or of the root assets of the realm when parentId
+     * is null. The tree is expanded level by level using the parent ID index until the specified depth or the
+     * {@link #OR_ASSET_TREE_MAX_NODES} limit is reached; the nodes of the last level aren't expanded but have their
+     * child count set so clients can lazily expand them with another call. A level that would exceed the limit is not
+     * expanded at all and the first level is truncated to the limit.
+     */
+    public List<AssetTreeItem> findTree(String realm, String parentId, int depth) {
+        return persistenceService.doReturningTransaction(em -> {
+            List<AssetTreeItem> items = parentId != null
+                ? findTreeItems(em, "A.PARENT_ID = ANY(?1)", new String[] {parentId}, treeMaxNodes + 1)
+                : findTreeItems(em, "A.PARENT_ID is null and A.REALM = ?1", realm, treeMaxNodes + 1);
 
-                    if (ids.size() != assets.size()) {
-                        throw new IllegalArgumentException("Cannot delete one or more requested assets as they either have children or don't exist");
-                    }
+            if (items.size() > treeMaxNodes) {
+                LOG.fine("Asset tree level exceeds the maximum node count so truncating: realm=" + realm + ", parentId=" + parentId + ", max=" + treeMaxNodes);
+                items = new ArrayList<>(items.subList(0, treeMaxNodes));
+            }
 
-                    assets.sort(Comparator.comparingInt((Asset<?> asset) -> asset.getPath() == null ? 0 : asset.getPath().length).reversed());
-                    assets.forEach(em::remove);
-                    em.flush();
-                });
-            } catch (Exception e) {
-                LOG.log(SEVERE, "Failed to delete one or more requested assets: " + Arrays.toString(assetIds.toArray()), e);
-                return false;
-            } finally {
-                // Release all of the locks
-                ids.forEach(assetLocks::unlock);
+            List<AssetTreeItem> level = items;
+            int nodeCount = items.size();
+
+            for (int i = 1; i < depth && !level.isEmpty() && nodeCount < treeMaxNodes; i++) {
+                int remaining = treeMaxNodes - nodeCount;
+                List<AssetTreeItem> childItems = findTreeItems(em, "A.PARENT_ID = ANY(?1)", level.stream().map(AssetTreeItem::getId).toArray(String[]::new), remaining + 1);
+
+                if (childItems.size() > remaining) {
+                    // Leave this level unexpanded rather than returning a partial set of children for some nodes
+                    break;
+                }
+
+                Map<String, List<AssetTreeItem>> children = childItems
+                    .stream()
+                    .collect(groupingBy(AssetTreeItem::getParentId, LinkedHashMap::new, Collectors.toList()));
+
+                level.forEach(item -> item.setChildren(children.getOrDefault(item.getId(), Collections.emptyList()).toArray(AssetTreeItem[]::new)));
+                level = children.values().stream().flatMap(List::stream).toList();
+                nodeCount += level.size();
+            }
+
+            Map<String, Integer> counts = findChildCounts(em, level.stream().map(AssetTreeItem::getId).toList());
+            level.forEach(item -> item.setChildCount(counts.getOrDefault(item.getId(), 0)));
+            return items;
+        });
+    }
+
+    /**
+     * Get the number of children of each of the specified assets; counts are cached until a child is added, removed or
+     * moved.
+     */
+    public Map<String, Integer> findChildCounts(Collection<String> assetIds) {
+        return persistenceService.doReturningTransaction(em -> findChildCounts(em, assetIds));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<String, Integer> findChildCounts(EntityManager em, Collection<String> assetIds) {
+        Map<String, Integer> counts = new HashMap<>(childCounts.getAllPresent(assetIds));
+        String[] missingIds = assetIds.stream().filter(id -> !counts.containsKey(id)).distinct().toArray(String[]::new);
+
+        if (missingIds.length > 0) {
+            long version = childCountVersion.get();
+            Map<String, Integer> loadedCounts = new HashMap<>();
+            Arrays.stream(missingIds).forEach(id -> loadedCounts.put(id, 0));
+            List<Object[]> rows = em.createNativeQuery("select PARENT_ID, count(*) from ASSET where PARENT_ID = ANY(?1) group by PARENT_ID")
+                .unwrap(org.hibernate.query.Query.class)
+                .setParameter(1, missingIds)
+                .getResultList();
+            rows.forEach(row -> loadedCounts.put((String) row[0], ((Number) row[1]).intValue()));
+            counts.putAll(loadedCounts);
+
+            if (childCountVersion.get() == version) {
+                childCounts.putAll(loadedCounts);
             }
         }
-        return true;
+
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected List<AssetTreeItem> findTreeItems(EntityManager em, String where, Object parameter, int limit) {
+        List<Object[]> rows = em.createNativeQuery("select A.ID, A.NAME, A.TYPE, A.PARENT_ID from ASSET A where " + where + " order by A.NAME, A.ID")
+            .unwrap(org.hibernate.query.Query.class)
+            .setParameter(1, parameter)
+            .setMaxResults(limit)
+            .getResultList();
+        return rows.stream()
+            .map(row -> new AssetTreeItem((String) row[0], (String) row[1], (String) row[2], (String) row[3]))
+            .collect(Collectors.toList());
     }
 
     public boolean isUserAsset(String assetId) {
@@ -1111,12 +1832,24 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
      * Delete all {@link UserAssetLink}s for the specified {@link User}
      */
     public void deleteUserAssetLinks(String userId) {
-        persistenceService.doTransaction(entityManager -> {
+        List<UserAssetLink> existingLinks = persistenceService.doReturningTransaction(entityManager -> {
+            List<UserAssetLink> links = buildFindUserAssetLinksQuery(entityManager, null, Collections.singletonList(userId), null)
+                .getResultList();
             Query query = entityManager.createQuery("DELETE FROM UserAssetLink ual WHERE ual.id.userId = ?1");
             query.setParameter(1, userId);
             int deleteCount = query.executeUpdate();
             LOG.fine("Deleted all user asset links for user: user ID=" + userId + ", count=" + deleteCount);
+            return links;
         });
+
+        existingLinks.forEach(userAssetLink ->
+            persistenceService.publishPersistenceEvent(
+                PersistenceEvent.Cause.DELETE,
+                null,
+                userAssetLink,
+                UserAssetLink.class,
+                null,
+                null));
     }
 
     /**
@@ -1148,9 +1881,14 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         });
     }
 
+    /**
+     * Run the action whilst holding the lock of the specified asset; the asset locks are striped so the action cannot
+     * lock a different asset (an {@link IllegalStateException} is thrown if it tries), use {@link #withAssetLocks} to
+     * hold the locks of several assets.
+     */
     public <R> R withAssetLock(String assetId, Supplier<R> action) {
+        assetLocks.lock(assetId);
         try {
-            assetLocks.lock(assetId);
             return action.get();
         } finally {
             assetLocks.unlock(assetId);
@@ -1158,7 +1896,22 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
     }
 
     public void withAssetLock(String assetId, Runnable action) {
-        withAssetLock(assetId, action);
+        withAssetLock(assetId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the action whilst holding the locks of all the specified assets.
+     */
+    public <R> R withAssetLocks(Collection<String> assetIds, Supplier<R> action) {
+        int[] lockStripes = assetLocks.lockAll(assetIds);
+        try {
+            return action.get();
+        } finally {
+            assetLocks.unlockAll(lockStripes);
+        }
     }
 
     protected void createUserAssetLinks(EntityManager em, List<UserAssetLink> userAssets) {
@@ -1213,47 +1966,95 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         );
     }
 
-    @SuppressWarnings("unchecked")
     protected List<Asset<?>> findAll(EntityManager em, AssetQuery query) {
 
         long startMillis = System.currentTimeMillis();
+        Pair<org.hibernate.query.Query<Asset<?>>, Boolean> queryAndContainsCalendarPredicate = createAssetQuery(em, query);
+
+        if (queryAndContainsCalendarPredicate == null) {
+            return Collections.emptyList();
+        }
+
+        List<Asset<?>> assets = queryAndContainsCalendarPredicate.key.getResultList();
+
+        if (queryAndContainsCalendarPredicate.value) {
+            return assets.stream().filter(asset -> calendarEventPredicateMatches(timerService::getCurrentTimeMillis, query, asset)).toList();
+        }
+
+        if (LOG.isLoggable(FINEST)) {
+            LOG.finest("Asset query took " + (System.currentTimeMillis() - startMillis) + "ms: return count=" + assets.size());
+        }
+
+        return assets;
+    }
+
+    protected Stream<Asset<?>> findAllStream(EntityManager em, AssetQuery query) {
+        Pair<org.hibernate.query.Query<Asset<?>>, Boolean> queryAndContainsCalendarPredicate = createAssetQuery(em, query);
+
+        if (queryAndContainsCalendarPredicate == null) {
+            return Stream.empty();
+        }
+
+        // Results are read only so detach each one to stop the persistence context growing with the result set
+        Stream<Asset<?>> assets = queryAndContainsCalendarPredicate.key
+            .setFetchSize(STREAM_FETCH_SIZE)
+            .getResultStream()
+            .peek(em::detach);
+
+        if (queryAndContainsCalendarPredicate.value) {
+            assets = assets.filter(asset -> calendarEventPredicateMatches(timerService::getCurrentTimeMillis, query, asset));
+        }
+
+        return assets;
+    }
+
+    /**
+     * Builds the native query for the supplied {@link AssetQuery}, the returned {@link Pair#value} indicates whether
+     * the results must still be filtered using {@link #calendarEventPredicateMatches}; returns null if the query
+     * cannot match any assets.
+     */
+    @SuppressWarnings("unchecked")
+    protected Pair<org.hibernate.query.Query<Asset<?>>, Boolean> createAssetQuery(EntityManager em, AssetQuery query) {
 
         if (query.access == null)
             query.access = PRIVATE;
 
         // Do some sanity checks on query values and return empty result set if empty query parameters
         if (query.ids != null && query.ids.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
         if (query.paths != null && query.paths.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
         if (query.types != null && query.types.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
         if (query.names != null && query.names.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
         if (query.userIds != null && query.userIds.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
         if (query.parents != null && query.parents.length == 0) {
-            return Collections.emptyList();
+            return null;
         }
 
         // Default to order by creation date if the query may return multiple results
         if (query.orderBy == null && query.ids == null)
             query.orderBy = new OrderBy(OrderBy.Property.CREATED_ON);
 
+        long buildStartNanos = System.nanoTime();
         Pair<PreparedAssetQuery, Boolean> queryAndContainsCalendarPredicate = buildQuery(query, timerService::getCurrentTimeMillis);
         PreparedAssetQuery querySql = queryAndContainsCalendarPredicate.key;
-        boolean containsCalendarPredicate = queryAndContainsCalendarPredicate.value;
-
-        if (containsCalendarPredicate && (query.select != null && (query.select.attributes == null))) {
-            LOG.warning("Asset query contains a calendar event predicate which requires the attribute values and types to be included in the select (as calendar event predicate is applied post DB query)");
-            throw new IllegalArgumentException("Asset query contains a calendar event predicate which requires the attribute values and types to be included in the select (as calendar event predicate is applied post DB query)");
+        if (queryBuildTimer != null) {
+            queryBuildTimer.record(System.nanoTime() - buildStartNanos, TimeUnit.NANOSECONDS);
         }
 
+        // Recurrence rules the DB cannot evaluate are checked against the returned attribute values so this is only
+        // possible when attributes are selected; otherwise such assets are included as potential matches
+        boolean containsCalendarPredicate = queryAndContainsCalendarPredicate.value
+            && (query.select == null || query.select.attributes == null || query.select.attributes.length > 0);
+
         // RT: No longer used as parent info removed for simplicity and security reasons
 //        // Use a SqlResultSetMapping to allow auto hydration with retrieval of transient data as well
 //        // Using hibernate query object rather than JPA as postgres array parameter support doesn't work in JPQL without specifying the data type
@@ -1280,17 +2081,7 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         org.hibernate.query.Query<Object[]> jpql = em.createNativeQuery(querySql.querySql, Asset.class).unwrap(org.hibernate.query.Query.class)
             .setHint(AvailableHints.HINT_READ_ONLY, true); // Make query readonly so no dirty checks are performed
         querySql.apply(em, jpql);
-        List<Asset<?>> assets = (List<Asset<?>>)(Object)jpql.getResultList();
-
-        if (containsCalendarPredicate) {
-            return assets.stream().filter(asset -> calendarEventPredicateMatches(timerService::getCurrentTimeMillis, query, asset)).toList();
-        }
-
-        if (LOG.isLoggable(FINEST)) {
-            LOG.finest("Asset query took " + (System.currentTimeMillis() - startMillis) + "ms: return count=" + assets.size());
-        }
-
-        return assets;
+        return new Pair<>((org.hibernate.query.Query<Asset<?>>)(Object)jpql, containsCalendarPredicate);
     }
 
     /**
@@ -1476,7 +2267,7 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         }
 
         sb.append(buildOrderByString(query));
-        sb.append(buildLimitString(query));
+        sb.append(buildLimitString(query, binders));
         return new Pair<>(new PreparedAssetQuery(sb.toString(), binders), containsCalendarPredicate);
     }
 
@@ -1569,29 +2360,136 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
     protected static String buildOrderByString(AssetQuery query) {
         StringBuilder sb = new StringBuilder();
 
-        if (query.ids != null && !query.recursive) {
+        if (query.ids != null && !query.recursive && query.cursor == null) {
             return sb.toString();
         }
 
+        // Pages must have a stable order so use the ID as a tie-breaker when paging
+        boolean paged = query.limit > 0 || query.cursor != null;
+
         if (query.orderBy != null && query.orderBy.property != null) {
+            String direction = query.orderBy.descending ? "desc " : "asc ";
             sb.append(" order by ");
+            sb.append(" ").append(getOrderByColumn(query.orderBy.property)).append(" ");
+            sb.append(direction);
 
-            switch (query.orderBy.property) {
-                case CREATED_ON -> sb.append(" A.CREATED_ON ");
-                case ASSET_TYPE -> sb.append(" A.TYPE ");
-                case NAME -> sb.append(" A.NAME ");
-                case PARENT_ID -> sb.append(" A.PARENT_ID ");
-                case REALM -> sb.append(" A.REALM ");
+            if (paged) {
+                sb.append(", A.ID ").append(direction);
             }
-            sb.append(query.orderBy.descending ? "desc " : "asc ");
+        } else if (paged) {
+            sb.append(" order by A.ID asc ");
         }
 
         return sb.toString();
     }
 
-    protected static String buildLimitString(AssetQuery query) {
+    protected static String getOrderByColumn(OrderBy.Property property) {
+        return switch (property) {
+            case CREATED_ON -> "A.CREATED_ON";
+            case ASSET_TYPE -> "A.TYPE";
+            case NAME -> "A.NAME";
+            case PARENT_ID -> "A.PARENT_ID";
+            case REALM -> "A.REALM";
+        };
+    }
+
+    /**
+     * Restricts the results to those that sort after the position encoded in {@link AssetQuery#cursor} (keyset
+     * pagination) so the database can seek using the order by index rather than skipping rows.
+     */
+    protected static void appendCursorPredicate(StringBuilder sb, AssetQuery query, List<ParameterBinder> binders) {
+        String[] cursor = decodeCursor(query);
+        String lastValue = cursor[1];
+        String lastId = cursor[2];
+        final int idPos = binders.size() + 1;
+        binders.add((em, st) -> st.setParameter(idPos, lastId));
+
+        if (query.orderBy == null || query.orderBy.property == null) {
+            sb.append(" and A.ID > ?").append(idPos);
+            return;
+        }
+
+        String column = getOrderByColumn(query.orderBy.property);
+        String comparator = query.orderBy.descending ? " < " : " > ";
+
+        // Postgres sorts nulls last in ascending order and first in descending order
+        if (lastValue == null) {
+            sb.append(" and (").append(column).append(" is null and A.ID").append(comparator).append("?").append(idPos);
+            if (query.orderBy.descending) {
+                sb.append(" or ").append(column).append(" is not null");
+            }
+            sb.append(")");
+            return;
+        }
+
+        final int valuePos = binders.size() + 1;
+        if (query.orderBy.property == OrderBy.Property.CREATED_ON) {
+            long createdOn = Long.parseLong(lastValue);
+            binders.add((em, st) -> st.setParameter(valuePos, new java.sql.Timestamp(createdOn)));
+        } else {
+            binders.add((em, st) -> st.setParameter(valuePos, lastValue));
+        }
+
+        sb.append(" and (").append(column).append(comparator).append("?").append(valuePos);
+        sb.append(" or (").append(column).append(" = ?").append(valuePos).append(" and A.ID").append(comparator).append("?").append(idPos).append(")");
+        if (!query.orderBy.descending) {
+            sb.append(" or ").append(column).append(" is null");
+        }
+        sb.append(")");
+    }
+
+    /**
+     * Get the {@link AssetQuery#cursor} value for retrieving the page of results following the supplied asset which
+     * should be the last asset returned for the query.
+     */
+    public static String getCursor(AssetQuery query, Asset<?> lastAsset) {
+        String lastValue = null;
+
+        if (query.orderBy != null && query.orderBy.property != null) {
+            lastValue = switch (query.orderBy.property) {
+                case CREATED_ON -> lastAsset.getCreatedOn() != null ? Long.toString(lastAsset.getCreatedOn().getTime()) : null;
+                case ASSET_TYPE -> lastAsset.getType();
+                case NAME -> lastAsset.getName();
+                case PARENT_ID -> lastAsset.getParentId();
+                case REALM -> lastAsset.getRealm();
+            };
+        }
+
+        String json = ValueUtil.asJSON(new String[]{getCursorOrder(query), lastValue, lastAsset.getId()}).orElseThrow();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static String[] decodeCursor(AssetQuery query) {
+        String[] cursor;
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(query.cursor), StandardCharsets.UTF_8);
+            cursor = ValueUtil.parse(json, String[].class).orElse(null);
+        } catch (IllegalArgumentException e) {
+            cursor = null;
+        }
+
+        if (cursor == null || cursor.length != 3 || cursor[2] == null) {
+            throw new IllegalArgumentException("Asset query cursor is invalid: " + query.cursor);
+        }
+        if (!Objects.equals(cursor[0], getCursorOrder(query))) {
+            throw new IllegalArgumentException("Asset query cursor was created for a different order by: " + query.cursor);
+        }
+        return cursor;
+    }
+
+    protected static String getCursorOrder(AssetQuery query) {
+        if (query.orderBy == null || query.orderBy.property == null) {
+            return "";
+        }
+        return query.orderBy.property.name() + (query.orderBy.descending ? ":desc" : ":asc");
+    }
+
+    protected static String buildLimitString(AssetQuery query, List<ParameterBinder> binders) {
         if (query.limit > 0) {
-            return " LIMIT " + query.limit;
+            final int pos = binders.size() + 1;
+            binders.add((em, st) -> st.setParameter(pos, query.limit));
+            return " LIMIT ?" + pos;
         }
         return "";
     }
@@ -1704,6 +2602,10 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                 binders.add((em, st) -> st.setParameter(pos, resolvedTypes));
             }
 
+            if (query.cursor != null) {
+                appendCursorPredicate(sb, query, binders);
+            }
+
             if (query.attributes != null) {
                 sb.append(" and A.id in (select A.id from ");
                 AtomicInteger offset = new AtomicInteger(sb.length());
@@ -1920,9 +2822,11 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                     valuePathInserter.accept(attributeBuilder, binders);
 
                     if (arrayPredicate.index != null) {
+                        final int indexPos = binders.size() + 1;
                         attributeBuilder
-                            .append(" -> ")
-                            .append(arrayPredicate.index);
+                            .append(" -> ?")
+                            .append(indexPos);
+                        binders.add((em, st) -> st.setParameter(indexPos, arrayPredicate.index));
                     }
                     final int pos = binders.size() + 1;
                     attributeBuilder.append(" @> ?").append(pos).append(" \\:\\:jsonb");
@@ -1934,23 +2838,29 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                 if (arrayPredicate.lengthEquals != null) {
                     attributeBuilder.append(" and jsonb_array_length(");
                     valuePathInserter.accept(attributeBuilder, binders);
+                    final int lengthPos = binders.size() + 1;
                     attributeBuilder
-                        .append(") = ")
-                        .append(arrayPredicate.lengthEquals);
+                        .append(") = ?")
+                        .append(lengthPos);
+                    binders.add((em, st) -> st.setParameter(lengthPos, arrayPredicate.lengthEquals));
                 }
                 if (arrayPredicate.lengthGreaterThan != null) {
                     attributeBuilder.append(" and jsonb_array_length(");
                     valuePathInserter.accept(attributeBuilder, binders);
+                    final int lengthPos = binders.size() + 1;
                     attributeBuilder
-                        .append(") > ")
-                        .append(arrayPredicate.lengthGreaterThan);
+                        .append(") > ?")
+                        .append(lengthPos);
+                    binders.add((em, st) -> st.setParameter(lengthPos, arrayPredicate.lengthGreaterThan));
                 }
                 if (arrayPredicate.lengthLessThan != null) {
                     attributeBuilder.append(" and jsonb_array_length(");
                     valuePathInserter.accept(attributeBuilder, binders);
+                    final int lengthPos = binders.size() + 1;
                     attributeBuilder
-                        .append(") < ")
-                        .append(arrayPredicate.lengthLessThan);
+                        .append(") < ?")
+                        .append(lengthPos);
+                    binders.add((em, st) -> st.setParameter(lengthPos, arrayPredicate.lengthLessThan));
                 }
                 if (arrayPredicate.negated) {
                     attributeBuilder.append(")");
@@ -1965,12 +2875,10 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                     valuePathInserter.accept(attributeBuilder, binders);
                     attributeBuilder
                         .append(" #>> '{coordinates,1}')\\:\\:numeric")
-                        .append("), ST_MakePoint(")
-                        .append(location.lng)
-                        .append(",")
-                        .append(location.lat)
-                        .append(location.negated ? ")) > " : ")) <= ")
-                        .append(location.radius);
+                        .append("), ST_MakePoint(");
+                    appendDoubleParameters(attributeBuilder, binders, location.lng, location.lat);
+                    attributeBuilder.append(location.negated ? ")) > " : ")) <= ");
+                    appendDoubleParameters(attributeBuilder, binders, location.radius);
                 } else if (nameValuePredicate.value instanceof RectangularGeofencePredicate location) {
                     if (location.negated) {
                         attributeBuilder.append("NOT");
@@ -1984,44 +2892,22 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
                     attributeBuilder
                         .append(" #>> '{coordinates,1}')\\:\\:numeric")
                         .append(")")
-                        .append(", ST_MakeEnvelope(")
-                        .append(location.lngMin)
-                        .append(",")
-                        .append(location.latMin)
-                        .append(",")
-                        .append(location.lngMax)
-                        .append(",")
-                        .append(location.latMax)
-                        .append("))");
+                        .append(", ST_MakeEnvelope(");
+                    appendDoubleParameters(attributeBuilder, binders, location.lngMin, location.latMin, location.lngMax, location.latMax);
+                    attributeBuilder.append("))");
                 }
             } else if (nameValuePredicate.value instanceof ValueEmptyPredicate) {
                 // Two situations - key is present and not null (cannot use IS NULL for this) or key is not present at all (have to use IS NULL for this)
                 valuePathInserter.accept(attributeBuilder, binders);
                 attributeBuilder.append(((ValueEmptyPredicate) nameValuePredicate.value).negate ? " IS NOT NULL" : " IS NULL");
-            } else if (nameValuePredicate.value instanceof CalendarEventPredicate) {
-                final int pos = binders.size() + 1;
-                java.sql.Timestamp when = new java.sql.Timestamp(((CalendarEventPredicate)nameValuePredicate.value).timestamp.getTime());
-
-                // The recurrence logic is applied post DB query just check start key is present and in the past and also
-                // that the end key is numeric and in the future if no recurrence value
-                attributeBuilder.append("(jsonb_typeof(");
+            } else if (nameValuePredicate.value instanceof CalendarEventPredicate calendarEventPredicate) {
+                // Events without recurrence and fixed period recurrence rules are fully evaluated in the DB; the
+                // function returns null for other recurrence rules which are then applied post DB query
+                attributeBuilder.append("CALENDAR_EVENT_ACTIVE(");
                 valuePathInserter.accept(attributeBuilder, binders);
-                attributeBuilder
-                    .append(" #> '{start}') = 'number' AND jsonb_typeof(");
-                valuePathInserter.accept(attributeBuilder, binders);
-                attributeBuilder
-                    .append(" #> '{end}') = 'number' AND to_timestamp((");
-                valuePathInserter.accept(attributeBuilder, binders);
-                attributeBuilder
-                    .append(" #>> '{start}')\\:\\:float / 1000) <= ?").append(pos).append(" AND (to_timestamp((");
-                valuePathInserter.accept(attributeBuilder, binders);
-                attributeBuilder
-                    .append(" #>> '{end}')\\:\\:float / 1000) > ?").append(pos+1).append(" OR jsonb_typeof(");
-                valuePathInserter.accept(attributeBuilder, binders);
-                attributeBuilder
-                    .append(" #> '{recurrence}') = 'string'))");
-                binders.add((em, st) -> st.setParameter(pos, when));
-                binders.add((em, st) -> st.setParameter(pos+1, when));
+                final int pos = binders.size() + 1;
+                attributeBuilder.append(", ?").append(pos).append(") IS NOT FALSE");
+                binders.add((em, st) -> st.setParameter(pos, calendarEventPredicate.timestamp.getTime()));
             } else {
                 throw new UnsupportedOperationException("Attribute value predicate is not supported: " + nameValuePredicate.value);
             }
@@ -2039,6 +2925,15 @@ public class AssetStorageService extends RouteBuilder implements ContainerServic
         return attributeBuilder.toString();
     }
 
+    protected static void appendDoubleParameters(StringBuilder sb, List<ParameterBinder> binders, double... values) {
+        for (int i = 0; i < values.length; i++) {
+            final int pos = binders.size() + 1;
+            final double value = values[i];
+            sb.append(i > 0 ? ",?" : "?").append(pos);
+            binders.add((em, st) -> st.setParameter(pos, value));
+        }
+    }
+
     protected static String buildOperatorFilter(AssetQuery.Operator operator, boolean negate, int pos) {
         switch (operator) {
             case EQUALS -> {
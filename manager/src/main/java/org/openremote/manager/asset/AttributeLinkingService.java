@@ -19,11 +19,16 @@
  */
 package org.openremote.manager.asset;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import org.apache.camel.builder.RouteBuilder;
+import org.openremote.container.message.MessageBrokerService;
 import org.openremote.manager.agent.AgentService;
 import org.openremote.manager.event.ClientEventService;
 import org.openremote.manager.gateway.GatewayService;
 import org.openremote.model.Container;
 import org.openremote.model.ContainerService;
+import org.openremote.model.PersistenceEvent;
 import org.openremote.model.asset.Asset;
 import org.openremote.model.attribute.Attribute;
 import org.openremote.model.attribute.AttributeEvent;
@@ -32,29 +37,63 @@ import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.attribute.AttributeInfo;
 import org.openremote.model.protocol.ProtocolUtil;
 import org.openremote.model.query.AssetQuery;
+import org.openremote.model.query.filter.AttributePredicate;
+import org.openremote.model.query.filter.NameValuePredicate;
 import org.openremote.model.query.filter.RealmPredicate;
 import org.openremote.model.util.Pair;
 import org.openremote.model.util.ValueUtil;
 import org.openremote.model.value.MetaItemType;
 
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
+import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC;
+import static org.openremote.container.persistence.PersistenceService.isPersistenceEventForEntityType;
+import static org.openremote.model.value.MetaItemType.ATTRIBUTE_LINKS;
+
 /**
  * This service generates new {@link AttributeEvent}s for any {@link Attribute} that contains an
  * {@link MetaItemType#ATTRIBUTE_LINKS} meta item when the {@link Attribute} is updated.
  * <p>
+ * The links of all attributes are kept in an in memory index (updated from asset persistence events) along with the
+ * realm and attribute types of linked assets (loaded on first use) so that linked attributes can be resolved without
+ * asset lookups. Links are followed through chains (A -> B -> C) in memory and all linked attribute updates generated
+ * by one attribute event are sent as a single batch; each attribute is updated at most once per batch so a cycle in
+ * the link graph cannot cause an update loop. Links that would create a cycle are rejected when an asset is merged
+ * (see {@link #validateAttributeLinks}).
+ * <p>
  * See {@link AttributeLink} for capabilities.
  */
-public class AttributeLinkingService implements ContainerService {
+public class AttributeLinkingService extends RouteBuilder implements ContainerService {
+
+    /**
+     * Realm and attribute types of an asset that is the target of an {@link AttributeLink}.
+     */
+    protected record LinkedAsset(String realm, Map<String, Class<?>> attributeTypes) {
+    }
 
     private static final Logger LOG = Logger.getLogger(AttributeLinkingService.class.getName());
     protected AssetProcessingService assetProcessingService;
     protected AssetStorageService assetStorageService;
     protected AgentService agentService;
     protected GatewayService gatewayService;
+    // Asset ID -> attribute name -> links of that attribute
+    protected final Map<String, Map<String, AttributeLink[]>> attributeLinks = new ConcurrentHashMap<>();
+    // Asset ID -> linked asset (empty if the asset doesn't exist)
+    protected final Map<String, Optional<LinkedAsset>> linkedAssets = new ConcurrentHashMap<>();
+    protected Counter linkedEventCounter;
 
     @Override
     public void init(Container container) throws Exception {
@@ -64,14 +103,152 @@ public class AttributeLinkingService implements ContainerService {
         gatewayService = container.getService(GatewayService.class);
         ClientEventService clientEventService = container.getService(ClientEventService.class);
         clientEventService.addSubscription(AttributeEvent.class, null, this::onAttributeEvent);
+
+        if (container.getMeterRegistry() != null) {
+            linkedEventCounter = container.getMeterRegistry().counter("or.attribute.links.events", Tags.empty());
+        }
+
+        container.getService(MessageBrokerService.class).getContext().addRoutes(this);
     }
 
     @Override
     public void start(Container container) throws Exception {
+        LOG.fine("Loading attribute links...");
+        List<Asset<?>> assets = assetStorageService.findAll(
+            new AssetQuery()
+                .attributes(
+                    new AttributePredicate().meta(
+                        new NameValuePredicate(ATTRIBUTE_LINKS, null)
+                    )
+                )
+        );
+
+        assets.stream()
+            .filter(asset -> gatewayService.getLocallyRegisteredGatewayId(asset.getId(), asset.getParentId()) == null)
+            .forEach(this::indexAttributeLinks);
+        LOG.fine("Found '" + attributeLinks.size() + "' asset(s) with attribute links");
     }
 
     @Override
     public void stop(Container container) throws Exception {
+        attributeLinks.clear();
+        linkedAssets.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void configure() throws Exception {
+        from(PERSISTENCE_TOPIC)
+            .routeId("Persistence-AttributeLinks")
+            .filter(isPersistenceEventForEntityType(Asset.class))
+            .process(exchange -> onAssetChanged((PersistenceEvent<Asset<?>>) exchange.getIn().getBody(PersistenceEvent.class)));
+    }
+
+    protected void onAssetChanged(PersistenceEvent<Asset<?>> persistenceEvent) {
+        Asset<?> asset = persistenceEvent.getEntity();
+
+        switch (persistenceEvent.getCause()) {
+            case CREATE -> {
+                linkedAssets.remove(asset.getId());
+                if (gatewayService.getLocallyRegisteredGatewayId(asset.getId(), asset.getParentId()) == null) {
+                    indexAttributeLinks(asset);
+                }
+            }
+            case UPDATE -> {
+                if (!persistenceEvent.hasPropertyChanged("attributes")) {
+                    return;
+                }
+                linkedAssets.remove(asset.getId());
+                if (gatewayService.getLocallyRegisteredGatewayId(asset.getId(), asset.getParentId()) == null) {
+                    indexAttributeLinks(asset);
+                }
+            }
+            case DELETE -> {
+                linkedAssets.remove(asset.getId());
+                attributeLinks.remove(asset.getId());
+            }
+        }
+    }
+
+    protected void indexAttributeLinks(Asset<?> asset) {
+        Map<String, AttributeLink[]> links = getAttributeLinks(asset);
+
+        if (links.isEmpty()) {
+            attributeLinks.remove(asset.getId());
+        } else {
+            attributeLinks.put(asset.getId(), links);
+        }
+    }
+
+    protected static Map<String, AttributeLink[]> getAttributeLinks(Asset<?> asset) {
+        Map<String, AttributeLink[]> links = new HashMap<>();
+        asset.getAttributes().forEach(attribute ->
+            attribute.getMetaValue(ATTRIBUTE_LINKS)
+                .filter(attributeLinks -> attributeLinks.length > 0)
+                .ifPresent(attributeLinks -> links.put(attribute.getName(), attributeLinks)));
+        return links;
+    }
+
+    /**
+     * @return The indexed links of the attribute or null if it has none
+     */
+    public AttributeLink[] getAttributeLinks(AttributeRef attributeRef) {
+        Map<String, AttributeLink[]> links = attributeLinks.get(attributeRef.getId());
+        return links != null ? links.get(attributeRef.getName()) : null;
+    }
+
+    /**
+     * Checks that the {@link MetaItemType#ATTRIBUTE_LINKS} of the asset don't create a cycle in the link graph (using
+     * the indexed links of all other assets); concurrent merges of different assets are not checked against each other
+     * but such a cycle is still harmless at runtime.
+     */
+    public void validateAttributeLinks(Asset<?> asset) throws IllegalStateException {
+        if (asset.getId() == null) {
+            // New asset so nothing can link to it yet
+            return;
+        }
+
+        Map<String, AttributeLink[]> assetLinks = getAttributeLinks(asset);
+
+        assetLinks.forEach((attributeName, links) -> {
+            AttributeRef sourceRef = new AttributeRef(asset.getId(), attributeName);
+            for (AttributeLink attributeLink : links) {
+                if (isLinked(attributeLink.getAttributeRef(), sourceRef, asset.getId(), assetLinks)) {
+                    String msg = "Attribute links cannot form a cycle: attribute=" + sourceRef + ", link=" + attributeLink.getAttributeRef();
+                    LOG.warning(msg);
+                    throw new IllegalStateException(msg);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true if the links lead from one attribute to the other; the supplied links replace the indexed links of
+     * the specified asset
+     */
+    protected boolean isLinked(AttributeRef fromRef, AttributeRef toRef, String assetId, Map<String, AttributeLink[]> assetLinks) {
+        Deque<AttributeRef> pending = new ArrayDeque<>();
+        Set<AttributeRef> visited = new HashSet<>();
+        pending.add(fromRef);
+
+        while (!pending.isEmpty()) {
+            AttributeRef ref = pending.poll();
+
+            if (ref.equals(toRef)) {
+                return true;
+            }
+            if (!visited.add(ref)) {
+                continue;
+            }
+
+            AttributeLink[] links = assetId.equals(ref.getId()) ? assetLinks.get(ref.getName()) : getAttributeLinks(ref);
+            if (links != null) {
+                for (AttributeLink attributeLink : links) {
+                    pending.add(attributeLink.getAttributeRef());
+                }
+            }
+        }
+        return false;
     }
 
     public void onAttributeEvent(AttributeEvent event) {
@@ -85,22 +262,65 @@ public class AttributeLinkingService implements ContainerService {
             return;
         }
 
+        // The links of the event are used for the first level as the index may not have been updated yet
         event.getMetaValue(MetaItemType.ATTRIBUTE_LINKS)
-            .ifPresent(attributeLinks ->
-                Arrays.stream(attributeLinks).forEach(attributeLink ->
-                    processLinkedAttributeUpdate(event, attributeLink)));
+            .filter(attributeLinks -> attributeLinks.length > 0)
+            .ifPresent(attributeLinks -> sendAttributeEvents(processLinkedAttributeUpdates(event, attributeLinks)));
     }
 
-    protected void sendAttributeEvent(AttributeEvent attributeEvent) {
-        LOG.finest("Sending attribute event for linked attribute: " + attributeEvent);
-        assetProcessingService.sendAttributeEvent(attributeEvent, getClass().getSimpleName());
+    /**
+     * Follows the links of the attribute (and the links of any linked attributes) and returns the resulting linked
+     * attribute events; each attribute is only updated once so cycles are broken.
+     */
+    protected Collection<AttributeEvent> processLinkedAttributeUpdates(AttributeEvent event, AttributeLink[] attributeLinks) {
+        Map<AttributeRef, AttributeEvent> linkedEvents = new LinkedHashMap<>();
+        Set<AttributeRef> visited = new HashSet<>();
+        Deque<Pair<AttributeInfo, AttributeLink[]>> pending = new ArrayDeque<>();
+        visited.add(event.getRef());
+        pending.add(new Pair<>(event, attributeLinks));
+
+        while (!pending.isEmpty()) {
+            Pair<AttributeInfo, AttributeLink[]> next = pending.poll();
+
+            for (AttributeLink attributeLink : next.value) {
+                if (attributeLink == null) {
+                    continue;
+                }
+                if (!visited.add(attributeLink.getAttributeRef())) {
+                    LOG.fine("Linked attribute has already been updated so ignoring link: ref=" + next.key.getRef() + ", link=" + attributeLink.getAttributeRef());
+                    continue;
+                }
+
+                AttributeEvent linkedEvent = processLinkedAttributeUpdate(next.key, attributeLink);
+
+                if (linkedEvent != null) {
+                    linkedEvents.put(linkedEvent.getRef(), linkedEvent);
+                    AttributeLink[] links = getAttributeLinks(linkedEvent.getRef());
+                    if (links != null) {
+                        pending.add(new Pair<>(linkedEvent, links));
+                    }
+                }
+            }
+        }
+
+        return linkedEvents.values();
     }
 
-    protected void processLinkedAttributeUpdate(AttributeInfo attributeInfo, AttributeLink attributeLink) {
-        if (attributeLink == null) {
+    protected void sendAttributeEvents(Collection<AttributeEvent> attributeEvents) {
+        if (attributeEvents.isEmpty()) {
             return;
         }
+        LOG.finest(() -> "Sending attribute events for linked attributes: count=" + attributeEvents.size());
+        if (linkedEventCounter != null) {
+            linkedEventCounter.increment(attributeEvents.size());
+        }
+        assetProcessingService.sendAttributeEvents(new ArrayList<>(attributeEvents), getClass().getSimpleName());
+    }
 
+    /**
+     * @return The event for the linked attribute or null if there should be no update
+     */
+    protected AttributeEvent processLinkedAttributeUpdate(AttributeInfo attributeInfo, AttributeLink attributeLink) {
         LOG.finest("Processing attribute links for updated attribute ref=" + attributeInfo.getRef());
 
         // Convert the value as required
@@ -112,30 +332,57 @@ public class AttributeLinkingService implements ContainerService {
 
         if (sendConvertedValue.key) {
             LOG.finest("Value converter matched ignore value");
-            return;
+            return null;
         }
 
-        final Object[] value = {sendConvertedValue.value};
+        Object value = sendConvertedValue.value;
+
+        // Get the attribute type and try and coerce the value into the correct type
+        Class<?> typeClass = getLinkedAttributeType(attributeInfo.getRealm(), attributeLink.getAttributeRef()).orElse(null);
 
-        // Get the attribute and try and coerce the value into the correct type
-        getAttribute(assetStorageService, attributeInfo.getRealm(), attributeLink.getAttributeRef()).ifPresent(attr -> {
+        if (typeClass == null) {
+            return null;
+        }
 
-            if (value[0] != null) {
+        if (value != null) {
 
-                // Do basic value conversion
-                if (!attr.getTypeClass().isAssignableFrom(value[0].getClass())) {
-                    Object val = ValueUtil.convert(value[0], attr.getTypeClass());
+            // Do basic value conversion
+            if (!typeClass.isAssignableFrom(value.getClass())) {
+                Object val = ValueUtil.convert(value, typeClass);
 
-                    if (val == null) {
-                        LOG.warning("Failed to convert value into attribute value type (" + value[0].getClass() + " -> " + attr.getTypeClass() + "): " + attributeInfo.getRef());
-                        return;
-                    }
-                    value[0] = val;
+                if (val == null) {
+                    LOG.warning("Failed to convert value into attribute value type (" + value.getClass() + " -> " + typeClass + "): " + attributeInfo.getRef());
+                    return null;
                 }
+                value = val;
             }
+        }
 
-            sendAttributeEvent(new AttributeEvent(attributeLink.getAttributeRef(), value[0]));
-        });
+        return new AttributeEvent(attributeLink.getAttributeRef(), value).setRealm(attributeInfo.getRealm());
+    }
+
+    /**
+     * Get the value type of the linked attribute; the linked asset must be in the specified realm.
+     */
+    protected Optional<Class<?>> getLinkedAttributeType(String realm, AttributeRef attributeRef) {
+        Optional<LinkedAsset> linkedAsset = linkedAssets.computeIfAbsent(attributeRef.getId(), assetId ->
+            Optional.ofNullable(assetStorageService.find(new AssetQuery().ids(assetId)))
+                .map(asset -> {
+                    Map<String, Class<?>> attributeTypes = new HashMap<>();
+                    asset.getAttributes().forEach(attribute -> attributeTypes.put(attribute.getName(), attribute.getTypeClass()));
+                    return new LinkedAsset(asset.getRealm(), attributeTypes);
+                }));
+
+        Class<?> typeClass = linkedAsset
+            .filter(asset -> asset.realm().equals(realm))
+            .map(asset -> asset.attributeTypes().get(attributeRef.getName()))
+            .orElse(null);
+
+        if (typeClass == null) {
+            LOG.warning("Attribute or asset could not be found: " + attributeRef);
+        }
+
+        return Optional.ofNullable(typeClass);
     }
 
     protected Pair<Boolean, Object> convertValueForLinkedAttribute(AssetStorageService assetStorageService,
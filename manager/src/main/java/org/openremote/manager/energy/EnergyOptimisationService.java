@@ -190,14 +190,18 @@ public class EnergyOptimisationService extends RouteBuilder implements Container
 
         // Check for request to force charge
         if (attributeName.equals(ElectricityStorageAsset.FORCE_CHARGE.getName())) {
-            Asset<?> asset = assetStorageService.find(attributeEvent.getId());
-            if (!(asset instanceof ElectricityStorageAsset)) {
+            ElectricityStorageAsset storageAsset = assetStorageService.findWithAttributes(
+                attributeEvent.getId(),
+                ElectricityStorageAsset.class,
+                ElectricityAsset.POWER_IMPORT_MAX,
+                ElectricityStorageAsset.ENERGY_LEVEL,
+                ElectricityStorageAsset.ENERGY_CAPACITY,
+                ElectricityStorageAsset.ENERGY_LEVEL_PERCENTAGE_MAX);
+            if (storageAsset == null) {
                 LOG.fine("Request to force charge asset will be ignored as asset not found or is not of type '" + ElectricityStorageAsset.class.getSimpleName() + "': " + attributeEvent.getId());
                 return;
             }
 
-            ElectricityStorageAsset storageAsset = (ElectricityStorageAsset) asset;
-
             if (attributeEvent.getValue().orElse(null) == AttributeExecuteStatus.REQUEST_START) {
 
                 double powerImportMax = storageAsset.getPowerImportMax().orElse(Double.MAX_VALUE);
@@ -186,8 +186,8 @@ public class ForecastSolarService extends RouteBuilder implements ContainerServi
         if (attributeName.equals(ElectricityProducerSolarAsset.SET_ACTUAL_SOLAR_VALUE_WITH_FORECAST.getName())) {
             boolean enabled = (Boolean) attributeEvent.getValue().orElse(false);
 
-            // Get latest asset from storage
-            ElectricityProducerSolarAsset asset = (ElectricityProducerSolarAsset) assetStorageService.find(attributeEvent.getId());
+            // Get latest power forecast from storage
+            ElectricityProducerSolarAsset asset = assetStorageService.findWithAttributes(attributeEvent.getId(), ElectricityProducerSolarAsset.class, ElectricityProducerSolarAsset.POWER_FORECAST);
 
             if (asset != null && enabled) {
                 assetProcessingService.sendAttributeEvent(new AttributeEvent(asset.getId(), ElectricityProducerSolarAsset.POWER, asset.getPowerForecast().orElse(null)), getClass().getSimpleName());
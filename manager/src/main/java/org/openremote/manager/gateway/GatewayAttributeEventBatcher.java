@@ -0,0 +1,223 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.gateway;
+
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.gateway.GatewayAttributeEventsEvent;
+import org.openremote.model.syslog.SyslogCategory;
+import org.openremote.model.util.ValueUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
+
+/**
+ * Batches the {@link AttributeEvent}s a gateway forwards to the central manager into
+ * {@link GatewayAttributeEventsEvent}s; events are held for up to the linger time or until the max batch size is
+ * reached. If the connection is congested (the channel is not writable) when a batch is due then the pending events
+ * are held back and coalesced so only the latest event per attribute is sent once the connection recovers.
+ * <p>
+ * When compression is enabled batches whose JSON representation exceeds {@link #COMPRESSION_MIN_BYTES} are sent
+ * deflated.
+ */
+public class GatewayAttributeEventBatcher {
+
+    private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayAttributeEventBatcher.class.getName());
+    public static final int COMPRESSION_MIN_BYTES = 1024;
+    public static final int MAX_INFLATED_BYTES = 16 * 1024 * 1024;
+    protected final int lingerMillis;
+    protected final int maxSize;
+    protected final boolean compress;
+    protected final ScheduledExecutorService scheduledExecutorService;
+    protected final BooleanSupplier writable;
+    protected final Consumer<GatewayAttributeEventsEvent> sender;
+    // Keyed by sequence number normally and by attribute ref whilst congested
+    protected final Map<Object, AttributeEvent> pending = new LinkedHashMap<>();
+    protected long sequence;
+    protected boolean congested;
+    protected long coalescedCount;
+    protected ScheduledFuture<?> flushFuture;
+
+    public GatewayAttributeEventBatcher(int lingerMillis, int maxSize, boolean compress, ScheduledExecutorService scheduledExecutorService, BooleanSupplier writable, Consumer<GatewayAttributeEventsEvent> sender) {
+        this.lingerMillis = lingerMillis;
+        this.maxSize = Math.max(1, maxSize);
+        this.compress = compress;
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.writable = writable;
+        this.sender = sender;
+    }
+
+    public synchronized void add(AttributeEvent event) {
+        if (congested) {
+            coalesce(pending, event);
+        } else {
+            pending.put(sequence++, event);
+            if (pending.size() >= maxSize) {
+                flush(false);
+                return;
+            }
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * Send the pending events; unless forced the events are held back and coalesced if the connection is congested.
+     */
+    public synchronized void flush(boolean force) {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        if (!force && !writable.getAsBoolean()) {
+            if (!congested) {
+                congested = true;
+                List<AttributeEvent> events = new ArrayList<>(pending.values());
+                pending.clear();
+                events.forEach(event -> coalesce(pending, event));
+                LOG.fine(() -> "Gateway connection is congested so coalescing attribute events: pending=" + pending.size());
+            }
+            scheduleFlush();
+            return;
+        }
+
+        if (congested) {
+            congested = false;
+            LOG.fine(() -> "Gateway connection is no longer congested: coalesced=" + coalescedCount);
+        }
+
+        List<AttributeEvent> events = new ArrayList<>(pending.values());
+        pending.clear();
+
+        for (int i = 0; i < events.size(); i += maxSize) {
+            sender.accept(createEvent(events.subList(i, Math.min(i + maxSize, events.size()))));
+        }
+    }
+
+    /**
+     * Remove and return any pending events without sending them
+     */
+    public synchronized List<AttributeEvent> clear() {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+        List<AttributeEvent> events = new ArrayList<>(pending.values());
+        pending.clear();
+        congested = false;
+        return events;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized boolean isCongested() {
+        return congested;
+    }
+
+    protected void coalesce(Map<Object, AttributeEvent> events, AttributeEvent event) {
+        AttributeEvent existing = events.get(event.getRef());
+        if (existing != null) {
+            coalescedCount++;
+            if (existing.getTimestamp() > event.getTimestamp()) {
+                return;
+            }
+        }
+        events.put(event.getRef(), event);
+    }
+
+    protected void scheduleFlush() {
+        if (flushFuture == null) {
+            flushFuture = scheduledExecutorService.schedule(() -> flush(false), lingerMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected GatewayAttributeEventsEvent createEvent(List<AttributeEvent> events) {
+        if (compress) {
+            String json = ValueUtil.asJSON(events).orElse("[]");
+            if (json.length() >= COMPRESSION_MIN_BYTES) {
+                return new GatewayAttributeEventsEvent(null, deflate(json));
+            }
+        }
+        return new GatewayAttributeEventsEvent(new ArrayList<>(events));
+    }
+
+    /**
+     * Get the events contained in the supplied envelope, inflating them if necessary
+     */
+    public static List<AttributeEvent> getEvents(GatewayAttributeEventsEvent event) {
+        if (event.getDeflated() != null) {
+            return ValueUtil.parse(inflate(event.getDeflated()), AttributeEvent[].class)
+                .map(Arrays::asList)
+                .orElse(Collections.emptyList());
+        }
+        return event.getEvents() != null ? event.getEvents() : Collections.emptyList();
+    }
+
+    protected static String deflate(String str) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(str.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    protected static String inflate(String str) {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(str)))) {
+            byte[] bytes = in.readNBytes(MAX_INFLATED_BYTES + 1);
+            if (bytes.length > MAX_INFLATED_BYTES) {
+                throw new IllegalArgumentException("Inflated gateway message exceeds the maximum size of " + MAX_INFLATED_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
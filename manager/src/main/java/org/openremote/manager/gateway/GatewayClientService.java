@@ -53,8 +53,15 @@ import org.openremote.model.util.TextUtil;
 import org.openremote.model.util.ValueUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,6 +69,8 @@ import java.util.stream.Collectors;
 
 import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC;
 import static org.openremote.container.persistence.PersistenceService.isPersistenceEventForEntityType;
+import static org.openremote.container.util.MapAccess.getBoolean;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.container.util.MapAccess.getString;
 import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
 
@@ -74,18 +83,38 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
     private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayClientService.class.getName());
     public static final String CLIENT_EVENT_SESSION_PREFIX = GatewayClientService.class.getSimpleName() + ":";
     public static final String OR_GATEWAY_TUNNEL_LOCALHOST_REWRITE = "OR_GATEWAY_TUNNEL_LOCALHOST_REWRITE";
+    public static final String OR_GATEWAY_EVENT_BATCH_LINGER_MILLIS = "OR_GATEWAY_EVENT_BATCH_LINGER_MILLIS";
+    public static final int OR_GATEWAY_EVENT_BATCH_LINGER_MILLIS_DEFAULT = 50;
+    public static final String OR_GATEWAY_EVENT_BATCH_MAX_SIZE = "OR_GATEWAY_EVENT_BATCH_MAX_SIZE";
+    public static final int OR_GATEWAY_EVENT_BATCH_MAX_SIZE_DEFAULT = 500;
+    public static final String OR_GATEWAY_EVENT_BATCH_COMPRESSION = "OR_GATEWAY_EVENT_BATCH_COMPRESSION";
+    public static final String OR_GATEWAY_QUEUE_MAX_SIZE_MB = "OR_GATEWAY_QUEUE_MAX_SIZE_MB";
+    public static final int OR_GATEWAY_QUEUE_MAX_SIZE_MB_DEFAULT = 64;
+    public static final String OR_GATEWAY_QUEUE_MAX_AGE_MINUTES = "OR_GATEWAY_QUEUE_MAX_AGE_MINUTES";
+    public static final int OR_GATEWAY_QUEUE_MAX_AGE_MINUTES_DEFAULT = 24 * 60;
+    public static final String QUEUE_DIRECTORY_NAME = "gateway_queue";
+    public static final long REPLAY_WRITABLE_TIMEOUT_MILLIS = 30000;
     protected AssetStorageService assetStorageService;
     protected AssetProcessingService assetProcessingService;
     protected PersistenceService persistenceService;
     protected ClientEventService clientEventService;
     protected TimerService timerService;
     protected ManagerIdentityService identityService;
+    protected ScheduledExecutorService scheduledExecutorService;
+    protected ExecutorService executorService;
     protected final Map<String, GatewayConnection> connectionRealmMap = new HashMap<>();
     protected final Map<String, GatewayIOClient> clientRealmMap = new HashMap<>();
     protected GatewayTunnelFactory gatewayTunnelFactory;
     protected Map<String, Map<AttributeRef, Long>> clientAttributeTimestamps = new ConcurrentHashMap<>();
     protected Consumer<AssetEvent> realmAssetEventConsumer;
     protected Consumer<AttributeEvent> realmAttributeEventConsumer;
+    protected final Map<String, GatewayAttributeEventBatcher> clientEventBatchers = new ConcurrentHashMap<>();
+    protected int eventBatchLingerMillis;
+    protected int eventBatchMaxSize;
+    protected boolean eventBatchCompression;
+    protected final Map<String, GatewayEventQueue> clientEventQueues = new ConcurrentHashMap<>();
+    protected long queueMaxBytes;
+    protected long queueMaxAgeMillis;
 
 
     @Override
@@ -96,6 +125,14 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         clientEventService = container.getService(ClientEventService.class);
         timerService = container.getService(TimerService.class);
         identityService = container.getService(ManagerIdentityService.class);
+        scheduledExecutorService = container.getScheduledExecutor();
+        executorService = container.getExecutor();
+
+        eventBatchLingerMillis = getInteger(container.getConfig(), OR_GATEWAY_EVENT_BATCH_LINGER_MILLIS, OR_GATEWAY_EVENT_BATCH_LINGER_MILLIS_DEFAULT);
+        eventBatchMaxSize = getInteger(container.getConfig(), OR_GATEWAY_EVENT_BATCH_MAX_SIZE, OR_GATEWAY_EVENT_BATCH_MAX_SIZE_DEFAULT);
+        eventBatchCompression = getBoolean(container.getConfig(), OR_GATEWAY_EVENT_BATCH_COMPRESSION, false);
+        queueMaxBytes = getInteger(container.getConfig(), OR_GATEWAY_QUEUE_MAX_SIZE_MB, OR_GATEWAY_QUEUE_MAX_SIZE_MB_DEFAULT) * 1024L * 1024L;
+        queueMaxAgeMillis = getInteger(container.getConfig(), OR_GATEWAY_QUEUE_MAX_AGE_MINUTES, OR_GATEWAY_QUEUE_MAX_AGE_MINUTES_DEFAULT) * 60000L;
 
         String tunnelKeyFile = getString(container.getConfig(), GatewayService.OR_GATEWAY_TUNNEL_SSH_KEY_FILE, null);
         String localhostRewrite = getString(container.getConfig(), OR_GATEWAY_TUNNEL_LOCALHOST_REWRITE, null);
@@ -167,6 +204,9 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         clientRealmMap.clear();
         connectionRealmMap.clear();
         clientAttributeTimestamps.clear();
+        new ArrayList<>(clientEventBatchers.keySet()).forEach(this::removeEventBatcher);
+        clientEventQueues.values().forEach(GatewayEventQueue::close);
+        clientEventQueues.clear();
     }
 
     @Override
@@ -210,6 +250,11 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
                     if (client != null) {
                         destroyGatewayClient(connection, client);
                     }
+                    GatewayEventQueue queue = clientEventQueues.remove(connection.getLocalRealm());
+                    if (queue != null) {
+                        queue.clear();
+                        queue.close();
+                    }
                     break;
             }
         }
@@ -223,6 +268,7 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         }
 
         LOG.info("Creating gateway IO client: " + connection);
+        getEventQueue(connection);
 
         try {
             GatewayIOClient client = new GatewayIOClient(
@@ -288,6 +334,16 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
             event = ValueUtil.clone(event);
             applySyncRules(event.getAsset(), connection.getAssetSyncRules());
         }
+
+        if (queueEvent(connection, event)) {
+            return;
+        }
+
+        // Maintain ordering with respect to any attribute events that are waiting to be sent
+        GatewayAttributeEventBatcher batcher = clientEventBatchers.get(connection.getLocalRealm());
+        if (batcher != null) {
+            batcher.flush(true);
+        }
         sendCentralManagerMessage(connection.getLocalRealm(), messageToString(SharedEvent.MESSAGE_PREFIX, event));
     }
 
@@ -303,9 +359,187 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
                     connection.getAssetSyncRules().getOrDefault(event.getAssetType(),
                             connection.getAssetSyncRules().get("*")));
         }
+
+        if (queueEvent(connection, event)) {
+            return;
+        }
+
+        GatewayAttributeEventBatcher batcher = clientEventBatchers.get(connection.getLocalRealm());
+        if (batcher != null) {
+            batcher.add(event);
+            return;
+        }
         sendCentralManagerMessage(connection.getLocalRealm(), messageToString(SharedEvent.MESSAGE_PREFIX, event));
     }
 
+    /**
+     * Batching is only used when the central manager indicates it supports {@link GatewayAttributeEventsEvent}s
+     */
+    protected void configureEventBatching(GatewayConnection connection, boolean supported) {
+        String realm = connection.getLocalRealm();
+
+        if (!supported || eventBatchLingerMillis <= 0) {
+            GatewayAttributeEventBatcher batcher = clientEventBatchers.remove(realm);
+            if (batcher != null) {
+                batcher.flush(true);
+            }
+            return;
+        }
+
+        GatewayIOClient client;
+        synchronized (clientRealmMap) {
+            client = clientRealmMap.get(realm);
+        }
+
+        if (client == null) {
+            return;
+        }
+
+        // The batcher is bound to the current client and is removed whenever the client is destroyed or disconnects
+        clientEventBatchers.computeIfAbsent(realm, r -> {
+            LOG.fine("Central manager supports attribute event batching so enabling it: lingerMillis=" + eventBatchLingerMillis + ", maxSize=" + eventBatchMaxSize + ", compression=" + eventBatchCompression + ", connection=" + connection);
+            return new GatewayAttributeEventBatcher(
+                eventBatchLingerMillis,
+                eventBatchMaxSize,
+                eventBatchCompression,
+                scheduledExecutorService,
+                client::isWritable,
+                batchEvent -> client.sendMessage(messageToString(SharedEvent.MESSAGE_PREFIX, batchEvent)));
+        });
+    }
+
+    /**
+     * Remove the batcher for a connection that is no longer usable; any pending events are queued
+     */
+    protected void removeEventBatcher(String realm) {
+        GatewayAttributeEventBatcher batcher = clientEventBatchers.remove(realm);
+        if (batcher == null) {
+            return;
+        }
+
+        List<AttributeEvent> pendingEvents = batcher.clear();
+        GatewayEventQueue queue = clientEventQueues.get(realm);
+        if (queue != null) {
+            queue.setBuffering(true);
+            pendingEvents.forEach(event -> queue.offerIfBuffering(messageToString(SharedEvent.MESSAGE_PREFIX, event)));
+        }
+    }
+
+    /**
+     * Get or create the store and forward queue for the connection; returns null if queueing is disabled or the
+     * queue cannot be created.
+     */
+    protected GatewayEventQueue getEventQueue(GatewayConnection connection) {
+        if (queueMaxBytes <= 0) {
+            return null;
+        }
+
+        return clientEventQueues.computeIfAbsent(connection.getLocalRealm(), realm -> {
+            Path directory = persistenceService.getStorageDir().resolve(QUEUE_DIRECTORY_NAME).resolve(realm);
+            try {
+                return new GatewayEventQueue(directory, GatewayEventQueue.DEFAULT_SEGMENT_BYTES, queueMaxBytes, queueMaxAgeMillis);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to create gateway event queue so events will not be queued whilst disconnected: " + directory, e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Queue the event if the connection to the central manager is not ready; otherwise record the event timestamp so
+     * the central manager can be told if events may have been lost in flight.
+     *
+     * @return true if the event was queued
+     */
+    protected boolean queueEvent(GatewayConnection connection, SharedEvent event) {
+        GatewayEventQueue queue = clientEventQueues.get(connection.getLocalRealm());
+
+        if (queue == null) {
+            return false;
+        }
+
+        if (queue.isBuffering() && queue.offerIfBuffering(messageToString(SharedEvent.MESSAGE_PREFIX, event))) {
+            return true;
+        }
+
+        queue.onSent(event.getTimestamp());
+        return false;
+    }
+
+    /**
+     * Send all queued events to the central manager in the order they were queued, skipping attribute events that are
+     * not newer than an already replayed event for the same attribute, and then respond with a
+     * {@link GatewayEventReplayResponseEvent}. The replay is only complete if no events were discarded by the queue
+     * and the central manager has seen the latest event that was sent before the connection was lost.
+     */
+    protected void replayEvents(GatewayConnection connection, GatewayEventReplayRequestEvent request) {
+        String realm = connection.getLocalRealm();
+        GatewayEventQueue queue = clientEventQueues.get(realm);
+        GatewayIOClient client;
+        synchronized (clientRealmMap) {
+            client = clientRealmMap.get(realm);
+        }
+
+        if (client == null) {
+            return;
+        }
+
+        boolean complete = false;
+        int count = 0;
+
+        if (queue != null) {
+            complete = request.getSince() != null && !queue.isLost() && queue.getLastSentTimestamp() <= request.getSince();
+            Map<AttributeRef, Long> replayedTimestamps = new HashMap<>();
+            List<String> messages;
+
+            LOG.info("Replaying queued events to central manager: complete=" + complete + ", connection=" + connection);
+
+            while ((messages = queue.poll()) != null) {
+                for (String message : messages) {
+                    SharedEvent event = messageFromString(message, SharedEvent.MESSAGE_PREFIX, SharedEvent.class);
+                    if (event instanceof AttributeEvent attributeEvent) {
+                        Long replayedTimestamp = replayedTimestamps.get(attributeEvent.getRef());
+                        if (replayedTimestamp != null && attributeEvent.getTimestamp() <= replayedTimestamp) {
+                            continue;
+                        }
+                        replayedTimestamps.put(attributeEvent.getRef(), attributeEvent.getTimestamp());
+                    }
+                    if (!awaitWritable(client)) {
+                        LOG.info("Gateway connection did not become writable so aborting event replay: " + connection);
+                        queue.setLost();
+                        return;
+                    }
+                    client.sendMessage(message);
+                    queue.onSent(event != null ? event.getTimestamp() : 0L);
+                    count++;
+                }
+            }
+
+            complete = complete && !queue.isLost();
+            queue.resetLost();
+        }
+
+        LOG.info("Replayed " + count + " queued event(s) to central manager: complete=" + complete + ", connection=" + connection);
+        GatewayEventReplayResponseEvent responseEvent = new GatewayEventReplayResponseEvent(complete, count);
+        responseEvent.setMessageID(request.getMessageID());
+        client.sendMessage(messageToString(SharedEvent.MESSAGE_PREFIX, responseEvent));
+    }
+
+    /**
+     * Block the replay until the channel signals it is writable again, giving up if the channel becomes inactive or
+     * does not drain within {@link #REPLAY_WRITABLE_TIMEOUT_MILLIS}.
+     */
+    protected boolean awaitWritable(GatewayIOClient client) {
+        try {
+            return client.getWritableFuture().get(REPLAY_WRITABLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
     protected EventFilter<AttributeEvent> getOutboundAttributeEventFilter(GatewayConnection gatewayConnection) {
 
         // Convert filters to predicates for efficiency
@@ -415,11 +649,21 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         if (connection != null) {
             clientEventService.removeSubscription(realmAttributeEventConsumer);
             clientEventService.removeSubscription(realmAssetEventConsumer);
+            removeEventBatcher(connection.getLocalRealm());
         }
     }
 
     protected void onGatewayClientConnectionStatusChanged(GatewayConnection connection, ConnectionStatus connectionStatus) {
         LOG.info("Connection status change for gateway IO client '" + connectionStatus + "': " + connection);
+        if (connectionStatus != ConnectionStatus.CONNECTED) {
+            // Queue events until the central manager has synchronised with this gateway again
+            GatewayEventQueue queue = clientEventQueues.get(connection.getLocalRealm());
+            if (queue != null) {
+                queue.setBuffering(true);
+            }
+            // Batching is renegotiated when the central manager next sends a capabilities request
+            removeEventBatcher(connection.getLocalRealm());
+        }
         clientEventService.publishEvent(new GatewayConnectionStatusEvent(timerService.getCurrentTimeMillis(), connection.getLocalRealm(), connectionStatus));
     }
 
@@ -435,7 +679,9 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
                 }
             } else if (event instanceof GatewayCapabilitiesRequestEvent) {
                 LOG.fine("Central manager requested specifications / capabilities of the gateway.");
-                GatewayCapabilitiesResponseEvent responseEvent = new GatewayCapabilitiesResponseEvent(gatewayTunnelFactory != null);
+                onCentralManagerSync(connection);
+                configureEventBatching(connection, ((GatewayCapabilitiesRequestEvent) event).isAttributeEventsBatchSupported());
+                GatewayCapabilitiesResponseEvent responseEvent = new GatewayCapabilitiesResponseEvent(gatewayTunnelFactory != null, true, clientEventQueues.containsKey(connection.getLocalRealm()));
                 responseEvent.setMessageID(event.getMessageID());
                 sendCentralManagerMessage(
                         connection.getLocalRealm(),
@@ -486,7 +732,20 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
                         LOG.log(Level.INFO, "Request from central manager to create/update an asset failed: Realm=" + connection.getLocalRealm() + ", Asset<?> ID=" + asset.getId(), e);
                     }
                 }
+            } else if (event instanceof GatewayEventReplayRequestEvent replayRequest) {
+                // Replay can take a while and waits for the channel to be writable so don't block the IO thread
+                executorService.execute(() -> replayEvents(connection, replayRequest));
+            } else if (event instanceof GatewayAssetSyncRequestEvent syncRequest) {
+                onCentralManagerSync(connection);
+                GatewayAssetSyncResponseEvent responseEvent = getAssetSyncResponse(connection, syncRequest);
+                responseEvent.setMessageID(event.getMessageID());
+                sendCentralManagerMessage(
+                    connection.getLocalRealm(),
+                    messageToString(SharedEvent.MESSAGE_PREFIX, responseEvent));
             } else if (event instanceof ReadAssetsEvent readAssets) {
+                if (GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL.equals(readAssets.getMessageID())) {
+                    onCentralManagerSync(connection);
+                }
                 AssetQuery query = readAssets.getAssetQuery();
                 // Force realm to be the one that this client is associated with
                 query.realm(new RealmPredicate(connection.getLocalRealm()));
@@ -503,6 +762,61 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         }
     }
 
+    /**
+     * The central manager is performing an asset sync rather than an event replay so any queued events are no longer
+     * needed and events can be sent directly again.
+     */
+    protected void onCentralManagerSync(GatewayConnection connection) {
+        GatewayEventQueue queue = clientEventQueues.get(connection.getLocalRealm());
+        if (queue != null && queue.isBuffering()) {
+            LOG.fine("Central manager is synchronising assets so discarding queued events: " + connection);
+            queue.clear();
+        }
+    }
+
+    /**
+     * Compare the local assets against the asset versions known by the central manager; an asset is flagged as changed
+     * if the central manager doesn't know it, its version differs or any synced attribute has changed since the
+     * requested timestamp. Listings of at least {@link GatewayAttributeEventBatcher#COMPRESSION_MIN_BYTES} are deflated as
+     * only central managers that support delta sync send the request.
+     */
+    protected GatewayAssetSyncResponseEvent getAssetSyncResponse(GatewayConnection connection, GatewayAssetSyncRequestEvent request) {
+        long timestamp = timerService.getCurrentTimeMillis();
+        Map<String, Long> assetVersions = request.getAssetVersions() != null ? request.getAssetVersions() : Collections.emptyMap();
+        Long since = request.getSince();
+        AssetQuery query = new AssetQuery().realm(new RealmPredicate(connection.getLocalRealm()));
+
+        if (since == null) {
+            query.select(new AssetQuery.Select().excludeAttributes());
+        }
+
+        List<GatewayAssetSyncResponseEvent.AssetSyncState> assetStates = assetStorageService.findAll(query).stream()
+            .map(asset -> {
+                Long knownVersion = assetVersions.get(asset.getId());
+                boolean changed = since == null
+                    || knownVersion == null
+                    || knownVersion != asset.getVersion()
+                    || hasSyncedAttributeChangedSince(asset, since, connection.getAssetSyncRules());
+                return new GatewayAssetSyncResponseEvent.AssetSyncState(asset.getId(), asset.getParentId(), asset.getVersion(), changed);
+            })
+            .toList();
+
+        LOG.fine(() -> "Responding to asset delta sync request: total=" + assetStates.size() + ", changed=" + assetStates.stream().filter(GatewayAssetSyncResponseEvent.AssetSyncState::isChanged).count());
+        String json = ValueUtil.asJSON(assetStates).orElse("[]");
+        if (json.length() >= GatewayAttributeEventBatcher.COMPRESSION_MIN_BYTES) {
+            return new GatewayAssetSyncResponseEvent(timestamp, null, GatewayAttributeEventBatcher.deflate(json));
+        }
+        return new GatewayAssetSyncResponseEvent(timestamp, assetStates);
+    }
+
+    protected boolean hasSyncedAttributeChangedSince(Asset<?> asset, long since, Map<String, GatewayAssetSyncRule> assetSyncRules) {
+        GatewayAssetSyncRule syncRule = assetSyncRules != null ? assetSyncRules.getOrDefault(asset.getType(), assetSyncRules.get("*")) : null;
+
+        return asset.getAttributes().stream()
+            .filter(attribute -> syncRule == null || syncRule.excludeAttributes == null || !syncRule.excludeAttributes.contains(attribute.getName()))
+            .anyMatch(attribute -> attribute.getTimestamp().orElse(0L) > since);
+    }
+
     protected void sendCentralManagerMessage(String realm, String message) {
         GatewayIOClient client;
 
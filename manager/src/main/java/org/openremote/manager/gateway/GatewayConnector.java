@@ -19,6 +19,12 @@
  */
 package org.openremote.manager.gateway;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.openremote.manager.asset.AssetProcessingService;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.model.asset.*;
@@ -30,6 +36,7 @@ import org.openremote.model.gateway.*;
 import org.openremote.model.query.AssetQuery;
 import org.openremote.model.syslog.SyslogCategory;
 import org.openremote.model.util.Pair;
+import org.openremote.model.util.ValueUtil;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -56,6 +63,13 @@ public class GatewayConnector {
     public static int SYNC_ASSET_BATCH_SIZE = 20;
     public static final String ASSET_READ_EVENT_NAME_INITIAL = "INITIAL";
     public static final String ASSET_READ_EVENT_NAME_BATCH = "BATCH";
+    public static final String ASSET_READ_EVENT_NAME_DELTA = "DELTA";
+    public static final String EVENT_REPLAY_NAME = "REPLAY";
+    /**
+     * Attribute changes this long before the last gateway timestamp seen are still treated as changed during a delta
+     * sync to allow for events that were in flight when the connection dropped.
+     */
+    public static final long SYNC_TIMESTAMP_GRACE_MILLIS = 10000;
     public static final long RESPONSE_TIMEOUT_MILLIS = 10000;
     protected static final Map<String, Pair<Function<String, String>, Function<String, String>>> ASSET_ID_MAPPERS = new HashMap<>();
     protected final String realm;
@@ -74,12 +88,30 @@ public class GatewayConnector {
     protected boolean initialSyncInProgress;
     protected ScheduledFuture<?> syncProcessorFuture;
     protected Future<?> capabilitiesFuture;
-    List<String> syncAssetIds;
+    Set<String> syncAssetIds;
+    List<String> syncRequestAssetIds;
     protected GatewayAsset gatewayAsset;
     int syncIndex;
     int syncErrors;
     String expectedSyncResponseName;
     protected boolean tunnellingSupported;
+    protected boolean deltaSyncSupported;
+    protected boolean eventReplaySupported;
+    protected boolean eventReplayAttempted;
+    protected long eventReplayActivityMillis;
+    // Version of each gateway asset (gateway asset ID) as last merged locally, retained across connections
+    protected final Map<String, Long> syncedAssetVersions = new ConcurrentHashMap<>();
+    // Latest gateway timestamp of synced attribute values, retained across connections
+    protected Long syncTimestamp;
+    protected Long pendingSyncTimestamp;
+    protected long syncStartMillis;
+    protected Timer syncTimer;
+    protected Counter syncRequestedCounter;
+    protected Counter syncSkippedCounter;
+    protected Counter replayCompleteCounter;
+    protected Counter replayIncompleteCounter;
+    // Meters registered for this gateway so they can be removed when the connector is removed
+    protected final List<Meter> meters = new ArrayList<>();
     protected final Map<Class<? extends SharedEvent>, Consumer<SharedEvent>> eventConsumerMap = new HashMap<>();
 
     protected static List<Integer> ALPHA_NUMERIC_CHARACTERS = new ArrayList<>(62);
@@ -114,10 +146,25 @@ public class GatewayConnector {
         this.gatewayId = gateway.getId();
         this.gatewayAsset = gateway;
 
+        MeterRegistry meterRegistry = gatewayService.meterRegistry;
+        if (meterRegistry != null) {
+            Tags tags = Tags.of("gatewayId", gatewayId);
+            syncTimer = meterRegistry.timer("or.gateway.sync", tags);
+            syncRequestedCounter = meterRegistry.counter("or.gateway.sync.assets", tags.and("result", "requested"));
+            syncSkippedCounter = meterRegistry.counter("or.gateway.sync.assets", tags.and("result", "skipped"));
+            replayCompleteCounter = meterRegistry.counter("or.gateway.replay", tags.and("result", "complete"));
+            replayIncompleteCounter = meterRegistry.counter("or.gateway.replay", tags.and("result", "incomplete"));
+            meters.addAll(List.of(syncTimer, syncRequestedCounter, syncSkippedCounter, replayCompleteCounter, replayIncompleteCounter));
+            meters.add(Gauge.builder("or.gateway.sync.progress", this, GatewayConnector::getSyncProgress)
+                .tags(tags)
+                .register(meterRegistry));
+        }
+
         // Setup static inbound event handling
         synchronized(eventConsumerMap) {
             eventConsumerMap.put(AssetEvent.class, (e) -> onAssetEvent((AssetEvent) e));
             eventConsumerMap.put(AttributeEvent.class, (e) -> onAttributeEvent((AttributeEvent) e));
+            eventConsumerMap.put(GatewayAttributeEventsEvent.class, (e) -> GatewayAttributeEventBatcher.getEvents((GatewayAttributeEventsEvent) e).forEach(this::onAttributeEvent));
         }
         publishAttributeEvent(new AttributeEvent(gatewayId, GatewayAsset.STATUS, ConnectionStatus.DISCONNECTED));
     }
@@ -154,8 +201,11 @@ public class GatewayConnector {
         cachedAssetEvents = new ArrayList<>();
         cachedAttributeEvents = new ArrayList<>();
         syncAssetIds = null;
+        syncRequestAssetIds = null;
         syncIndex = 0;
         syncErrors = 0;
+        pendingSyncTimestamp = null;
+        eventReplayAttempted = false;
 
         publishAttributeEvent(new AttributeEvent(gatewayId, GatewayAsset.STATUS, ConnectionStatus.CONNECTING));
         startSync();
@@ -198,6 +248,18 @@ public class GatewayConnector {
         }
     }
 
+    /**
+     * Remove the meters of this gateway from the registry; called when the connector is removed rather than on
+     * disconnect as the meters are retained across connections.
+     */
+    protected void removeMeters() {
+        MeterRegistry meterRegistry = gatewayService.meterRegistry;
+        if (meterRegistry != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+        meters.clear();
+    }
+
     protected boolean isConnected() {
         return sessionId.get() != null;
     }
@@ -233,7 +295,7 @@ public class GatewayConnector {
         }
 
         return CompletableFuture.supplyAsync(() -> {
-                sendMessageToGateway(new GatewayCapabilitiesRequestEvent());
+                sendMessageToGateway(new GatewayCapabilitiesRequestEvent(true));
 
                 // Wait for response indefinitely as timeout handled on CompletableFuture
                 try {
@@ -389,12 +451,22 @@ public class GatewayConnector {
 
     synchronized protected void onGatewayEvent(SharedEvent e) {
         try {
-            if (initialSyncInProgress) {
+            if (initialSyncInProgress && EVENT_REPLAY_NAME.equals(expectedSyncResponseName)) {
+                onEventReplayEvent(e);
+            } else if (initialSyncInProgress) {
                 if (e instanceof AssetsEvent) {
                     onSyncAssetsResponse((AssetsEvent) e);
+                } else if (e instanceof GatewayAssetSyncResponseEvent) {
+                    onAssetSyncResponse((GatewayAssetSyncResponseEvent) e);
                 } else if (e instanceof AttributeEvent) {
+                    updateSyncTimestamp(e.getTimestamp());
                     cachedAttributeEvents.add((AttributeEvent) e);
+                } else if (e instanceof GatewayAttributeEventsEvent) {
+                    List<AttributeEvent> attributeEvents = GatewayAttributeEventBatcher.getEvents((GatewayAttributeEventsEvent) e);
+                    attributeEvents.forEach(attributeEvent -> updateSyncTimestamp(attributeEvent.getTimestamp()));
+                    cachedAttributeEvents.addAll(attributeEvents);
                 } else if (e instanceof AssetEvent) {
+                    updateSyncTimestamp(e.getTimestamp());
                     cachedAssetEvents.add((AssetEvent) e);
                 }
             } else {
@@ -412,7 +484,8 @@ public class GatewayConnector {
     }
 
     /**
-     * Get list of gateway assets (get basic details and then batch load them to minimise load)
+     * Get list of gateway assets (get basic details and then batch load them to minimise load); if the gateway
+     * supports it and a previous sync has completed then only the assets that have changed since are loaded.
      */
     synchronized protected void startSync() {
 
@@ -420,10 +493,30 @@ public class GatewayConnector {
             return;
         }
 
-        expectedSyncResponseName = ASSET_READ_EVENT_NAME_INITIAL;
-        ReadAssetsEvent event = new ReadAssetsEvent(new AssetQuery().select(new AssetQuery.Select().excludeAttributes()).recursive(true));
-        event.setMessageID(expectedSyncResponseName);
-        sendMessageToGateway(event);
+        syncStartMillis = System.currentTimeMillis();
+
+        if (eventReplaySupported && !eventReplayAttempted && syncTimestamp != null && !syncedAssetVersions.isEmpty()) {
+            // Ask the gateway to replay the events it queued whilst disconnected which avoids an asset sync
+            eventReplayAttempted = true;
+            eventReplayActivityMillis = syncStartMillis;
+            expectedSyncResponseName = EVENT_REPLAY_NAME;
+            LOG.fine("Requesting gateway event replay (since=" + syncTimestamp + "): " + this);
+            GatewayEventReplayRequestEvent event = new GatewayEventReplayRequestEvent(syncTimestamp);
+            event.setMessageID(expectedSyncResponseName);
+            sendMessageToGateway(event);
+        } else if (deltaSyncSupported && !syncedAssetVersions.isEmpty()) {
+            expectedSyncResponseName = ASSET_READ_EVENT_NAME_DELTA;
+            Long since = syncTimestamp != null ? syncTimestamp - SYNC_TIMESTAMP_GRACE_MILLIS : null;
+            LOG.fine("Requesting gateway asset delta sync (known assets=" + syncedAssetVersions.size() + ", since=" + since + "): " + this);
+            GatewayAssetSyncRequestEvent event = new GatewayAssetSyncRequestEvent(new HashMap<>(syncedAssetVersions), since);
+            event.setMessageID(expectedSyncResponseName);
+            sendMessageToGateway(event);
+        } else {
+            expectedSyncResponseName = ASSET_READ_EVENT_NAME_INITIAL;
+            ReadAssetsEvent event = new ReadAssetsEvent(new AssetQuery().select(new AssetQuery.Select().excludeAttributes()).recursive(true));
+            event.setMessageID(expectedSyncResponseName);
+            sendMessageToGateway(event);
+        }
         syncProcessorFuture = scheduledExecutorService.schedule(this::onSyncAssetsTimeout, RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
@@ -435,6 +528,17 @@ public class GatewayConnector {
             return;
         }
 
+        if (EVENT_REPLAY_NAME.equals(expectedSyncResponseName)) {
+            if (System.currentTimeMillis() - eventReplayActivityMillis < RESPONSE_TIMEOUT_MILLIS) {
+                // Replay is still in progress
+                syncProcessorFuture = scheduledExecutorService.schedule(this::onSyncAssetsTimeout, RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            LOG.info("Gateway didn't complete event replay so falling back to asset sync: " + this);
+            startSync();
+            return;
+        }
+
         LOG.info("Gateway sync timeout occurred: " + this);
         syncErrors++;
 
@@ -443,6 +547,10 @@ public class GatewayConnector {
         }
 
         if (syncAssetIds == null) {
+            if (ASSET_READ_EVENT_NAME_DELTA.equals(expectedSyncResponseName)) {
+                LOG.info("Gateway didn't respond to delta sync request so falling back to full sync: " + this);
+                deltaSyncSupported = false;
+            }
             // Haven't received initial list of assets so retry
             startSync();
         } else {
@@ -450,6 +558,40 @@ public class GatewayConnector {
         }
     }
 
+    /**
+     * Events received during an event replay are applied directly as the gateway assets are already synchronised
+     */
+    protected void onEventReplayEvent(SharedEvent e) {
+        if (e instanceof GatewayEventReplayResponseEvent response) {
+            if (syncProcessorFuture != null) {
+                syncProcessorFuture.cancel(true);
+            }
+            if (response.isComplete()) {
+                LOG.fine("Gateway event replay complete (events=" + response.getCount() + ") so skipping asset sync: " + this);
+                if (replayCompleteCounter != null) {
+                    replayCompleteCounter.increment();
+                }
+                onInitialSyncComplete();
+            } else {
+                LOG.info("Gateway event replay is incomplete (events=" + response.getCount() + ") so performing asset sync: " + this);
+                if (replayIncompleteCounter != null) {
+                    replayIncompleteCounter.increment();
+                }
+                startSync();
+            }
+            return;
+        }
+
+        eventReplayActivityMillis = System.currentTimeMillis();
+
+        synchronized (eventConsumerMap) {
+            Consumer<SharedEvent> consumer = eventConsumerMap.get(e.getClass());
+            if (consumer != null) {
+                consumer.accept(e);
+            }
+        }
+    }
+
     protected boolean syncAborted() {
         if (syncErrors == MAX_SYNC_RETRIES) {
             LOG.warning("Gateway sync max retries reached so disconnecting the gateway: " + this);
@@ -469,10 +611,10 @@ public class GatewayConnector {
             return;
         }
 
-        String[] requestAssetIds = syncAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).toArray(String[]::new);
+        String[] requestAssetIds = getSyncBatchAssetIds().toArray(String[]::new);
         expectedSyncResponseName = ASSET_READ_EVENT_NAME_BATCH + syncIndex;
 
-        LOG.fine("Synchronising gateway assets " + syncIndex+1 + "-" + syncIndex + requestAssetIds.length + " of " + syncAssetIds.size() + ": " + this);
+        LOG.fine("Synchronising gateway assets " + (syncIndex + 1) + "-" + (syncIndex + requestAssetIds.length) + " of " + syncRequestAssetIds.size() + ": " + this);
         ReadAssetsEvent event = new ReadAssetsEvent(
             new AssetQuery()
                 .ids(requestAssetIds)
@@ -482,6 +624,83 @@ public class GatewayConnector {
         syncProcessorFuture = scheduledExecutorService.schedule(this::requestAssets, RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
+    protected List<String> getSyncBatchAssetIds() {
+        return new ArrayList<>(syncRequestAssetIds.subList(Math.min(syncIndex, syncRequestAssetIds.size()), Math.min(syncIndex + SYNC_ASSET_BATCH_SIZE, syncRequestAssetIds.size())));
+    }
+
+    /**
+     * Orders the supplied gateway assets so parents come before their children
+     */
+    protected static <T> List<String> getHierarchicalOrder(Collection<T> assets, Function<T, String> idExtractor, Function<T, String> parentIdExtractor) {
+        Map<String, String> gatewayAssetIdParentIdMap = new HashMap<>(assets.size());
+        assets.forEach(asset -> gatewayAssetIdParentIdMap.put(idExtractor.apply(asset), parentIdExtractor.apply(asset)));
+
+        ToIntFunction<T> assetLevelExtractor = asset -> {
+            int level = 0;
+            String parentId = parentIdExtractor.apply(asset);
+            while (parentId != null) {
+                level++;
+                parentId = gatewayAssetIdParentIdMap.get(parentId);
+            }
+            return level;
+        };
+
+        return assets.stream()
+            .sorted(Comparator.comparingInt(assetLevelExtractor))
+            .map(idExtractor)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the asset states contained in the supplied response, inflating them if necessary
+     */
+    protected static List<GatewayAssetSyncResponseEvent.AssetSyncState> getAssetSyncStates(GatewayAssetSyncResponseEvent e) {
+        if (e.getDeflated() != null) {
+            return ValueUtil.parse(GatewayAttributeEventBatcher.inflate(e.getDeflated()), GatewayAssetSyncResponseEvent.AssetSyncState[].class)
+                .map(Arrays::asList)
+                .orElse(Collections.emptyList());
+        }
+        return e.getAssets() != null ? e.getAssets() : Collections.emptyList();
+    }
+
+    synchronized protected void onAssetSyncResponse(GatewayAssetSyncResponseEvent e) {
+        if (!isConnected()) {
+            return;
+        }
+
+        if (!ASSET_READ_EVENT_NAME_DELTA.equalsIgnoreCase(expectedSyncResponseName) || !expectedSyncResponseName.equalsIgnoreCase(e.getMessageID())) {
+            LOG.info("Unexpected response from gateway so ignoring (expected=" + expectedSyncResponseName + ", actual =" + e.getMessageID() + "): " + this);
+            return;
+        }
+
+        syncProcessorFuture.cancel(true);
+        syncProcessorFuture = null;
+
+        List<GatewayAssetSyncResponseEvent.AssetSyncState> assetStates = getAssetSyncStates(e);
+        Set<String> changedAssetIds = assetStates.stream()
+            .filter(GatewayAssetSyncResponseEvent.AssetSyncState::isChanged)
+            .map(GatewayAssetSyncResponseEvent.AssetSyncState::getId)
+            .collect(Collectors.toSet());
+
+        syncAssetIds = new LinkedHashSet<>(getHierarchicalOrder(assetStates, GatewayAssetSyncResponseEvent.AssetSyncState::getId, GatewayAssetSyncResponseEvent.AssetSyncState::getParentId));
+        syncRequestAssetIds = syncAssetIds.stream().filter(changedAssetIds::contains).collect(Collectors.toCollection(ArrayList::new));
+        syncedAssetVersions.keySet().retainAll(syncAssetIds);
+        pendingSyncTimestamp = e.getTimestamp() > 0 ? e.getTimestamp() : null;
+
+        LOG.info("Gateway asset delta sync: total=" + syncAssetIds.size() + ", changed=" + syncRequestAssetIds.size() + ": " + this);
+        if (syncRequestedCounter != null) {
+            syncRequestedCounter.increment(syncRequestAssetIds.size());
+            syncSkippedCounter.increment(syncAssetIds.size() - syncRequestAssetIds.size());
+        }
+
+        if (syncRequestAssetIds.isEmpty()) {
+            onAllSyncAssetsRetrieved();
+            return;
+        }
+
+        requestAssets();
+    }
+
     synchronized protected void onSyncAssetsResponse(AssetsEvent e) {
         if (!isConnected()) {
             return;
@@ -501,24 +720,14 @@ public class GatewayConnector {
         if (isInitialResponse) {
 
             // Put assets in hierarchical order
-            Map<String, String> gatewayAssetIdParentIdMap = e.getAssets() == null ? Collections.emptyMap() : e.getAssets().stream()
-                .collect(HashMap::new, (m, v) -> m.put(v.getId(), v.getParentId()), HashMap::putAll);
-
-            ToIntFunction<Asset<?>> assetLevelExtractor = asset -> {
-                int level = 0;
-                String parentId = asset.getParentId();
-                while (parentId != null) {
-                    level++;
-                    parentId = gatewayAssetIdParentIdMap.get(parentId);
-                }
-                return level;
-            };
+            List<Asset<?>> assets = e.getAssets() == null ? Collections.emptyList() : e.getAssets();
+            syncRequestAssetIds = getHierarchicalOrder(assets, Asset::getId, Asset::getParentId);
+            syncAssetIds = new LinkedHashSet<>(syncRequestAssetIds);
+            syncedAssetVersions.keySet().retainAll(syncAssetIds);
 
-            syncAssetIds =  e.getAssets() == null ? Collections.emptyList() : e.getAssets()
-                .stream()
-                .sorted(Comparator.comparingInt(assetLevelExtractor))
-                .map(Asset::getId)
-                .collect(Collectors.toList());
+            if (syncRequestedCounter != null) {
+                syncRequestedCounter.increment(syncRequestAssetIds.size());
+            }
 
             if (syncAssetIds.isEmpty()) {
                 deleteObsoleteLocalAssets();
@@ -530,15 +739,16 @@ public class GatewayConnector {
 
         } else {
 
-            List<String> requestedAssetIds = syncAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).collect(Collectors.toList());
+            List<String> requestedAssetIds = getSyncBatchAssetIds();
             List<Asset<?>> returnedAssets = e.getAssets() == null ? Collections.emptyList() : e.getAssets();
 
             // Remove any assets that have been deleted since requested
             cachedAssetEvents.removeIf(
                 assetEvent -> {
-                    boolean remove = requestedAssetIds.stream().anyMatch(id -> id.equals(assetEvent.getId()) && assetEvent.getCause() == AssetEvent.Cause.DELETE);
+                    boolean remove = assetEvent.getCause() == AssetEvent.Cause.DELETE && requestedAssetIds.contains(assetEvent.getId());
                     if (remove) {
                         syncAssetIds.remove(assetEvent.getId());
+                        syncRequestAssetIds.remove(assetEvent.getId());
                         requestedAssetIds.remove(assetEvent.getId());
                     }
                     return remove;
@@ -552,8 +762,12 @@ public class GatewayConnector {
             }
 
             // Returned asset order may not match request order so re-order
+            Map<String, Integer> requestedAssetIndexes = new HashMap<>(requestedAssetIds.size());
+            for (int i = 0; i < requestedAssetIds.size(); i++) {
+                requestedAssetIndexes.put(requestedAssetIds.get(i), i);
+            }
             returnedAssets = returnedAssets.stream()
-                .sorted(Comparator.comparingInt(a -> syncAssetIds.indexOf(a.getId())))
+                .sorted(Comparator.comparingInt(a -> requestedAssetIndexes.get(a.getId())))
                 .toList();
 
             // Merge returned assets ensuring the latest version of each is merged
@@ -574,46 +788,50 @@ public class GatewayConnector {
 
             // Request next batch or move on
             syncIndex += requestedAssetIds.size();
-            if (syncIndex >= syncAssetIds.size()) {
+            if (syncIndex >= syncRequestAssetIds.size()) {
                 LOG.info("All requested gateway assets retrieved: " + this);
+                onAllSyncAssetsRetrieved();
+            } else {
+                requestAssets();
+            }
+        }
+    }
 
-                Set<String> refreshAssets = new HashSet<>();
-
-                cachedAssetEvents.forEach(
-                    assetEvent -> {
-                        if (assetEvent.getCause() == AssetEvent.Cause.DELETE) {
-                            syncAssetIds.remove(assetEvent.getId());
-                        } else if (assetEvent.getCause() == AssetEvent.Cause.CREATE) {
-                            syncAssetIds.add(assetEvent.getId());
-                            try {
-                                saveAssetLocally(assetEvent.getAsset());
-                            } catch (Exception ex) {
-                                LOG.log(Level.SEVERE, "Failed to add new gateway asset (Asset=" + assetEvent.getAsset() + "): " + this, ex);
-                            }
-                        } else {
-                            refreshAssets.add(assetEvent.getId());
-                        }
+    protected void onAllSyncAssetsRetrieved() {
+        Set<String> refreshAssets = new HashSet<>();
+
+        cachedAssetEvents.forEach(
+            assetEvent -> {
+                if (assetEvent.getCause() == AssetEvent.Cause.DELETE) {
+                    syncAssetIds.remove(assetEvent.getId());
+                    syncedAssetVersions.remove(assetEvent.getId());
+                } else if (assetEvent.getCause() == AssetEvent.Cause.CREATE) {
+                    syncAssetIds.add(assetEvent.getId());
+                    try {
+                        saveAssetLocally(assetEvent.getAsset());
+                    } catch (Exception ex) {
+                        LOG.log(Level.SEVERE, "Failed to add new gateway asset (Asset=" + assetEvent.getAsset() + "): " + this, ex);
                     }
-                );
-
-                deleteObsoleteLocalAssets();
-                onInitialSyncComplete();
+                } else {
+                    refreshAssets.add(assetEvent.getId());
+                }
+            }
+        );
 
-                // Refresh attributes that have changed
-                cachedAttributeEvents.forEach(attributeEvent -> {
-                    String assetId = attributeEvent.getId();
-                    if (!refreshAssets.contains(assetId)) {
-                        LOG.info("1 or more gateway asset attribute values have changed so requesting the asset again (Asset<?> ID=" + assetId + ": " + this);
-                        refreshAssets.add(assetId);
-                    }
-                });
+        deleteObsoleteLocalAssets();
+        onInitialSyncComplete();
 
-                // Refresh assets that have changed
-                refreshAssets.forEach(id -> sendMessageToGateway(new ReadAssetEvent(id)));
-            } else {
-                requestAssets();
+        // Refresh attributes that have changed
+        cachedAttributeEvents.forEach(attributeEvent -> {
+            String assetId = attributeEvent.getId();
+            if (!refreshAssets.contains(assetId)) {
+                LOG.info("1 or more gateway asset attribute values have changed so requesting the asset again (Asset<?> ID=" + assetId + ": " + this);
+                refreshAssets.add(assetId);
             }
-        }
+        });
+
+        // Refresh assets that have changed
+        refreshAssets.forEach(id -> sendMessageToGateway(new ReadAssetEvent(id)));
     }
 
     protected void deleteObsoleteLocalAssets() {
@@ -644,12 +862,20 @@ public class GatewayConnector {
         initialSyncInProgress = false;
         cachedAssetEvents.clear();
         cachedAttributeEvents.clear();
+        updateSyncTimestamp(pendingSyncTimestamp);
+        pendingSyncTimestamp = null;
+
+        if (syncTimer != null) {
+            syncTimer.record(System.currentTimeMillis() - syncStartMillis, TimeUnit.MILLISECONDS);
+        }
 
         getCapabilities().whenComplete ((response, error) -> {
             if (error != null) {
                 LOG.warning("An error occurred whilst getting the gateway capabilities, assuming no support: " + this);
             }
             tunnellingSupported = response != null && response.isTunnelingSupported();
+            deltaSyncSupported = response != null && response.isAssetDeltaSyncSupported();
+            eventReplaySupported = response != null && response.isEventReplaySupported();
             publishAttributeEvent(new AttributeEvent(gatewayId, GatewayAsset.TUNNELING_SUPPORTED, tunnellingSupported));
             publishAttributeEvent(new AttributeEvent(gatewayId, GatewayAsset.STATUS, ConnectionStatus.CONNECTED));
         });
@@ -657,30 +883,75 @@ public class GatewayConnector {
 
     @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
     synchronized protected void onAssetEvent(AssetEvent e) {
+        updateSyncTimestamp(e.getTimestamp());
 
         switch (e.getCause()) {
             case CREATE, READ, UPDATE -> saveAssetLocally(e.getAsset());
-            case DELETE -> deleteAssetsLocally(Collections.singletonList(mapAssetId(gatewayId, e.getId(), false)));
+            case DELETE -> {
+                // Subtree deletes only produce an event for the root so forget the descendants as well
+                String localAssetId = mapAssetId(gatewayId, e.getId(), false);
+                assetStorageService.findAll(
+                    new AssetQuery()
+                        .select(new AssetQuery.Select().excludeAttributes())
+                        .recursive(true)
+                        .parents(localAssetId)
+                ).forEach(asset -> syncedAssetVersions.remove(mapAssetId(gatewayId, asset.getId(), true)));
+                syncedAssetVersions.remove(e.getId());
+                deleteAssetsLocally(Collections.singletonList(localAssetId));
+            }
         }
     }
 
     protected void onAttributeEvent(AttributeEvent e) {
+        updateSyncTimestamp(e.getTimestamp());
         // Just push the event through the processing chain
         publishAttributeEvent(new AttributeEvent(mapAssetId(gatewayId, e.getId(), false), e.getName(), e.getValue().orElse(null), e.getTimestamp()));
     }
 
     protected <T extends Asset<?>> T saveAssetLocally(T asset) {
         String assetId = asset.getId();
+        long version = asset.getVersion();
+        long latestAttributeTimestamp = asset.getAttributes().stream().mapToLong(attribute -> attribute.getTimestamp().orElse(0L)).max().orElse(0L);
         asset.setId(mapAssetId(gatewayId, assetId, false));
         asset.setParentId(asset.getParentId() != null ? mapAssetId(gatewayId, asset.getParentId(), false) : gatewayId);
         asset.setRealm(realm);
         LOG.fine("Creating/updating gateway asset: Asset ID=" + assetId + ", Asset ID Mapped=" + asset.getId() + ": " + this);
-        return assetStorageService.merge(asset, true, gatewayAsset, null);
+        T mergedAsset = assetStorageService.merge(asset, true, gatewayAsset, null);
+        syncedAssetVersions.put(assetId, version);
+        updateSyncTimestamp(latestAttributeTimestamp);
+        return mergedAsset;
+    }
+
+    /**
+     * Track the latest gateway timestamp of synced data; whilst the initial sync is in progress this is only applied
+     * once the sync completes so a partial sync cannot hide changes on assets that weren't loaded yet.
+     */
+    protected void updateSyncTimestamp(Long timestamp) {
+        if (timestamp == null || timestamp <= 0) {
+            return;
+        }
+
+        if (initialSyncInProgress) {
+            pendingSyncTimestamp = pendingSyncTimestamp == null ? timestamp : Math.max(pendingSyncTimestamp, timestamp);
+        } else {
+            syncTimestamp = syncTimestamp == null ? timestamp : Math.max(syncTimestamp, timestamp);
+        }
+    }
+
+    /**
+     * Get the fraction of assets to be loaded that have been synchronised for the current/last sync
+     */
+    public double getSyncProgress() {
+        List<String> requestAssetIds = syncRequestAssetIds;
+        if (!initialSyncInProgress || requestAssetIds == null || requestAssetIds.isEmpty()) {
+            return initialSyncInProgress ? 0d : 1d;
+        }
+        return Math.min(1d, (double) syncIndex / requestAssetIds.size());
     }
 
     protected boolean deleteAssetsLocally(List<String> assetIds) {
         LOG.fine("Removing gateway asset: Asset IDs=" + Arrays.toString(assetIds.toArray()) + ": " + this);
-        return assetStorageService.delete(assetIds, true);
+        return assetStorageService.deleteSubtree(assetIds, true);
     }
 
     public GatewayAsset getGatewayAsset() {
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.gateway;
+
+import org.openremote.model.syslog.SyslogCategory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
+
+/**
+ * A disk backed FIFO queue of outbound gateway messages used whilst the connection to the central manager is down.
+ * Messages are appended to memory mapped segment files within the supplied directory so they survive a restart of
+ * the gateway; each record consists of the message length, the time it was queued and the UTF-8 encoded message.
+ * <p>
+ * The queue is capped by total size (oldest segments are discarded) and by age (records older than the max age are
+ * skipped when polled); whenever records are discarded the queue is marked as lost so the central manager knows it
+ * must perform an asset sync. The latest timestamp of messages that were sent directly is also persisted so in flight
+ * messages that didn't reach the central manager can be detected.
+ */
+public class GatewayEventQueue {
+
+    private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayEventQueue.class.getName());
+    public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+    protected static final String SEGMENT_FILE_PREFIX = "segment-";
+    protected static final String SEGMENT_FILE_SUFFIX = ".dat";
+    protected static final String STATE_FILE = "state.dat";
+    protected static final int STATE_BYTES = Long.BYTES + Integer.BYTES;
+    protected static final int STATE_LAST_SENT_OFFSET = 0;
+    protected static final int STATE_LOST_OFFSET = Long.BYTES;
+    protected static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    protected final Path directory;
+    protected final int segmentBytes;
+    protected final long maxBytes;
+    protected final long maxAgeMillis;
+    protected final Deque<Segment> segments = new ArrayDeque<>();
+    protected final MappedByteBuffer state;
+    protected long nextSegmentId;
+    protected boolean buffering = true;
+
+    protected static class Segment {
+        protected final long id;
+        protected final Path path;
+        protected final MappedByteBuffer buffer;
+        protected int count;
+
+        protected Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * @param directory    Directory for the segment files; any existing segments are recovered
+     * @param segmentBytes Size of each segment file
+     * @param maxBytes     Maximum total size of the segment files
+     * @param maxAgeMillis Maximum age of queued messages; a value &lt;= 0 disables the age limit
+     */
+    public GatewayEventQueue(Path directory, int segmentBytes, long maxBytes, long maxAgeMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = (int) Math.max(RECORD_HEADER_BYTES + 1024, Math.min(segmentBytes, maxBytes));
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+
+        Files.createDirectories(directory);
+        state = map(directory.resolve(STATE_FILE), STATE_BYTES);
+        recoverSegments();
+    }
+
+    /**
+     * Append the message if the queue is buffering (i.e. the connection is not ready)
+     *
+     * @return true if the message was queued, false if it should be sent directly
+     */
+    public synchronized boolean offerIfBuffering(String message) {
+        if (!buffering) {
+            return false;
+        }
+
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + bytes.length;
+
+        if (recordBytes > segmentBytes) {
+            LOG.warning("Gateway message is too large to be queued so it will be lost: size=" + bytes.length);
+            setLost();
+            return true;
+        }
+
+        Segment segment = segments.peekLast();
+
+        if (segment == null || segment.buffer.remaining() < recordBytes) {
+            if (segment != null) {
+                segment.buffer.force();
+            }
+            try {
+                segment = createSegment();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to create gateway queue segment so message will be lost: " + directory, e);
+                setLost();
+                return true;
+            }
+            segments.addLast(segment);
+            trimToMaxBytes();
+        }
+
+        segment.buffer.putInt(bytes.length).putLong(currentTimeMillis()).put(bytes);
+        segment.count++;
+        return true;
+    }
+
+    /**
+     * Remove and return the messages of the oldest segment in the order they were queued, skipping any that have
+     * exceeded the max age; if the queue is empty then null is returned and buffering is stopped so subsequent
+     * messages are sent directly.
+     */
+    public synchronized List<String> poll() {
+        Segment segment = segments.pollFirst();
+
+        if (segment == null) {
+            buffering = false;
+            return null;
+        }
+
+        List<String> messages = new ArrayList<>(segment.count);
+        long minTimestamp = maxAgeMillis > 0 ? currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        int skipped = 0;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.flip();
+
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            long timestamp = buffer.getLong();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            if (timestamp < minTimestamp) {
+                skipped++;
+            } else {
+                messages.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+
+        if (skipped > 0) {
+            LOG.info("Skipped " + skipped + " queued gateway message(s) that exceeded the max age: " + directory);
+            setLost();
+        }
+
+        deleteSegment(segment);
+        return messages;
+    }
+
+    /**
+     * Discard all queued messages and reset the lost state; used when the central manager performs an asset sync
+     * instead of a replay. Buffering is stopped.
+     */
+    public synchronized void clear() {
+        segments.forEach(this::deleteSegment);
+        segments.clear();
+        buffering = false;
+        state.putInt(STATE_LOST_OFFSET, 0);
+    }
+
+    public synchronized void setBuffering(boolean buffering) {
+        this.buffering = buffering;
+    }
+
+    public synchronized boolean isBuffering() {
+        return buffering;
+    }
+
+    public synchronized boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Indicates whether any messages have been discarded since the queue was last cleared or replayed
+     */
+    public synchronized boolean isLost() {
+        return state.getInt(STATE_LOST_OFFSET) != 0;
+    }
+
+    public synchronized void setLost() {
+        state.putInt(STATE_LOST_OFFSET, 1);
+    }
+
+    /**
+     * Reset the lost state once a replay has been completed (whether successful or not)
+     */
+    public synchronized void resetLost() {
+        state.putInt(STATE_LOST_OFFSET, 0);
+    }
+
+    /**
+     * Record the timestamp of a message that was sent directly to the central manager
+     */
+    public synchronized void onSent(long timestamp) {
+        if (timestamp > state.getLong(STATE_LAST_SENT_OFFSET)) {
+            state.putLong(STATE_LAST_SENT_OFFSET, timestamp);
+        }
+    }
+
+    public synchronized long getLastSentTimestamp() {
+        return state.getLong(STATE_LAST_SENT_OFFSET);
+    }
+
+    public synchronized void close() {
+        segments.forEach(segment -> segment.buffer.force());
+        state.force();
+    }
+
+    protected void recoverSegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_FILE_PREFIX))
+                .sorted()
+                .toList();
+        }
+
+        for (Path path : paths) {
+            long id = Long.parseLong(path.getFileName().toString().substring(SEGMENT_FILE_PREFIX.length()).replace(SEGMENT_FILE_SUFFIX, ""));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            int size = (int) Files.size(path);
+            Segment segment = new Segment(id, path, map(path, size));
+            MappedByteBuffer buffer = segment.buffer;
+
+            // Find the end of the written records
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                buffer.position(buffer.position() + RECORD_HEADER_BYTES + length);
+                segment.count++;
+            }
+
+            if (segment.count == 0) {
+                deleteSegment(segment);
+            } else {
+                segments.addLast(segment);
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            LOG.info("Recovered " + segments.stream().mapToInt(s -> s.count).sum() + " queued gateway message(s): " + directory);
+        }
+    }
+
+    protected Segment createSegment() throws IOException {
+        long id = nextSegmentId++;
+        Path path = directory.resolve(SEGMENT_FILE_PREFIX + String.format("%020d", id) + SEGMENT_FILE_SUFFIX);
+        return new Segment(id, path, map(path, segmentBytes));
+    }
+
+    protected void trimToMaxBytes() {
+        while (segments.size() > 1 && (long) segments.size() * segmentBytes > maxBytes) {
+            Segment oldest = segments.pollFirst();
+            LOG.info("Gateway queue has reached the max size so discarding " + oldest.count + " oldest message(s): " + directory);
+            deleteSegment(oldest);
+            setLost();
+        }
+    }
+
+    protected void deleteSegment(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to delete gateway queue segment: " + segment.path, e);
+        }
+    }
+
+    protected static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -20,6 +20,9 @@
 
 package org.openremote.manager.gateway;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.openremote.agent.protocol.websocket.WebsocketIOClient;
 import org.openremote.model.auth.OAuthGrant;
 import org.openremote.model.gateway.GatewayCapabilitiesRequestEvent;
@@ -48,6 +51,8 @@ public class GatewayIOClient extends WebsocketIOClient<String> {
     private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, GatewayIOClient.class);
     protected static final int TIMEOUT_MILLIS = 30000;
     protected CompletableFuture<Void> syncFuture;
+    protected final Object writableLock = new Object();
+    protected CompletableFuture<Boolean> writableFuture;
 
     public GatewayIOClient(URI uri, Map<String, List<String>> headers, OAuthGrant oAuthGrant) {
         super(uri, headers, oAuthGrant);
@@ -79,12 +84,78 @@ public class GatewayIOClient extends WebsocketIOClient<String> {
         );
     }
 
+    @Override
+    protected void initChannel(Channel channel) throws Exception {
+        super.initChannel(channel);
+
+        // Resume anything waiting for the outbound buffer to drain below its low water mark
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                if (ctx.channel().isWritable()) {
+                    completeWritableFuture(true);
+                }
+                super.channelWritabilityChanged(ctx);
+            }
+
+            @Override
+            public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+                completeWritableFuture(false);
+                super.channelInactive(ctx);
+            }
+        });
+    }
+
     @Override
     protected Void waitForConnectFuture(Future<Void> connectFuture) throws Exception {
         // Might need a better solution than this as we don't know how long the sync will take
         return connectFuture.get(getConnectTimeoutMillis()+60000L, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Indicates whether the channel can accept writes without queueing beyond its outbound buffer high water mark
+     */
+    public boolean isWritable() {
+        Channel channel = this.channel;
+        return channel != null && channel.isWritable();
+    }
+
+    public boolean isChannelActive() {
+        Channel channel = this.channel;
+        return channel != null && channel.isActive();
+    }
+
+    /**
+     * Get a future that completes with true once the channel is writable (immediately if it already is) or with false
+     * if the channel is not or no longer active; it is completed from the channel writability changed notification
+     * so callers do not need to poll {@link #isWritable}.
+     */
+    public CompletableFuture<Boolean> getWritableFuture() {
+        synchronized (writableLock) {
+            if (!isChannelActive()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            if (isWritable()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (writableFuture == null) {
+                writableFuture = new CompletableFuture<>();
+            }
+            return writableFuture;
+        }
+    }
+
+    protected void completeWritableFuture(boolean writable) {
+        CompletableFuture<Boolean> future;
+        synchronized (writableLock) {
+            future = writableFuture;
+            writableFuture = null;
+        }
+        if (future != null) {
+            future.complete(writable);
+        }
+    }
+
     protected CompletableFuture<Void> getFuture() {
         syncFuture = new CompletableFuture<>();
         return syncFuture;
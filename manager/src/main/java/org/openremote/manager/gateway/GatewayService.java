@@ -19,6 +19,7 @@
  */
 package org.openremote.manager.gateway;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
 import org.apache.camel.Exchange;
 import org.apache.camel.Predicate;
@@ -105,6 +106,7 @@ public class GatewayService extends RouteBuilder implements ContainerService {
     protected ExecutorService executorService;
     protected ScheduledExecutorService scheduledExecutorService;
     protected TimerService timerService;
+    protected MeterRegistry meterRegistry;
     protected String tunnelSSHHostname;
     protected String tunnelHostname;
     protected int tunnelSSHPort;
@@ -187,6 +189,7 @@ public class GatewayService extends RouteBuilder implements ContainerService {
         rulesetStorageService = container.getService(RulesetStorageService.class);
         rulesService = container.getService(RulesService.class);
         timerService = container.getService(TimerService.class);
+        meterRegistry = container.getMeterRegistry();
 
         container.getService(ManagerWebService.class).addApiSingleton(
                 new GatewayServiceResourceImpl(timerService, identityService, this, assetStorageService)
@@ -272,7 +275,10 @@ public class GatewayService extends RouteBuilder implements ContainerService {
 
     @Override
     public void stop(Container container) throws Exception {
-        gatewayConnectorMap.values().forEach(connector -> connector.disconnect(GatewayDisconnectEvent.Reason.TERMINATING));
+        gatewayConnectorMap.values().forEach(connector -> {
+            connector.disconnect(GatewayDisconnectEvent.Reason.TERMINATING);
+            connector.removeMeters();
+        });
         gatewayConnectorMap.clear();
         assetIdGatewayIdMap.clear();
         tunnelInfos.clear();
@@ -469,15 +475,8 @@ public class GatewayService extends RouteBuilder implements ContainerService {
             connector.setDisabled(true);
         }
 
-        // Get all child gateway assets
-        List<String> gatewayAssetIds = assetIdGatewayIdMap.entrySet().stream()
-            .filter(entry -> entry.getValue().equals(gatewayId))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
-
-        gatewayAssetIds.add(gatewayId);
-
-        return assetStorageService.delete(gatewayAssetIds, true);
+        // Delete the gateway and all of its descendants
+        return assetStorageService.deleteSubtree(Collections.singletonList(gatewayId), true);
     }
 
     public Collection<GatewayTunnelInfo> getTunnelInfos() {
@@ -740,6 +739,7 @@ public class GatewayService extends RouteBuilder implements ContainerService {
 
                 if (connector != null) {
                     connector.disconnect(GatewayDisconnectEvent.Reason.UNRECOGNISED);
+                    connector.removeMeters();
                 }
 
                 removeGatewayServiceUser(gateway);
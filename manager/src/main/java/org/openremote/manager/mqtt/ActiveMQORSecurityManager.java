@@ -19,6 +19,8 @@
  */
 package org.openremote.manager.mqtt;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.activemq.artemis.core.config.impl.SecurityConfiguration;
 import org.apache.activemq.artemis.core.security.CheckType;
 import org.apache.activemq.artemis.core.security.Role;
@@ -36,8 +38,14 @@ import org.openremote.model.syslog.SyslogCategory;
 import javax.security.auth.Subject;
 import javax.security.auth.login.LoginContext;
 import javax.security.auth.login.LoginException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,6 +58,10 @@ import static org.openremote.model.syslog.SyslogCategory.API;
  * dynamic {@link org.keycloak.adapters.KeycloakDeployment} resolver.
  *
  * Unfortunately lots of private methods and fields in super class.
+ * <p>
+ * Successfully validated credentials (username and a hash of the password) are cached for a short period along with
+ * the resulting principals so that reconnecting clients don't all have to go to the identity provider; connections
+ * that do need to authenticate are subject to the {@link MQTTAdmissionController}.
  */
 public class ActiveMQORSecurityManager extends ActiveMQJAASSecurityManager {
 
@@ -64,22 +76,145 @@ public class ActiveMQORSecurityManager extends ActiveMQJAASSecurityManager {
     protected SecurityConfiguration config;
     protected SecurityConfiguration certificateConfig;
     protected ActiveMQServer server;
+    protected MQTTAdmissionController admissionController;
+    protected Cache<String, CachedCredentials> credentialsCache;
+
+    /**
+     * Successfully validated credentials along with the principals and credentials of the resulting {@link Subject}
+     */
+    protected record CachedCredentials(byte[] passwordHash, Set<Principal> principals, Set<Object> publicCredentials, Set<Object> privateCredentials) {
+    }
 
     public ActiveMQORSecurityManager(AuthorisationService authorisationService, MQTTBrokerService brokerService, Function<String, KeycloakDeployment> deploymentResolver, String configurationName, SecurityConfiguration configuration) {
+        this(authorisationService, brokerService, deploymentResolver, configurationName, configuration, null, 0, 0);
+    }
+
+    public ActiveMQORSecurityManager(AuthorisationService authorisationService, MQTTBrokerService brokerService, Function<String, KeycloakDeployment> deploymentResolver, String configurationName, SecurityConfiguration configuration, MQTTAdmissionController admissionController, int credentialsCacheSize, long credentialsCacheExpiryMillis) {
         super(configurationName, configuration);
         this.authorisationService = authorisationService;
         this.brokerService = brokerService;
         this.deploymentResolver = deploymentResolver;
         this.configName = configurationName;
         this.config = configuration;
+        this.admissionController = admissionController;
+
+        if (credentialsCacheSize > 0 && credentialsCacheExpiryMillis > 0) {
+            credentialsCache = CacheBuilder.newBuilder()
+                .maximumSize(credentialsCacheSize)
+                .expireAfterWrite(credentialsCacheExpiryMillis, TimeUnit.MILLISECONDS)
+                .build();
+        }
     }
 
     @Override
     public Subject authenticate(String user, String password, RemotingConnection remotingConnection, String securityDomain) {
+        if (remotingConnection.getSubject() != null) {
+            return remotingConnection.getSubject();
+        }
+
+        Subject subject = getCachedSubject(user, password, remotingConnection);
+        if (subject != null) {
+            return subject;
+        }
+
+        if (admissionController != null && !admissionController.tryAdmit(user)) {
+            return null;
+        }
+
+        if (admissionController != null && !admissionController.acquireAuthPermit()) {
+            return null;
+        }
+
         try {
-            return remotingConnection.getSubject() != null ? remotingConnection.getSubject() : getAuthenticatedSubject(user, password, remotingConnection, securityDomain);
+            subject = getAuthenticatedSubject(user, password, remotingConnection, securityDomain);
+            if (subject != null) {
+                cacheSubject(user, password, subject);
+                if (admissionController != null && user != null) {
+                    admissionController.onAuthenticated(user);
+                }
+            }
+            return subject;
         } catch (LoginException e) {
             return null;
+        } finally {
+            if (admissionController != null) {
+                admissionController.releaseAuthPermit();
+            }
+        }
+    }
+
+    /**
+     * Remove any cached credentials for the specified user, should be called whenever the user is modified or deleted.
+     */
+    public void invalidateCachedCredentials(String realm, String username) {
+        String key = realm + ":" + username;
+        if (credentialsCache != null) {
+            credentialsCache.invalidate(key);
+        }
+        if (admissionController != null) {
+            admissionController.forgetClient(key);
+        }
+    }
+
+    public void invalidateCachedCredentials() {
+        if (credentialsCache != null) {
+            credentialsCache.invalidateAll();
+        }
+    }
+
+    protected Subject getCachedSubject(String user, String password, RemotingConnection remotingConnection) {
+        if (credentialsCache == null || user == null || password == null) {
+            return null;
+        }
+
+        CachedCredentials cachedCredentials = credentialsCache.getIfPresent(user);
+        if (cachedCredentials == null || !MessageDigest.isEqual(cachedCredentials.passwordHash(), hashPassword(user, password))) {
+            return null;
+        }
+
+        Subject subject = new Subject();
+        subject.getPrincipals().addAll(cachedCredentials.principals());
+        subject.getPublicCredentials().addAll(cachedCredentials.publicCredentials());
+        subject.getPrivateCredentials().addAll(cachedCredentials.privateCredentials());
+
+        KeycloakSecurityContext securityContext = KeycloakIdentityProvider.getSecurityContext(subject);
+        if (securityContext == null || securityContext.getToken() == null || securityContext.getToken().isExpired()) {
+            credentialsCache.invalidate(user);
+            return null;
+        }
+
+        LOG.finest(() -> "Using cached credentials for user: " + user);
+        remotingConnection.setSubject(subject);
+        subject.getPrincipals().add(new RemotingConnectionPrincipal(remotingConnection));
+        return subject;
+    }
+
+    protected void cacheSubject(String user, String password, Subject subject) {
+        // Only cache keycloak authenticated subjects (not anonymous/guest)
+        if (credentialsCache == null || user == null || password == null || KeycloakIdentityProvider.getSecurityContext(subject) == null) {
+            return;
+        }
+
+        byte[] hash = hashPassword(user, password);
+        if (hash == null) {
+            return;
+        }
+
+        credentialsCache.put(user, new CachedCredentials(
+            hash,
+            subject.getPrincipals().stream().filter(principal -> !(principal instanceof RemotingConnectionPrincipal)).collect(Collectors.toSet()),
+            Set.copyOf(subject.getPublicCredentials()),
+            Set.copyOf(subject.getPrivateCredentials())
+        ));
+    }
+
+    protected static byte[] hashPassword(String user, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(user.getBytes(StandardCharsets.UTF_8));
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
         }
     }
 
@@ -28,10 +28,8 @@ import org.apache.activemq.artemis.utils.collections.ConcurrentHashSet;
 import org.keycloak.KeycloakSecurityContext;
 import org.openremote.container.security.AuthContext;
 import org.openremote.manager.event.ClientEventService;
-import org.openremote.model.PersistenceEvent;
 import org.openremote.model.asset.AssetEvent;
 import org.openremote.model.asset.AssetFilter;
-import org.openremote.model.asset.UserAssetLink;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.event.Event;
 import org.openremote.model.event.shared.EventSubscription;
@@ -298,6 +296,12 @@ public class DefaultMQTTHandler extends MQTTHandler {
             subscriptionId
         );
 
+        // Authorise this filter so restricted users get a filter that tracks their linked assets as they change
+        if (!clientEventService.authorizeEventSubscription(topicRealm(topic), getAuthContextFromConnection(connection).orElse(null), subscription)) {
+            LOG.info("Event subscription is not authorised for topic '" + topic + "': " + connectionToString(connection));
+            return;
+        }
+
         synchronized (sessionSubscriptionConsumers) {
             // Create subscription consumer and track it for future removal requests
             Map<String, Consumer<? extends Event>> subscriptionConsumers = sessionSubscriptionConsumers.computeIfAbsent(sessionKey, (s) -> new HashMap<>());
@@ -356,19 +360,6 @@ public class DefaultMQTTHandler extends MQTTHandler {
             .asyncSend();
     }
 
-    @Override
-    public void onUserAssetLinksChanged(RemotingConnection connection, List<PersistenceEvent<UserAssetLink>> changes) {
-        String sessionKey = getSessionKey(connection);
-        if (sessionSubscriptionConsumers.containsKey(sessionKey)) {
-            if (changes.stream().allMatch(pe -> pe.getCause() == PersistenceEvent.Cause.CREATE)) {
-                // Do nothing if only links have been added
-                return;
-            }
-            LOG.info("User asset links have changed for a connected user with active subscriptions so force disconnecting them: " + connectionToString(connection));
-            mqttBrokerService.doForceDisconnect(connection);
-        }
-    }
-
     protected static AttributeEvent buildAttributeEvent(List<String> topicTokens, Object value) {
         String attributeName = topicTokens.get(3);
         String assetId = topicTokens.get(4);
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.mqtt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.openremote.model.syslog.SyslogCategory;
+import org.openremote.model.util.TextUtil;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.openremote.container.util.MapAccess.getInteger;
+import static org.openremote.model.syslog.SyslogCategory.API;
+
+/**
+ * Protects the broker (and the identity provider behind it) from connection storms, e.g. when thousands of devices
+ * reconnect after a manager restart. Admission is controlled in two stages:
+ * <ol>
+ * <li>A token bucket limits the rate at which new connections are allowed to attempt authentication; a share of the
+ * bucket is reserved for clients that have previously authenticated successfully (already provisioned clients) so
+ * they are admitted ahead of unknown/anonymous clients when the bucket runs low.</li>
+ * <li>A semaphore limits the number of concurrent authentication requests to the identity provider; callers wait
+ * for up to {@link #MQTT_ADMISSION_AUTH_WAIT_MILLIS} before being rejected.</li>
+ * </ol>
+ * Rejected clients fail authentication and are expected to retry with their own back-off.
+ */
+public class MQTTAdmissionController {
+
+    public static final String MQTT_ADMISSION_CONNECT_RATE = "MQTT_ADMISSION_CONNECT_RATE";
+    public static final int MQTT_ADMISSION_CONNECT_RATE_DEFAULT = 500;
+    public static final String MQTT_ADMISSION_CONNECT_BURST = "MQTT_ADMISSION_CONNECT_BURST";
+    public static final int MQTT_ADMISSION_CONNECT_BURST_DEFAULT = 1000;
+    public static final String MQTT_ADMISSION_KNOWN_CLIENT_RESERVE_PERCENT = "MQTT_ADMISSION_KNOWN_CLIENT_RESERVE_PERCENT";
+    public static final int MQTT_ADMISSION_KNOWN_CLIENT_RESERVE_PERCENT_DEFAULT = 25;
+    public static final String MQTT_ADMISSION_MAX_CONCURRENT_AUTH = "MQTT_ADMISSION_MAX_CONCURRENT_AUTH";
+    public static final int MQTT_ADMISSION_MAX_CONCURRENT_AUTH_DEFAULT = 50;
+    public static final String MQTT_ADMISSION_AUTH_WAIT_MILLIS = "MQTT_ADMISSION_AUTH_WAIT_MILLIS";
+    public static final int MQTT_ADMISSION_AUTH_WAIT_MILLIS_DEFAULT = 10000;
+    protected static final Logger LOG = SyslogCategory.getLogger(API, MQTTAdmissionController.class);
+
+    protected final double ratePerMilli;
+    protected final double capacity;
+    protected final double reserve;
+    protected final Semaphore authPermits;
+    protected final int maxConcurrentAuth;
+    protected final long authWaitMillis;
+    protected final Cache<String, Boolean> knownClients;
+    protected double tokens;
+    protected long lastRefillMillis;
+    protected Counter admittedCounter;
+    protected Counter admittedKnownCounter;
+    protected Counter rejectedRateCounter;
+    protected Counter rejectedAuthBusyCounter;
+
+    public MQTTAdmissionController(Map<String, String> config, MeterRegistry meterRegistry) {
+        this(
+            getInteger(config, MQTT_ADMISSION_CONNECT_RATE, MQTT_ADMISSION_CONNECT_RATE_DEFAULT),
+            getInteger(config, MQTT_ADMISSION_CONNECT_BURST, MQTT_ADMISSION_CONNECT_BURST_DEFAULT),
+            getInteger(config, MQTT_ADMISSION_KNOWN_CLIENT_RESERVE_PERCENT, MQTT_ADMISSION_KNOWN_CLIENT_RESERVE_PERCENT_DEFAULT),
+            getInteger(config, MQTT_ADMISSION_MAX_CONCURRENT_AUTH, MQTT_ADMISSION_MAX_CONCURRENT_AUTH_DEFAULT),
+            getInteger(config, MQTT_ADMISSION_AUTH_WAIT_MILLIS, MQTT_ADMISSION_AUTH_WAIT_MILLIS_DEFAULT),
+            meterRegistry);
+    }
+
+    /**
+     * @param connectRate           Connection attempts per second that are admitted; a value &lt;= 0 disables rate limiting
+     * @param burst                 Size of the token bucket (maximum number of connections admitted in a burst)
+     * @param knownClientReservePct Percentage of the bucket that only known clients can consume
+     * @param maxConcurrentAuth     Maximum number of concurrent identity provider requests; a value &lt;= 0 disables the limit
+     * @param authWaitMillis        How long to wait for an authentication slot before rejecting the connection
+     */
+    public MQTTAdmissionController(int connectRate, int burst, int knownClientReservePct, int maxConcurrentAuth, long authWaitMillis, MeterRegistry meterRegistry) {
+        this.ratePerMilli = connectRate / 1000d;
+        this.capacity = Math.max(burst, connectRate);
+        this.reserve = capacity * Math.min(Math.max(knownClientReservePct, 0), 100) / 100d;
+        this.tokens = capacity;
+        this.lastRefillMillis = currentTimeMillis();
+        this.maxConcurrentAuth = maxConcurrentAuth;
+        this.authPermits = maxConcurrentAuth > 0 ? new Semaphore(maxConcurrentAuth, true) : null;
+        this.authWaitMillis = authWaitMillis;
+        this.knownClients = CacheBuilder.newBuilder()
+            .maximumSize(200000)
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .build();
+
+        LOG.info("MQTT admission control: connectRate=" + connectRate + "/s, burst=" + (long) capacity + ", knownClientReserve=" + (long) reserve + ", maxConcurrentAuth=" + maxConcurrentAuth);
+
+        if (meterRegistry != null) {
+            admittedCounter = meterRegistry.counter("or.mqtt.admission", Tags.of("result", "admitted"));
+            admittedKnownCounter = meterRegistry.counter("or.mqtt.admission", Tags.of("result", "admitted_known"));
+            rejectedRateCounter = meterRegistry.counter("or.mqtt.admission", Tags.of("result", "rejected_rate"));
+            rejectedAuthBusyCounter = meterRegistry.counter("or.mqtt.admission", Tags.of("result", "rejected_auth_busy"));
+            meterRegistry.gauge("or.mqtt.admission.tokens", Tags.empty(), this, MQTTAdmissionController::getAvailableTokens);
+            meterRegistry.gauge("or.mqtt.admission.auth.inflight", Tags.empty(), this, MQTTAdmissionController::getAuthInFlight);
+        }
+    }
+
+    /**
+     * Attempt to take a connection token for the specified client key (username including realm prefix or null for
+     * anonymous clients); known clients may consume the reserved share of the bucket.
+     */
+    public boolean tryAdmit(String clientKey) {
+        if (ratePerMilli <= 0) {
+            increment(admittedCounter);
+            return true;
+        }
+
+        boolean known = isKnownClient(clientKey);
+        boolean admitted;
+
+        synchronized (this) {
+            refill();
+            double floor = known ? 0d : reserve;
+            admitted = tokens - 1d >= floor;
+            if (admitted) {
+                tokens -= 1d;
+            }
+        }
+
+        if (!admitted) {
+            LOG.fine(() -> "Connection rate limit reached so rejecting connection: client=" + clientKey + ", known=" + known);
+            increment(rejectedRateCounter);
+        } else {
+            increment(known ? admittedKnownCounter : admittedCounter);
+        }
+        return admitted;
+    }
+
+    /**
+     * Wait for a slot to perform authentication against the identity provider; callers must call
+     * {@link #releaseAuthPermit} if this returns true.
+     */
+    public boolean acquireAuthPermit() {
+        if (authPermits == null) {
+            return true;
+        }
+
+        try {
+            if (authPermits.tryAcquire(authWaitMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        LOG.fine("Too many concurrent authentication requests so rejecting connection");
+        increment(rejectedAuthBusyCounter);
+        return false;
+    }
+
+    public void releaseAuthPermit() {
+        if (authPermits != null) {
+            authPermits.release();
+        }
+    }
+
+    /**
+     * Record that the client has successfully authenticated so it is prioritised on subsequent connects.
+     */
+    public void onAuthenticated(String clientKey) {
+        if (!TextUtil.isNullOrEmpty(clientKey)) {
+            knownClients.put(clientKey, Boolean.TRUE);
+        }
+    }
+
+    public void forgetClient(String clientKey) {
+        if (!TextUtil.isNullOrEmpty(clientKey)) {
+            knownClients.invalidate(clientKey);
+        }
+    }
+
+    public boolean isKnownClient(String clientKey) {
+        return !TextUtil.isNullOrEmpty(clientKey) && knownClients.getIfPresent(clientKey) != null;
+    }
+
+    public synchronized double getAvailableTokens() {
+        if (ratePerMilli <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        refill();
+        return tokens;
+    }
+
+    public int getAuthInFlight() {
+        return authPermits == null ? 0 : maxConcurrentAuth - authPermits.availablePermits();
+    }
+
+    protected void refill() {
+        long now = currentTimeMillis();
+        long elapsed = now - lastRefillMillis;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + (elapsed * ratePerMilli));
+            lastRefillMillis = now;
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    protected static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
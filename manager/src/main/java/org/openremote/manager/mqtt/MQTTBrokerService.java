@@ -105,6 +105,10 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
     public static final String MQTT_SERVER_LISTEN_HOST = "MQTT_SERVER_LISTEN_HOST";
     public static final String MQTT_SERVER_LISTEN_PORT = "MQTT_SERVER_LISTEN_PORT";
     public static final String ANONYMOUS_USERNAME = "anonymous";
+    public static final String MQTT_AUTH_CACHE_SIZE = "MQTT_AUTH_CACHE_SIZE";
+    public static final int MQTT_AUTH_CACHE_SIZE_DEFAULT = 50000;
+    public static final String MQTT_AUTH_CACHE_EXPIRY_MILLIS = "MQTT_AUTH_CACHE_EXPIRY_MILLIS";
+    public static final int MQTT_AUTH_CACHE_EXPIRY_MILLIS_DEFAULT = 300000;
     protected final WildcardConfiguration wildcardConfiguration = new WildcardConfiguration();
     protected static final System.Logger LOG = System.getLogger(MQTTBrokerService.class.getName() + "." + API.name());
 
@@ -129,6 +133,9 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
     protected Configuration serverConfiguration;
     protected EmbeddedActiveMQ server;
     protected ActiveMQORSecurityManager securityManager;
+    protected MQTTAdmissionController admissionController;
+    protected int authCacheSize;
+    protected int authCacheExpiryMillis;
     protected ServerLocator serverLocator;
     protected ClientSessionFactory sessionFactory;
 
@@ -142,6 +149,8 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
         host = getString(container.getConfig(), MQTT_SERVER_LISTEN_HOST, "0.0.0.0");
         port = getInteger(container.getConfig(), MQTT_SERVER_LISTEN_PORT, 1883);
         int debounceMillis = getInteger(container.getConfig(), MQTT_FORCE_USER_DISCONNECT_DEBOUNCE_MILLIS, MQTT_FORCE_USER_DISCONNECT_DEBOUNCE_MILLIS_DEFAULT);
+        authCacheSize = getInteger(container.getConfig(), MQTT_AUTH_CACHE_SIZE, MQTT_AUTH_CACHE_SIZE_DEFAULT);
+        authCacheExpiryMillis = getInteger(container.getConfig(), MQTT_AUTH_CACHE_EXPIRY_MILLIS, MQTT_AUTH_CACHE_EXPIRY_MILLIS_DEFAULT);
         assetStorageService = container.getService(AssetStorageService.class);
         authorisationService = container.getService(AuthorisationService.class);
         clientEventService = container.getService(ClientEventService.class);
@@ -164,6 +173,7 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
         } else {
             active = true;
             identityProvider = (ManagerKeycloakIdentityProvider) identityService.getIdentityProvider();
+            admissionController = new MQTTAdmissionController(container.getConfig(), container.getMeterRegistry());
             container.getService(MessageBrokerService.class).getContext().addRoutes(this);
         }
 
@@ -267,7 +277,7 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
                     new AppConfigurationEntry(PrincipalConversionLoginModule.class.getName(), AppConfigurationEntry.LoginModuleControlFlag.REQUISITE, Map.of(PrincipalConversionLoginModule.PRINCIPAL_CLASS_LIST, KeycloakPrincipal.class.getName()))
                 };
             }
-        });
+        }, admissionController, authCacheSize, authCacheExpiryMillis);
 
         server.setSecurityManager(securityManager);
         server.start();
@@ -325,6 +335,11 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
                             return;
                         }
 
+                        // Don't allow reconnects to use previously validated credentials of a modified/deleted user
+                        if (securityManager != null) {
+                            securityManager.invalidateCachedCredentials(user.getRealm(), user.getUsername());
+                        }
+
                         boolean forceDisconnect = persistenceEvent.getCause() == PersistenceEvent.Cause.DELETE;
 
                         if (persistenceEvent.getCause() == PersistenceEvent.Cause.UPDATE) {
@@ -342,7 +357,7 @@ public class MQTTBrokerService extends RouteBuilder implements ContainerService,
 
                     } else if (persistenceEvent.getEntity() instanceof UserAssetLink userAssetLink) {
                         String userID = userAssetLink.getId().getUserId();
-                        // Debounce force disconnect check of this user's sessions as there could be many asset links changing
+                        // Debounce notifying handlers of this user's link changes as there could be many asset links changing
                         List<PersistenceEvent<UserAssetLink>> changedUserAssetLinks = userAssetLinkChangeMap.computeIfAbsent(userID, id -> Collections.synchronizedList(new ArrayList<>()));
                         changedUserAssetLinks.add((PersistenceEvent<UserAssetLink>) persistenceEvent);
                         userAssetDisconnectDebouncer.call(userID);
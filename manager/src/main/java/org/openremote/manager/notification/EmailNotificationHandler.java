@@ -33,6 +33,7 @@ import org.openremote.model.auth.UsernamePassword;
 import org.openremote.model.notification.AbstractNotificationMessage;
 import org.openremote.model.notification.EmailNotificationMessage;
 import org.openremote.model.notification.Notification;
+import org.openremote.model.query.AssetQuery;
 import org.openremote.model.query.UserQuery;
 import org.openremote.model.query.filter.RealmPredicate;
 import org.openremote.model.query.filter.StringPredicate;
@@ -230,7 +231,7 @@ public class EmailNotificationHandler implements NotificationHandler {
                         break;
                     case ASSET:
                         // If asset has an email attribute include that in the targets
-                        Asset<?> asset = assetStorageService.find(targetId);
+                        Asset<?> asset = assetStorageService.find(new AssetQuery().select(new AssetQuery.Select().attributes(Asset.EMAIL.getName())).ids(targetId));
                         if (asset != null) {
                             asset.getEmail().map(email -> {
                                     Notification.Target assetTarget = new Notification.Target(Notification.TargetType.ASSET, asset.getId());
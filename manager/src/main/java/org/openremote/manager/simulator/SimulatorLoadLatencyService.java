@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.simulator;
+
+import io.micrometer.core.instrument.Timer;
+import org.openremote.agent.protocol.simulator.SimulatorProtocol;
+import org.openremote.container.timer.TimerService;
+import org.openremote.manager.agent.AgentService;
+import org.openremote.manager.event.ClientEventService;
+import org.openremote.model.Container;
+import org.openremote.model.ContainerService;
+import org.openremote.model.attribute.AttributeEvent;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.openremote.model.value.MetaItemType.AGENT_LINK;
+
+/**
+ * Records the end to end latency of attribute events generated by the load mode of the {@link SimulatorProtocol} in
+ * the {@code or.simulator.load.latency} timer (with percentile histograms) of the container meter registry; the
+ * latency is measured from the event timestamp (the emission time) to:
+ * <ul>
+ * <li>{@code stage=published} - the event has been processed and stored by the asset processing service and is being
+ * delivered to client event subscribers</li>
+ * <li>{@code stage=stored} - the datapoint of the event has also been stored</li>
+ * </ul>
+ * Client event subscribers are called in subscription order for each event so the published stage is recorded by a
+ * subscription made when this service is initialised (before any other service has started) and the stored stage by
+ * a subscription made when this service is started (after the datapoint service has started).
+ * <p>
+ * Nothing is recorded when there is no meter registry.
+ */
+public class SimulatorLoadLatencyService implements ContainerService {
+
+    public static final int PRIORITY = AgentService.PRIORITY + 10;
+    public static final String LATENCY_METER_NAME = "or.simulator.load.latency";
+    private static final Logger LOG = Logger.getLogger(SimulatorLoadLatencyService.class.getName());
+    protected AgentService agentService;
+    protected ClientEventService clientEventService;
+    protected TimerService timerService;
+    protected Timer publishedTimer;
+    protected Timer storedTimer;
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void init(Container container) throws Exception {
+        if (container.getMeterRegistry() == null) {
+            return;
+        }
+
+        agentService = container.getService(AgentService.class);
+        clientEventService = container.getService(ClientEventService.class);
+        timerService = container.getService(TimerService.class);
+
+        publishedTimer = Timer.builder(LATENCY_METER_NAME)
+            .tag("stage", "published")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMinutes(1))
+            .register(container.getMeterRegistry());
+        storedTimer = Timer.builder(LATENCY_METER_NAME)
+            .tag("stage", "stored")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMinutes(1))
+            .register(container.getMeterRegistry());
+
+        clientEventService.addSubscription(AttributeEvent.class, null, event -> recordLatency(event, publishedTimer));
+    }
+
+    @Override
+    public void start(Container container) throws Exception {
+        if (storedTimer != null) {
+            clientEventService.addSubscription(AttributeEvent.class, null, event -> recordLatency(event, storedTimer));
+            LOG.fine("Recording simulator load latency");
+        }
+    }
+
+    @Override
+    public void stop(Container container) throws Exception {
+    }
+
+    protected void recordLatency(AttributeEvent event, Timer timer) {
+        if (isLoadEvent(event)) {
+            timer.record(Math.max(0, timerService.getCurrentTimeMillis() - event.getTimestamp()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected boolean isLoadEvent(AttributeEvent event) {
+        return event.getMetaValue(AGENT_LINK)
+            .map(agentLink -> agentService.getProtocolInstance(agentLink.getId()))
+            .map(protocol -> protocol instanceof SimulatorProtocol simulatorProtocol && simulatorProtocol.isLoadAttribute(event.getRef()))
+            .orElse(false);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{}";
+    }
+}
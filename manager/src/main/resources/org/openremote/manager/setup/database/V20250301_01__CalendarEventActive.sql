@@ -0,0 +1,77 @@
+/*
+  Determine whether a calendar event attribute value is active at the specified unix time in milliseconds; occurrences
+  of recurrence rules with a fixed period (SECONDLY to WEEKLY frequency with optional INTERVAL, COUNT and UNTIL) are
+  calculated directly, other recurrence rules (BY* parts, MONTHLY and YEARLY frequency) return NULL and must be
+  evaluated by the caller. The function is STABLE rather than IMMUTABLE as the UNTIL timestamp parsing depends on
+  the session time zone.
+ */
+CREATE OR REPLACE FUNCTION CALENDAR_EVENT_ACTIVE(EVENT jsonb, AT_MILLIS bigint) RETURNS boolean AS $$
+DECLARE
+    start_millis bigint;
+    end_millis bigint;
+    rrule text;
+    period bigint;
+    occurrence bigint;
+    until_text text;
+    until_millis bigint;
+BEGIN
+    IF jsonb_typeof(EVENT -> 'start') IS DISTINCT FROM 'number' OR jsonb_typeof(EVENT -> 'end') IS DISTINCT FROM 'number' THEN
+        RETURN FALSE;
+    END IF;
+
+    start_millis = (EVENT ->> 'start')::numeric;
+    end_millis = (EVENT ->> 'end')::numeric;
+
+    IF start_millis > AT_MILLIS THEN
+        RETURN FALSE;
+    END IF;
+    IF AT_MILLIS < end_millis THEN
+        RETURN TRUE;
+    END IF;
+    IF jsonb_typeof(EVENT -> 'recurrence') IS DISTINCT FROM 'string' THEN
+        RETURN FALSE;
+    END IF;
+
+    rrule = upper(EVENT ->> 'recurrence');
+
+    IF rrule ~ 'BY[A-Z]+=' THEN
+        RETURN NULL;
+    END IF;
+
+    period = CASE substring(rrule from 'FREQ=([A-Z]+)')
+        WHEN 'SECONDLY' THEN 1000
+        WHEN 'MINUTELY' THEN 60000
+        WHEN 'HOURLY' THEN 3600000
+        WHEN 'DAILY' THEN 86400000
+        WHEN 'WEEKLY' THEN 604800000
+    END;
+
+    IF period IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    period = period * coalesce(substring(rrule from 'INTERVAL=(\d+)')::bigint, 1);
+    -- Latest occurrence that started at or before the requested time
+    occurrence = (AT_MILLIS - start_millis) / period;
+
+    IF rrule ~ 'COUNT=\d+' THEN
+        occurrence = least(occurrence, substring(rrule from 'COUNT=(\d+)')::bigint - 1);
+    END IF;
+
+    until_text = substring(rrule from 'UNTIL=(\d{8}(T\d{6})?)');
+
+    IF until_text IS NOT NULL THEN
+        until_millis = (extract(epoch from (to_timestamp(rpad(replace(until_text, 'T', ''), 14, '0'), 'YYYYMMDDHH24MISS')::timestamp AT TIME ZONE 'UTC')) * 1000)::bigint;
+        IF until_millis < start_millis THEN
+            RETURN FALSE;
+        END IF;
+        occurrence = least(occurrence, (until_millis - start_millis) / period);
+    END IF;
+
+    IF occurrence < 0 THEN
+        RETURN FALSE;
+    END IF;
+
+    RETURN AT_MILLIS < start_millis + (occurrence * period) + (end_millis - start_millis);
+END
+$$ LANGUAGE plpgsql STABLE;
@@ -0,0 +1,4 @@
+/*
+  Index the root assets of each realm so the top level of the asset tree can be loaded without scanning the realm.
+ */
+CREATE INDEX ASSET_REALM_ROOT_IDX ON ASSET (REALM, NAME) WHERE PARENT_ID IS NULL;
@@ -29,6 +29,7 @@ import org.openremote.model.value.MetaItemDescriptor;
 import org.openremote.model.value.MetaItemType;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -49,7 +50,7 @@ public class AssetFilter<T extends SharedEvent & AssetInfo> implements EventFilt
     protected boolean publicEvents;
     protected boolean restrictedEvents;
     protected boolean valueChanged;
-    protected List<String> userAssetIds;
+    protected Collection<String> userAssetIds;
 
     public AssetFilter() {
     }
@@ -183,11 +184,15 @@ public class AssetFilter<T extends SharedEvent & AssetInfo> implements EventFilt
         return this;
     }
 
-    public List<String> getUserAssetIds() {
+    public Collection<String> getUserAssetIds() {
         return userAssetIds;
     }
 
-    public AssetFilter<T> setUserAssetIds(List<String> userAssetIds) {
+    /**
+     * Restrict events to the specified asset IDs; this can be a live (concurrent) collection that is updated as the
+     * user's asset links change.
+     */
+    public AssetFilter<T> setUserAssetIds(Collection<String> userAssetIds) {
         this.userAssetIds = userAssetIds;
         return this;
     }
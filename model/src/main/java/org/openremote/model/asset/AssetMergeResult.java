@@ -0,0 +1,55 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.asset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The outcome of merging a single {@link Asset} as part of a bulk merge; if {@link #failure} is set then the asset was
+ * not merged and this contains the reason.
+ */
+public class AssetMergeResult {
+
+    protected String assetId;
+    protected String failure;
+
+    @JsonCreator
+    public AssetMergeResult(@JsonProperty("assetId") String assetId, @JsonProperty("failure") String failure) {
+        this.assetId = assetId;
+        this.failure = failure;
+    }
+
+    public String getAssetId() {
+        return assetId;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "assetId='" + assetId + '\'' +
+            ", failure='" + failure + '\'' +
+            '}';
+    }
+}
@@ -72,6 +72,8 @@ import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 @Path("asset")
 public interface AssetResource {
 
+    String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @TsIgnore
     class Util {
         public static final String WRITE_ATTRIBUTE_HTTP_METHOD = "PUT";
@@ -97,6 +99,28 @@ public interface AssetResource {
     @Operation(operationId = "getCurrentUserAssets",  summary = "Retrieve the linked assets of the currently authenticated user")
     Asset<?>[] getCurrentUserAssets(@BeanParam RequestParams requestParams);
 
+    /**
+     * Retrieve a slim tree of the child assets of the given parent asset, or of the root assets of the given realm when
+     * no parent is specified; this allows clients to render large asset trees by loading the children of a node when it
+     * is expanded. The tree is expanded up to the given depth (default 1) and the nodes of the last level have their
+     * child count set instead; the number of returned nodes is limited so the last level may be shallower than
+     * requested.
+     * <p>
+     * If the authenticated user is the superuser then assets in any realm can be retrieved, otherwise the realm must
+     * be the authenticated realm. A 403 status is returned if the user is restricted (use {@link
+     * #getCurrentUserAssets} instead) or the realm is inaccessible. A 404 status is returned if the parent asset
+     * doesn't exist.
+     */
+    @GET
+    @Path("tree")
+    @Produces(APPLICATION_JSON)
+    @RolesAllowed({Constants.READ_ASSETS_ROLE})
+    @Operation(operationId = "getAssetTree", summary = "Retrieve a depth limited tree of child assets")
+    AssetTreeItem[] getTree(@BeanParam RequestParams requestParams,
+                            @QueryParam("realm") String realm,
+                            @QueryParam("parentId") String parentId,
+                            @QueryParam("depth") @DefaultValue("1") int depth);
+
     /**
      * Retrieve links between assets and users.
      * <p>
@@ -293,6 +317,21 @@ public interface AssetResource {
     @Operation(operationId = "createAsset", summary = "Create an asset")
     Asset<?> create(@BeanParam RequestParams requestParams, Asset<?> asset);
 
+    /**
+     * Creates or updates many assets at once, intended for provisioning large numbers of assets. The assets are
+     * validated and stored in chunks rather than one asset per request; parents included in the request are stored
+     * before their children. The same rules as {@link #create} apply: restricted users cannot use this operation and
+     * regular users can only merge assets in realms that are accessible to them. A result is returned for each asset
+     * in the same order as the request; failed assets contain the failure reason and don't affect the other assets.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @RolesAllowed({Constants.WRITE_ASSETS_ROLE})
+    @Operation(operationId = "mergeAssets", summary = "Create or update many assets")
+    AssetMergeResult[] mergeAll(@BeanParam RequestParams requestParams, Asset<?>[] assets);
+
     /**
      * Deletes an asset. Regular users can only delete assets in their authenticated realm, the superuser can delete
      * assets in other (all) realms. A 403 status is returned if a regular user tries to delete an asset in a realm
@@ -304,6 +343,18 @@ public interface AssetResource {
     @Operation(operationId = "deleteAsset", summary = "Delete assets")
     void delete(@BeanParam RequestParams requestParams, @QueryParam("assetId") List<String> assetIds);
 
+    /**
+     * Deletes assets and all of their descendants. Regular users can only delete assets in their authenticated realm,
+     * the superuser can delete assets in other (all) realms. A 403 status is returned if a regular user tries to delete
+     * an asset in a realm different than its authenticated realm, or if the user is restricted.
+     */
+    @DELETE
+    @Path("tree")
+    @Produces(APPLICATION_JSON)
+    @RolesAllowed({Constants.WRITE_ASSETS_ROLE})
+    @Operation(operationId = "deleteAssetTree", summary = "Delete assets and their descendants")
+    void deleteTree(@BeanParam RequestParams requestParams, @QueryParam("assetId") List<String> assetIds);
+
     /**
      * Retrieve assets using an {@link AssetQuery}.
      * <p>
@@ -312,6 +363,10 @@ public interface AssetResource {
      * assets must be linked to the user. An empty result is returned if the user does not have access to the assets.
      * What is populated on the returned assets is determined by the
      * {@link AssetQuery#select} value.
+     * <p>
+     * Large result sets can be retrieved in pages by setting {@link AssetQuery#limit}; when the page is full the
+     * {@value #NEXT_CURSOR_HEADER} response header contains the {@link AssetQuery#cursor} to use to retrieve the next
+     * page with the same query.
      */
     @POST
     @Path("query")
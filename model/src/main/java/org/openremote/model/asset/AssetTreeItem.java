@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.asset;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A slim representation of an {@link Asset} in the asset tree; {@link #children} is only populated when the node has
+ * been expanded, otherwise {@link #childCount} can be used to determine whether the node can be expanded.
+ */
+@JsonIgnoreProperties(value = "hasChildren", allowGetters = true)
+public class AssetTreeItem {
+
+    protected String id;
+    protected String name;
+    protected String type;
+    protected String parentId;
+    protected int childCount;
+    protected AssetTreeItem[] children;
+
+    @JsonCreator
+    public AssetTreeItem(@JsonProperty("id") String id,
+                         @JsonProperty("name") String name,
+                         @JsonProperty("type") String type,
+                         @JsonProperty("parentId") String parentId,
+                         @JsonProperty("childCount") int childCount,
+                         @JsonProperty("children") AssetTreeItem[] children) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.parentId = parentId;
+        this.childCount = childCount;
+        this.children = children;
+    }
+
+    public AssetTreeItem(String id, String name, String type, String parentId) {
+        this(id, name, type, parentId, 0, null);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public int getChildCount() {
+        return childCount;
+    }
+
+    public AssetTreeItem setChildCount(int childCount) {
+        this.childCount = childCount;
+        return this;
+    }
+
+    @JsonProperty("hasChildren")
+    public boolean hasChildren() {
+        return childCount > 0;
+    }
+
+    public AssetTreeItem[] getChildren() {
+        return children;
+    }
+
+    public AssetTreeItem setChildren(AssetTreeItem[] children) {
+        this.children = children;
+        this.childCount = children != null ? children.length : 0;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "id='" + id + '\'' +
+            ", name='" + name + '\'' +
+            ", type='" + type + '\'' +
+            ", parentId='" + parentId + '\'' +
+            ", childCount=" + childCount +
+            '}';
+    }
+}
@@ -72,6 +72,17 @@ public abstract class AgentLink<T extends AgentLink<?>> implements Serializable
     protected ValueFilter[] messageMatchFilters;
     @JsonPropertyDescription("Don't expect a response from the protocol just update the attribute immediately on write")
     protected Boolean updateOnWrite;
+    @JsonPropertyDescription("Numeric inbound values that differ from the last sent value by less than this amount are" +
+        " ignored; used to filter out sensor noise")
+    protected Double deadband;
+    @JsonPropertyDescription("Numeric inbound values that differ from the last sent value by less than this percentage" +
+        " of the last sent value are ignored")
+    protected Double deadbandPercent;
+    @JsonPropertyDescription("Minimum time in milliseconds between inbound values; values received sooner after the last" +
+        " sent value are ignored")
+    protected Integer minUpdateMillis;
+    @JsonPropertyDescription("Ignore inbound values that are equal to the last sent value")
+    protected Boolean onlyOnChange;
 
     // For Hydrators
     protected AgentLink() {
@@ -167,4 +178,51 @@ public abstract class AgentLink<T extends AgentLink<?>> implements Serializable
         this.updateOnWrite = updateOnWrite;
         return (T) this;
     }
+
+    public Optional<Double> getDeadband() {
+        return Optional.ofNullable(deadband);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setDeadband(Double deadband) {
+        this.deadband = deadband;
+        return (T) this;
+    }
+
+    public Optional<Double> getDeadbandPercent() {
+        return Optional.ofNullable(deadbandPercent);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setDeadbandPercent(Double deadbandPercent) {
+        this.deadbandPercent = deadbandPercent;
+        return (T) this;
+    }
+
+    public Optional<Integer> getMinUpdateMillis() {
+        return Optional.ofNullable(minUpdateMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setMinUpdateMillis(Integer minUpdateMillis) {
+        this.minUpdateMillis = minUpdateMillis;
+        return (T) this;
+    }
+
+    public Optional<Boolean> getOnlyOnChange() {
+        return Optional.ofNullable(onlyOnChange);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setOnlyOnChange(Boolean onlyOnChange) {
+        this.onlyOnChange = onlyOnChange;
+        return (T) this;
+    }
+
+    /**
+     * @return true if any of the inbound update filters (deadband, minimum interval or only on change) are configured
+     */
+    public boolean hasUpdateFilter() {
+        return deadband != null || deadbandPercent != null || minUpdateMillis != null || Boolean.TRUE.equals(onlyOnChange);
+    }
 }
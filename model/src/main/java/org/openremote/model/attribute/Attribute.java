@@ -28,6 +28,7 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -63,6 +64,12 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
      */
     public static class AttributeDeserializer extends StdDeserializer<Attribute<?>> {
 
+        /**
+         * When this deserialization context attribute is {@link Boolean#TRUE} the value and meta of each attribute are
+         * kept as JSON trees and only deserialised on first access; this is used when loading assets from the DB as
+         * most callers only read one or two of the attributes.
+         */
+        public static final String LAZY_ATTRIBUTE = "lazyAttributes";
         protected static final JavaType META_MAP_TYPE = TypeFactory.defaultInstance().constructType(MetaMap.class);
         protected static final JavaType OBJECT_TYPE = TypeFactory.defaultInstance().constructType(Object.class);
         public static final System.Logger LOG = System.getLogger(AttributeDeserializer.class.getName() + "." + SyslogCategory.MODEL_AND_VALUES);
@@ -92,6 +99,7 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
             AssetTypeInfo assetTypeInfo = (AssetTypeInfo) ctxt.getAttribute(Asset.AssetDeserializer.ASSET_TYPE_INFO_ATTRIBUTE);
             String attributeName = jp.currentName();
             AttributeDescriptor<?> attributeDescriptor = assetTypeInfo != null ? assetTypeInfo.getAttributeDescriptors().get(attributeName) : null;
+            boolean lazy = Boolean.TRUE.equals(ctxt.getAttribute(LAZY_ATTRIBUTE));
             Attribute<?> attribute;
 
             if (attributeDescriptor != null) {
@@ -118,11 +126,15 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
                         }
                     }
                     case "meta" -> {
-                        // findNonContextualValueDeserializer is slow so caching the result to speed up deserialisation
-                        if (metaDeserialiser == null) {
-                            metaDeserialiser = ctxt.findNonContextualValueDeserializer(META_MAP_TYPE);
+                        if (lazy) {
+                            attribute.metaNode = ctxt.readTree(jp);
+                        } else {
+                            // findNonContextualValueDeserializer is slow so caching the result to speed up deserialisation
+                            if (metaDeserialiser == null) {
+                                metaDeserialiser = ctxt.findNonContextualValueDeserializer(META_MAP_TYPE);
+                            }
+                            attribute.meta = (MetaMap) metaDeserialiser.deserialize(jp, ctxt);
                         }
-                        attribute.meta = (MetaMap) metaDeserialiser.deserialize(jp, ctxt);
                     }
                     case "name" -> {
                         String name = jp.getValueAsString();
@@ -139,10 +151,10 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
 //                            continue;
 //                        }
                         ValueDescriptor<?> valueDescriptor = attribute.getType();
-                        if (valueDescriptor == null) {
-                            // We don't know the type so store the value as a string and hydrate on demand when value
-                            // type may be known (this occurs when hydrating assets from the DB)
-                            attribute.valueStr = jp.getCodec().readTree(jp).toString();
+                        if (lazy || valueDescriptor == null) {
+                            // We don't know the type or don't need the value yet so store the JSON tree and hydrate on
+                            // demand when value type may be known (this occurs when hydrating assets from the DB)
+                            attribute.valueNode = ctxt.readTree(jp);
                         } else {
                             try {
                                 ((Attribute) attribute).value = deserialiseValue(valueDescriptor, jp, ctxt);
@@ -164,7 +176,7 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
     }
 
     /**
-     * Custom serializer that can serialize valueStr (for attributes that haven't been fully hydrated)
+     * Custom serializer that can serialize valueNode and metaNode (for attributes that haven't been fully hydrated)
      */
     @SuppressWarnings("rawtypes")
     public static class AttributeSerializer extends StdSerializer<Attribute> {
@@ -182,10 +194,15 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
                 gen.writeFieldName("type");
                 gen.writeString(value.getType().getName());
             }
-            provider.defaultSerializeField("meta", value.meta, gen);
-            if (value.valueStr != null) {
+            if (value.metaNode != null) {
+                gen.writeFieldName("meta");
+                gen.writeTree(value.metaNode);
+            } else {
+                provider.defaultSerializeField("meta", value.meta, gen);
+            }
+            if (value.valueNode != null) {
                 gen.writeFieldName("value");
-                gen.writeRawValue(value.valueStr);
+                gen.writeTree(value.valueNode);
             } else {
                 provider.defaultSerializeField("value", value.value, gen);
             }
@@ -200,6 +217,8 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
     @JsonIgnore
     @Valid
     protected MetaMap meta;
+    @JsonIgnore
+    protected volatile JsonNode metaNode; // This is for lazy meta initialisation when deserialising
     @JsonInclude(JsonInclude.Include.NON_DEFAULT)
     protected long timestamp;
 
@@ -298,6 +317,7 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
     }
 
     public MetaMap getMeta() {
+        hydrateMeta();
         if (meta == null) {
             meta = new MetaMap();
         }
@@ -305,8 +325,9 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
         return meta;
     }
 
-    public Attribute<T> setMeta(MetaMap meta) {
+    public synchronized Attribute<T> setMeta(MetaMap meta) {
         this.meta = meta;
+        metaNode = null;
         return this;
     }
 
@@ -342,10 +363,7 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
     @SuppressWarnings("unchecked")
     @Override
     public Optional<T> getValue() {
-        if (valueStr != null) {
-            value = (T)ValueUtil.parse(valueStr, getTypeClass()).orElse(null);
-            valueStr = null;
-        }
+        hydrateValue();
         return Optional.ofNullable(value);
     }
 
@@ -359,12 +377,12 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
     }
 
     @Override
-    public void setValue(T value) {
+    public synchronized void setValue(T value) {
         super.setValue(value);
         timestamp = 0L;
     }
 
-    public void setValue(T value, long timestamp) {
+    public synchronized void setValue(T value, long timestamp) {
         super.setValue(value);
         this.timestamp = timestamp;
     }
@@ -382,6 +400,51 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
         return timestamp > 0;
     }
 
+    /**
+     * @return false if the value or meta of this attribute is still held as JSON and hasn't been deserialised yet.
+     */
+    public boolean isHydrated() {
+        return valueNode == null && metaNode == null;
+    }
+
+    // Hydration and the setters hold the attribute monitor so a value set concurrently can't be overwritten by the
+    // pending node; the node is cleared after the value is set so unsynchronised readers that see no node also see
+    // the value
+    @SuppressWarnings("unchecked")
+    protected void hydrateValue() {
+        if (valueNode == null) {
+            return;
+        }
+        synchronized (this) {
+            JsonNode node = valueNode;
+            if (node != null) {
+                try {
+                    value = (T) ValueUtil.JSON.treeToValue(node, ValueUtil.JSON.constructType(getTypeClass()));
+                } catch (Exception e) {
+                    AttributeDeserializer.LOG.log(System.Logger.Level.WARNING, "Failed to deserialise value of attribute: " + name, e);
+                }
+                valueNode = null;
+            }
+        }
+    }
+
+    protected void hydrateMeta() {
+        if (metaNode == null) {
+            return;
+        }
+        synchronized (this) {
+            JsonNode node = metaNode;
+            if (node != null) {
+                try {
+                    meta = ValueUtil.JSON.treeToValue(node, MetaMap.class);
+                } catch (Exception e) {
+                    AttributeDeserializer.LOG.log(System.Logger.Level.WARNING, "Failed to deserialise meta of attribute: " + name, e);
+                }
+                metaNode = null;
+            }
+        }
+    }
+
     // type is effectively transient so don't use in equality checks as JPA will think the entity is dirty just because
     // the type has been injected PostLoad
     // TODO: Restructure packages so this can be package visible
@@ -391,7 +454,7 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
 
     @Override
     public String toString() {
-        String valStr = value != null ? value.toString() : null;
+        String valStr = valueNode != null ? valueNode.toString() : value != null ? value.toString() : null;
         valStr = valStr != null && valStr.length() > 100 ? valStr.substring(0, 100) : valStr;
         return getClass().getSimpleName() + "{" +
             "name='" + name + '\'' +
@@ -405,14 +468,16 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
         return getClass().getSimpleName() + "{" +
             "name='" + name + '\'' +
             ", type='" + (type != null ? type.getName() : "null") + '\'' +
-            ", value='" + value + '\'' +
+            ", value='" + getValue().orElse(null) + '\'' +
             ", timestamp='" + getTimestamp().orElse(0L) + '\'' +
-            ", meta='" + (meta == null ? "" : getMeta().values().stream().map(MetaItem::toString).collect(Collectors.joining(","))) + '\'' +
+            ", meta='" + (meta == null && metaNode == null ? "" : getMeta().values().stream().map(MetaItem::toString).collect(Collectors.joining(","))) + '\'' +
             "} ";
     }
 
     @Override
     public int hashCode() {
+        hydrateValue();
+        hydrateMeta();
         return Objects.hash(value, name, timestamp, meta);
     }
 
@@ -440,13 +505,32 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
         if (o == null || getClass() != o.getClass()) return false;
         Attribute<?> that = (Attribute<?>) o;
 
-        return Objects.equals(timestamp, that.timestamp)
-            && Objects.equals(name, that.name)
-            && Objects.equals(type, that.type)
-            // Use uninitialized json value if available
-            && (valueStr != null && that.valueStr != null ? Objects.equals(valueStr, that.valueStr) : ValueUtil.objectsEqualsWithJSONFallback(value, that.value))
-            // null or empty meta are considered equal
-            && ((meta == null && that.meta != null && that.meta.isEmpty()) || (that.meta == null && meta != null && meta.isEmpty()) || Objects.equals(meta, that.meta));
+        if (!Objects.equals(timestamp, that.timestamp)
+            || !Objects.equals(name, that.name)
+            || !Objects.equals(type, that.type)) {
+            return false;
+        }
+
+        // Use uninitialized json value if available
+        if (valueNode != null && that.valueNode != null) {
+            if (!valueNode.equals(that.valueNode)) {
+                return false;
+            }
+        } else {
+            hydrateValue();
+            that.hydrateValue();
+            if (!ValueUtil.objectsEqualsWithJSONFallback(value, that.value)) {
+                return false;
+            }
+        }
+
+        if (metaNode != null && that.metaNode != null) {
+            return metaNode.equals(that.metaNode);
+        }
+        hydrateMeta();
+        that.hydrateMeta();
+        // null or empty meta are considered equal
+        return ((meta == null && that.meta != null && that.meta.isEmpty()) || (that.meta == null && meta != null && meta.isEmpty()) || Objects.equals(meta, that.meta));
     }
 
     public boolean equals(Object obj, Comparator<Attribute<?>> comparator) {
@@ -461,13 +545,15 @@ public class Attribute<T> extends AbstractNameValueHolder<T> implements MetaHold
         return comparator.compare(this, that) == 0;
     }
 
-    public Attribute<T> shallowClone() {
+    public synchronized Attribute<T> shallowClone() {
         Attribute<T> cloned = new Attribute<>();
         cloned.name = name;
         cloned.meta = meta;
+        cloned.metaNode = metaNode;
         cloned.type = type;
         cloned.timestamp = timestamp;
         cloned.value = value;
+        cloned.valueNode = valueNode;
         return cloned;
     }
 }
@@ -53,6 +53,11 @@ import org.openremote.model.alarm.AlarmEvent;
     @JsonSubTypes.Type(value = GatewayConnectionStatusEvent.class, name = "gateway-connection-status"),
     @JsonSubTypes.Type(value = GatewayCapabilitiesRequestEvent.class, name = GatewayCapabilitiesRequestEvent.TYPE),
     @JsonSubTypes.Type(value = GatewayCapabilitiesResponseEvent.class, name = GatewayCapabilitiesResponseEvent.TYPE),
+    @JsonSubTypes.Type(value = GatewayAssetSyncRequestEvent.class, name = GatewayAssetSyncRequestEvent.TYPE),
+    @JsonSubTypes.Type(value = GatewayAssetSyncResponseEvent.class, name = GatewayAssetSyncResponseEvent.TYPE),
+    @JsonSubTypes.Type(value = GatewayAttributeEventsEvent.class, name = GatewayAttributeEventsEvent.TYPE),
+    @JsonSubTypes.Type(value = GatewayEventReplayRequestEvent.class, name = GatewayEventReplayRequestEvent.TYPE),
+    @JsonSubTypes.Type(value = GatewayEventReplayResponseEvent.class, name = GatewayEventReplayResponseEvent.TYPE),
     @JsonSubTypes.Type(value = GatewayTunnelStartRequestEvent.class, name = "gateway-tunnel-start-request"),
     @JsonSubTypes.Type(value = GatewayTunnelStartResponseEvent.class, name = "gateway-tunnel-start-response"),
     @JsonSubTypes.Type(value = GatewayTunnelStopRequestEvent.class, name = "gateway-tunnel-stop-request"),
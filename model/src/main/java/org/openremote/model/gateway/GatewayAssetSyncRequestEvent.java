@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.Event;
+import org.openremote.model.event.RespondableEvent;
+import org.openremote.model.event.shared.SharedEvent;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Request the gateway to return a {@link GatewayAssetSyncResponseEvent} listing all of its assets and flagging those
+ * that have changed compared to the supplied asset versions (gateway asset ID to version) or that have attribute
+ * values with a timestamp after {@link #getSince}. Only sent to gateways that report
+ * {@link GatewayCapabilitiesResponseEvent#isAssetDeltaSyncSupported}.
+ */
+public class GatewayAssetSyncRequestEvent extends SharedEvent implements RespondableEvent {
+
+    public static final String TYPE = "gateway-asset-sync-request";
+    protected Map<String, Long> assetVersions;
+    protected Long since;
+    @JsonIgnore
+    protected Consumer<Event> responseConsumer;
+
+    @JsonCreator
+    public GatewayAssetSyncRequestEvent(@JsonProperty("assetVersions") Map<String, Long> assetVersions, @JsonProperty("since") Long since) {
+        this.assetVersions = assetVersions;
+        this.since = since;
+    }
+
+    public Map<String, Long> getAssetVersions() {
+        return assetVersions;
+    }
+
+    /**
+     * Gateway timestamp after which any attribute value change marks the asset as changed; if null then all assets
+     * are treated as changed.
+     */
+    public Long getSince() {
+        return since;
+    }
+
+    @Override
+    public Consumer<Event> getResponseConsumer() {
+        return responseConsumer;
+    }
+
+    @Override
+    public void setResponseConsumer(Consumer<Event> responseConsumer) {
+        this.responseConsumer = responseConsumer;
+    }
+
+    @Override
+    public String toString() {
+        return GatewayAssetSyncRequestEvent.class.getSimpleName() + "{" +
+            "assetVersions=" + (assetVersions == null ? "null" : assetVersions.size()) +
+            ", since=" + since +
+            '}';
+    }
+}
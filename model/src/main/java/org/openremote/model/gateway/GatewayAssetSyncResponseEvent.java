@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.shared.SharedEvent;
+
+import java.util.List;
+
+/**
+ * This event is used in response to a {@link GatewayAssetSyncRequestEvent}; it lists every asset of the gateway
+ * (without attributes) so the central manager can order and prune its copy, and flags the assets that have changed
+ * and need to be loaded. Large listings are sent in {@link #getDeflated} as a Base64 encoded deflated JSON array
+ * instead of {@link #getAssets}.
+ */
+public class GatewayAssetSyncResponseEvent extends SharedEvent {
+
+    public static final String TYPE = "gateway-asset-sync-response";
+
+    public static class AssetSyncState {
+        protected String id;
+        protected String parentId;
+        protected long version;
+        protected boolean changed;
+
+        @JsonCreator
+        public AssetSyncState(@JsonProperty("id") String id, @JsonProperty("parentId") String parentId, @JsonProperty("version") long version, @JsonProperty("changed") boolean changed) {
+            this.id = id;
+            this.parentId = parentId;
+            this.version = version;
+            this.changed = changed;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isChanged() {
+            return changed;
+        }
+    }
+
+    protected List<AssetSyncState> assets;
+    protected String deflated;
+
+    @JsonCreator
+    public GatewayAssetSyncResponseEvent(@JsonProperty("timestamp") long timestamp, @JsonProperty("assets") List<AssetSyncState> assets, @JsonProperty("deflated") String deflated) {
+        super(timestamp);
+        this.assets = assets;
+        this.deflated = deflated;
+    }
+
+    public GatewayAssetSyncResponseEvent(long timestamp, List<AssetSyncState> assets) {
+        this(timestamp, assets, null);
+    }
+
+    public List<AssetSyncState> getAssets() {
+        return assets;
+    }
+
+    public String getDeflated() {
+        return deflated;
+    }
+
+    @Override
+    public String toString() {
+        return GatewayAssetSyncResponseEvent.class.getSimpleName() + "{" +
+            "timestamp=" + timestamp +
+            ", assets=" + (assets == null ? "null" : assets.size()) +
+            ", deflated=" + (deflated == null ? "null" : deflated.length()) +
+            '}';
+    }
+}
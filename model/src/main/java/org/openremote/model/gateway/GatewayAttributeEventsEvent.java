@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.event.shared.SharedEvent;
+
+import java.util.List;
+
+/**
+ * Envelope used by a gateway to forward a batch of {@link AttributeEvent}s to the central manager in a single
+ * websocket message; the events are either contained in {@link #getEvents} or, when compression is used, in
+ * {@link #getDeflated} as a Base64 encoded deflated JSON array. Only sent to central managers that report
+ * {@link GatewayCapabilitiesRequestEvent#isAttributeEventsBatchSupported}.
+ */
+public class GatewayAttributeEventsEvent extends SharedEvent {
+
+    public static final String TYPE = "gateway-attribute-events";
+    protected List<AttributeEvent> events;
+    protected String deflated;
+
+    @JsonCreator
+    public GatewayAttributeEventsEvent(@JsonProperty("events") List<AttributeEvent> events, @JsonProperty("deflated") String deflated) {
+        this.events = events;
+        this.deflated = deflated;
+    }
+
+    public GatewayAttributeEventsEvent(List<AttributeEvent> events) {
+        this(events, null);
+    }
+
+    public List<AttributeEvent> getEvents() {
+        return events;
+    }
+
+    public String getDeflated() {
+        return deflated;
+    }
+
+    @Override
+    public String toString() {
+        return GatewayAttributeEventsEvent.class.getSimpleName() + "{" +
+            "events=" + (events == null ? "null" : events.size()) +
+            ", deflated=" + (deflated == null ? "null" : deflated.length()) +
+            '}';
+    }
+}
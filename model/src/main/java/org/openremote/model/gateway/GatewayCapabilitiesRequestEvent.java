@@ -16,18 +16,35 @@ import java.util.function.Consumer;
 public class GatewayCapabilitiesRequestEvent extends SharedEvent implements RespondableEvent {
 
     public static final String TYPE = "gateway-capabilities-request";
+    protected boolean attributeEventsBatchSupported;
     @JsonIgnore
     protected Consumer<Event> responseConsumer;
 
     @JsonCreator
-    public GatewayCapabilitiesRequestEvent(@JsonProperty("timestamp") Date timestamp) {
+    public GatewayCapabilitiesRequestEvent(@JsonProperty("timestamp") Date timestamp, @JsonProperty("attributeEventsBatchSupported") boolean attributeEventsBatchSupported) {
         super(timestamp != null ? timestamp.getTime() : new Date().getTime());
+        this.attributeEventsBatchSupported = attributeEventsBatchSupported;
+    }
+
+    public GatewayCapabilitiesRequestEvent(Date timestamp) {
+        this(timestamp, false);
     }
 
     public GatewayCapabilitiesRequestEvent() {
 
     }
 
+    public GatewayCapabilitiesRequestEvent(boolean attributeEventsBatchSupported) {
+        this.attributeEventsBatchSupported = attributeEventsBatchSupported;
+    }
+
+    /**
+     * Indicates the central manager accepts {@link GatewayAttributeEventsEvent}s from the gateway
+     */
+    public boolean isAttributeEventsBatchSupported() {
+        return attributeEventsBatchSupported;
+    }
+
     @Override
     public Consumer<Event> getResponseConsumer() {
         return responseConsumer;
@@ -10,18 +10,47 @@ public class GatewayCapabilitiesResponseEvent extends SharedEvent {
 
     public static final String TYPE = "gateway-capabilities-response";
     protected final boolean tunnelingSupported;
+    protected final boolean assetDeltaSyncSupported;
+    protected final boolean eventReplaySupported;
 
     @JsonCreator
-    public GatewayCapabilitiesResponseEvent(@JsonProperty("timestamp") Date timestamp, @JsonProperty("tunnelingSupported") boolean tunnelingSupported) {
+    public GatewayCapabilitiesResponseEvent(@JsonProperty("timestamp") Date timestamp, @JsonProperty("tunnelingSupported") boolean tunnelingSupported, @JsonProperty("assetDeltaSyncSupported") boolean assetDeltaSyncSupported, @JsonProperty("eventReplaySupported") boolean eventReplaySupported) {
         super(timestamp != null ? timestamp.getTime() : new Date().getTime());
         this.tunnelingSupported = tunnelingSupported;
+        this.assetDeltaSyncSupported = assetDeltaSyncSupported;
+        this.eventReplaySupported = eventReplaySupported;
     }
 
     public GatewayCapabilitiesResponseEvent(final boolean tunnelingSupported) {
+        this(tunnelingSupported, false);
+    }
+
+    public GatewayCapabilitiesResponseEvent(final boolean tunnelingSupported, final boolean assetDeltaSyncSupported) {
+        this(tunnelingSupported, assetDeltaSyncSupported, false);
+    }
+
+    public GatewayCapabilitiesResponseEvent(final boolean tunnelingSupported, final boolean assetDeltaSyncSupported, final boolean eventReplaySupported) {
         this.tunnelingSupported = tunnelingSupported;
+        this.assetDeltaSyncSupported = assetDeltaSyncSupported;
+        this.eventReplaySupported = eventReplaySupported;
     }
 
     public boolean isTunnelingSupported() {
         return tunnelingSupported;
     }
+
+    /**
+     * Indicates the gateway can respond to a {@link GatewayAssetSyncRequestEvent}
+     */
+    public boolean isAssetDeltaSyncSupported() {
+        return assetDeltaSyncSupported;
+    }
+
+    /**
+     * Indicates the gateway queues events whilst disconnected and can respond to a
+     * {@link GatewayEventReplayRequestEvent}
+     */
+    public boolean isEventReplaySupported() {
+        return eventReplaySupported;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.Event;
+import org.openremote.model.event.RespondableEvent;
+import org.openremote.model.event.shared.SharedEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Request the gateway to replay the events it has queued whilst disconnected, the gateway responds with a
+ * {@link GatewayEventReplayResponseEvent} once all queued events have been sent. {@link #getSince} is the latest
+ * gateway timestamp the central manager has seen and allows the gateway to determine whether any events were lost.
+ * Only sent to gateways that report {@link GatewayCapabilitiesResponseEvent#isEventReplaySupported}.
+ */
+public class GatewayEventReplayRequestEvent extends SharedEvent implements RespondableEvent {
+
+    public static final String TYPE = "gateway-event-replay-request";
+    protected Long since;
+    @JsonIgnore
+    protected Consumer<Event> responseConsumer;
+
+    @JsonCreator
+    public GatewayEventReplayRequestEvent(@JsonProperty("since") Long since) {
+        this.since = since;
+    }
+
+    public Long getSince() {
+        return since;
+    }
+
+    @Override
+    public Consumer<Event> getResponseConsumer() {
+        return responseConsumer;
+    }
+
+    @Override
+    public void setResponseConsumer(Consumer<Event> responseConsumer) {
+        this.responseConsumer = responseConsumer;
+    }
+
+    @Override
+    public String toString() {
+        return GatewayEventReplayRequestEvent.class.getSimpleName() + "{" +
+            "since=" + since +
+            '}';
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.shared.SharedEvent;
+
+/**
+ * Sent by the gateway once all queued events have been replayed in response to a
+ * {@link GatewayEventReplayRequestEvent}; if {@link #isComplete} is false then events were lost (e.g. the queue size
+ * or age limits were exceeded) and the central manager must perform an asset sync.
+ */
+public class GatewayEventReplayResponseEvent extends SharedEvent {
+
+    public static final String TYPE = "gateway-event-replay-response";
+    protected boolean complete;
+    protected int count;
+
+    @JsonCreator
+    public GatewayEventReplayResponseEvent(@JsonProperty("complete") boolean complete, @JsonProperty("count") int count) {
+        this.complete = complete;
+        this.count = count;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * The number of events that were replayed
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return GatewayEventReplayResponseEvent.class.getSimpleName() + "{" +
+            "complete=" + complete +
+            ", count=" + count +
+            '}';
+    }
+}
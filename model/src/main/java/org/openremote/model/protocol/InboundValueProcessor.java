@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.protocol;
+
+import org.openremote.model.asset.agent.AgentLink;
+import org.openremote.model.attribute.Attribute;
+import org.openremote.model.attribute.AttributeLink;
+import org.openremote.model.syslog.SyslogCategory;
+import org.openremote.model.util.TsIgnore;
+import org.openremote.model.util.ValueUtil;
+import org.openremote.model.value.JsonPathFilter;
+import org.openremote.model.value.ValueFilter;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
+import static org.openremote.model.util.ValueUtil.NULL_LITERAL;
+
+/**
+ * The standard inbound value processing (Protocol -> Linked Attribute) of an {@link AgentLink} compiled for a linked
+ * {@link Attribute}; the value filters, value converter and built in type conversion are resolved once when the
+ * attribute is linked so that {@link #process} doesn't have to re-interpret them for every inbound message. The result
+ * is the same as {@link ProtocolUtil#doInboundValueProcessing}.
+ * <p>
+ * A processor must be re-compiled if the agent link or attribute type changes.
+ */
+@TsIgnore
+public final class InboundValueProcessor {
+
+    /**
+     * Returned by {@link #process} when the inbound value should be ignored (i.e. drop the inbound message).
+     */
+    public static final Object IGNORE = new Object();
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, InboundValueProcessor.class);
+    private static final Object NULL = new Object();
+    private static final Object NEGATE = new Object();
+
+    private final String assetId;
+    private final String attributeName;
+    private final ValueFilter[] filters;
+    // Converter values are stored with IGNORE/NULL/NEGATE markers in place of the special string values
+    private final Map<String, Object> converter;
+    private final Object defaultConverterValue;
+    private final Class<?> toType;
+    private final Function<Object, Object> typeConverter;
+
+    private InboundValueProcessor(String assetId, Attribute<?> attribute, AgentLink<?> agentLink) {
+        this.assetId = assetId;
+        this.attributeName = attribute.getName();
+        this.filters = agentLink.getValueFilters().map(ValueFilter[]::clone).orElse(null);
+        this.toType = attribute.getTypeClass();
+        this.typeConverter = getTypeConverter(toType);
+
+        Map<String, Object> converter = agentLink.getValueConverter().orElse(null);
+
+        if (converter == null) {
+            this.converter = null;
+            this.defaultConverterValue = null;
+        } else {
+            this.converter = new HashMap<>(converter.size());
+            converter.forEach((key, value) -> {
+                if (!"*".equals(key)) {
+                    this.converter.put(key, compileConverterValue(value));
+                }
+            });
+            Object defaultValue = converter.get("*");
+            this.defaultConverterValue = AttributeLink.ConverterType.NEGATE.getValue().equals(defaultValue) ? NEGATE : defaultValue;
+        }
+
+        if (filters != null) {
+            for (ValueFilter filter : filters) {
+                if (filter instanceof JsonPathFilter jsonPathFilter && jsonPathFilter.path != null && !jsonPathFilter.path.isEmpty()) {
+                    try {
+                        jsonPathFilter.getCompiledPath();
+                    } catch (Exception e) {
+                        LOG.warning("Invalid JSON path value filter for attribute: assetId=" + assetId + ", attribute=" + attributeName + ", path=" + jsonPathFilter.path);
+                    }
+                }
+            }
+        }
+    }
+
+    public static InboundValueProcessor compile(String assetId, Attribute<?> attribute, AgentLink<?> agentLink) {
+        return new InboundValueProcessor(assetId, attribute, agentLink);
+    }
+
+    /**
+     * @return The processed value or {@link #IGNORE} if the value should be ignored
+     */
+    public Object process(Object value) {
+
+        // value filtering
+        if (filters != null && value != null) {
+            for (ValueFilter filter : filters) {
+                value = filter.filter(value);
+                if (value == null) {
+                    break;
+                }
+            }
+            if (value == null) {
+                LOG.info("Value filters generated a null value for attribute: assetId=" + assetId + ", attribute=" + attributeName);
+            }
+        }
+
+        // value conversion
+        if (converter != null) {
+            value = convert(value);
+            if (value == IGNORE) {
+                return IGNORE;
+            }
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        // built in value conversion
+        Class<?> fromType = value.getClass();
+
+        if (toType != fromType) {
+            value = typeConverter.apply(value);
+
+            if (value == null) {
+                LOG.warning("Failed to convert value: " + fromType + " -> " + toType);
+                LOG.warning("Cannot send linked attribute update: assetId=" + assetId + ", attribute=" + attributeName);
+                return IGNORE;
+            }
+        }
+
+        return value;
+    }
+
+    private Object convert(Object value) {
+        String converterKey = value == null
+            ? NULL_LITERAL
+            : ValueUtil.getValueCoerced(value, String.class).map(str -> str.toUpperCase(Locale.ROOT)).orElse(NULL_LITERAL);
+        Object converterValue = converter.get(converterKey);
+
+        if (converterValue != null) {
+            return converterValue == NULL ? null : converterValue;
+        }
+
+        if (defaultConverterValue == null) {
+            return IGNORE;
+        }
+
+        if (defaultConverterValue == NEGATE && value != null) {
+            if (ValueUtil.isNumber(value.getClass())) {
+                return ValueUtil.getValueCoerced(value, Double.class).orElse(0D) * -1;
+            }
+            if (ValueUtil.isBoolean(value.getClass())) {
+                return !(ValueUtil.getValueCoerced(value, Boolean.class).orElse(false));
+            }
+        }
+
+        return defaultConverterValue == NEGATE ? AttributeLink.ConverterType.NEGATE.getValue() : defaultConverterValue;
+    }
+
+    private static Object compileConverterValue(Object value) {
+        if (value instanceof String str) {
+            if ("@IGNORE".equalsIgnoreCase(str)) {
+                return IGNORE;
+            }
+            if ("@NULL".equalsIgnoreCase(str)) {
+                return NULL;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Resolve the conversion to the attribute type; lossless numeric widening is done directly and everything else
+     * uses the standard value coercion.
+     */
+    private static Function<Object, Object> getTypeConverter(Class<?> toType) {
+        if (toType == Double.class) {
+            return value -> value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Short || value instanceof Byte
+                ? ((Number) value).doubleValue()
+                : coerce(value, toType);
+        }
+        if (toType == Long.class) {
+            return value -> value instanceof Integer || value instanceof Short || value instanceof Byte
+                ? ((Number) value).longValue()
+                : coerce(value, toType);
+        }
+        return value -> coerce(value, toType);
+    }
+
+    private static Object coerce(Object value, Class<?> toType) {
+        if (LOG.isLoggable(Level.FINEST)) {
+            LOG.finest("Applying built in attribute value conversion: " + value.getClass() + " -> " + toType);
+        }
+        return ValueUtil.getValueCoerced(value, toType).orElse(null);
+    }
+}
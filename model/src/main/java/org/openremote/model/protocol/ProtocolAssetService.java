@@ -25,6 +25,7 @@ import org.openremote.model.asset.agent.Agent;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.query.AssetQuery;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -64,6 +65,12 @@ public interface ProtocolAssetService {
      */
     void sendAttributeEvent(AttributeEvent attributeEvent);
 
+    /**
+     * Send multiple {@link AttributeEvent}s through the system as a single submission; events for the same asset are
+     * processed in the order supplied.
+     */
+    void sendAttributeEvents(Collection<AttributeEvent> attributeEvents);
+
     /**
      * Subscribe to changes of {@link Asset}s that are descendants of the agent.
      * <p>
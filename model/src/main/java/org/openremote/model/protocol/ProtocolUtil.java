@@ -36,7 +36,6 @@ import java.time.Instant;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -101,55 +100,43 @@ public final class ProtocolUtil {
 
     /**
      * Will perform standard value processing for inbound values (Protocol -> Linked Attribute); returning the processed
-     * value and a flag indicating whether the inbound value should be ignored (i.e. drop the inbound message).
+     * value and a flag indicating whether the inbound value should be ignored (i.e. drop the inbound message). Use an
+     * {@link InboundValueProcessor} to avoid re-compiling the processing for every value of the same linked attribute.
      */
     public static Pair<Boolean, Object> doInboundValueProcessing(String assetId, Attribute<?> attribute, AgentLink<?> agentLink, Object value) {
+        Object processedValue = InboundValueProcessor.compile(assetId, attribute, agentLink).process(value);
+        return processedValue == InboundValueProcessor.IGNORE ? new Pair<>(true, null) : new Pair<>(false, processedValue);
+    }
 
-        Pair<Boolean, Object> ignoreAndConvertedValue;
-        final AtomicReference<Object> valRef = new AtomicReference<>(value);
-
-        // value filtering
-        agentLink.getValueFilters().ifPresent(valueFilters -> {
-            LOG.finest("Applying attribute value filters to attribute: assetId=" + assetId + ", attribute=" + attribute.getName());
-            Object o = applyValueFilters(value, valueFilters);
-            if (o == null) {
-                LOG.info("Value filters generated a null value for attribute: assetId=" + assetId + ", attribute=" + attribute.getName());
-            }
-            valRef.set(o);
-        });
-
-        // value conversion
-        ignoreAndConvertedValue = agentLink.getValueConverter().map(converter -> {
-            LOG.finest("Applying attribute value converter to attribute: assetId=" + assetId + ", attribute=" + attribute.getName());
-            return applyValueConverter(valRef.get(), converter);
-        }).orElse(new Pair<>(false, valRef.get()));
+    /**
+     * Applies the inbound update filters of the {@link AgentLink} (see {@link AgentLink#hasUpdateFilter}) to a processed
+     * inbound value; returning true if the value should be ignored when compared to the last value sent for the linked
+     * attribute. A numeric value must exceed every configured deadband to be sent; deadbands are not applied to
+     * non-numeric values.
+     */
+    public static boolean isInboundValueFiltered(AgentLink<?> agentLink, Object lastValue, long lastTimestamp, Object value, long timestamp) {
 
-        if (ignoreAndConvertedValue.key) {
-            return ignoreAndConvertedValue;
+        if (agentLink.getMinUpdateMillis().map(minMillis -> timestamp - lastTimestamp < minMillis).orElse(false)) {
+            return true;
         }
 
-        valRef.set(ignoreAndConvertedValue.value);
-
-        if (valRef.get() == null) {
-            return new Pair<>(false, null);
+        if (agentLink.getOnlyOnChange().orElse(false) && ValueUtil.objectsEquals(lastValue, value)) {
+            return true;
         }
 
-        // built in value conversion
-        Class<?> toType = attribute.getTypeClass();
-        Class<?> fromType = valRef.get().getClass();
+        if (!(lastValue instanceof Number lastNumber) || !(value instanceof Number number)) {
+            return false;
+        }
 
-        if (toType != fromType) {
-            LOG.finest("Applying built in attribute value conversion: " + fromType + " -> " + toType);
-            valRef.set(ValueUtil.getValueCoerced(valRef.get(), toType).orElse(null));
+        double delta = Math.abs(number.doubleValue() - lastNumber.doubleValue());
 
-            if (valRef.get() == null) {
-                LOG.warning("Failed to convert value: " + fromType + " -> " + toType);
-                LOG.warning("Cannot send linked attribute update: assetId=" + assetId + ", attribute=" + attribute.getName());
-                return new Pair<>(true, null);
-            }
+        if (agentLink.getDeadband().map(deadband -> delta < deadband).orElse(false)) {
+            return true;
         }
 
-        return new Pair<>(false, valRef.get());
+        return agentLink.getDeadbandPercent()
+            .map(percent -> delta < Math.abs(lastNumber.doubleValue()) * percent / 100d)
+            .orElse(false);
     }
 
     @SuppressWarnings("unchecked")
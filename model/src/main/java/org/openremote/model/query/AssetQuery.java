@@ -184,6 +184,11 @@ public class AssetQuery implements Serializable {
     // Ordering
     public OrderBy orderBy;
     public int limit;
+    /**
+     * Opaque continuation token returned with a previous (limited) result page; when set only assets that sort after
+     * the last asset of that page are returned. The token is only valid for a query with the same {@link #orderBy}.
+     */
+    public String cursor;
 
     public AssetQuery() {
     }
@@ -385,6 +390,16 @@ public class AssetQuery implements Serializable {
         return this;
     }
 
+    public AssetQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public AssetQuery cursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
@@ -398,6 +413,8 @@ public class AssetQuery implements Serializable {
                 ", type=" + Arrays.toString(types) +
                 ", attribute=" + (attributes != null ? attributes.toString() : "null") +
                 ", orderBy=" + orderBy +
+                ", limit=" + limit +
+                ", cursor=" + cursor +
                 ", recursive=" + recursive +
                 '}';
     }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed size table of {@link ReentrantLock}s where each key is mapped to a stripe using its hash code so locking and
+ * unlocking a key doesn't allocate anything. Distinct keys can share a stripe so a thread that needs to hold the locks
+ * of several keys must acquire them together using {@link #lockAll} (which locks the stripes in ascending order so it
+ * cannot deadlock with other callers). Nesting is therefore only allowed for stripes the thread already holds; trying
+ * to lock any other stripe whilst holding a lock throws an {@link IllegalStateException} rather than risking a deadlock.
+ */
+public class StripedLock {
+
+    protected final ReentrantLock[] locks;
+    protected final LongAdder contended = new LongAdder();
+    // The number of locks held by each thread so nested locking of other stripes can be detected
+    protected final ThreadLocal<int[]> holdCounts = ThreadLocal.withInitial(() -> new int[1]);
+    protected final int mask;
+
+    /**
+     * @param stripes The minimum number of stripes; this is rounded up to the next power of two
+     * @param fair    Whether the stripe locks should use a fair ordering policy
+     */
+    public StripedLock(int stripes, boolean fair) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(fair);
+        }
+        mask = size - 1;
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    public int getStripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * @throws IllegalStateException if the thread already holds the lock of another stripe
+     */
+    public void lock(Object key) {
+        int stripe = getStripe(key);
+        checkNotNested(stripe);
+        lockStripe(stripe);
+    }
+
+    public void unlock(Object key) {
+        unlockStripe(getStripe(key));
+    }
+
+    /**
+     * Lock the stripes of all the specified keys in ascending order; the returned stripes must be passed to
+     * {@link #unlockAll} to release the locks.
+     *
+     * @throws IllegalStateException if the thread already holds the lock of a stripe that isn't being locked
+     */
+    public int[] lockAll(Collection<?> keys) {
+        int[] stripes = keys.stream().mapToInt(this::getStripe).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            checkNotNested(stripe);
+        }
+        int locked = 0;
+        try {
+            for (int stripe : stripes) {
+                lockStripe(stripe);
+                locked++;
+            }
+        } catch (RuntimeException e) {
+            unlockAll(Arrays.copyOf(stripes, locked));
+            throw e;
+        }
+        return stripes;
+    }
+
+    public void unlockAll(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            unlockStripe(stripes[i]);
+        }
+    }
+
+    /**
+     * @return The number of times a thread has had to wait for the lock of any stripe.
+     */
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    protected void checkNotNested(int stripe) {
+        if (holdCounts.get()[0] > 0 && !locks[stripe].isHeldByCurrentThread()) {
+            throw new IllegalStateException("Cannot lock stripe " + stripe + " whilst holding the lock of another stripe, the locks of several keys must be acquired together using lockAll");
+        }
+    }
+
+    protected void lockStripe(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        // tryLock would barge a fair lock so check the state instead; this is only used for the metrics
+        if (lock.isLocked() && !lock.isHeldByCurrentThread()) {
+            contended.increment();
+        }
+        lock.lock();
+        holdCounts.get()[0]++;
+    }
+
+    protected void unlockStripe(int stripe) {
+        locks[stripe].unlock();
+        holdCounts.get()[0]--;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "stripes=" + locks.length +
+            '}';
+    }
+}
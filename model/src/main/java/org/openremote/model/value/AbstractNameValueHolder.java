@@ -21,6 +21,7 @@ package org.openremote.model.value;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -41,7 +42,7 @@ public abstract class AbstractNameValueHolder<T> implements NameValueHolder<T>,
     @Valid
     protected T value;
     @JsonIgnore
-    protected String valueStr; // This is for lazy value initialisation when deserialising
+    protected volatile JsonNode valueNode; // This is for lazy value initialisation when deserialising
     @NotBlank(message = "{Asset.valueHolder.name.NotBlank}")
     @Pattern(regexp = "^\\w+$")
     protected String name;
@@ -86,7 +87,7 @@ public abstract class AbstractNameValueHolder<T> implements NameValueHolder<T>,
     @JsonProperty
     public void setValue(T value) {
         this.value = value;
-        valueStr = null;
+        valueNode = null;
     }
 
     @Override
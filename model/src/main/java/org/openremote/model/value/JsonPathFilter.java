@@ -20,9 +20,11 @@
 package org.openremote.model.value;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
@@ -30,6 +32,7 @@ import com.jayway.jsonpath.ParseContext;
 import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaTitle;
+import org.openremote.model.util.Pair;
 import org.openremote.model.util.TextUtil;
 import org.openremote.model.util.ValueUtil;
 
@@ -63,6 +66,10 @@ public class JsonPathFilter extends ValueFilter {
     @JsonProperty
     public boolean returnLast;
 
+    // The path is compiled on first use and re-compiled if the path is changed
+    @JsonIgnore
+    protected transient Pair<String, JsonPath> compiledPath;
+
     @JsonCreator
     public JsonPathFilter(@JsonProperty("path") String path,
                           @JsonProperty("returnFirst") boolean returnFirst,
@@ -78,17 +85,41 @@ public class JsonPathFilter extends ValueFilter {
             return null;
         }
 
-        String valueStr = ValueUtil.convert(value, String.class);
+        JsonPath jsonPath = getCompiledPath();
+        Object obj;
 
-        if (valueStr == null) {
-            return null;
-        }
+        // JSON object and array nodes can be read directly rather than being written and re-parsed
+        if (value instanceof ContainerNode<?> containerNode) {
+            obj = jsonPathParser.parse(containerNode).read(jsonPath);
+        } else {
+            String valueStr = ValueUtil.convert(value, String.class);
 
-        Object obj = jsonPathParser.parse(valueStr).read(path);
+            if (valueStr == null) {
+                return null;
+            }
+
+            obj = jsonPathParser.parse(valueStr).read(jsonPath);
+        }
 
         if ((returnFirst || returnLast) && obj instanceof ArrayNode arrayNode) {
             obj = arrayNode.get(returnFirst ? 0 : arrayNode.size() - 1);
         }
         return obj;
     }
+
+    /**
+     * @return The compiled JSON path expression; throws an {@link com.jayway.jsonpath.InvalidPathException} if the
+     * path is not valid
+     */
+    @JsonIgnore
+    public JsonPath getCompiledPath() {
+        String path = this.path;
+        Pair<String, JsonPath> compiled = compiledPath;
+
+        if (compiled == null || !compiled.key.equals(path)) {
+            compiled = new Pair<>(path, JsonPath.compile(path));
+            compiledPath = compiled;
+        }
+        return compiled.value;
+    }
 }
@@ -33,7 +33,11 @@ import org.openremote.model.value.ValueType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -42,6 +46,8 @@ import java.util.function.Consumer;
 public class MockProtocol extends AbstractProtocol<MockAgent, MockAgentLink> implements ProtocolAssetDiscovery {
 
     public static final String PROTOCOl_NAME = "Mock protocol";
+    // Agent name -> latch that the protocol start waits for; used to simulate a protocol that is slow to start
+    public static final Map<String, CountDownLatch> START_LATCHES = new ConcurrentHashMap<>();
     public List<AttributeEvent> protocolWriteAttributeEvents = new ArrayList<>();
     public List<String> protocolMethodCalls = new ArrayList<>();
     public boolean updateSensor = true;
@@ -56,6 +62,11 @@ public class MockProtocol extends AbstractProtocol<MockAgent, MockAgentLink> imp
         this.container = container;
         protocolMethodCalls.add("START");
 
+        CountDownLatch startLatch = START_LATCHES.get(agent.getName());
+        if (startLatch != null) {
+            startLatch.await(30, TimeUnit.SECONDS);
+        }
+
         if (!agent.getRequired().isPresent()) {
             throw new IllegalStateException("Agent required attribute is not defined");
         }
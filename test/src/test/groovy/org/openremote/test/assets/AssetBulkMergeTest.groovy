@@ -0,0 +1,314 @@
+package org.openremote.test.assets
+
+import org.apache.camel.builder.RouteBuilder
+import org.hibernate.Session
+import org.hibernate.SessionEventListener
+import org.openremote.container.message.MessageBrokerService
+import org.openremote.container.persistence.PersistenceService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.event.ClientEventService
+import org.openremote.manager.setup.SetupService
+import org.openremote.model.PersistenceEvent
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetEvent
+import org.openremote.model.asset.AssetMergeResult
+import org.openremote.model.asset.AssetResource
+import org.openremote.model.asset.impl.BuildingAsset
+import org.openremote.model.asset.impl.RoomAsset
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.query.AssetQuery
+import org.openremote.model.query.filter.ParentPredicate
+import org.openremote.model.query.filter.StringPredicate
+import org.openremote.model.util.UniqueIdentifierGenerator
+import org.openremote.setup.integration.KeycloakTestSetup
+import org.openremote.setup.integration.ManagerTestSetup
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Predicate
+
+import static org.openremote.container.persistence.PersistenceService.PERSISTENCE_TOPIC
+import static org.openremote.container.util.MapAccess.getString
+import static org.openremote.manager.security.ManagerIdentityProvider.OR_ADMIN_PASSWORD
+import static org.openremote.manager.security.ManagerIdentityProvider.OR_ADMIN_PASSWORD_DEFAULT
+import static org.openremote.model.Constants.*
+
+class AssetBulkMergeTest extends Specification implements ManagerContainerTrait {
+
+    def "Bulk merge assets"() {
+        given: "the server container is started with a small merge batch size"
+        def config = defaultConfig()
+        config.put(AssetStorageService.OR_ASSET_MERGE_BATCH_SIZE, "100")
+        def container = startContainer(config, defaultServices())
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+
+        and: "a building with many rooms where the children are listed before the parent"
+        def building = new BuildingAsset("Bulk building")
+            .setId(UniqueIdentifierGenerator.generateId())
+            .setRealm(keycloakTestSetup.realmMaster.name)
+        def rooms = (1..1000).collect {
+            new RoomAsset("Room " + it)
+                .setParent(building)
+                .setRealm(keycloakTestSetup.realmMaster.name)
+        }
+        def assets = new ArrayList(rooms)
+        assets.add(building)
+
+        and: "some invalid assets"
+        assets.add(new ThingAsset("No parent").setParentId(UniqueIdentifierGenerator.generateId()).setRealm(keycloakTestSetup.realmMaster.name))
+        assets.add(new ThingAsset("No realm"))
+
+        when: "the assets are merged in bulk"
+        def results = assetStorageService.merge(assets, false)
+
+        then: "a result should be returned for each asset in the same order"
+        results.size() == assets.size()
+        results.subList(0, 1001).every {it.failure == null && it.assetId != null}
+        results[1000].assetId == building.id
+        results[1001].failure != null
+        results[1002].failure != null
+
+        and: "the building and its rooms should be stored"
+        assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(building.id))).size() == 1000
+
+        when: "the stored rooms are updated in bulk"
+        def storedRooms = assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(building.id)))
+        storedRooms.each {it.setName(it.name + " updated")}
+        results = assetStorageService.merge(storedRooms, false)
+
+        then: "the rooms should be updated"
+        results.every {it.failure == null}
+        assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(building.id))).every {it.name.endsWith(" updated")}
+
+        when: "one room in a chunk is stale"
+        storedRooms = assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(building.id)))
+        storedRooms.each {it.setName(it.name + " again")}
+        storedRooms[0].setVersion(storedRooms[0].version - 1)
+        results = assetStorageService.merge(storedRooms, false)
+
+        then: "only the stale room should fail"
+        results[0].failure != null
+        results.subList(1, results.size()).every {it.failure == null}
+
+        when: "a chunk of new assets with assigned IDs is merged whilst counting the statements of its session"
+        def persistenceService = container.getService(PersistenceService.class)
+        def newThings = (1..100).collect {
+            new ThingAsset("Chunk thing " + it).setId(UniqueIdentifierGenerator.generateId()).setParent(building).setRealm(keycloakTestSetup.realmMaster.name)
+        } as List<Asset<?>>
+        def chunk = (0..<newThings.size()).toList()
+        def chunkResults = new AssetMergeResult[newThings.size()]
+        def mergeChunk = { List<Asset<?>> chunkAssets ->
+            def statements = new AtomicInteger()
+            persistenceService.doTransaction { em ->
+                em.unwrap(Session.class).addEventListeners(new SessionEventListener() {
+                    @Override
+                    void jdbcPrepareStatementStart() {
+                        statements.incrementAndGet()
+                    }
+                })
+                assetStorageService.mergeChunk(em, chunkAssets, chunk, false, { true } as Predicate<String>, chunkResults)
+            }
+            statements.get()
+        }
+        def insertStatements = mergeChunk(newThings)
+
+        then: "the assets should be inserted without selecting each of them first"
+        chunkResults.every {it.failure == null}
+        assetStorageService.findAll(new AssetQuery().ids(newThings.collect {it.id} as String[])).size() == newThings.size()
+        insertStatements < 10
+
+        when: "the chunk of assets is updated whilst counting the statements of its session"
+        def storedThings = assetStorageService.findAll(new AssetQuery().ids(newThings.collect {it.id} as String[]))
+        storedThings.each {it.setName(it.name + " updated")}
+        def updateStatements = mergeChunk(storedThings)
+
+        then: "the existing assets should be loaded with a single query rather than one per asset"
+        chunkResults.every {it.failure == null}
+        updateStatements < 10
+
+        when: "assets are merged in bulk through the asset resource"
+        def accessToken = authenticate(
+            container,
+            MASTER_REALM,
+            KEYCLOAK_CLIENT_ID,
+            MASTER_REALM_ADMIN_USER,
+            getString(container.getConfig(), OR_ADMIN_PASSWORD, OR_ADMIN_PASSWORD_DEFAULT)
+        ).token
+        def assetResource = getClientApiTarget(serverUri(serverPort), MASTER_REALM, accessToken).proxy(AssetResource.class)
+        def resourceResults = assetResource.mergeAll(null, [
+            new ThingAsset("Bulk thing 1").setParentId(managerTestSetup.smartOfficeId).setRealm(keycloakTestSetup.realmMaster.name),
+            new ThingAsset("Bulk thing 2")
+        ] as ThingAsset[])
+
+        then: "both assets should be created with the second asset in the authenticated realm"
+        resourceResults.length == 2
+        resourceResults.every {it.failure == null}
+        assetStorageService.find(resourceResults[1].assetId).realm == MASTER_REALM
+    }
+
+    def "Subtree move and delete"() {
+        given: "the server container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def clientEventService = container.getService(ClientEventService.class)
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "client asset events and internal subtree persistence events are recorded"
+        List<AssetEvent> assetEvents = new CopyOnWriteArrayList<>()
+        List<PersistenceEvent> subtreeEvents = new CopyOnWriteArrayList<>()
+        clientEventService.addSubscription(AssetEvent.class, null, { AssetEvent event -> assetEvents.add(event) })
+        container.getService(MessageBrokerService.class).getContext().addRoutes(new RouteBuilder() {
+            @Override
+            void configure() throws Exception {
+                from(PERSISTENCE_TOPIC)
+                    .routeId("Test-SubtreeEvents")
+                    .filter(header(AssetStorageService.HEADER_SUBTREE_EVENT).isNotNull())
+                    .process { subtreeEvents.add(it.getIn().getBody(PersistenceEvent.class)) }
+            }
+        })
+
+        and: "two buildings where the first has floors with rooms"
+        def realm = keycloakTestSetup.realmMaster.name
+        def building1 = new BuildingAsset("Building 1").setId(UniqueIdentifierGenerator.generateId()).setRealm(realm)
+        def building2 = new BuildingAsset("Building 2").setId(UniqueIdentifierGenerator.generateId()).setRealm(realm)
+        def floors = (1..3).collect {
+            new ThingAsset("Floor " + it).setId(UniqueIdentifierGenerator.generateId()).setParent(building1).setRealm(realm)
+        }
+        def rooms = floors.collectMany { floor ->
+            (1..50).collect { new RoomAsset(floor.name + " room " + it).setParent(floor).setRealm(realm) }
+        }
+        def assets = [building1, building2] + floors + rooms
+        assert assetStorageService.merge(assets, false).every {it.failure == null}
+        conditions.eventually {
+            assert assetEvents.count {it.cause == AssetEvent.Cause.CREATE && it.id in assets.collect {it.id}} == assets.size()
+        }
+        assetEvents.clear()
+
+        when: "a floor is moved to the second building"
+        assetStorageService.moveSubtree([floors[0].id], building2.id)
+
+        then: "the floor and its rooms should have updated paths"
+        def movedFloor = assetStorageService.find(floors[0].id)
+        movedFloor.parentId == building2.id
+        movedFloor.path == [floors[0].id, building2.id] as String[]
+        assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(floors[0].id))).every {
+            it.path.length == 3 && it.path[2] == building2.id
+        }
+
+        and: "clients should only be sent an event for the moved floor"
+        conditions.eventually {
+            assert assetEvents.size() == 1
+            assert assetEvents[0].cause == AssetEvent.Cause.UPDATE
+            assert assetEvents[0].id == floors[0].id
+            assert assetEvents[0].updatedProperties as List == ["parentId", "path"]
+        }
+
+        and: "internal consumers should be notified of the new path of the floor and each of its rooms"
+        conditions.eventually {
+            assert subtreeEvents.size() == 51
+            def roomEvents = subtreeEvents.findAll {it.entity.id != floors[0].id}
+            assert roomEvents.every {
+                it.cause == PersistenceEvent.Cause.UPDATE
+                    && it.getCurrentState("path") == [it.entity.id, floors[0].id, building2.id] as String[]
+                    && it.getPreviousState("path") == [it.entity.id, floors[0].id, building1.id] as String[]
+            }
+        }
+
+        when: "a building is moved into its own descendant"
+        assetStorageService.moveSubtree([building2.id], floors[0].id)
+
+        then: "the move should be rejected"
+        thrown(IllegalStateException)
+
+        when: "assets are deleted without all of their descendants"
+        def deleted = assetStorageService.delete([building1.id, floors[1].id])
+
+        then: "nothing should be deleted"
+        !deleted
+        assetStorageService.find(building1.id) != null
+
+        when: "the first building subtree is deleted"
+        assetEvents.clear()
+        subtreeEvents.clear()
+        deleted = assetStorageService.deleteSubtree([building1.id, floors[1].id], false)
+
+        then: "the building, its floors and rooms should be deleted"
+        deleted
+        assetStorageService.find(building1.id) == null
+        assetStorageService.findAll(new AssetQuery().ids(floors.subList(1, 3).collect {it.id} as String[])).isEmpty()
+        assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(floors[1].id))).isEmpty()
+
+        and: "clients should only be sent an event for the building"
+        conditions.eventually {
+            assert assetEvents.size() == 1
+            assert assetEvents[0].cause == AssetEvent.Cause.DELETE
+            assert assetEvents[0].id == building1.id
+        }
+
+        and: "internal consumers should be notified of every deleted asset"
+        conditions.eventually {
+            assert subtreeEvents.size() == 103
+            assert subtreeEvents.every {it.cause == PersistenceEvent.Cause.DELETE}
+        }
+
+        and: "the moved floor should remain"
+        assetStorageService.findAll(new AssetQuery().parents(new ParentPredicate(floors[0].id))).size() == 50
+    }
+
+    def "Bulk merge chunk failures with concurrent merges of new assets"() {
+        given: "the server container is started with a small merge batch size"
+        def config = defaultConfig()
+        config.put(AssetStorageService.OR_ASSET_MERGE_BATCH_SIZE, "20")
+        def container = startContainer(config, defaultServices())
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def realm = keycloakTestSetup.realmMaster.name
+
+        and: "some stored assets"
+        def results = assetStorageService.merge((1..200).collect {new ThingAsset("Concurrent thing " + it).setRealm(realm)}, false)
+        assert results.every {it.failure == null}
+        def ids = results.collect {it.assetId} as String[]
+
+        when: "bulk merges where every chunk contains a stale asset and new assets run concurrently with merges of new assets"
+        def executor = Executors.newFixedThreadPool(8)
+        def bulkFutures = (1..4).collect {n ->
+            executor.submit({
+                def assets = []
+                assetStorageService.findAll(new AssetQuery().ids(ids)).eachWithIndex {asset, i ->
+                    asset.setName(asset.name + " " + n)
+                    assets.add(asset)
+                    if (i % 20 == 0) {
+                        // A stale asset fails the chunk and a new asset (without an ID) is then merged individually
+                        asset.setVersion(asset.version - 1)
+                        assets.add(new ThingAsset("Bulk new thing " + n + " " + i).setRealm(realm))
+                    }
+                }
+                assetStorageService.merge(assets, false)
+            } as Callable)
+        }
+        def singleFutures = (1..4).collect {n ->
+            executor.submit({
+                (1..50).collect {assetStorageService.merge(new ThingAsset("Single new thing " + n + " " + it).setRealm(realm))}
+            } as Callable)
+        }
+
+        then: "every merge should complete without deadlocking"
+        bulkFutures.every {it.get(60, TimeUnit.SECONDS).size() == 210}
+        singleFutures.every {it.get(60, TimeUnit.SECONDS).every {asset -> asset.id != null}}
+
+        and: "the new assets of the failed chunks should have been merged"
+        assetStorageService.findAll(new AssetQuery().names(new StringPredicate(AssetQuery.Match.BEGIN, "Bulk new thing "))).size() == 40
+
+        cleanup: "the executor is stopped"
+        executor?.shutdownNow()
+    }
+}
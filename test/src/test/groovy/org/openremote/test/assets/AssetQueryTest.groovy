@@ -21,6 +21,8 @@ import org.openremote.model.query.AssetQuery
 import org.openremote.model.query.AssetQuery.OrderBy
 import org.openremote.model.query.LogicGroup
 import org.openremote.model.query.filter.*
+import org.openremote.model.value.AttributeDescriptor
+import org.openremote.model.value.ValueType
 import org.openremote.test.ManagerContainerTrait
 import spock.lang.Shared
 import spock.lang.Specification
@@ -908,6 +910,20 @@ class AssetQueryTest extends Specification implements ManagerContainerTrait {
         assets.any {it.id == managerTestSetup.lobbyId}
         assets.any {it.name == "Lobby"}
 
+        when: "the same query is executed without selecting attributes"
+        assets = assetStorageService.findAll(
+            new AssetQuery()
+                .select(new Select().excludeAttributes())
+                .realm(new RealmPredicate(keycloakTestSetup.realmMaster.name))
+                .attributes(new AttributePredicate(new StringPredicate("test"), new CalendarEventPredicate(new Date(1517849400000)))) // 05/02/2018 @ 4:50pm (UTC))
+                .orderBy(new OrderBy(NAME))
+        )
+
+        then: "the recurrence should be evaluated by the database and only the lobby asset returned"
+        assets.size() == 1
+        assets[0].id == managerTestSetup.lobbyId
+        assets[0].attributes.isEmpty()
+
         when: "a calendar event filtering query is executed for some time after the last occurrence"
         assets = assetStorageService.findAll(
             new AssetQuery()
@@ -993,4 +1009,159 @@ class AssetQueryTest extends Specification implements ManagerContainerTrait {
         assets.size() == 1
         assets[0].id == lobby.id
     }
+
+    def "Paged and streamed queries"() {
+
+        given: "a query for all master realm assets ordered by name"
+        def allAssets = assetStorageService.findAll(
+            new AssetQuery()
+                .select(new Select().excludeAttributes())
+                .realm(new RealmPredicate(keycloakTestSetup.realmMaster.name))
+                .orderBy(new OrderBy(NAME))
+        )
+
+        when: "the same query is retrieved in pages using the cursor of each page"
+        def pagedAssets = []
+        String cursor = null
+        def pages = 0
+        while (true) {
+            def query = new AssetQuery()
+                .select(new Select().excludeAttributes())
+                .realm(new RealmPredicate(keycloakTestSetup.realmMaster.name))
+                .orderBy(new OrderBy(NAME))
+                .limit(3)
+                .cursor(cursor)
+            def page = assetStorageService.findAll(query)
+            pagedAssets.addAll(page)
+            pages++
+            if (page.size() < 3) {
+                break
+            }
+            cursor = AssetStorageService.getCursor(query, page.last())
+        }
+
+        then: "every asset should be returned exactly once"
+        pages > 1
+        pagedAssets.size() == allAssets.size()
+        pagedAssets.collect {it.id}.toSet() == allAssets.collect {it.id}.toSet()
+        pagedAssets.collect {it.name} == allAssets.collect {it.name}
+
+        when: "a cursor is used with a different order by"
+        assetStorageService.findAll(
+            new AssetQuery()
+                .realm(new RealmPredicate(keycloakTestSetup.realmMaster.name))
+                .orderBy(new OrderBy(CREATED_ON))
+                .cursor(AssetStorageService.getCursor(new AssetQuery().orderBy(new OrderBy(NAME)), allAssets.first()))
+        )
+
+        then: "the query should be rejected"
+        thrown(IllegalArgumentException)
+
+        when: "the query results are streamed"
+        def streamedIds = assetStorageService.findAll(
+            new AssetQuery()
+                .select(new Select().excludeAttributes())
+                .realm(new RealmPredicate(keycloakTestSetup.realmMaster.name))
+                .orderBy(new OrderBy(NAME)),
+            { stream -> stream.map {it.id}.toList() }
+        )
+
+        then: "the same assets should be returned"
+        streamedIds.size() == allAssets.size()
+        streamedIds.toSet() == allAssets.collect {it.id}.toSet()
+    }
+
+    def "Attribute projection queries"() {
+
+        when: "a typed asset is requested with only some attributes"
+        def room = assetStorageService.findWithAttributes(managerTestSetup.apartment1LivingroomId, RoomAsset.class, new AttributeDescriptor<>("motionSensor", ValueType.NUMBER))
+
+        then: "the asset should only contain the requested attribute"
+        room != null
+        room.name == "Living Room 1"
+        room.attributes.size() == 1
+        room.getAttribute("motionSensor").isPresent()
+        !room.getAttribute("currentTemperature").isPresent()
+
+        and: "no asset should be returned when the type doesn't match"
+        assetStorageService.findWithAttributes(managerTestSetup.apartment1LivingroomId, BuildingAsset.class, BuildingAsset.EMAIL) == null
+
+        and: "no asset should be returned when it doesn't exist"
+        assetStorageService.findWithAttributes("doesnotexist", RoomAsset.class, RoomAsset.AREA) == null
+    }
+
+    def "Asset tree queries"() {
+
+        given: "a small asset tree"
+        def realm = keycloakTestSetup.realmBuilding.name
+        def root = assetStorageService.merge(new ThingAsset("Tree root").setRealm(realm))
+        def child1 = assetStorageService.merge(new ThingAsset("Tree child 1").setRealm(realm).setParent(root))
+        def child2 = assetStorageService.merge(new ThingAsset("Tree child 2").setRealm(realm).setParent(root))
+        (1..3).each {
+            assetStorageService.merge(new ThingAsset("Tree grandchild $it").setRealm(realm).setParent(child1))
+        }
+
+        when: "the root assets of the realm are requested"
+        def roots = assetStorageService.findTree(realm, null, 1)
+
+        then: "the root asset should be returned with its child count but without children"
+        def rootItem = roots.find {it.id == root.id}
+        rootItem != null
+        rootItem.name == "Tree root"
+        rootItem.type == ThingAsset.DESCRIPTOR.name
+        rootItem.childCount == 2
+        rootItem.hasChildren()
+        rootItem.children == null
+        roots.every {it.parentId == null}
+
+        when: "the tree below the root asset is requested with a depth of 2"
+        def items = assetStorageService.findTree(realm, root.id, 2)
+
+        then: "the children should be expanded and the grandchildren should only have child counts"
+        items.collect {it.id} == [child1.id, child2.id]
+        items[0].children.length == 3
+        items[0].children.collect {it.name} == ["Tree grandchild 1", "Tree grandchild 2", "Tree grandchild 3"]
+        items[0].children.every {it.childCount == 0 && it.children == null}
+        items[1].children.length == 0
+
+        and: "the child counts should have been cached"
+        assetStorageService.findChildCounts([child1.id, child2.id]) == [(child1.id): 3, (child2.id): 0]
+
+        when: "the tree is requested with a maximum node count that the grandchildren would exceed"
+        def maxNodes = assetStorageService.treeMaxNodes
+        assetStorageService.treeMaxNodes = 3
+        items = assetStorageService.findTree(realm, root.id, 2)
+        assetStorageService.treeMaxNodes = maxNodes
+
+        then: "the children should not be expanded but should have child counts"
+        items.collect {it.id} == [child1.id, child2.id]
+        items.every {it.children == null}
+        items[0].childCount == 3
+        items[1].childCount == 0
+
+        when: "the tree is requested with a maximum node count that the children would exceed"
+        assetStorageService.treeMaxNodes = 1
+        items = assetStorageService.findTree(realm, root.id, 2)
+        assetStorageService.treeMaxNodes = maxNodes
+
+        then: "only the first child should be returned without being expanded"
+        items.collect {it.id} == [child1.id]
+        items[0].children == null
+        items[0].childCount == 3
+
+        when: "a child is added and another is moved"
+        assetStorageService.merge(new ThingAsset("Tree grandchild 4").setRealm(realm).setParent(child2))
+        def grandchild = assetStorageService.find(new AssetQuery().names("Tree grandchild 1").realm(new RealmPredicate(realm)))
+        assetStorageService.moveSubtree([grandchild.id], child2.id)
+
+        then: "the child counts should be updated"
+        new PollingConditions(timeout: 10, delay: 0.2).eventually {
+            assert assetStorageService.findChildCounts([child1.id, child2.id]) == [(child1.id): 2, (child2.id): 2]
+        }
+
+        cleanup: "the tree is removed"
+        if (root != null) {
+            assetStorageService.deleteSubtree([root.id], false)
+        }
+    }
 }
@@ -3,14 +3,20 @@ package org.openremote.test.assets
 import org.keycloak.adapters.rotation.AdapterTokenVerifier
 import org.openremote.container.security.keycloak.AccessTokenAuthContext
 import org.openremote.container.timer.TimerService
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.event.ClientEventService
 import org.openremote.manager.security.ManagerIdentityService
 import org.openremote.manager.setup.SetupService
 import org.openremote.setup.integration.KeycloakTestSetup
 import org.openremote.setup.integration.ManagerTestSetup
 import org.openremote.model.asset.AssetResource
 import org.openremote.model.asset.UserAssetLink
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.attribute.AttributeRef
 import org.openremote.test.ManagerContainerTrait
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 
 import jakarta.ws.rs.WebApplicationException
 
@@ -18,6 +24,7 @@ import static org.openremote.container.util.MapAccess.getString
 import static org.openremote.manager.security.ManagerIdentityProvider.OR_ADMIN_PASSWORD
 import static org.openremote.manager.security.ManagerIdentityProvider.OR_ADMIN_PASSWORD_DEFAULT
 import static org.openremote.model.Constants.*
+import static org.openremote.model.value.MetaItemType.ACCESS_RESTRICTED_WRITE
 
 class AssetUserLinkingTest extends Specification implements ManagerContainerTrait {
 
@@ -201,4 +208,86 @@ class AssetUserLinkingTest extends Specification implements ManagerContainerTrai
         then: "result should match"
         userAssetLinks.length == 0
     }
+
+    def "Cache client attribute write authorisation decisions"() {
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "the server container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def clientEventService = container.getService(ClientEventService.class)
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def realm = keycloakTestSetup.realmBuilding.name
+
+        and: "a restricted user linked to the living room"
+        def accessTokenString = authenticate(container, realm, KEYCLOAK_CLIENT_ID, "testuser3", "testuser3").token
+        def accessToken = AdapterTokenVerifier.verifyToken(accessTokenString, keycloakTestSetup.getKeycloakProvider().getKeycloakDeployment(realm, KEYCLOAK_CLIENT_ID))
+        def testUser3Token = new AccessTokenAuthContext(realm, accessToken)
+        def lightsCeiling = new AttributeRef(managerTestSetup.apartment1LivingroomId, "lightsCeiling")
+        def lightsStand = new AttributeRef(managerTestSetup.apartment1LivingroomId, "lightsStand")
+        def cachedDecisions = { AttributeRef ref ->
+            assetProcessingService.writeAuthCache.asMap().findAll { it.key.attributeRef() == ref }
+        }
+        assetProcessingService.writeAuthCache.invalidateAll()
+
+        when: "the user writes to an attribute with restricted write access"
+        def authorised = clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsCeiling, 1d))
+
+        then: "the write should be authorised and the decision cached under a single flat key"
+        authorised
+        cachedDecisions(lightsCeiling).size() == 1
+        def cacheKey = cachedDecisions(lightsCeiling).keySet().first()
+        cacheKey.userId() == keycloakTestSetup.testuser3Id
+        cacheKey.restricted()
+        cacheKey.realm() == realm
+        assetProcessingService.writeAuthCache.getIfPresent(cacheKey)
+
+        when: "the cached decision is replaced and the user writes again"
+        assetProcessingService.writeAuthCache.put(cacheKey, false)
+        authorised = clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsCeiling, 2d))
+
+        then: "the cached decision should be reused without re-evaluating the asset"
+        !authorised
+        cachedDecisions(lightsCeiling).size() == 1
+
+        when: "the user writes to another attribute of the asset"
+        assetProcessingService.writeAuthCache.put(cacheKey, true)
+        authorised = clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsStand, false))
+
+        then: "the decision should be cached for that attribute"
+        authorised
+        cachedDecisions(lightsStand).size() == 1
+
+        when: "the restricted write meta of an attribute is removed"
+        def livingRoom = assetStorageService.find(managerTestSetup.apartment1LivingroomId)
+        livingRoom.getAttribute("lightsStand").get().getMeta().remove(ACCESS_RESTRICTED_WRITE.getName())
+        assetStorageService.merge(livingRoom)
+
+        then: "the cached decisions of the asset should be dropped"
+        conditions.eventually {
+            assert cachedDecisions(lightsCeiling).isEmpty()
+            assert cachedDecisions(lightsStand).isEmpty()
+        }
+
+        and: "the write should no longer be authorised"
+        !clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsStand, true))
+        clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsCeiling, 3d))
+        cachedDecisions(lightsStand).size() == 1
+        cachedDecisions(lightsCeiling).size() == 1
+
+        when: "the user asset link of the living room is deleted"
+        assetStorageService.deleteUserAssetLinks([new UserAssetLink(realm, keycloakTestSetup.testuser3Id, managerTestSetup.apartment1LivingroomId)])
+
+        then: "the cached decisions of the asset should be dropped"
+        conditions.eventually {
+            assert cachedDecisions(lightsCeiling).isEmpty()
+            assert cachedDecisions(lightsStand).isEmpty()
+        }
+
+        and: "the write should no longer be authorised"
+        !clientEventService.authorizeEventWrite(realm, testUser3Token, new AttributeEvent(lightsCeiling, 4d))
+    }
 }
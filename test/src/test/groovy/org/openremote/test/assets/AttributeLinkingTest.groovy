@@ -2,6 +2,8 @@ package org.openremote.test.assets
 
 import org.openremote.manager.asset.AssetProcessingService
 import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.asset.AttributeLinkingService
+import org.openremote.manager.event.ClientEventService
 import org.openremote.manager.setup.SetupService
 import org.openremote.model.Constants
 import org.openremote.model.asset.impl.BuildingAsset
@@ -16,6 +18,7 @@ import spock.lang.Specification
 import spock.util.concurrent.PollingConditions
 
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 
 import static org.openremote.model.value.ValueType.*
 import static org.openremote.model.value.MetaItemType.*
@@ -227,4 +230,91 @@ class AttributeLinkingTest extends Specification implements ManagerContainerTrai
         def apartment1 = assetStorageService.find(managerTestSetup.apartment1Id, true) as BuildingAsset
         assert apartment1.getStreet().orElse(null) == null
     }
+
+    def "Check attribute link fan out, chains and cycles"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+        def fanOut = 100
+
+        when: "the container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def attributeLinkingService = container.getService(AttributeLinkingService.class)
+        def clientEventService = container.getService(ClientEventService.class)
+
+        and: "linked attribute events are counted"
+        def linkedEventCount = new AtomicLong()
+        def lastLinkedEventMillis = new AtomicLong()
+        clientEventService.addSubscription(AttributeEvent.class, null, { AttributeEvent event ->
+            if (event.source == AttributeLinkingService.class.simpleName) {
+                linkedEventCount.incrementAndGet()
+                lastLinkedEventMillis.set(System.currentTimeMillis())
+            }
+        })
+
+        and: "a meter asset and an asset with many aggregate attributes are created"
+        def meter = assetStorageService.merge(new ThingAsset("Meter")
+            .setRealm(Constants.MASTER_REALM)
+            .addOrReplaceAttributes(
+                new Attribute<>("power", NUMBER),
+                new Attribute<>("chained", NUMBER)
+            ))
+        def aggregates = new ThingAsset("Aggregates").setRealm(Constants.MASTER_REALM)
+        (0..<fanOut).each {
+            aggregates.addOrReplaceAttributes(new Attribute<>("aggregate$it", NUMBER))
+        }
+        aggregates = assetStorageService.merge(aggregates)
+
+        and: "the first aggregate is linked to the meter and the meter is linked to every aggregate"
+        aggregates.getAttribute("aggregate0").get().addMeta(new MetaItem<>(ATTRIBUTE_LINKS, [new AttributeLink(new AttributeRef(meter.id, "chained"), null, null)] as AttributeLink[]))
+        aggregates = assetStorageService.merge(aggregates)
+        meter.getAttribute("power").get().addMeta(new MetaItem<>(ATTRIBUTE_LINKS, (0..<fanOut).collect {
+            new AttributeLink(new AttributeRef(aggregates.id, "aggregate$it"), null, null)
+        } as AttributeLink[]))
+        meter = assetStorageService.merge(meter)
+
+        then: "the links should be indexed"
+        conditions.eventually {
+            assert attributeLinkingService.getAttributeLinks(new AttributeRef(meter.id, "power"))?.length == fanOut
+            assert attributeLinkingService.getAttributeLinks(new AttributeRef(aggregates.id, "aggregate0"))?.length == 1
+            assert noEventProcessedIn(assetProcessingService, 300)
+        }
+
+        when: "the meter power is updated"
+        linkedEventCount.set(0)
+        def startMillis = System.currentTimeMillis()
+        assetProcessingService.sendAttributeEvent(new AttributeEvent(meter.id, "power", 10d))
+
+        then: "every aggregate and the chained attribute should be updated with one event each"
+        conditions.eventually {
+            aggregates = assetStorageService.find(aggregates.id, true)
+            meter = assetStorageService.find(meter.id, true)
+            assert (0..<fanOut).every {aggregates.getAttribute("aggregate$it").flatMap{it.value}.orElse(null) == 10d}
+            assert meter.getAttribute("chained").flatMap{it.value}.orElse(null) == 10d
+            assert linkedEventCount.get() == fanOut + 1
+        }
+        getLOG().info("Attribute link fan out of ${fanOut + 1} linked attribute events completed in ${lastLinkedEventMillis.get() - startMillis}ms")
+
+        and: "no further linked events should be generated"
+        conditions.eventually {
+            assert noEventProcessedIn(assetProcessingService, 500)
+            assert linkedEventCount.get() == fanOut + 1
+        }
+
+        when: "an aggregate is linked back to the meter power to create a cycle"
+        aggregates.getAttribute("aggregate1").get().addMeta(new MetaItem<>(ATTRIBUTE_LINKS, [new AttributeLink(new AttributeRef(meter.id, "power"), null, null)] as AttributeLink[]))
+        assetStorageService.merge(aggregates)
+
+        then: "the merge should be rejected"
+        thrown(IllegalStateException)
+
+        when: "an attribute is linked to itself"
+        meter.getAttribute("chained").get().addMeta(new MetaItem<>(ATTRIBUTE_LINKS, [new AttributeLink(new AttributeRef(meter.id, "chained"), null, null)] as AttributeLink[]))
+        assetStorageService.merge(meter)
+
+        then: "the merge should be rejected"
+        thrown(IllegalStateException)
+    }
 }
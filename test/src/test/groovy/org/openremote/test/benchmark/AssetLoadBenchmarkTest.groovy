@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.benchmark
+
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.setup.SetupService
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.attribute.AttributeMap
+import org.openremote.model.attribute.MetaItem
+import org.openremote.model.util.ValueUtil
+import org.openremote.model.value.MetaItemType
+import org.openremote.model.value.ValueType
+import org.openremote.setup.integration.KeycloakTestSetup
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Ignore
+import spock.lang.Specification
+
+/**
+ * This benchmark is intended to determine the cost of the typical "load an asset then read one attribute" access
+ * pattern for assets with many attributes; it compares eager deserialisation of the attribute JSON with the lazy
+ * deserialisation that is used when assets are loaded from the DB.
+ */
+@Ignore
+class AssetLoadBenchmarkTest extends Specification implements ManagerContainerTrait {
+
+    def "Asset load and read one attribute benchmark"() {
+
+        given: "the container environment is started"
+        def attributeCount = 500
+        def iterations = 2000
+        def container = startContainer(defaultConfig(), defaultServices())
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+
+        and: "an asset with many attributes is added"
+        def asset = new ThingAsset("TestThingMulti").setRealm(keycloakTestSetup.realmBuilding.name)
+        for (i in 1..attributeCount) {
+            asset.addAttributes(new Attribute<Object>("counter$i", ValueType.NUMBER, i).addMeta(
+                new MetaItem<>(MetaItemType.STORE_DATA_POINTS),
+                new MetaItem<>(MetaItemType.LABEL, "Counter $i".toString())
+            ))
+        }
+        asset = assetStorageService.merge(asset)
+        def attributeMapJson = ValueUtil.asJSON(asset.attributes).orElseThrow()
+        def lazyReader = ValueUtil.JSON.readerFor(AttributeMap).withAttribute(Attribute.AttributeDeserializer.LAZY_ATTRIBUTE, Boolean.TRUE)
+
+        when: "the attributes are deserialised eagerly and one attribute is read"
+        // Warm up
+        for (i in 1..iterations) {
+            ValueUtil.parse(attributeMapJson, AttributeMap).orElseThrow().get("counter1").flatMap {it.value}
+            (lazyReader.readValue(attributeMapJson) as AttributeMap).get("counter1").flatMap {it.value}
+        }
+        def startTime = System.nanoTime()
+        for (i in 1..iterations) {
+            ValueUtil.parse(attributeMapJson, AttributeMap).orElseThrow().get("counter1").flatMap {it.value}
+        }
+        def eagerTime = System.nanoTime() - startTime
+
+        and: "the attributes are deserialised lazily and one attribute is read"
+        startTime = System.nanoTime()
+        for (i in 1..iterations) {
+            (lazyReader.readValue(attributeMapJson) as AttributeMap).get("counter1").flatMap {it.value}
+        }
+        def lazyTime = System.nanoTime() - startTime
+
+        then: "lazy deserialisation should be quicker"
+        getLOG().info("Eager load and read one attribute of $attributeCount = ${(eagerTime / iterations / 1000) as long}us")
+        getLOG().info("Lazy load and read one attribute of $attributeCount = ${(lazyTime / iterations / 1000) as long}us")
+        lazyTime < eagerTime
+
+        when: "the asset is loaded from the DB and one attribute is read"
+        startTime = System.nanoTime()
+        for (i in 1..(iterations / 10)) {
+            assetStorageService.find(asset.id).getAttribute("counter1").flatMap {it.value}
+        }
+        def dbTime = System.nanoTime() - startTime
+
+        then: "the time should be output"
+        getLOG().info("DB load and read one attribute of $attributeCount = ${(dbTime / (iterations / 10) / 1000) as long}us")
+    }
+}
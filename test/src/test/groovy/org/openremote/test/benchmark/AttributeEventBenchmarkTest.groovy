@@ -120,11 +120,13 @@ class AttributeEventBenchmarkTest extends Specification implements ManagerContai
         assert subscribed
         assert client.topicConsumerMap.get(topic) != null
         assert client.topicConsumerMap.get(topic).size() == 1
-        assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id).size() == 1
-        def connection = mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id)[0]
-        assert connection != null
-        assert defaultMQTTHandler.sessionSubscriptionConsumers.containsKey(getConnectionIDString(connection))
-        assert defaultMQTTHandler.sessionSubscriptionConsumers.get(getConnectionIDString(connection)).size() == 1
+        conditions.eventually {
+            assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id).size() == 1
+            def connection = mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id)[0]
+            assert connection != null
+            assert defaultMQTTHandler.sessionSubscriptionConsumers.containsKey(getConnectionIDString(connection))
+            assert defaultMQTTHandler.sessionSubscriptionConsumers.get(getConnectionIDString(connection)).size() == 1
+        }
 
         when: "Attribute events are sent for each asset by the MQTT client"
         startTime = System.currentTimeMillis()
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.benchmark
+
+import org.openremote.agent.protocol.io.NettyEventLoopService
+import org.openremote.agent.protocol.tcp.TCPAgent
+import org.openremote.agent.protocol.tcp.TCPStringServer
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Ignore
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.lang.management.ManagementFactory
+
+import static org.openremote.model.Constants.MASTER_REALM
+
+/**
+ * This benchmark is intended to show that the number of threads and the memory used by TCP agents stays roughly flat
+ * as the number of agents grows, because all IO clients share the {@link NettyEventLoopService} event loop group.
+ * <p>
+ * Each echo server has its own event loop group so the agents are spread over a few servers rather than one server per
+ * agent; the process needs a file descriptor limit of more than twice the agent count.
+ */
+@Ignore
+class IOClientScalabilityBenchmarkTest extends Specification implements ManagerContainerTrait {
+
+    def "TCP agent thread and memory usage benchmark"() {
+
+        given: "the container environment is started"
+        def agentCount = 1000
+        def serverCount = 10
+        def conditions = new PollingConditions(timeout: 120, delay: 1)
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def threadBean = ManagementFactory.getThreadMXBean()
+        def runtime = Runtime.getRuntime()
+
+        and: "some TCP echo servers are started"
+        def echoServerPorts = (1..serverCount).collect {findEphemeralPort()}
+        def echoServers = echoServerPorts.collect {port ->
+            def echoServer = new TCPStringServer(new InetSocketAddress("127.0.0.1", port), ";", Integer.MAX_VALUE, true)
+            echoServer.addMessageConsumer({
+                message, channel, sender -> echoServer.sendMessage(message)
+            })
+            echoServer.start()
+            echoServer
+        }
+        conditions.eventually {
+            assert echoServers.every {it.connectionStatus == ConnectionStatus.CONNECTED}
+        }
+
+        and: "the baseline thread count and memory usage are recorded"
+        System.gc()
+        def threadsBefore = threadBean.threadCount
+        def memoryBefore = runtime.totalMemory() - runtime.freeMemory()
+
+        when: "many TCP agents are created"
+        def startTime = System.currentTimeMillis()
+        for (i in 0..<agentCount) {
+            assetStorageService.merge(new TCPAgent("TCP Agent $i")
+                .setRealm(MASTER_REALM)
+                .setHost("127.0.0.1")
+                .setPort(echoServerPorts[i % serverCount]))
+        }
+
+        then: "all agents should connect"
+        conditions.eventually {
+            assert echoServers.sum {it.allChannels.size()} == agentCount
+        }
+        def connectTime = System.currentTimeMillis() - startTime
+
+        and: "the thread count and memory usage should stay roughly flat"
+        System.gc()
+        def threadsAfter = threadBean.threadCount
+        def memoryAfter = runtime.totalMemory() - runtime.freeMemory()
+        getLOG().info("Connected $agentCount TCP agents in ${connectTime}ms")
+        getLOG().info("Threads: before=$threadsBefore, after=$threadsAfter")
+        getLOG().info("Used memory: before=${(memoryBefore / 1048576) as long}MB, after=${(memoryAfter / 1048576) as long}MB, per agent=${((memoryAfter - memoryBefore) / agentCount / 1024) as long}KB")
+        threadsAfter - threadsBefore < agentCount / 10
+
+        cleanup: "the servers are stopped"
+        echoServers?.each {it.stop()}
+    }
+}
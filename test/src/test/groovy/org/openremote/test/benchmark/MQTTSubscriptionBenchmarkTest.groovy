@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.benchmark
+
+import org.openremote.agent.protocol.mqtt.MQTTMessage
+import org.openremote.agent.protocol.mqtt.MQTT_IOClient
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.mqtt.DefaultMQTTHandler
+import org.openremote.manager.mqtt.MQTTBrokerService
+import org.openremote.manager.setup.SetupService
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.auth.UsernamePassword
+import org.openremote.model.util.UniqueIdentifierGenerator
+import org.openremote.model.value.ValueType
+import org.openremote.setup.integration.KeycloakTestSetup
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Ignore
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.openremote.container.util.MapAccess.getInteger
+import static org.openremote.container.util.MapAccess.getString
+import static org.openremote.manager.mqtt.MQTTBrokerService.*
+
+/**
+ * This benchmark is intended to show the cost of an MQTT client subscribing to thousands of topics (as an MQTT agent
+ * with thousands of linked attributes does) on the embedded broker; the subscriptions are sent in batches so the time
+ * taken for the subscriptions to exist on the broker should be a fraction of one round trip per topic. The dispatch
+ * latency of inbound messages is measured both for the topic trie match alone and end to end through the broker.
+ */
+@Ignore
+class MQTTSubscriptionBenchmarkTest extends Specification implements ManagerContainerTrait {
+
+    @SuppressWarnings("GroovyAccessibility")
+    def "MQTT client subscription and dispatch benchmark"() {
+
+        given: "the container environment is started"
+        def topicCount = 5000
+        def matchCount = 1000000
+        def received = new AtomicInteger()
+        MQTT_IOClient client = null
+        def conditions = new PollingConditions(timeout: 120, delay: 0.5)
+        def container = startContainer(defaultConfig(), defaultServices())
+        def keycloakTestSetup = container.getService(SetupService.class).getTaskOfType(KeycloakTestSetup.class)
+        def mqttBrokerService = container.getService(MQTTBrokerService.class)
+        def defaultMQTTHandler = mqttBrokerService.getCustomHandlers().find{it instanceof DefaultMQTTHandler} as DefaultMQTTHandler
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def mqttClientId = UniqueIdentifierGenerator.generateId()
+        def username = keycloakTestSetup.realmBuilding.name + ":" + keycloakTestSetup.serviceUser.username
+        def password = keycloakTestSetup.serviceUser.secret
+        def mqttHost = getString(container.getConfig(), MQTT_SERVER_LISTEN_HOST, "0.0.0.0")
+        def mqttPort = getInteger(container.getConfig(), MQTT_SERVER_LISTEN_PORT, 1883)
+
+        and: "an asset is added with an attribute per topic"
+        def asset = new ThingAsset("Subscription benchmark").setRealm(keycloakTestSetup.realmBuilding.name)
+        for (i in 0..<topicCount) {
+            asset.addAttributes(new Attribute<Object>("counter$i", ValueType.NUMBER))
+        }
+        asset = assetStorageService.merge(asset)
+        def topics = (0..<topicCount).collect {
+            "${keycloakTestSetup.realmBuilding.name}/$mqttClientId/$DefaultMQTTHandler.ATTRIBUTE_VALUE_TOPIC/counter$it/$asset.id".toString()
+        }
+
+        and: "a mqtt client connects"
+        client = new MQTT_IOClient(mqttClientId, mqttHost, mqttPort, false, true, new UsernamePassword(username, password), null, null)
+        client.connect()
+        conditions.eventually {
+            assert client.getConnectionStatus() == ConnectionStatus.CONNECTED
+            assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id).size() == 1
+        }
+
+        when: "the client subscribes to every attribute"
+        def startTime = System.currentTimeMillis()
+        topics.each {client.addMessageConsumer(it, {msg -> received.incrementAndGet()})}
+        def addTime = System.currentTimeMillis() - startTime
+
+        then: "all subscriptions should exist on the broker"
+        conditions.eventually {
+            def connection = mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id)[0]
+            assert defaultMQTTHandler.sessionSubscriptionConsumers.get(getConnectionIDString(connection))?.size() == topicCount
+        }
+        def linkTime = System.currentTimeMillis() - startTime
+        getLOG().info("Added $topicCount message consumers in ${addTime}ms; subscriptions existed on the broker after ${linkTime}ms")
+
+        when: "the topic trie is used to match published topics"
+        startTime = System.nanoTime()
+        for (i in 0..<matchCount) {
+            client.topicTrie.match(topics[i % topicCount])
+        }
+        def matchNanos = (System.nanoTime() - startTime) / matchCount
+
+        then: "matching should be cheap"
+        getLOG().info("Average topic trie match time with $topicCount filters = ${matchNanos as long}ns")
+
+        when: "a value is written to every attribute"
+        startTime = System.currentTimeMillis()
+        for (i in 0..<topicCount) {
+            client.sendMessage(new MQTTMessage<String>("${keycloakTestSetup.realmBuilding.name}/$mqttClientId/$DefaultMQTTHandler.ATTRIBUTE_VALUE_WRITE_TOPIC/counter$i/$asset.id".toString(), i.toString()))
+        }
+
+        then: "every value should be received by the client"
+        conditions.eventually {
+            assert received.get() == topicCount
+        }
+        def dispatchTime = System.currentTimeMillis() - startTime
+        getLOG().info("Received $topicCount messages in ${dispatchTime}ms (${(dispatchTime * 1000 / topicCount) as long}us per message end to end)")
+
+        cleanup: "the client is disconnected"
+        if (client != null) {
+            client.disconnect()
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.benchmark
+
+import org.openremote.agent.protocol.simulator.SimulatorAgent
+import org.openremote.agent.protocol.simulator.SimulatorAgentLink
+import org.openremote.agent.protocol.simulator.SimulatorLoadProfile
+import org.openremote.agent.protocol.simulator.SimulatorProtocol
+import org.openremote.manager.agent.AgentService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.simulator.SimulatorLoadLatencyService
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.attribute.MetaItem
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Ignore
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.TimeUnit
+
+import static org.openremote.container.Container.OR_METRICS_ENABLED
+import static org.openremote.model.Constants.MASTER_REALM
+import static org.openremote.model.value.MetaItemType.AGENT_LINK
+import static org.openremote.model.value.ValueType.NUMBER
+
+/**
+ * This benchmark uses the load mode of the {@link SimulatorProtocol} to drive many linked attributes at a fixed
+ * aggregate event rate entirely in process and reports the achieved throughput and the end to end latency recorded by
+ * the {@link SimulatorLoadLatencyService}; the same rate, seed and asset count should be used when comparing runs.
+ */
+@Ignore
+class SimulatorLoadBenchmarkTest extends Specification implements ManagerContainerTrait {
+
+    def "Simulator load pipeline benchmark"() {
+
+        given: "the container environment is started with metrics enabled"
+        def assetCount = 100
+        def attributeCount = 10
+        def eventRate = 2000d
+        def durationSeconds = 30
+        def conditions = new PollingConditions(timeout: 60, delay: 1)
+        def container = startContainer(defaultConfig() << [(OR_METRICS_ENABLED): "true"], defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        and: "a simulator agent with a load profile is added"
+        def agent = assetStorageService.merge(new SimulatorAgent("Load simulator")
+            .setRealm(MASTER_REALM)
+            .setLoadProfile(new SimulatorLoadProfile(eventRate)
+                .setDistribution(SimulatorLoadProfile.ValueDistribution.RANDOM_WALK)
+                .setJitter(0.2d)
+                .setBurstSize(5)
+                .setSeed(1L)))
+        conditions.eventually {
+            assert agentService.agents.get(agent.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+        }
+
+        when: "assets with attributes linked to the agent are added"
+        for (i in 0..<assetCount) {
+            def asset = new ThingAsset("Load asset $i").setRealm(MASTER_REALM)
+            for (j in 0..<attributeCount) {
+                asset.addAttributes(new Attribute<>("value$j", NUMBER).addMeta(new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id))))
+            }
+            assetStorageService.merge(asset)
+        }
+        def protocol = agentService.getProtocolInstance(agent.id) as SimulatorProtocol
+
+        then: "all attributes should be driven by the load generator"
+        conditions.eventually {
+            assert protocol.loadAttributes.size() == assetCount * attributeCount
+        }
+
+        when: "the load runs for a while"
+        def startEvents = protocol.loadEventCount
+        def storedTimer = container.meterRegistry.find(SimulatorLoadLatencyService.LATENCY_METER_NAME).tag("stage", "stored").timer()
+        def publishedTimer = container.meterRegistry.find(SimulatorLoadLatencyService.LATENCY_METER_NAME).tag("stage", "published").timer()
+        def startStored = storedTimer.count()
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds))
+
+        then: "the achieved throughput and latency should be reported"
+        def emitted = protocol.loadEventCount - startEvents
+        def stored = storedTimer.count() - startStored
+        getLOG().info("Target rate=${eventRate}/s, emitted=${emitted / durationSeconds}/s, stored=${stored / durationSeconds}/s, dropped=${protocol.getLoadDroppedCount()}")
+        getLOG().info("Published latency: ${publishedTimer.takeSnapshot()}")
+        getLOG().info("Stored latency: ${storedTimer.takeSnapshot()}")
+        emitted > 0
+        stored > 0
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.benchmark
+
+import com.fasterxml.jackson.databind.node.ArrayNode
+import groovy.transform.CompileStatic
+import org.openremote.agent.protocol.http.HTTPAgentLink
+import org.openremote.model.asset.agent.AgentLink
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.protocol.InboundValueProcessor
+import org.openremote.model.protocol.ProtocolUtil
+import org.openremote.model.util.Pair
+import org.openremote.model.util.TextUtil
+import org.openremote.model.util.ValueUtil
+import org.openremote.model.value.JsonPathFilter
+import org.openremote.model.value.RegexValueFilter
+import org.openremote.model.value.ValueFilter
+import org.openremote.model.value.ValueType
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Ignore
+import spock.lang.Specification
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.atomic.AtomicReference
+import java.util.logging.Logger
+
+/**
+ * This benchmark is intended to determine the per message cost and allocation rate of inbound value processing for
+ * typical JSON payloads before and after compiling the processing; the previous implementations of
+ * {@link ProtocolUtil#doInboundValueProcessing} (which re-interprets the agent link for every message) and of
+ * {@link JsonPathFilter} (which writes and re-parses the value and the path) are kept here and compared with an
+ * {@link InboundValueProcessor} that is compiled once when the attribute is linked.
+ */
+@Ignore
+class ValueProcessingBenchmarkTest extends Specification implements ManagerContainerTrait {
+
+    static final Logger PROTOCOL_LOG = Logger.getLogger(ProtocolUtil.class.getName())
+
+    def "Inbound value processing benchmark"() {
+
+        given: "realistic JSON payloads"
+        def iterations = 200000
+        def payloads = (0..<100).collect {
+            ValueUtil.asJSON([
+                coord: [lon: 4.47 + it / 1000d, lat: 51.92],
+                weather: [[id: 800, main: "Clear", description: "clear sky"]],
+                main: [temp: 280.32 + it / 10d, pressure: 1012, humidity: 81, temp_min: 279.15, temp_max: 281.15],
+                wind: [speed: 4.1, deg: 80],
+                status: (it % 10 == 0 ? "device=sensor-$it;state=FAULT" : "device=sensor-$it;state=OK").toString(),
+                dt: 1485789600 + it
+            ]).orElseThrow()
+        }
+        def tempAttribute = new Attribute<>("temperature", ValueType.NUMBER)
+        def statusAttribute = new Attribute<>("fault", ValueType.BOOLEAN)
+        def tempAgentLink = new HTTPAgentLink("agent").setValueFilters([new JsonPathFilter("\$.main.temp", true, false)] as ValueFilter[])
+        def statusAgentLink = new HTTPAgentLink("agent")
+            .setValueFilters([new JsonPathFilter("\$.status", true, false), new RegexValueFilter("state=(\\w+)", true, false).setMatchGroup(1)] as ValueFilter[])
+            .setValueConverter([OK: false, FAULT: true])
+        def legacyTempAgentLink = new HTTPAgentLink("agent").setValueFilters([new LegacyJsonPathFilter("\$.main.temp", true, false)] as ValueFilter[])
+        def legacyStatusAgentLink = new HTTPAgentLink("agent")
+            .setValueFilters([new LegacyJsonPathFilter("\$.status", true, false), new RegexValueFilter("state=(\\w+)", true, false).setMatchGroup(1)] as ValueFilter[])
+            .setValueConverter([OK: false, FAULT: true])
+        def threadBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        def threadId = Thread.currentThread().id
+
+        when: "the previous per message processing is measured"
+        def legacy = {
+            for (i in 0..<iterations) {
+                def payload = payloads[i % payloads.size()]
+                legacyInboundValueProcessing("asset", tempAttribute, legacyTempAgentLink, payload)
+                legacyInboundValueProcessing("asset", statusAttribute, legacyStatusAgentLink, payload)
+            }
+        }
+        legacy() // Warm up
+        def allocatedBefore = threadBean.getThreadAllocatedBytes(threadId)
+        def startTime = System.nanoTime()
+        legacy()
+        def legacyTime = System.nanoTime() - startTime
+        def legacyAllocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+
+        and: "the processing is compiled once"
+        def tempProcessor = InboundValueProcessor.compile("asset", tempAttribute, tempAgentLink)
+        def statusProcessor = InboundValueProcessor.compile("asset", statusAttribute, statusAgentLink)
+        def compiled = {
+            for (i in 0..<iterations) {
+                def payload = payloads[i % payloads.size()]
+                tempProcessor.process(payload)
+                statusProcessor.process(payload)
+            }
+        }
+        compiled() // Warm up
+        allocatedBefore = threadBean.getThreadAllocatedBytes(threadId)
+        startTime = System.nanoTime()
+        compiled()
+        def compiledTime = System.nanoTime() - startTime
+        def compiledAllocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+
+        then: "the compiled processing should produce the same values as the previous processing"
+        payloads.every {
+            legacyInboundValueProcessing("asset", tempAttribute, legacyTempAgentLink, it).value == tempProcessor.process(it)
+                && legacyInboundValueProcessing("asset", statusAttribute, legacyStatusAgentLink, it).value == statusProcessor.process(it)
+        }
+        statusProcessor.process(payloads[0]) == true
+        statusProcessor.process(payloads[1]) == false
+
+        and: "the results are logged"
+        def messages = iterations * 2
+        getLOG().info("Previous: ${(legacyTime / messages) as long}ns/message, ${(legacyAllocated / messages) as long}B/message")
+        getLOG().info("Compiled: ${(compiledTime / messages) as long}ns/message, ${(compiledAllocated / messages) as long}B/message")
+        compiledTime < legacyTime
+    }
+
+    /**
+     * Copy of the previous implementation of {@link ProtocolUtil#doInboundValueProcessing}.
+     */
+    @CompileStatic
+    static Pair<Boolean, Object> legacyInboundValueProcessing(String assetId, Attribute<?> attribute, AgentLink<?> agentLink, Object value) {
+
+        Pair<Boolean, Object> ignoreAndConvertedValue
+        final AtomicReference<Object> valRef = new AtomicReference<>(value)
+
+        // value filtering
+        agentLink.getValueFilters().ifPresent { ValueFilter[] valueFilters ->
+            PROTOCOL_LOG.finest("Applying attribute value filters to attribute: assetId=" + assetId + ", attribute=" + attribute.getName())
+            Object o = ValueUtil.applyValueFilters(value, valueFilters)
+            if (o == null) {
+                PROTOCOL_LOG.info("Value filters generated a null value for attribute: assetId=" + assetId + ", attribute=" + attribute.getName())
+            }
+            valRef.set(o)
+        }
+
+        // value conversion
+        ignoreAndConvertedValue = agentLink.getValueConverter().map { Map<String, Object> converter ->
+            PROTOCOL_LOG.finest("Applying attribute value converter to attribute: assetId=" + assetId + ", attribute=" + attribute.getName())
+            return ProtocolUtil.applyValueConverter(valRef.get(), converter)
+        }.orElse(new Pair<Boolean, Object>(false, valRef.get()))
+
+        if (ignoreAndConvertedValue.key) {
+            return ignoreAndConvertedValue
+        }
+
+        valRef.set(ignoreAndConvertedValue.value)
+
+        if (valRef.get() == null) {
+            return new Pair<Boolean, Object>(false, null)
+        }
+
+        // built in value conversion
+        Class<?> toType = attribute.getTypeClass()
+        Class<?> fromType = valRef.get().getClass()
+
+        if (toType != fromType) {
+            PROTOCOL_LOG.finest("Applying built in attribute value conversion: " + fromType + " -> " + toType)
+            valRef.set(ValueUtil.getValueCoerced(valRef.get(), toType).orElse(null))
+
+            if (valRef.get() == null) {
+                PROTOCOL_LOG.warning("Failed to convert value: " + fromType + " -> " + toType)
+                PROTOCOL_LOG.warning("Cannot send linked attribute update: assetId=" + assetId + ", attribute=" + attribute.getName())
+                return new Pair<Boolean, Object>(true, null)
+            }
+        }
+
+        return new Pair<Boolean, Object>(false, valRef.get())
+    }
+
+    /**
+     * Copy of the previous implementation of {@link JsonPathFilter#filter}.
+     */
+    @CompileStatic
+    static class LegacyJsonPathFilter extends JsonPathFilter {
+
+        LegacyJsonPathFilter(String path, boolean returnFirst, boolean returnLast) {
+            super(path, returnFirst, returnLast)
+        }
+
+        @Override
+        Object filter(Object value) {
+            if (TextUtil.isNullOrEmpty(path)) {
+                return null
+            }
+
+            String valueStr = ValueUtil.convert(value, String.class)
+
+            if (valueStr == null) {
+                return null
+            }
+
+            Object obj = jsonPathParser.parse(valueStr).read(path)
+
+            if ((returnFirst || returnLast) && obj instanceof ArrayNode) {
+                ArrayNode arrayNode = (ArrayNode) obj
+                obj = arrayNode.get(returnFirst ? 0 : arrayNode.size() - 1)
+            }
+            return obj
+        }
+    }
+}
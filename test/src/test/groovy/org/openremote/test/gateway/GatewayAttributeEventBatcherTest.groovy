@@ -0,0 +1,81 @@
+package org.openremote.test.gateway
+
+import org.openremote.manager.gateway.GatewayAttributeEventBatcher
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.gateway.GatewayAttributeEventsEvent
+import org.openremote.model.util.ValueUtil
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+
+class GatewayAttributeEventBatcherTest extends Specification {
+
+    def "Attribute events are batched and coalesced when congested"() {
+
+        given: "a batcher with a long linger time"
+        def executor = Executors.newSingleThreadScheduledExecutor()
+        def writable = true
+        List<GatewayAttributeEventsEvent> sent = []
+        def batcher = new GatewayAttributeEventBatcher(60000, 3, false, executor, { writable }, { sent.add(it) })
+
+        when: "events are added up to the max batch size"
+        (1..3).each { batcher.add(new AttributeEvent("asset1", "attr" + it, it, it as Long)) }
+
+        then: "a single batch should have been sent"
+        sent.size() == 1
+        sent[0].events.size() == 3
+        batcher.pendingCount == 0
+
+        when: "the connection is congested and multiple events for the same attribute are added"
+        writable = false
+        batcher.add(new AttributeEvent("asset1", "attr1", 10, 10L))
+        batcher.add(new AttributeEvent("asset1", "attr1", 11, 11L))
+        batcher.flush(false)
+        batcher.add(new AttributeEvent("asset1", "attr1", 12, 12L))
+        batcher.add(new AttributeEvent("asset1", "attr2", 13, 13L))
+        batcher.add(new AttributeEvent("asset1", "attr1", 9, 9L))
+
+        then: "nothing should be sent and only the latest event per attribute should be retained"
+        sent.size() == 1
+        batcher.congested
+        batcher.pendingCount == 2
+
+        when: "the connection recovers"
+        writable = true
+        batcher.flush(false)
+
+        then: "the coalesced events should be sent"
+        sent.size() == 2
+        sent[1].events.collect { it.value.orElse(null) } == [12, 13]
+        !batcher.congested
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Large batches are deflated when compression is enabled"() {
+
+        given: "a batcher with compression enabled"
+        def executor = Executors.newSingleThreadScheduledExecutor()
+        List<GatewayAttributeEventsEvent> sent = []
+        def batcher = new GatewayAttributeEventBatcher(60000, 100, true, executor, { true }, { sent.add(it) })
+
+        when: "enough events are added to exceed the compression threshold"
+        (1..100).each { batcher.add(new AttributeEvent("asset1", "attribute" + it, "value" + it, it as Long)) }
+
+        then: "the batch should be deflated"
+        sent.size() == 1
+        sent[0].events == null
+        sent[0].deflated != null
+
+        and: "should survive serialisation and be inflated back to the original events"
+        def parsed = ValueUtil.parse(ValueUtil.asJSON(sent[0]).orElseThrow(), GatewayAttributeEventsEvent.class).orElseThrow()
+        def events = GatewayAttributeEventBatcher.getEvents(parsed)
+        events.size() == 100
+        events[99].name == "attribute100"
+        events[99].value.orElse(null) == "value100"
+
+        cleanup:
+        executor.shutdownNow()
+    }
+}
@@ -0,0 +1,76 @@
+package org.openremote.test.gateway
+
+import org.openremote.manager.gateway.GatewayEventQueue
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class GatewayEventQueueTest extends Specification {
+
+    def "Queued messages survive a restart and are returned in order"() {
+
+        given: "a queue in a temporary directory"
+        def directory = Files.createTempDirectory("gateway-queue")
+        def queue = new GatewayEventQueue(directory, 2048, 1024 * 1024, 0)
+
+        when: "messages are offered whilst buffering"
+        (1..50).each { assert queue.offerIfBuffering("message" + it) }
+        queue.onSent(1234L)
+        queue.close()
+
+        and: "the queue is recreated from the same directory"
+        queue = new GatewayEventQueue(directory, 2048, 1024 * 1024, 0)
+
+        then: "the messages should be recovered in order"
+        !queue.isEmpty()
+        !queue.isLost()
+        queue.lastSentTimestamp == 1234L
+        List<String> messages = []
+        List<String> segment
+        while ((segment = queue.poll()) != null) {
+            messages.addAll(segment)
+        }
+        messages == (1..50).collect { "message" + it }
+
+        and: "buffering should stop once the queue is empty"
+        !queue.isBuffering()
+        !queue.offerIfBuffering("message51")
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
+    def "Size and age limits discard messages and mark the queue as lost"() {
+
+        given: "a queue limited to two segments"
+        def directory = Files.createTempDirectory("gateway-queue")
+        def queue = new GatewayEventQueue(directory, 2048, 4096, 0)
+
+        when: "more messages than fit in the queue are offered"
+        (1..200).each { queue.offerIfBuffering("message" + it) }
+
+        then: "the oldest messages should have been discarded"
+        queue.isLost()
+        def first = queue.poll()
+        first[0] != "message1"
+
+        when: "the queue is cleared"
+        queue.clear()
+
+        then: "the lost state should be reset"
+        !queue.isLost()
+        queue.isEmpty()
+
+        when: "messages older than the max age are polled"
+        def agedQueue = new GatewayEventQueue(directory, 2048, 4096, 1)
+        agedQueue.offerIfBuffering("old")
+        Thread.sleep(10)
+
+        then: "they should be skipped"
+        agedQueue.poll().isEmpty()
+        agedQueue.isLost()
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+}
@@ -730,6 +730,237 @@ class GatewayTest extends Specification implements ManagerContainerTrait {
         }
     }
 
+    def "Gateway delta asset sync on reconnect"() {
+
+        given: "the container environment is started"
+        def conditions = new PollingConditions(timeout: 15, delay: 0.2)
+        def fallbackConditions = new PollingConditions(timeout: (GatewayConnector.RESPONSE_TIMEOUT_MILLIS / 1000) + 10, delay: 0.5)
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def timerService = container.getService(TimerService.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def gatewayService = container.getService(GatewayService.class)
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+
+        expect: "the system should settle down"
+        conditions.eventually {
+            assert noEventProcessedIn(assetProcessingService, 300)
+        }
+
+        when: "a gateway is provisioned in this manager"
+        GatewayAsset gateway = assetStorageService.merge(new GatewayAsset("Test delta sync gateway")
+                .setRealm(managerTestSetup.realmBuildingName))
+
+        then: "a set of credentials and a gateway connector should have been created for this gateway"
+        GatewayConnector gatewayConnector = null
+        conditions.eventually {
+            gateway = assetStorageService.find(gateway.getId(), true) as GatewayAsset
+            assert !isNullOrEmpty(gateway.getClientId().orElse(""))
+            assert !isNullOrEmpty(gateway.getClientSecret().orElse(""))
+            gatewayConnector = gatewayService.gatewayConnectorMap.get(gateway.getId().toLowerCase(Locale.ROOT))
+            assert gatewayConnector != null
+        }
+
+        when: "the gateway client assets are defined"
+        def buildingId = UniqueIdentifierGenerator.generateId("Delta Building")
+        List<Asset> assets = [
+                new BuildingAsset("Delta Building")
+                        .setId(buildingId)
+                        .setCreatedOn(Date.from(timerService.getNow()))
+                        .setRealm(MASTER_REALM)
+        ]
+        IntStream.rangeClosed(1, 4).forEach { i ->
+            assets.add(new RoomAsset("Delta Building Room $i")
+                    .setId(UniqueIdentifierGenerator.generateId("Delta Building Room $i"))
+                    .setCreatedOn(Date.from(timerService.getNow()))
+                    .setParentId(buildingId)
+                    .setRealm(MASTER_REALM)
+                    .addOrReplaceAttributes(new Attribute<>("temp", NUMBER, 20d)))
+        }
+        def assetIds = assets.collect { it.id }
+
+        and: "helpers to connect a gateway client and read the messages it receives"
+        List<String> clientReceivedMessages = new CopyOnWriteArrayList<>()
+        def createGatewayClient = {
+            def client = new GatewayIOClient(
+                    new URIBuilder("ws://127.0.0.1:$serverPort/websocket/events?Realm=$managerTestSetup.realmBuildingName").build(),
+                    null,
+                    new OAuthClientCredentialsGrant("http://127.0.0.1:$serverPort/auth/realms/$managerTestSetup.realmBuildingName/protocol/openid-connect/token",
+                            gateway.getClientId().orElse(""),
+                            gateway.getClientSecret().orElse(""),
+                            null).setBasicAuthHeader(true))
+            client.setEncoderDecoderProvider({
+                [new AbstractNettyIOClient.MessageToMessageDecoder<String>(String.class, client)].toArray(new ChannelHandler[0])
+            })
+            client.addMessageConsumer({ message -> clientReceivedMessages.add(message) })
+            client.connect()
+            client
+        }
+        def receivedEvents = { String type, Class<? extends SharedEvent> eventClass ->
+            clientReceivedMessages
+                    .findAll { it.startsWith(SharedEvent.MESSAGE_PREFIX) && it.contains("\"" + type + "\"") }
+                    .collect { ValueUtil.JSON.readValue(it.substring(SharedEvent.MESSAGE_PREFIX.length()), eventClass) }
+        }
+        def sendEvent = { GatewayIOClient client, SharedEvent event, String messageId ->
+            event.setMessageID(messageId)
+            client.sendMessage(SharedEvent.MESSAGE_PREFIX + ValueUtil.asJSON(event).get())
+        }
+        def findAsset = { String id -> assets.find { it.id == id } }
+        def completeSync = { GatewayIOClient client ->
+            conditions.eventually {
+                assert !receivedEvents(GatewayCapabilitiesRequestEvent.TYPE, GatewayCapabilitiesRequestEvent.class).isEmpty()
+            }
+            def capabilitiesRequest = receivedEvents(GatewayCapabilitiesRequestEvent.TYPE, GatewayCapabilitiesRequestEvent.class).first()
+            sendEvent(client, new GatewayCapabilitiesResponseEvent(false, true, false), capabilitiesRequest.messageID)
+            conditions.eventually {
+                assert gatewayConnector.isConnected()
+                assert !gatewayConnector.isInitialSyncInProgress()
+                assert gatewayConnector.deltaSyncSupported
+                gateway = assetStorageService.find(gateway.getId()) as GatewayAsset
+                assert gateway.getGatewayStatus().orElse(null) == ConnectionStatus.CONNECTED
+            }
+        }
+        def disconnectGatewayClient = { GatewayIOClient client ->
+            client.disconnect()
+            client.removeAllMessageConsumers()
+            conditions.eventually {
+                assert !gatewayConnector.isConnected()
+            }
+            clientReceivedMessages.clear()
+        }
+
+        and: "the gateway connects to this manager"
+        def gatewayClient = createGatewayClient()
+
+        then: "the central manager should request all gateway assets"
+        conditions.eventually {
+            assert receivedEvents("read-assets", ReadAssetsEvent.class).any { it.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL }
+        }
+
+        when: "the gateway replies with its assets"
+        clientReceivedMessages.clear()
+        sendEvent(gatewayClient, new AssetsEvent(assets), GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL)
+
+        then: "the central manager should request all the assets in a single batch"
+        ReadAssetsEvent readAssetsEvent = null
+        conditions.eventually {
+            readAssetsEvent = receivedEvents("read-assets", ReadAssetsEvent.class).find { it.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0" }
+            assert readAssetsEvent != null
+            assert readAssetsEvent.assetQuery.ids as Set == assetIds as Set
+        }
+
+        when: "the gateway returns the requested assets and its capabilities (delta sync supported)"
+        clientReceivedMessages.clear()
+        sendEvent(gatewayClient, new AssetsEvent(readAssetsEvent.assetQuery.ids.collect { findAsset(it) }), readAssetsEvent.messageID)
+        completeSync(gatewayClient)
+
+        then: "all the gateway assets should be replicated underneath the gateway and their versions recorded"
+        conditions.eventually {
+            assert assetStorageService.findAll(new AssetQuery().parents(gateway.getId()).recursive(true)).size() == assets.size()
+            assert gatewayConnector.syncedAssetVersions.keySet() == assetIds as Set
+        }
+
+        when: "the gateway disconnects and a subset of its assets are changed whilst disconnected"
+        disconnectGatewayClient(gatewayClient)
+        def changedAssetIds = [assetIds[2], assetIds[4]]
+        changedAssetIds.each { id ->
+            def asset = findAsset(id)
+            asset.setName(asset.getName() + " Updated")
+            asset.setVersion(asset.getVersion() + 1)
+        }
+
+        and: "the gateway reconnects"
+        gatewayClient = createGatewayClient()
+
+        then: "the central manager should request a delta sync with the asset versions it knows"
+        GatewayAssetSyncRequestEvent syncRequest = null
+        conditions.eventually {
+            syncRequest = receivedEvents(GatewayAssetSyncRequestEvent.TYPE, GatewayAssetSyncRequestEvent.class).find()
+            assert syncRequest != null
+            assert syncRequest.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_DELTA
+            assert syncRequest.assetVersions.keySet() == assetIds as Set
+            assert receivedEvents("read-assets", ReadAssetsEvent.class).isEmpty()
+        }
+
+        when: "the gateway responds with a compressed listing flagging the changed assets"
+        clientReceivedMessages.clear()
+        def assetStates = assets.collect { new GatewayAssetSyncResponseEvent.AssetSyncState(it.id, it.parentId, it.version, changedAssetIds.contains(it.id)) }
+        sendEvent(gatewayClient, new GatewayAssetSyncResponseEvent(timerService.getCurrentTimeMillis(), null, GatewayAttributeEventBatcher.deflate(ValueUtil.asJSON(assetStates).get())), syncRequest.messageID)
+
+        then: "only the changed assets should be requested"
+        conditions.eventually {
+            readAssetsEvent = receivedEvents("read-assets", ReadAssetsEvent.class).find { it.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0" }
+            assert readAssetsEvent != null
+            assert readAssetsEvent.assetQuery.ids as Set == changedAssetIds as Set
+        }
+
+        when: "the gateway returns the changed assets"
+        sendEvent(gatewayClient, new AssetsEvent(readAssetsEvent.assetQuery.ids.collect { findAsset(it) }), readAssetsEvent.messageID)
+        completeSync(gatewayClient)
+
+        then: "only the changed assets should have been merged and no other assets requested"
+        conditions.eventually {
+            def syncedAssets = assetStorageService.findAll(new AssetQuery().parents(gateway.getId()).recursive(true))
+            assert syncedAssets.size() == assets.size()
+            assets.each { asset ->
+                def syncedAsset = syncedAssets.find { mapAssetId(gateway.getId(), it.id, true) == asset.id }
+                assert syncedAsset != null
+                assert syncedAsset.name == asset.name
+                assert syncedAsset.name.endsWith(" Updated") == changedAssetIds.contains(asset.id)
+            }
+            assert gatewayConnector.syncedAssetVersions[assetIds[2]] == findAsset(assetIds[2]).version
+            assert gatewayConnector.syncedAssetVersions[assetIds[0]] == findAsset(assetIds[0]).version
+        }
+        receivedEvents("read-assets", ReadAssetsEvent.class).size() == 1
+
+        when: "the gateway disconnects and reconnects again"
+        disconnectGatewayClient(gatewayClient)
+        gatewayClient = createGatewayClient()
+
+        then: "the central manager should request a delta sync"
+        conditions.eventually {
+            assert receivedEvents(GatewayAssetSyncRequestEvent.TYPE, GatewayAssetSyncRequestEvent.class).size() == 1
+        }
+
+        when: "the gateway doesn't respond to the delta sync request"
+        clientReceivedMessages.clear()
+
+        then: "the central manager should fall back to a full sync"
+        fallbackConditions.eventually {
+            assert receivedEvents("read-assets", ReadAssetsEvent.class).any { it.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL && it.assetQuery.recursive }
+            assert !gatewayConnector.deltaSyncSupported
+        }
+
+        when: "the gateway replies with all of its assets"
+        clientReceivedMessages.clear()
+        sendEvent(gatewayClient, new AssetsEvent(assets), GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL)
+
+        then: "every asset should be requested again"
+        conditions.eventually {
+            readAssetsEvent = receivedEvents("read-assets", ReadAssetsEvent.class).find { it.messageID == GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0" }
+            assert readAssetsEvent != null
+            assert readAssetsEvent.assetQuery.ids as Set == assetIds as Set
+        }
+
+        when: "the gateway returns the requested assets and its capabilities"
+        clientReceivedMessages.clear()
+        sendEvent(gatewayClient, new AssetsEvent(readAssetsEvent.assetQuery.ids.collect { findAsset(it) }), readAssetsEvent.messageID)
+        completeSync(gatewayClient)
+
+        then: "the gateway assets should still be replicated and delta sync re-enabled for the next reconnect"
+        conditions.eventually {
+            assert assetStorageService.findAll(new AssetQuery().parents(gateway.getId()).recursive(true)).size() == assets.size()
+            assert gatewayConnector.syncedAssetVersions.keySet() == assetIds as Set
+            assert gatewayConnector.deltaSyncSupported
+        }
+
+        cleanup: "cleanup the gateway client"
+        if (gatewayClient != null) {
+            gatewayClient.disconnect()
+            gatewayClient.removeAllMessageConsumers()
+        }
+    }
+
     def "Verify gateway client service"() {
 
         given: "the container environment is started"
@@ -41,6 +41,9 @@ import java.nio.file.Paths
 import java.nio.file.StandardOpenOption
 import java.time.format.DateTimeFormatter
 import java.time.temporal.ChronoUnit
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
 
 import static org.openremote.container.security.IdentityProvider.OR_ADMIN_PASSWORD
 import static org.openremote.container.security.IdentityProvider.OR_ADMIN_PASSWORD_DEFAULT
@@ -92,6 +95,61 @@ class AssetModelTest extends Specification implements ManagerContainerTrait {
         Objects.equals(attributes1, attributes2)
     }
 
+    def "Lazy attribute deserialisation"() {
+        given: "required services"
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+
+        when: "an asset is loaded from the DB"
+        def apartment1 = assetStorageService.find(managerTestSetup.apartment1Id)
+
+        then: "the attribute values and meta should not be deserialised yet"
+        def lazyCount = apartment1.attributes.values().count {!it.hydrated}
+        lazyCount > 1
+        !apartment1.attributes.get(Asset.LOCATION).orElseThrow().hydrated
+
+        when: "a single attribute value is read"
+        def location = apartment1.attributes.get(Asset.LOCATION).orElseThrow()
+
+        then: "the value should be deserialised using the attribute type and the other attributes should not be touched"
+        location.value.orElse(null) instanceof GeoJSONPoint
+        location.meta != null
+        location.hydrated
+        apartment1.attributes.values().count {!it.hydrated} == lazyCount - 1
+
+        when: "the attributes are serialised and deserialised eagerly"
+        def attributeMapJson = ValueUtil.asJSON(apartment1.attributes).orElseThrow()
+        def eagerAttributes = ValueUtil.parse(attributeMapJson, AttributeMap).orElse(null)
+        def lazyAttributes = ValueUtil.JSON.readerFor(AttributeMap)
+            .withAttribute(Attribute.AttributeDeserializer.LAZY_ATTRIBUTE, Boolean.TRUE)
+            .readValue(attributeMapJson) as AttributeMap
+
+        then: "the lazy and eager attributes should be deep equal"
+        eagerAttributes.size() == apartment1.attributes.size()
+        eagerAttributes.values().every {eagerAttribute -> lazyAttributes.get(eagerAttribute.name).map {it.deepEquals(eagerAttribute)}.orElse(false)}
+        eagerAttributes.values().every {it.meta == apartment1.attributes.get(it.name).orElseThrow().meta}
+
+        when: "the values of lazy attributes are set whilst other threads hydrate them"
+        def executor = Executors.newFixedThreadPool(2)
+        def lostValues = (1..500).count {
+            def attribute = (ValueUtil.JSON.readerFor(AttributeMap)
+                .withAttribute(Attribute.AttributeDeserializer.LAZY_ATTRIBUTE, Boolean.TRUE)
+                .readValue(attributeMapJson) as AttributeMap).get(Asset.LOCATION).orElseThrow()
+            def point = new GeoJSONPoint(it, it)
+            def start = new CountDownLatch(1)
+            def reader = executor.submit({ start.await(); attribute.getValue() } as Callable)
+            def writer = executor.submit({ start.await(); attribute.setValue(point) } as Callable)
+            start.countDown()
+            reader.get()
+            writer.get()
+            !attribute.getValue().orElse(null).is(point)
+        }
+        executor.shutdownNow()
+
+        then: "the set values should never be overwritten by the hydrated values"
+        lostValues == 0
+    }
+
     def "Serialise/Deserialise asset and attribute events and test validation"() {
 
         given: "an authenticated admin user"
@@ -0,0 +1,103 @@
+package org.openremote.test.model
+
+import org.openremote.model.util.StripedLock
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class StripedLockTest extends Specification {
+
+    def "Keys are locked using a fixed set of stripes"() {
+
+        given: "a striped lock"
+        def stripedLock = new StripedLock(100, false)
+
+        expect: "the stripe count to be rounded up to a power of two"
+        stripedLock.stripeCount == 128
+        new StripedLock(1, true).stripeCount == 1
+
+        and: "the same key to always map to the same stripe"
+        stripedLock.getStripe("asset1") == stripedLock.getStripe(new String("asset1"))
+
+        when: "several keys are locked together"
+        def keys = (1..500).collect { "asset" + it }
+        def stripes = stripedLock.lockAll(keys)
+
+        then: "each stripe should only be locked once and in ascending order"
+        stripes.length <= stripedLock.stripeCount
+        stripes.toList() == stripes.toList().unique().sort()
+
+        and: "a key can be locked again by the same thread"
+        stripedLock.lock("asset1")
+        stripedLock.unlock("asset1")
+
+        when: "another thread tries to lock one of the keys"
+        def executor = Executors.newSingleThreadExecutor()
+        def locked = new CountDownLatch(1)
+        executor.submit {
+            stripedLock.lock("asset250")
+            locked.countDown()
+            stripedLock.unlock("asset250")
+        }
+
+        then: "it should wait and the contention should be recorded"
+        !locked.await(200, TimeUnit.MILLISECONDS)
+        new PollingConditions(timeout: 5).eventually {
+            assert stripedLock.contendedCount == 1
+        }
+
+        when: "the keys are unlocked"
+        stripedLock.unlockAll(stripes)
+
+        then: "the other thread should get the lock"
+        locked.await(5, TimeUnit.SECONDS)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Nested locking of other stripes is rejected"() {
+
+        given: "a striped lock and two keys on different stripes"
+        def stripedLock = new StripedLock(16, false)
+        def key1 = "asset1"
+        def key2 = (2..100).collect { "asset" + it }.find { stripedLock.getStripe(it) != stripedLock.getStripe(key1) }
+
+        when: "a key is locked and then another key is locked by the same thread"
+        stripedLock.lock(key1)
+        stripedLock.lock(key2)
+
+        then: "the nested lock should be rejected"
+        thrown(IllegalStateException)
+
+        when: "the other key is locked together with the held key"
+        stripedLock.lockAll([key1, key2])
+
+        then: "that should also be rejected"
+        thrown(IllegalStateException)
+
+        when: "the held key is locked again on its own and together with itself"
+        stripedLock.lock(key1)
+        def stripes = stripedLock.lockAll([key1])
+        stripedLock.unlockAll(stripes)
+        stripedLock.unlock(key1)
+
+        then: "that should be allowed"
+        noExceptionThrown()
+
+        when: "the held key is unlocked"
+        stripedLock.unlock(key1)
+
+        then: "both keys can be locked together"
+        def allStripes = stripedLock.lockAll([key1, key2])
+        allStripes.length == 2
+        stripedLock.unlockAll(allStripes)
+
+        and: "the other key can then be locked on its own"
+        stripedLock.lock(key2)
+        stripedLock.unlock(key2)
+    }
+}
@@ -0,0 +1,67 @@
+package org.openremote.test.mqtt
+
+import org.openremote.manager.mqtt.MQTTAdmissionController
+import spock.lang.Specification
+
+class MQTTAdmissionControllerTest extends Specification {
+
+    def "Connection rate is limited and known clients are prioritised"() {
+
+        given: "an admission controller with a frozen clock, a bucket of 10 and 50% reserved for known clients"
+        def controller = new FixedClockAdmissionController(1, 10, 50, 2, 10)
+        controller.now = 1000
+
+        and: "a client that has previously authenticated"
+        controller.onAuthenticated("master:known")
+
+        when: "unknown clients try to connect"
+        def admitted = (1..10).count { controller.tryAdmit("master:unknown" + it) }
+
+        then: "only the non reserved share of the bucket should be used"
+        admitted == 5
+
+        and: "the known client should still be admitted from the reserve"
+        (1..5).every { controller.tryAdmit("master:known") }
+        !controller.tryAdmit("master:known")
+
+        when: "time advances"
+        controller.now += 2000
+
+        then: "tokens should be refilled at the configured rate"
+        controller.tryAdmit("master:known")
+        controller.tryAdmit("master:known")
+        !controller.tryAdmit("master:known")
+    }
+
+    def "Concurrent authentication is limited"() {
+
+        given: "an admission controller allowing 2 concurrent authentications"
+        def controller = new MQTTAdmissionController(0, 0, 0, 2, 10, null)
+
+        expect: "only 2 permits to be available"
+        controller.acquireAuthPermit()
+        controller.acquireAuthPermit()
+        !controller.acquireAuthPermit()
+        controller.getAuthInFlight() == 2
+
+        when: "a permit is released"
+        controller.releaseAuthPermit()
+
+        then: "another authentication can proceed"
+        controller.acquireAuthPermit()
+    }
+}
+
+class FixedClockAdmissionController extends MQTTAdmissionController {
+
+    long now
+
+    FixedClockAdmissionController(int connectRate, int burst, int knownClientReservePct, int maxConcurrentAuth, long authWaitMillis) {
+        super(connectRate, burst, knownClientReservePct, maxConcurrentAuth, authWaitMillis, null)
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+        return now
+    }
+}
@@ -498,7 +498,14 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
         topic = "${keycloakTestSetup.realmBuilding.name}/$mqttClientId/$DefaultMQTTHandler.ATTRIBUTE_TOPIC/$MQTTHandler.TOKEN_SINGLE_LEVEL_WILDCARD/$managerTestSetup.apartment1HallwayId".toString()
         client.addMessageConsumer(topic, eventConsumer)
 
-        and: "the new client publishes to a an attribute topic"
+        then: "the subscription should exist"
+        def subscriptionTopic = topic
+        conditions.eventually {
+            def connection = mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser.id)[0]
+            assert defaultMQTTHandler.sessionSubscriptionConsumers.get(getConnectionIDString(connection))?.containsKey(subscriptionTopic)
+        }
+
+        when: "the new client publishes to a an attribute topic"
         topic = "${keycloakTestSetup.realmBuilding.name}/$newClientId/$DefaultMQTTHandler.ATTRIBUTE_VALUE_WRITE_TOPIC/motionSensor/${managerTestSetup.apartment1HallwayId}".toString()
         payload = "170"
         newClient.sendMessage(new MQTTMessage<String>(topic, payload))
@@ -633,10 +640,15 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
                         keycloakTestSetup.serviceUser2.getId(),
                         managerTestSetup.apartment1HallwayId)))
 
-        then: "the existing connection should be terminated and the client should reconnect"
+        then: "the unlinked asset should be removed from the user's linked assets"
         conditions.eventually {
+            assert !assetStorageService.getUserAssetIds(keycloakTestSetup.realmBuilding.name, keycloakTestSetup.serviceUser2.id).contains(managerTestSetup.apartment1HallwayId)
+        }
+
+        and: "the existing connection should not have been terminated"
+        new PollingConditions(initialDelay: 2, timeout: 10, delay: 1).eventually {
             assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser2.id).size() == 1
-            assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser2.id)[0] !== existingConnection
+            assert mqttBrokerService.getUserConnections(keycloakTestSetup.serviceUser2.id)[0].is(existingConnection)
         }
 
         when: "the restricted mqtt client removes all subscriptions"
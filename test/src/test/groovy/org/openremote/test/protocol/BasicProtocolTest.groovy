@@ -36,6 +36,7 @@ import org.openremote.setup.integration.protocol.MockAgent
 import org.openremote.setup.integration.protocol.MockAgentLink
 import org.openremote.setup.integration.protocol.MockProtocol
 
+import java.util.concurrent.CountDownLatch
 import java.util.regex.Pattern
 
 import static org.openremote.model.Constants.MASTER_REALM
@@ -379,4 +380,94 @@ class BasicProtocolTest extends Specification implements ManagerContainerTrait {
             assert !mockThing.getAttribute("filterRegexSubstring").get().getValue().isPresent()
         }
     }
+
+    def "Check a slow agent start does not block other agents"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 0.3, delay: 0.2)
+
+        and: "the container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+
+        and: "the protocol of the slow agent will block whilst starting"
+        def startLatch = new CountDownLatch(1)
+        MockProtocol.START_LATCHES.put("Slow agent", startLatch)
+
+        when: "an agent and an asset linked to it are created"
+        def agentB = assetStorageService.merge(new MockAgent("Mock agent B")
+            .setRealm(MASTER_REALM)
+            .setRequired(true))
+        def thing = new ThingAsset("Agent B thing").setRealm(MASTER_REALM)
+        thing.addOrReplaceAttributes(
+            new Attribute<>("target", NUMBER).addOrReplaceMeta(
+                new MetaItem<>(AGENT_LINK, new MockAgentLink(agentB.id).setRequiredValue("true"))
+            )
+        )
+        thing = assetStorageService.merge(thing)
+
+        then: "the agent should be connected and the attribute linked"
+        conditions.eventually {
+            assert agentService.getAgent(agentB.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+            assert agentService.getProtocolInstance(agentB.id).linkedAttributes.size() == 1
+        }
+
+        when: "a slow agent is created"
+        def slowAgent = assetStorageService.merge(new MockAgent("Slow agent")
+            .setRealm(MASTER_REALM)
+            .setRequired(true))
+
+        then: "the slow agent should be stuck starting"
+        conditions.eventually {
+            assert agentService.getAgent(slowAgent.id) != null
+            assert agentService.agentTaskQueues.get(slowAgent.id)?.worker != null
+        }
+
+        when: "the slow agent is re-configured several times whilst it is stuck"
+        (1..3).each {
+            assetProcessingService.sendAttributeEvent(new AttributeEvent(slowAgent.id, MockAgent.REQUIRED, it % 2 == 0))
+        }
+
+        and: "values are written to the attribute linked to the other agent"
+        (1..5).each {
+            assetProcessingService.sendAttributeEvent(new AttributeEvent(thing.id, "target", it as double))
+        }
+
+        then: "the writes should reach the other agent's protocol"
+        conditions.eventually {
+            assert ((MockProtocol)agentService.getProtocolInstance(agentB.id)).protocolWriteAttributeEvents.size() == 5
+        }
+
+        and: "the slow agent's configuration changes should be coalesced"
+        conditions.eventually {
+            assert agentService.agentTasksCoalesced.get() >= 2
+        }
+
+        when: "the other agent is re-configured"
+        def agentBProtocol = agentService.getProtocolInstance(agentB.id)
+        assetProcessingService.sendAttributeEvent(new AttributeEvent(agentB.id, MockAgent.REQUIRED, false))
+
+        then: "the other agent should be re-deployed whilst the slow agent is still starting"
+        conditions.eventually {
+            assert agentService.getProtocolInstance(agentB.id) != null
+            assert agentService.getProtocolInstance(agentB.id) != agentBProtocol
+            assert agentService.getProtocolInstance(agentB.id).linkedAttributes.size() == 1
+            assert agentService.getProtocolInstance(slowAgent.id) == null
+        }
+
+        when: "the slow agent is allowed to start"
+        startLatch.countDown()
+
+        then: "the slow agent should be connected"
+        conditions.eventually {
+            assert agentService.getProtocolInstance(slowAgent.id) != null
+            assert agentService.getAgent(slowAgent.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+        }
+
+        cleanup: "the start latch is removed"
+        MockProtocol.START_LATCHES.remove("Slow agent")
+        startLatch?.countDown()
+    }
 }
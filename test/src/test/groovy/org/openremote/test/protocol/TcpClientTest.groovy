@@ -24,6 +24,7 @@ import io.netty.handler.codec.string.StringDecoder
 import io.netty.handler.codec.string.StringEncoder
 import io.netty.util.CharsetUtil
 import org.openremote.agent.protocol.io.AbstractNettyIOClient
+import org.openremote.agent.protocol.io.NettyEventLoopService
 import org.openremote.agent.protocol.tcp.TCPIOClient
 import org.openremote.agent.protocol.tcp.TCPStringServer
 import org.openremote.container.timer.TimerService
@@ -207,4 +208,55 @@ class TcpClientTest extends Specification implements ManagerContainerTrait {
         client.disconnect()
         echoServer.stop()
     }
+
+    def "Clients share the IO event loop group"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 30, delay: 0.2)
+
+        and: "the container is started with a small IO event loop group"
+        startContainer(defaultConfig() << [(NettyEventLoopService.OR_IO_EVENT_LOOP_THREADS): "2"], [new TimerService(), new NettyEventLoopService()])
+
+        and: "a simple TCP echo server"
+        def echoServerPort = findEphemeralPort()
+        def echoServer = new TCPStringServer(new InetSocketAddress("127.0.0.1", echoServerPort), ";", Integer.MAX_VALUE, true)
+        echoServer.addMessageConsumer({
+            message, channel, sender -> echoServer.sendMessage(message)
+        })
+        echoServer.start()
+        conditions.eventually {
+            assert echoServer.connectionStatus == ConnectionStatus.CONNECTED
+        }
+
+        when: "many clients are connected to the server"
+        def threadsBefore = Thread.getAllStackTraces().keySet().count {it.name.startsWith("IOEventLoop")}
+        def clients = (1..50).collect {
+            def client = new TestTCPClient("127.0.0.1", echoServerPort)
+            client.setEncoderDecoderProvider({
+                [new StringEncoder(CharsetUtil.UTF_8),
+                 new StringDecoder(CharsetUtil.UTF_8),
+                 new AbstractNettyIOClient.MessageToMessageDecoder<String>(String.class, client)].toArray(new ChannelHandler[0])
+            })
+            client.connect()
+            client
+        }
+
+        then: "all clients should connect using the shared event loop group"
+        conditions.eventually {
+            assert clients.every {it.connectionStatus == ConnectionStatus.CONNECTED}
+            assert echoServer.allChannels.size() == 50
+        }
+        clients.every {it.workerGroup.is(NettyEventLoopService.getSharedGroup())}
+        Thread.getAllStackTraces().keySet().count {it.name.startsWith("IOEventLoop")} - threadsBefore <= 2
+
+        when: "the clients are disconnected"
+        clients.each {it.disconnect()}
+
+        then: "the shared event loop group should still be usable"
+        !NettyEventLoopService.getSharedGroup().isShuttingDown()
+
+        cleanup: "the server should be stopped"
+        clients?.each {it.disconnect()}
+        echoServer.stop()
+    }
 }
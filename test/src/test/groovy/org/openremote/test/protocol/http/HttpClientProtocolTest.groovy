@@ -52,10 +52,15 @@ import spock.lang.Shared
 import spock.lang.Specification
 import spock.util.concurrent.PollingConditions
 
+import com.sun.net.httpserver.HttpServer
+
+import java.nio.charset.StandardCharsets
 import java.time.ZoneId
 import java.time.format.DateTimeFormatter
 import java.time.temporal.ChronoField
 import java.time.temporal.ChronoUnit
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.regex.Pattern
 
 import static org.openremote.model.util.ValueUtil.doDynamicTimeReplace
@@ -692,5 +697,121 @@ class HttpClientProtocolTest extends Specification implements ManagerContainerTr
             assert asset.getAttribute("testPostRequest").flatMap {it.value}.orElse(null) == "{\"prop1\": \"${expectedPostRequest}\"}"
         }
     }
-}
+    def "Check HTTP client polling request sharing and conditional requests"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 0.5)
+
+        and: "the HTTP client protocol min times are adjusted for testing and the mock server is removed"
+        HTTPProtocol.MIN_POLLING_MILLIS = 10
+        HTTPProtocol.client.set(null)
+
+        and: "a local HTTP server that counts requests and supports entity tags"
+        def sharedRequests = new AtomicInteger()
+        def notModifiedResponses = new AtomicInteger()
+        def slowRequests = new AtomicInteger()
+        def httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", findEphemeralPort()), 0)
+        httpServer.executor = Executors.newCachedThreadPool()
+        httpServer.createContext("/shared", { exchange ->
+            sharedRequests.incrementAndGet()
+            if (exchange.requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH) == '"v1"') {
+                notModifiedResponses.incrementAndGet()
+                exchange.sendResponseHeaders(304, -1)
+            } else {
+                def body = "42".getBytes(StandardCharsets.UTF_8)
+                exchange.responseHeaders.add(HttpHeaders.ETAG, '"v1"')
+                exchange.sendResponseHeaders(200, body.length)
+                exchange.responseBody.write(body)
+            }
+            exchange.close()
+        })
+        httpServer.createContext("/slow", { exchange ->
+            slowRequests.incrementAndGet()
+            Thread.sleep(2000)
+            def body = "slow".getBytes(StandardCharsets.UTF_8)
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.write(body)
+            exchange.close()
+        })
+        httpServer.start()
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        when: "a HTTP client agent is created for the local server"
+        HTTPAgent agent = new HTTPAgent("Local agent")
+            .setRealm(Constants.MASTER_REALM)
+            .setBaseURI("http://127.0.0.1:" + httpServer.address.port)
+        agent = assetStorageService.merge(agent)
 
+        and: "several attributes poll the same URL and one attribute polls a slow URL"
+        def asset = new ThingAsset("Polling asset").setParent(agent)
+        (1..3).each {
+            asset.addOrReplaceAttributes(new Attribute<>("shared" + it, INTEGER).addMeta(
+                new MetaItem<>(AGENT_LINK, new HTTPAgentLink(agent.id).setPath("shared").setPollingMillis(100 * it))
+            ))
+        }
+        asset.addOrReplaceAttributes(new Attribute<>("slow", TEXT).addMeta(
+            new MetaItem<>(AGENT_LINK, new HTTPAgentLink(agent.id).setPath("slow").setPollingMillis(100))
+        ))
+        asset = assetStorageService.merge(asset)
+
+        then: "the shared attributes should all get the response value"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert (1..3).every {i -> asset.getAttribute("shared" + i).flatMap {it.value}.orElse(null) == 42}
+            assert ((HTTPProtocol)agentService.getProtocolInstance(agent.id)).pollingGroups.size() == 2
+        }
+
+        when: "the server is polled for a while"
+        def sharedTimestamp = asset.getAttribute("shared1").get().timestamp.orElse(0)
+        def requestsBefore = sharedRequests.get()
+        Thread.sleep(1000)
+
+        then: "the attributes should share one request at the shortest polling interval and unchanged responses should be skipped"
+        sharedRequests.get() - requestsBefore <= 12
+        notModifiedResponses.get() > 0
+        assetStorageService.find(asset.id, true).getAttribute("shared1").get().timestamp.orElse(0) == sharedTimestamp
+
+        and: "the slow request should not be repeated whilst in progress"
+        slowRequests.get() == 1
+
+        and: "no executor thread should be blocked waiting for a response"
+        Thread.getAllStackTraces().findAll {thread, stack ->
+            thread.name.startsWith("ContainerScheduledExecutor") || thread.name.startsWith("ContainerExecutor")
+        }.every {thread, stack ->
+            !stack.any {it.className.startsWith("org.apache.http")}
+        }
+
+        and: "the slow attribute should eventually be updated"
+        conditions.eventually {
+            assert assetStorageService.find(asset.id, true).getAttribute("slow").flatMap {it.value}.orElse(null) == "slow"
+        }
+
+        when: "another attribute is linked to the already polled URL that is answering not modified"
+        def notModifiedBefore = notModifiedResponses.get()
+        asset = assetStorageService.find(asset.id, true)
+        asset.addOrReplaceAttributes(new Attribute<>("shared4", INTEGER).addMeta(
+            new MetaItem<>(AGENT_LINK, new HTTPAgentLink(agent.id).setPath("shared").setPollingMillis(100))
+        ))
+        asset = assetStorageService.merge(asset)
+
+        then: "the new attribute should join the existing polling group and get the current value"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert asset.getAttribute("shared4").flatMap {it.value}.orElse(null) == 42
+            assert ((HTTPProtocol)agentService.getProtocolInstance(agent.id)).pollingGroups.size() == 2
+        }
+
+        and: "the following polls should be conditional again"
+        conditions.eventually {
+            assert notModifiedResponses.get() > notModifiedBefore
+        }
+
+        cleanup: "the server is stopped"
+        httpServer?.stop(0)
+        HTTPProtocol.client.set(null)
+    }
+}
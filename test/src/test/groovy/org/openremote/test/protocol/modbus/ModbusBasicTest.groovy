@@ -19,8 +19,12 @@
   */
 package org.openremote.test.protocol.modbus
 
-
+import net.solarnetwork.io.modbus.netty.msg.RegistersModbusMessage
+import net.solarnetwork.io.modbus.tcp.TcpModbusMessage
+import net.solarnetwork.io.modbus.tcp.netty.NettyTcpModbusServer
+import net.solarnetwork.io.modbus.tcp.netty.SimpleTcpModbusMessage
 import org.openremote.agent.protocol.modbus.ModbusAgentLink
+import org.openremote.agent.protocol.modbus.ModbusPollPlanner
 import org.openremote.agent.protocol.modbus.ModbusTcpAgent
 import org.openremote.agent.protocol.modbus.ModbusTcpProtocol
 import org.openremote.manager.agent.AgentService
@@ -29,12 +33,16 @@ import org.openremote.manager.asset.AssetStorageService
 import org.openremote.model.asset.agent.Agent
 import org.openremote.model.asset.agent.ConnectionStatus
 import org.openremote.model.asset.impl.ShipAsset
+import org.openremote.model.asset.impl.ThingAsset
 import org.openremote.model.attribute.Attribute
 import org.openremote.model.attribute.MetaItem
+import org.openremote.model.value.ValueType
 import org.openremote.test.ManagerContainerTrait
 import spock.lang.Specification
 import spock.util.concurrent.PollingConditions
 
+import java.util.concurrent.CopyOnWriteArrayList
+
 import static org.openremote.model.Constants.MASTER_REALM
 import static org.openremote.model.value.MetaItemType.AGENT_LINK
 
@@ -101,4 +109,118 @@ class ModbusBasicTest extends Specification implements ManagerContainerTrait {
         }
 
     }
+
+    def "Modbus contiguous registers are read with one request per poll cycle"() {
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "a local Modbus TCP slave that records each read request"
+        def registerCount = 10
+        def readRequests = new CopyOnWriteArrayList<RegistersModbusMessage>()
+        def readRequestMillis = new CopyOnWriteArrayList<Long>()
+        def slave = new NettyTcpModbusServer(56607)
+        slave.setMessageHandler({ msg, sender ->
+            RegistersModbusMessage request = msg.unwrap(RegistersModbusMessage.class)
+            if (request == null) {
+                return
+            }
+            readRequestMillis.add(System.currentTimeMillis())
+            readRequests.add(request)
+            short[] data = new short[request.getCount()]
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (short) (request.getAddress() + i)
+            }
+            def response = RegistersModbusMessage.readHoldingsResponse(request.getUnitId(), request.getAddress(), data)
+            sender.accept(msg instanceof TcpModbusMessage ? new SimpleTcpModbusMessage(((TcpModbusMessage) msg).getTransactionId(), response) : response)
+        })
+        slave.start()
+
+        when: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        and: "a Modbus agent connected to the local slave is created"
+        def agent = new ModbusTcpAgent("Modbus slave")
+        agent.setRealm(MASTER_REALM)
+        agent.setHost("localhost")
+        agent.setPort(56607)
+        agent = assetStorageService.merge(agent)
+
+        then: "the protocol instance should be connected"
+        ModbusTcpProtocol protocol
+        conditions.eventually {
+            protocol = (ModbusTcpProtocol) agentService.getProtocolInstance(agent.id)
+            assert protocol != null
+            assert agentService.getAgent(agent.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+        }
+
+        when: "an asset linking contiguous holding registers with the same refresh is created"
+        def thing = new ThingAsset("Modbus registers")
+        thing.setRealm(MASTER_REALM)
+        (1..registerCount).each { address ->
+            thing.addOrReplaceAttributes(new Attribute<>("register" + address, ValueType.INTEGER).addOrReplaceMeta(new MetaItem<>(
+                AGENT_LINK,
+                new ModbusAgentLink(
+                    id: agent.getId(),
+                    unitId: 1,
+                    refresh: 500,
+                    readType: ModbusAgentLink.ReadType.HOLDING,
+                    readValueType: ModbusAgentLink.ReadValueType.INT16,
+                    readAddress: address
+                )
+            )))
+        }
+        thing = assetStorageService.merge(thing)
+
+        then: "the registers should be planned as a single poll group and the values received"
+        ModbusPollPlanner.PollGroup group = null
+        List<ModbusPollPlanner.ReadBatch> plan = null
+        conditions.eventually {
+            synchronized (protocol.pollGroups) {
+                assert protocol.pollGroups.size() == 1
+                group = protocol.pollGroups.keySet().first()
+                assert protocol.pollGroups.get(group).points.size() == registerCount
+                plan = protocol.pollGroups.get(group).plan
+            }
+            assert plan != null
+            def asset = assetStorageService.find(thing.getId())
+            assert (1..registerCount).every { asset.getAttribute("register" + it).flatMap { it.getValue() }.isPresent() }
+        }
+        assert plan.size() == new ModbusPollPlanner().plan(group, protocol.pollGroups.get(group).points.values()).size()
+        assert plan.size() == 1
+
+        when: "several poll cycles have completed"
+        def startRequests = protocol.getReadRequestCount()
+        def startSlaveRequests = readRequests.size()
+        conditions.eventually {
+            assert readRequests.size() - startSlaveRequests >= 5 * plan.size()
+        }
+
+        then: "every read request sent by the protocol should have been received by the slave"
+        conditions.eventually {
+            assert protocol.getReadRequestCount() - startRequests == readRequests.size() - startSlaveRequests
+        }
+
+        when: "the received read requests are split into poll cycles"
+        // Requests of a cycle are sent together and cycles are 500ms apart so split the requests where they pause
+        def cycleSizes = []
+        def requestMillis = readRequestMillis.subList(startSlaveRequests, readRequestMillis.size()).toList()
+        requestMillis.eachWithIndex { millis, i ->
+            if (i == 0 || millis - requestMillis[i - 1] > 250) {
+                cycleSizes.add(0)
+            }
+            cycleSizes[-1]++
+        }
+        // The first and last cycles may only be partially captured
+        def completeCycleSizes = cycleSizes.size() > 2 ? cycleSizes[1..-2] : []
+
+        then: "each poll cycle should send exactly the planned number of read requests"
+        completeCycleSizes.size() >= 2
+        completeCycleSizes.every { it == plan.size() }
+        readRequests.subList(startSlaveRequests, readRequests.size()).every { it.getCount() == plan.get(0).count() }
+
+        cleanup: "the slave is stopped"
+        slave?.stop()
+    }
 }
@@ -0,0 +1,76 @@
+package org.openremote.test.protocol.modbus
+
+import org.openremote.agent.protocol.modbus.ModbusAgentLink
+import org.openremote.agent.protocol.modbus.ModbusPollPlanner
+import org.openremote.model.attribute.AttributeRef
+import spock.lang.Specification
+
+import static org.openremote.agent.protocol.modbus.ModbusAgentLink.ReadType
+import static org.openremote.agent.protocol.modbus.ModbusAgentLink.ReadValueType
+
+class ModbusPollPlannerTest extends Specification {
+
+    def "Linked points are coalesced into multi register reads"() {
+
+        given: "a poll planner and 500 contiguous holding register points"
+        def planner = new ModbusPollPlanner()
+        def group = new ModbusPollPlanner.PollGroup(1, ReadType.HOLDING, 1000)
+        def points = (0..<500).collect {
+            new ModbusPollPlanner.Point(new AttributeRef("asset", "point$it"), it, 1, ReadValueType.UINT16, Integer.class)
+        }
+
+        when: "the poll cycle is planned"
+        def batches = planner.plan(group, points.reverse())
+
+        then: "the points should be read in four requests within the protocol limit"
+        batches.size() == 4
+        batches.every {it.count() <= ModbusPollPlanner.MAX_REGISTERS_PER_READ}
+        batches.sum {it.points().size()} == 500
+        batches[0].tagAddress == "holding-register:0[125]"
+        batches[3].tagAddress == "holding-register:375[125]"
+        batches[1].getOffset(points[130]) == 5
+
+        when: "points with small and large gaps and multi register values are planned"
+        batches = planner.plan(group, [
+            new ModbusPollPlanner.Point(new AttributeRef("asset", "a"), 10, 2, ReadValueType.FLOAT32, Double.class),
+            new ModbusPollPlanner.Point(new AttributeRef("asset", "b"), 15, 1, ReadValueType.INT16, Integer.class),
+            new ModbusPollPlanner.Point(new AttributeRef("asset", "c"), 100, 4, ReadValueType.INT64, Long.class)
+        ])
+
+        then: "near points should be read together and distant points separately"
+        batches.size() == 2
+        batches[0].address() == 10
+        batches[0].count() == 6
+        batches[1].address() == 100
+        batches[1].count() == 4
+
+        and: "coils should use the larger bit limit"
+        planner.plan(new ModbusPollPlanner.PollGroup(1, ReadType.COIL, 1000), (0..<2500).collect {
+            new ModbusPollPlanner.Point(new AttributeRef("asset", "coil$it"), it, 1, ReadValueType.BIT, Boolean.class)
+        }).size() == 2
+
+        and: "groups should be separated by unit, read type and polling interval"
+        [
+            ModbusPollPlanner.getPollGroup(new ModbusAgentLink("agent", 1, 1000, ReadType.HOLDING, ReadValueType.INT16, 1, null, 0, null)),
+            ModbusPollPlanner.getPollGroup(new ModbusAgentLink("agent", 1, 1000, ReadType.HOLDING, ReadValueType.INT32, 5, null, 0, null)),
+            ModbusPollPlanner.getPollGroup(new ModbusAgentLink("agent", 2, 1000, ReadType.HOLDING, ReadValueType.INT16, 1, null, 0, null)),
+            ModbusPollPlanner.getPollGroup(new ModbusAgentLink("agent", 1, 500, ReadType.HOLDING, ReadValueType.INT16, 1, null, 0, null)),
+            ModbusPollPlanner.getPollGroup(new ModbusAgentLink("agent", 1, 1000, ReadType.INPUT, ReadValueType.INT16, 1, null, 0, null))
+        ].unique().size() == 4
+    }
+
+    def "Register values are decoded for each point"() {
+
+        given: "the raw registers of a read"
+        int[] registers = [0xFFFF, 0x4148, 0x0000, 0x0000, 0x4148, 0x0000, 0x0000, 0x0000, 0x0001]
+
+        expect: "the values to be decoded according to the value type"
+        ModbusPollPlanner.decodeRegisters(registers, 0, ReadValueType.INT16) == -1
+        ModbusPollPlanner.decodeRegisters(registers, 0, ReadValueType.UINT16) == 65535
+        ModbusPollPlanner.decodeRegisters(registers, 1, ReadValueType.FLOAT32) == 12.5f
+        ModbusPollPlanner.decodeRegisters(registers, 3, ReadValueType.FLOAT32_SWAP) == 12.5f
+        ModbusPollPlanner.decodeRegisters(registers, 0, ReadValueType.INT32) == -1 << 16 | 0x4148
+        ModbusPollPlanner.decodeRegisters(registers, 5, ReadValueType.INT64) == 1L
+        ModbusPollPlanner.decodeRegisters(registers, 8, ReadValueType.BIT) == true
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.mqtt
+
+import org.openremote.agent.protocol.mqtt.MQTTTopicTrie
+import spock.lang.Specification
+
+class MQTTTopicTrieTest extends Specification {
+
+    def "Topic filters are matched according to the MQTT specification"() {
+
+        given: "a topic trie with some filters"
+        def trie = new MQTTTopicTrie()
+        ["a/b/c", "a/+/c", "a/#", "+/b/#", "#", "a/b/", "+", "\$SYS/#"].each {trie.add(it)}
+
+        expect: "topics to match the correct filters"
+        trie.match("a/b/c") as Set == ["a/b/c", "a/+/c", "a/#", "+/b/#", "#"] as Set
+        trie.match("a") as Set == ["a/#", "+", "#"] as Set
+        trie.match("a/b") as Set == ["a/#", "+/b/#", "#"] as Set
+        trie.match("a/b/") as Set == ["a/b/", "a/#", "+/b/#", "#"] as Set
+        trie.match("x/y") as Set == ["#"] as Set
+        trie.match("\$SYS/broker") == ["\$SYS/#"]
+
+        when: "filters are removed"
+        def removed = trie.remove("#")
+        trie.remove("a/#")
+        trie.remove("a/b/c")
+
+        then: "the remaining filters should still match"
+        removed
+        !trie.remove("a/b/c")
+        trie.size() == 5
+        trie.match("a/b/c") as Set == ["a/+/c", "+/b/#"] as Set
+        trie.match("x/y").isEmpty()
+    }
+}
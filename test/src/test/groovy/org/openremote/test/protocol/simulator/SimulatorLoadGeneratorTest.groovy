@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.simulator
+
+import org.openremote.agent.protocol.simulator.SimulatorLoadGenerator
+import org.openremote.agent.protocol.simulator.SimulatorLoadProfile
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class SimulatorLoadGeneratorTest extends Specification {
+
+    def "Load generator produces the configured event rate and values"() {
+
+        given: "a load generator with bursts and jitter"
+        def profile = new SimulatorLoadProfile(1000d)
+            .setBurstSize(10)
+            .setJitter(0.5d)
+            .setSeed(1L)
+        def generator = new SimulatorLoadGenerator(profile, 0)
+
+        when: "the generator is polled every 10ms for 10 seconds"
+        def events = 0
+        def polls = []
+        for (long t = 0; t < TimeUnit.SECONDS.toNanos(10); t += TimeUnit.MILLISECONDS.toNanos(10)) {
+            def due = generator.poll(t)
+            polls << due
+            events += due
+        }
+
+        then: "the aggregate event rate should be close to the target"
+        Math.abs(events - 10000) < 500
+        polls.every {it % 10 == 0}
+        generator.droppedCount == 0
+
+        when: "the generator isn't polled for several seconds"
+        def due = generator.poll(TimeUnit.SECONDS.toNanos(15))
+
+        then: "at most a second of events should be due and the rest should be dropped"
+        due <= 1000
+        generator.droppedCount > 3000
+
+        when: "values are generated for each distribution"
+        def values = SimulatorLoadProfile.ValueDistribution.values().collectEntries {distribution ->
+            def valueGenerator = new SimulatorLoadGenerator(new SimulatorLoadProfile(100d).setDistribution(distribution).setMinValue(10d).setMaxValue(20d).setSeed(1L), 0)
+            [(distribution): (0..<1000).collect {valueGenerator.nextValue("attribute${it % 10}", it * 100L)}]
+        }
+
+        then: "all values should be within the range"
+        values.values().every {it.every {value -> value >= 10d && value <= 20d}}
+        Math.abs(values[SimulatorLoadProfile.ValueDistribution.UNIFORM].sum() / 1000 - 15d) < 0.5d
+        Math.abs(values[SimulatorLoadProfile.ValueDistribution.GAUSSIAN].sum() / 1000 - 15d) < 0.5d
+
+        and: "the same seed should generate the same values"
+        def generator1 = new SimulatorLoadGenerator(new SimulatorLoadProfile(100d).setSeed(42L), 0)
+        def generator2 = new SimulatorLoadGenerator(new SimulatorLoadProfile(100d).setSeed(42L), 0)
+        (0..<10).collect {generator1.nextValue("a", 0)} == (0..<10).collect {generator2.nextValue("a", 0)}
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.simulator
+
+import jakarta.persistence.EntityManager
+import org.openremote.agent.protocol.simulator.SimulatorAgent
+import org.openremote.agent.protocol.simulator.SimulatorAgentLink
+import org.openremote.agent.protocol.simulator.SimulatorProtocol
+import org.openremote.manager.agent.AgentService
+import org.openremote.manager.asset.AssetProcessingException
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.event.AttributeEventInterceptor
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.attribute.AttributeRef
+import org.openremote.model.attribute.MetaItem
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.openremote.model.Constants.MASTER_REALM
+import static org.openremote.model.value.MetaItemType.AGENT_LINK
+import static org.openremote.model.value.ValueType.NUMBER
+import static org.openremote.model.value.ValueType.TEXT
+
+class SimulatorUpdateFilterTest extends Specification implements ManagerContainerTrait {
+
+    def "Check inbound update filters and batched updates with noisy simulator values"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 0.2, delay: 0.2)
+
+        and: "the container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def agentService = container.getService(AgentService.class)
+
+        and: "an interceptor that counts the events reaching the processing pipeline"
+        Map<String, AtomicInteger> eventCounts = new ConcurrentHashMap<>()
+        assetProcessingService.addEventInterceptor(new AttributeEventInterceptor() {
+            @Override
+            boolean intercept(EntityManager em, AttributeEvent event) throws AssetProcessingException {
+                if (event.source == AgentService.class.simpleName) {
+                    eventCounts.computeIfAbsent(event.name, {new AtomicInteger()}).incrementAndGet()
+                }
+                return false
+            }
+        })
+
+        when: "a simulator agent is created"
+        def agent = assetStorageService.merge(new SimulatorAgent("Simulator agent").setRealm(MASTER_REALM))
+
+        and: "an asset is created with unfiltered and filtered linked attributes"
+        def asset = new ThingAsset("Noisy sensor").setRealm(MASTER_REALM)
+        asset.addOrReplaceAttributes(
+            new Attribute<>("unfiltered", NUMBER).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id))
+            ),
+            new Attribute<>("deadband", NUMBER).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id).setDeadband(0.5d))
+            ),
+            new Attribute<>("deadbandPercent", NUMBER).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id).setDeadbandPercent(5d))
+            ),
+            new Attribute<>("status", TEXT).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id).setOnlyOnChange(true))
+            )
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "the attributes should be linked"
+        SimulatorProtocol protocol
+        conditions.eventually {
+            protocol = agentService.getProtocolInstance(agent.id) as SimulatorProtocol
+            assert protocol != null
+            assert protocol.linkedAttributes.size() == 4
+        }
+
+        when: "the simulator reports noisy values around a constant level with a single step change"
+        def random = new Random(1)
+        def cycles = 100
+        for (i in 0..<cycles) {
+            def level = i < 50 ? 20d : 30d
+            def timestamp = System.currentTimeMillis()
+            protocol.updateSensors(["unfiltered", "deadband", "deadbandPercent"].collect {
+                new AttributeEvent(new AttributeRef(asset.id, it), level + (random.nextDouble() - 0.5d) * 0.2d, timestamp)
+            } + [new AttributeEvent(new AttributeRef(asset.id, "status"), i < 50 ? "OK" : "ALARM", timestamp)])
+            Thread.sleep(5)
+        }
+
+        then: "every unfiltered value should reach the pipeline"
+        conditions.eventually {
+            assert eventCounts["unfiltered"]?.get() == cycles
+        }
+
+        and: "only the first value and the step change should pass the filters"
+        eventCounts["deadband"].get() == 2
+        eventCounts["deadbandPercent"].get() == 2
+        eventCounts["status"].get() == 2
+
+        and: "the filtered attributes should reflect the new level"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert Math.abs(asset.getAttribute("deadband").flatMap {it.value}.orElse(0d) - 30d) < 0.5d
+            assert asset.getAttribute("status").flatMap {it.value}.orElse(null) == "ALARM"
+        }
+    }
+
+    def "Check minimum update interval filter and writes to filtered linked attributes"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 0.2, delay: 0.2)
+
+        and: "the container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def agentService = container.getService(AgentService.class)
+
+        and: "an interceptor that counts the events reaching the processing pipeline"
+        Map<String, AtomicInteger> eventCounts = new ConcurrentHashMap<>()
+        assetProcessingService.addEventInterceptor(new AttributeEventInterceptor() {
+            @Override
+            boolean intercept(EntityManager em, AttributeEvent event) throws AssetProcessingException {
+                if (event.source == AgentService.class.simpleName) {
+                    eventCounts.computeIfAbsent(event.name, {new AtomicInteger()}).incrementAndGet()
+                }
+                return false
+            }
+        })
+
+        when: "a simulator agent is created"
+        def agent = assetStorageService.merge(new SimulatorAgent("Simulator agent").setRealm(MASTER_REALM))
+
+        and: "an asset is created with rate limited linked attributes"
+        def asset = new ThingAsset("Fast sensor").setRealm(MASTER_REALM)
+        asset.addOrReplaceAttributes(
+            new Attribute<>("minUpdate", NUMBER).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id).setMinUpdateMillis(200))
+            ),
+            new Attribute<>("written", NUMBER).addMeta(
+                new MetaItem<>(AGENT_LINK, new SimulatorAgentLink(agent.id).setMinUpdateMillis(60000).setUpdateOnWrite(true))
+            )
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "the attributes should be linked"
+        SimulatorProtocol protocol
+        conditions.eventually {
+            protocol = agentService.getProtocolInstance(agent.id) as SimulatorProtocol
+            assert protocol != null
+            assert protocol.linkedAttributes.size() == 2
+        }
+
+        when: "the simulator reports a value every 20ms for one second"
+        def startTimestamp = System.currentTimeMillis() + 1000
+        for (i in 0..<50) {
+            protocol.updateSensors([new AttributeEvent(new AttributeRef(asset.id, "minUpdate"), i as double, startTimestamp + i * 20)])
+        }
+
+        then: "only one value per 200ms interval should reach the pipeline"
+        conditions.eventually {
+            assert eventCounts["minUpdate"]?.get() == 5
+        }
+
+        when: "the simulator reports a value for the written attribute after the minimum update interval"
+        protocol.updateSensor(new AttributeRef(asset.id, "written"), 1d, System.currentTimeMillis() + 61000)
+
+        then: "the value should be stored"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert asset.getAttribute("written").flatMap {it.value}.orElse(null) == 1d
+        }
+
+        when: "the attribute is written within the minimum update interval"
+        assetProcessingService.sendAttributeEvent(new AttributeEvent(asset.id, "written", 5d))
+
+        then: "the written value should still be applied"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert asset.getAttribute("written").flatMap {it.value}.orElse(null) == 5d
+        }
+
+        when: "the simulator reports a value straight after the write"
+        def writtenCount = eventCounts["written"].get()
+        protocol.updateSensor(new AttributeRef(asset.id, "written"), 6d)
+
+        then: "the value should be filtered against the written value"
+        new PollingConditions(timeout: 1, initialDelay: 0.5).eventually {
+            assert eventCounts["written"].get() == writtenCount
+            asset = assetStorageService.find(asset.id, true)
+            assert asset.getAttribute("written").flatMap {it.value}.orElse(null) == 5d
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2025, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.snmp
+
+import org.openremote.agent.protocol.snmp.SNMPAgent
+import org.openremote.agent.protocol.snmp.SNMPAgentLink
+import org.openremote.agent.protocol.snmp.SNMPProtocol
+import org.openremote.manager.agent.AgentService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.model.Constants
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.asset.impl.ThingAsset
+import org.openremote.model.attribute.Attribute
+import org.openremote.model.attribute.MetaItem
+import org.openremote.test.ManagerContainerTrait
+import org.snmp4j.CommandResponder
+import org.snmp4j.CommandResponderEvent
+import org.snmp4j.PDU
+import org.snmp4j.PDUv1
+import org.snmp4j.Snmp
+import org.snmp4j.mp.StatusInformation
+import org.snmp4j.smi.*
+import org.snmp4j.transport.DefaultUdpTransportMapping
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+import static org.openremote.model.value.MetaItemType.AGENT_LINK
+import static org.openremote.model.value.ValueType.JSON_OBJECT
+import static org.openremote.model.value.ValueType.NUMBER
+
+class SNMPProtocolTest extends Specification implements ManagerContainerTrait {
+
+    def "Check SNMP polling of linked OIDs"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "an in process SNMP agent with some scalar values and a table"
+        def scalarCount = 100
+        def tableRows = 60
+        def values = new TreeMap<OID, Variable>()
+        (1..scalarCount).each {values.put(new OID("1.3.6.1.4.1.9999.1.$it.0"), new Integer32(it))}
+        (1..tableRows).each {values.put(new OID("1.3.6.1.4.1.9999.2.1.$it"), new OctetString("row$it"))}
+        List<PDU> requests = new CopyOnWriteArrayList<>()
+        def responding = true
+        def responder = {CommandResponderEvent event ->
+            PDU request = event.getPDU()
+            if (!responding || request == null) {
+                return
+            }
+            requests.add(request)
+            PDU response = new PDU()
+            response.setType(PDU.RESPONSE)
+            response.setRequestID(request.getRequestID())
+            request.getVariableBindings().each {vb ->
+                if (request.type == PDU.GET) {
+                    response.add(new VariableBinding(vb.oid, values.get(vb.oid) ?: Null.noSuchObject))
+                } else {
+                    def oid = vb.oid
+                    def repetitions = request.type == PDU.GETBULK ? request.maxRepetitions : 1
+                    for (i in 0..<repetitions) {
+                        def next = values.higherKey(oid)
+                        if (next == null) {
+                            response.add(new VariableBinding(oid, Null.endOfMibView))
+                            break
+                        }
+                        response.add(new VariableBinding(next, values.get(next)))
+                        oid = next
+                    }
+                }
+            }
+            event.messageDispatcher.returnResponsePdu(event.messageProcessingModel, event.securityModel, event.securityName,
+                event.securityLevel, response, event.maxSizeResponsePDU, event.stateReference, new StatusInformation())
+            event.setProcessed(true)
+        } as CommandResponder
+        def transport = new DefaultUdpTransportMapping(new UdpAddress("127.0.0.1/0"))
+        def snmpAgent = new Snmp(transport)
+        snmpAgent.addCommandResponder(responder)
+        snmpAgent.listen()
+        def snmpAgentPort = transport.listenAddress.port
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        when: "an SNMP agent is created that polls the in process SNMP agent"
+        def agent = new SNMPAgent("Test agent")
+            .setSNMPVersion(SNMPAgent.SNMPVersion.V2c)
+            .setSNMPMaxRepetitions(25)
+            .setSNMPTimeoutMillis(200)
+            .setSNMPRetries(1)
+            .setRealm(Constants.MASTER_REALM)
+            .setBindHost("127.0.0.1")
+            .setBindPort(findEphemeralPort())
+            .setHost("127.0.0.1")
+            .setPort(snmpAgentPort)
+            .setPollingMillis(1000)
+        agent = assetStorageService.merge(agent)
+
+        then: "the protocol instance should be created and should become connected"
+        conditions.eventually {
+            assert agentService.getProtocolInstance(agent.id) != null
+            assert agentService.agents.get(agent.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+        }
+
+        when: "an asset is created with attributes linked to the scalar OIDs and the table"
+        def startTime = System.currentTimeMillis()
+        def asset = new ThingAsset("Test Asset").setParent(agent)
+        (1..scalarCount).each {
+            asset.addOrReplaceAttributes(
+                new Attribute<>("value$it", NUMBER).addMeta(new MetaItem<>(AGENT_LINK, new SNMPAgentLink(agent.id, "1.3.6.1.4.1.9999.1.$it.0")))
+            )
+        }
+        asset.addOrReplaceAttributes(
+            new Attribute<>("table", JSON_OBJECT).addMeta(new MetaItem<>(AGENT_LINK, new SNMPAgentLink(agent.id, "1.3.6.1.4.1.9999.2").setWalk(true)))
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "all linked attributes should be updated"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert (1..scalarCount).every {i -> asset.getAttribute("value$i").flatMap {it.value}.orElse(null) == i}
+            assert asset.getAttribute("table").flatMap {it.value}.map {(it as Map).size()}.orElse(0) == tableRows
+        }
+        def latency = System.currentTimeMillis() - startTime
+        getLOG().info("All linked OIDs updated ${latency}ms after linking")
+        latency < 5000
+
+        and: "each poll cycle should request the scalar OIDs in a few GET requests"
+        conditions.eventually {
+            def gets = requests.findAll {it.type == PDU.GET}
+            assert gets.size() >= 4
+            assert gets[-4..-1].sum {it.size()} == scalarCount
+            assert gets.every {it.size() <= SNMPProtocol.MAX_OIDS_PER_REQUEST}
+        }
+
+        and: "the table should be walked with GETBULK requests using the max repetitions"
+        def bulks = requests.findAll {it.type == PDU.GETBULK}
+        !bulks.isEmpty()
+        bulks.every {it.maxRepetitions == 25}
+        requests.every {it.type == PDU.GET || it.type == PDU.GETBULK}
+
+        when: "the SNMP agent stops responding"
+        responding = false
+
+        then: "the agent should back off and indicate it is waiting"
+        conditions.eventually {
+            assert agentService.agents.get(agent.id).getAgentStatus().orElse(null) == ConnectionStatus.WAITING
+        }
+
+        when: "the SNMP agent responds again"
+        def requestCount = (agentService.getProtocolInstance(agent.id) as SNMPProtocol).getRequestCount()
+        responding = true
+
+        then: "polling should resume and the agent should become connected"
+        conditions.eventually {
+            assert (agentService.getProtocolInstance(agent.id) as SNMPProtocol).getRequestCount() > requestCount
+            assert agentService.agents.get(agent.id).getAgentStatus().orElse(null) == ConnectionStatus.CONNECTED
+        }
+
+        cleanup: "the in process SNMP agent is stopped"
+        snmpAgent?.close()
+    }
+
+    def "Check SNMPv1 polling isolates OIDs that fail a request"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "an in process SNMPv1 agent that fails a whole GET request with noSuchName when any OID is missing"
+        def values = new TreeMap<OID, Variable>()
+        (1..10).each {values.put(new OID("1.3.6.1.4.1.9999.1.$it.0"), new Integer32(it))}
+        def missingOid = new OID("1.3.6.1.4.1.9999.1.99.0")
+        List<PDU> requests = new CopyOnWriteArrayList<>()
+        def responder = {CommandResponderEvent event ->
+            PDU request = event.getPDU()
+            if (request == null) {
+                return
+            }
+            requests.add(request)
+            PDU response = request instanceof PDUv1 ? new PDUv1() : new PDU()
+            response.setType(PDU.RESPONSE)
+            response.setRequestID(request.getRequestID())
+            request.getVariableBindings().each {vb -> response.add(new VariableBinding(vb.oid, values.get(vb.oid) ?: new Null()))}
+            def missingIndex = request.getVariableBindings().findIndexOf {!values.containsKey(it.oid)}
+            if (missingIndex >= 0) {
+                response.setErrorStatus(PDU.noSuchName)
+                response.setErrorIndex(missingIndex + 1)
+            }
+            event.messageDispatcher.returnResponsePdu(event.messageProcessingModel, event.securityModel, event.securityName,
+                event.securityLevel, response, event.maxSizeResponsePDU, event.stateReference, new StatusInformation())
+            event.setProcessed(true)
+        } as CommandResponder
+        def transport = new DefaultUdpTransportMapping(new UdpAddress("127.0.0.1/0"))
+        def snmpAgent = new Snmp(transport)
+        snmpAgent.addCommandResponder(responder)
+        snmpAgent.listen()
+        def snmpAgentPort = transport.listenAddress.port
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        when: "an SNMPv1 agent is created that polls the in process SNMP agent"
+        def agent = new SNMPAgent("Test agent")
+            .setSNMPVersion(SNMPAgent.SNMPVersion.V1)
+            .setSNMPTimeoutMillis(200)
+            .setSNMPRetries(1)
+            .setRealm(Constants.MASTER_REALM)
+            .setBindHost("127.0.0.1")
+            .setBindPort(findEphemeralPort())
+            .setHost("127.0.0.1")
+            .setPort(snmpAgentPort)
+            .setPollingMillis(500)
+        agent = assetStorageService.merge(agent)
+
+        and: "an asset is created with attributes linked to existing OIDs and one missing OID in the middle"
+        def asset = new ThingAsset("Test Asset").setParent(agent)
+        (1..5).each {
+            asset.addOrReplaceAttributes(
+                new Attribute<>("value$it", NUMBER).addMeta(new MetaItem<>(AGENT_LINK, new SNMPAgentLink(agent.id, "1.3.6.1.4.1.9999.1.$it.0")))
+            )
+        }
+        asset.addOrReplaceAttributes(
+            new Attribute<>("missing", NUMBER).addMeta(new MetaItem<>(AGENT_LINK, new SNMPAgentLink(agent.id, missingOid.toString())))
+        )
+        (6..10).each {
+            asset.addOrReplaceAttributes(
+                new Attribute<>("value$it", NUMBER).addMeta(new MetaItem<>(AGENT_LINK, new SNMPAgentLink(agent.id, "1.3.6.1.4.1.9999.1.$it.0")))
+            )
+        }
+        asset = assetStorageService.merge(asset)
+
+        then: "all the existing OIDs should still be polled"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.id, true)
+            assert (1..10).every {i -> asset.getAttribute("value$i").flatMap {it.value}.orElse(null) == i}
+        }
+
+        and: "subsequent poll cycles should request the missing OID on its own"
+        conditions.eventually {
+            def gets = requests.findAll {it.type == PDU.GET}
+            assert gets.size() >= 6
+            def lastCycle = gets[-2..-1]
+            assert lastCycle.find {it.size() == 1 && it.get(0).oid == missingOid} != null
+            assert lastCycle.find {it.size() == 10 && it.variableBindings.every {vb -> values.containsKey(vb.oid)}} != null
+        }
+
+        cleanup: "the in process SNMP agent is stopped"
+        snmpAgent?.close()
+    }
+}